@@ -0,0 +1,139 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Consts;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.nio.codecs.ChunkDecoder;
+import org.apache.http.impl.nio.codecs.ChunkEncoder;
+import org.apache.http.impl.nio.reactor.SessionInputBufferImpl;
+import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link ChunkEncoder} and {@link ChunkDecoder} throughput
+ * for a content body transferred in chunks of the given size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChunkCodecBenchmark {
+
+    @Param({"16", "64", "1024", "8192"})
+    public int chunkSize;
+
+    @Param({"65536"})
+    public int contentLength;
+
+    private ByteBuffer content;
+    private ByteBuffer dst;
+
+    private MemoryChannel outchannel;
+    private SessionOutputBufferImpl outbuf;
+
+    private MemoryChannel inchannel;
+    private SessionInputBufferImpl inbuf;
+
+    private HttpTransportMetricsImpl metrics;
+
+    @Setup
+    public void setup() {
+        final byte[] data = new byte[this.contentLength];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + (i % 26));
+        }
+        this.content = ByteBuffer.wrap(data);
+        this.dst = ByteBuffer.allocate(this.chunkSize);
+
+        this.outchannel = new MemoryChannel();
+        this.outbuf = new SessionOutputBufferImpl(8 * 1024, 256);
+
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        for (int off = 0; off < data.length; off += this.chunkSize) {
+            final int len = Math.min(this.chunkSize, data.length - off);
+            final byte[] chunkHeader = (Integer.toHexString(len) + "\r\n").getBytes(Consts.ASCII);
+            encoded.write(chunkHeader, 0, chunkHeader.length);
+            encoded.write(data, off, len);
+            encoded.write('\r');
+            encoded.write('\n');
+        }
+        final byte[] lastChunk = "0\r\n\r\n".getBytes(Consts.ASCII);
+        encoded.write(lastChunk, 0, lastChunk.length);
+        this.inchannel = new MemoryChannel(encoded.toByteArray());
+        this.inbuf = new SessionInputBufferImpl(8 * 1024, 256);
+
+        this.metrics = new HttpTransportMetricsImpl();
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        this.outchannel.reset();
+        final ChunkEncoder encoder = new ChunkEncoder(this.outchannel, this.outbuf, this.metrics);
+        final ByteBuffer src = this.content.duplicate();
+        final int limit = src.limit();
+        while (src.position() < limit) {
+            src.limit(Math.min(src.position() + this.chunkSize, limit));
+            encoder.write(src);
+            if (this.outbuf.hasData()) {
+                this.outbuf.flush(this.outchannel);
+            }
+        }
+        encoder.complete();
+        while (this.outbuf.hasData()) {
+            this.outbuf.flush(this.outchannel);
+        }
+        return this.outchannel.getBytesWritten();
+    }
+
+    @Benchmark
+    public long decode() throws IOException {
+        this.inchannel.reset();
+        final ChunkDecoder decoder = new ChunkDecoder(this.inchannel, this.inbuf, this.metrics);
+        long total = 0;
+        while (!decoder.isCompleted()) {
+            this.dst.clear();
+            final int n = decoder.read(this.dst);
+            if (n > 0) {
+                total += n;
+            }
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.pool.AbstractConcurrentConnPool;
+import org.apache.http.pool.AbstractConnPool;
+import org.apache.http.pool.ConnFactory;
+import org.apache.http.pool.ConnPool;
+import org.apache.http.pool.PoolEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures lease / release throughput of {@link AbstractConnPool} and
+ * {@link AbstractConcurrentConnPool} under contention. With a low
+ * per route limit threads have to wait for connections released by
+ * other threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class ConnPoolBenchmark {
+
+    static class BenchmarkConnection {
+
+        private volatile boolean closed;
+
+        void close() {
+            this.closed = true;
+        }
+
+        boolean isClosed() {
+            return this.closed;
+        }
+
+    }
+
+    static class BenchmarkConnFactory implements ConnFactory<String, BenchmarkConnection> {
+
+        public BenchmarkConnection create(final String route) throws IOException {
+            return new BenchmarkConnection();
+        }
+
+    }
+
+    static class BenchmarkPoolEntry extends PoolEntry<String, BenchmarkConnection> {
+
+        BenchmarkPoolEntry(final String route, final BenchmarkConnection conn) {
+            super(null, route, conn);
+        }
+
+        @Override
+        public void close() {
+            getConnection().close();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return getConnection().isClosed();
+        }
+
+    }
+
+    static class LockingConnPool
+            extends AbstractConnPool<String, BenchmarkConnection, BenchmarkPoolEntry> {
+
+        LockingConnPool(final int defaultMaxPerRoute, final int maxTotal) {
+            super(new BenchmarkConnFactory(), defaultMaxPerRoute, maxTotal);
+        }
+
+        @Override
+        protected BenchmarkPoolEntry createEntry(final String route, final BenchmarkConnection conn) {
+            return new BenchmarkPoolEntry(route, conn);
+        }
+
+    }
+
+    static class ConcurrentConnPool
+            extends AbstractConcurrentConnPool<String, BenchmarkConnection, BenchmarkPoolEntry> {
+
+        ConcurrentConnPool(final int defaultMaxPerRoute, final int maxTotal) {
+            super(new BenchmarkConnFactory(), defaultMaxPerRoute, maxTotal);
+        }
+
+        @Override
+        protected BenchmarkPoolEntry createEntry(final String route, final BenchmarkConnection conn) {
+            return new BenchmarkPoolEntry(route, conn);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class RouteState {
+
+        private static final AtomicInteger COUNT = new AtomicInteger();
+
+        private String route;
+
+        @Setup
+        public void setup(final ConnPoolBenchmark benchmark) {
+            this.route = benchmark.routes[COUNT.getAndIncrement() % benchmark.routes.length];
+        }
+
+    }
+
+    @Param({"locking", "concurrent"})
+    public String pool;
+
+    @Param({"1", "4"})
+    public int routeCount;
+
+    @Param({"4", "64"})
+    public int maxPerRoute;
+
+    private ConnPool<String, BenchmarkPoolEntry> connpool;
+    private String[] routes;
+
+    @Setup
+    public void setup() {
+        final int maxTotal = this.maxPerRoute * this.routeCount;
+        if (this.pool.equals("concurrent")) {
+            this.connpool = new ConcurrentConnPool(this.maxPerRoute, maxTotal);
+        } else {
+            this.connpool = new LockingConnPool(this.maxPerRoute, maxTotal);
+        }
+        this.routes = new String[this.routeCount];
+        for (int i = 0; i < this.routes.length; i++) {
+            this.routes[i] = "route" + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (this.connpool instanceof LockingConnPool) {
+            ((LockingConnPool) this.connpool).shutdown();
+        } else {
+            ((ConcurrentConnPool) this.connpool).shutdown();
+        }
+    }
+
+    @Benchmark
+    public Object leaseRelease(
+            final RouteState state) throws InterruptedException, ExecutionException {
+        final BenchmarkPoolEntry entry = this.connpool.lease(state.route, null, null).get();
+        this.connpool.release(entry, true);
+        return entry;
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.HeaderGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link HeaderGroup} lookup performance on a header set
+ * typical of a browser request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeaderGroupBenchmark {
+
+    private HeaderGroup headergroup;
+
+    @Setup
+    public void setup() {
+        this.headergroup = new HeaderGroup();
+        this.headergroup.addHeader(new BasicHeader("Host", "www.example.com"));
+        this.headergroup.addHeader(new BasicHeader("User-Agent", "Mozilla/5.0"));
+        this.headergroup.addHeader(new BasicHeader("Accept", "text/html,*/*;q=0.8"));
+        this.headergroup.addHeader(new BasicHeader("Accept-Language", "en-US,en;q=0.5"));
+        this.headergroup.addHeader(new BasicHeader("Accept-Encoding", "gzip, deflate"));
+        this.headergroup.addHeader(new BasicHeader("Cookie", "JSESSIONID=1A530637289A03B0"));
+        this.headergroup.addHeader(new BasicHeader("Cookie", "lang=en"));
+        this.headergroup.addHeader(new BasicHeader("Referer", "http://www.example.com/"));
+        this.headergroup.addHeader(new BasicHeader("Cache-Control", "max-age=0"));
+        this.headergroup.addHeader(new BasicHeader("Via", "1.1 proxy1"));
+        this.headergroup.addHeader(new BasicHeader("Via", "1.1 proxy2"));
+        this.headergroup.addHeader(new BasicHeader("Connection", "keep-alive"));
+    }
+
+    @Benchmark
+    public Header getFirstHeader() {
+        return this.headergroup.getFirstHeader("connection");
+    }
+
+    @Benchmark
+    public Header getLastHeader() {
+        return this.headergroup.getLastHeader("Host");
+    }
+
+    @Benchmark
+    public Header[] getHeaders() {
+        return this.headergroup.getHeaders("Via");
+    }
+
+    @Benchmark
+    public boolean containsHeaderMissing() {
+        return this.headergroup.containsHeader("Transfer-Encoding");
+    }
+
+    @Benchmark
+    public Header getCondensedHeader() {
+        return this.headergroup.getCondensedHeader("Cookie");
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicHeaderValueParser;
+import org.apache.http.message.HeaderElementCursor;
+import org.apache.http.message.ParserCursor;
+import org.apache.http.util.CharArrayBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link BasicHeaderValueParser} performance parsing typical
+ * header values into elements and parameters and compares it with visiting
+ * them with a {@link HeaderElementCursor}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeaderValueParserBenchmark {
+
+    @Param({
+        "keep-alive",
+        "text/html; charset=ISO-8859-1",
+        "no-cache, no-store, max-age=0, must-revalidate",
+        "gzip;q=1.0, identity; q=0.5, *;q=0"
+    })
+    public String value;
+
+    private BasicHeaderValueParser parser;
+    private CharArrayBuffer buffer;
+    private HeaderElementCursor cursor;
+
+    @Setup
+    public void setup() {
+        this.parser = BasicHeaderValueParser.INSTANCE;
+        this.buffer = new CharArrayBuffer(this.value.length());
+        this.buffer.append(this.value);
+        this.cursor = new HeaderElementCursor();
+    }
+
+    @Benchmark
+    public HeaderElement[] parseElements() {
+        return this.parser.parseElements(this.buffer, new ParserCursor(0, this.buffer.length()));
+    }
+
+    @Benchmark
+    public NameValuePair[] parseParameters() {
+        return this.parser.parseParameters(this.buffer, new ParserCursor(0, this.buffer.length()));
+    }
+
+    @Benchmark
+    public int visitElements() {
+        this.cursor.reset(this.buffer, 0, this.buffer.length());
+        int n = 0;
+        while (this.cursor.nextElement()) {
+            n++;
+            while (this.cursor.nextParameter()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+}
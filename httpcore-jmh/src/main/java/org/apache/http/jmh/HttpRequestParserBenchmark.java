@@ -0,0 +1,139 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Consts;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.nio.reactor.SessionInputBufferImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures performance of the blocking and the non-blocking
+ * <code>DefaultHttpRequestParser</code> and <code>AsciiHttpRequestParser</code>
+ * parsing a typical browser request head.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HttpRequestParserBenchmark {
+
+    static final String REQUEST =
+        "GET /app/index.html?q=httpcore&lang=en HTTP/1.1\r\n" +
+        "Host: www.example.com\r\n" +
+        "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:20.0) Gecko/20100101 Firefox/20.0\r\n" +
+        "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" +
+        "Accept-Language: en-US,en;q=0.5\r\n" +
+        "Accept-Encoding: gzip, deflate\r\n" +
+        "Cookie: JSESSIONID=1A530637289A03B07199A44E8D531427; lang=en\r\n" +
+        "Referer: http://www.example.com/app/\r\n" +
+        "Cache-Control: max-age=0\r\n" +
+        "Connection: keep-alive\r\n" +
+        "\r\n";
+
+    private ByteArrayInputStream instream;
+    private org.apache.http.impl.io.DefaultHttpRequestParser blockingParser;
+    private ByteArrayInputStream asciiInstream;
+    private org.apache.http.impl.io.AsciiHttpRequestParser blockingAsciiParser;
+
+    private MemoryChannel channel;
+    private org.apache.http.impl.nio.codecs.DefaultHttpRequestParser nioParser;
+    private org.apache.http.impl.nio.codecs.AsciiHttpRequestParser nioAsciiParser;
+
+    @Setup
+    public void setup() {
+        final byte[] content = REQUEST.getBytes(Consts.ASCII);
+
+        this.instream = new ByteArrayInputStream(content);
+        final org.apache.http.impl.io.SessionInputBufferImpl inbuffer =
+            new org.apache.http.impl.io.SessionInputBufferImpl(
+                new HttpTransportMetricsImpl(), 8 * 1024, -1, null, null);
+        inbuffer.bind(this.instream);
+        this.blockingParser = new org.apache.http.impl.io.DefaultHttpRequestParser(inbuffer);
+
+        this.asciiInstream = new ByteArrayInputStream(content);
+        final org.apache.http.impl.io.SessionInputBufferImpl asciiInbuffer =
+            new org.apache.http.impl.io.SessionInputBufferImpl(
+                new HttpTransportMetricsImpl(), 8 * 1024, -1, null, null);
+        asciiInbuffer.bind(this.asciiInstream);
+        this.blockingAsciiParser = new org.apache.http.impl.io.AsciiHttpRequestParser(asciiInbuffer);
+
+        this.channel = new MemoryChannel(content);
+        this.nioParser = new org.apache.http.impl.nio.codecs.DefaultHttpRequestParser(
+                new SessionInputBufferImpl(8 * 1024, 256));
+        this.nioAsciiParser = new org.apache.http.impl.nio.codecs.AsciiHttpRequestParser(
+                new SessionInputBufferImpl(8 * 1024, 256));
+    }
+
+    @Benchmark
+    public HttpRequest parseBlocking() throws IOException, HttpException {
+        this.instream.reset();
+        return this.blockingParser.parse();
+    }
+
+    @Benchmark
+    public HttpRequest parseNonBlocking() throws IOException, HttpException {
+        this.channel.reset();
+        this.nioParser.reset();
+        HttpRequest request;
+        do {
+            this.nioParser.fillBuffer(this.channel);
+            request = this.nioParser.parse();
+        } while (request == null);
+        return request;
+    }
+
+    @Benchmark
+    public HttpRequest parseBlockingAscii() throws IOException, HttpException {
+        this.asciiInstream.reset();
+        return this.blockingAsciiParser.parse();
+    }
+
+    @Benchmark
+    public HttpRequest parseNonBlockingAscii() throws IOException, HttpException {
+        this.channel.reset();
+        this.nioAsciiParser.reset();
+        HttpRequest request;
+        do {
+            this.nioAsciiParser.fillBuffer(this.channel);
+            request = this.nioAsciiParser.parse();
+        } while (request == null);
+        return request;
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+
+/**
+ * In-memory {@link ByteChannel} that replays fixed content on read
+ * and discards all data written to it. Used to isolate parsing and
+ * codec costs from the network stack.
+ */
+final class MemoryChannel implements ByteChannel {
+
+    private final ByteBuffer content;
+    private ByteBuffer src;
+    private long bytesWritten;
+
+    MemoryChannel(final byte[] content) {
+        super();
+        this.content = ByteBuffer.wrap(content).asReadOnlyBuffer();
+        this.src = this.content.duplicate();
+    }
+
+    MemoryChannel() {
+        this(new byte[0]);
+    }
+
+    /**
+     * Rewinds the content back to the beginning and resets the count
+     * of bytes written.
+     */
+    void reset() {
+        this.src = this.content.duplicate();
+        this.bytesWritten = 0;
+    }
+
+    long getBytesWritten() {
+        return this.bytesWritten;
+    }
+
+    public int read(final ByteBuffer dst) throws IOException {
+        if (!this.src.hasRemaining()) {
+            return -1;
+        }
+        final int n = Math.min(this.src.remaining(), dst.remaining());
+        final int limit = this.src.limit();
+        this.src.limit(this.src.position() + n);
+        dst.put(this.src);
+        this.src.limit(limit);
+        return n;
+    }
+
+    public int write(final ByteBuffer src) throws IOException {
+        final int n = src.remaining();
+        src.position(src.limit());
+        this.bytesWritten += n;
+        return n;
+    }
+
+    public boolean isOpen() {
+        return true;
+    }
+
+    public void close() throws IOException {
+    }
+
+}
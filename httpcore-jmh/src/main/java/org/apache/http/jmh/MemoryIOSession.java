@@ -0,0 +1,182 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.SessionBufferStatus;
+
+/**
+ * {@link IOSession} connected to a peer session through in-memory buffers.
+ * Data written to the channel of one session becomes available for reading
+ * from the channel of its peer.
+ */
+final class MemoryIOSession implements IOSession {
+
+    private final ByteBuffer inbound;
+    private final ByteChannel channel;
+    private final Map<String, Object> attributes;
+
+    private MemoryIOSession peer;
+    private int eventMask;
+    private int status;
+    private int socketTimeout;
+    private SessionBufferStatus bufferStatus;
+
+    MemoryIOSession(final int buffersize) {
+        super();
+        this.inbound = ByteBuffer.allocate(buffersize);
+        this.channel = new PipeChannel();
+        this.attributes = new HashMap<String, Object>();
+        this.status = ACTIVE;
+    }
+
+    /**
+     * Connects two sessions with each other.
+     */
+    static void connect(final MemoryIOSession session1, final MemoryIOSession session2) {
+        session1.peer = session2;
+        session2.peer = session1;
+    }
+
+    public ByteChannel channel() {
+        return this.channel;
+    }
+
+    public SocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    public SocketAddress getLocalAddress() {
+        return null;
+    }
+
+    public int getEventMask() {
+        return this.eventMask;
+    }
+
+    public void setEventMask(final int ops) {
+        this.eventMask = ops;
+    }
+
+    public void setEvent(final int op) {
+        this.eventMask |= op;
+    }
+
+    public void clearEvent(final int op) {
+        this.eventMask &= ~op;
+    }
+
+    public void close() {
+        this.status = CLOSED;
+    }
+
+    public void shutdown() {
+        this.status = CLOSED;
+    }
+
+    public int getStatus() {
+        return this.status;
+    }
+
+    public boolean isClosed() {
+        return this.status == CLOSED;
+    }
+
+    public int getSocketTimeout() {
+        return this.socketTimeout;
+    }
+
+    public void setSocketTimeout(final int timeout) {
+        this.socketTimeout = timeout;
+    }
+
+    public void setBufferStatus(final SessionBufferStatus status) {
+        this.bufferStatus = status;
+    }
+
+    public boolean hasBufferedInput() {
+        return this.bufferStatus != null && this.bufferStatus.hasBufferedInput();
+    }
+
+    public boolean hasBufferedOutput() {
+        return this.bufferStatus != null && this.bufferStatus.hasBufferedOutput();
+    }
+
+    public void setAttribute(final String name, final Object obj) {
+        this.attributes.put(name, obj);
+    }
+
+    public Object getAttribute(final String name) {
+        return this.attributes.get(name);
+    }
+
+    public Object removeAttribute(final String name) {
+        return this.attributes.remove(name);
+    }
+
+    private class PipeChannel implements ByteChannel {
+
+        public int read(final ByteBuffer dst) throws IOException {
+            final ByteBuffer src = MemoryIOSession.this.inbound;
+            src.flip();
+            final int n = Math.min(src.remaining(), dst.remaining());
+            final int limit = src.limit();
+            src.limit(src.position() + n);
+            dst.put(src);
+            src.limit(limit);
+            src.compact();
+            return n;
+        }
+
+        public int write(final ByteBuffer src) throws IOException {
+            final ByteBuffer dst = MemoryIOSession.this.peer.inbound;
+            final int n = Math.min(src.remaining(), dst.remaining());
+            final int limit = src.limit();
+            src.limit(src.position() + n);
+            dst.put(src);
+            src.limit(limit);
+            return n;
+        }
+
+        public boolean isOpen() {
+            return !isClosed();
+        }
+
+        public void close() throws IOException {
+            MemoryIOSession.this.close();
+        }
+
+    }
+
+}
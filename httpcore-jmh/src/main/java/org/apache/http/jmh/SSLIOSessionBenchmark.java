@@ -0,0 +1,145 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.apache.http.nio.reactor.EventMask;
+import org.apache.http.nio.reactor.ssl.SSLIOSession;
+import org.apache.http.nio.reactor.ssl.SSLMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link SSLIOSession} wrap / unwrap throughput. A client and
+ * a server session are connected through an in-memory channel so that
+ * only the cost of encryption, decryption and buffer management is
+ * measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SSLIOSessionBenchmark {
+
+    private static final char[] PASSWORD = "nopassword".toCharArray();
+
+    @Param({"128", "4096", "16384"})
+    public int messageSize;
+
+    private SSLIOSession client;
+    private SSLIOSession server;
+    private ByteBuffer message;
+    private ByteBuffer dst;
+
+    private static KeyStore loadKeyStore() throws Exception {
+        final InputStream instream = SSLIOSessionBenchmark.class.getClassLoader()
+                .getResourceAsStream("benchmark.keystore");
+        try {
+            final KeyStore keystore  = KeyStore.getInstance("jks");
+            keystore.load(instream, PASSWORD);
+            return keystore;
+        } finally {
+            instream.close();
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        final KeyStore keystore = loadKeyStore();
+        final KeyManagerFactory kmfactory = KeyManagerFactory.getInstance(
+                KeyManagerFactory.getDefaultAlgorithm());
+        kmfactory.init(keystore, PASSWORD);
+        final SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(kmfactory.getKeyManagers(), null, null);
+        final TrustManagerFactory tmfactory = TrustManagerFactory.getInstance(
+                TrustManagerFactory.getDefaultAlgorithm());
+        tmfactory.init(keystore);
+        final SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, tmfactory.getTrustManagers(), null);
+
+        final MemoryIOSession clientSession = new MemoryIOSession(64 * 1024);
+        final MemoryIOSession serverSession = new MemoryIOSession(64 * 1024);
+        MemoryIOSession.connect(clientSession, serverSession);
+
+        this.client = new SSLIOSession(clientSession, SSLMode.CLIENT, clientContext, null);
+        this.server = new SSLIOSession(serverSession, SSLMode.SERVER, serverContext, null);
+        this.client.setEventMask(EventMask.READ_WRITE);
+        this.server.setEventMask(EventMask.READ_WRITE);
+        this.client.initialize();
+        this.server.initialize();
+        for (int i = 0; i < 100; i++) {
+            transfer(this.client, this.server);
+            transfer(this.server, this.client);
+        }
+        if (!this.client.isAppOutputReady() || !this.server.isAppOutputReady()) {
+            throw new IllegalStateException("SSL handshake failed: " + this.client + " / " + this.server);
+        }
+
+        final byte[] content = new byte[this.messageSize];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + (i % 26));
+        }
+        this.message = ByteBuffer.wrap(content);
+        this.dst = ByteBuffer.allocate(this.messageSize);
+    }
+
+    private static void transfer(final SSLIOSession src, final SSLIOSession dst) throws IOException {
+        src.outboundTransport();
+        dst.isAppInputReady();
+        dst.inboundTransport();
+    }
+
+    @Benchmark
+    public int wrapUnwrap() throws IOException {
+        final ByteBuffer src = this.message.duplicate();
+        while (src.hasRemaining()) {
+            if (this.client.channel().write(src) <= 0) {
+                throw new IllegalStateException("Unable to write message");
+            }
+            transfer(this.client, this.server);
+        }
+        this.dst.clear();
+        while (this.server.channel().read(this.dst) > 0) {
+        }
+        return this.dst.position();
+    }
+
+}
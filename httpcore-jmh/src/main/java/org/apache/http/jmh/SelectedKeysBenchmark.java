@@ -0,0 +1,173 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.jmh;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.nio.reactor.BaseIOReactor;
+import org.apache.http.impl.nio.reactor.ChannelEntry;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.nio.reactor.IOSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the time it takes an I/O reactor to dispatch one round of I/O
+ * events with the standard and the array backed selected key set. Loopback
+ * connections are registered with the I/O reactor for
+ * {@link SelectionKey#OP_WRITE}, so that every select reports every session
+ * as ready.
+ * <p/>
+ * The array backed set gets installed by reflection. On Java 9 and newer
+ * this requires <code>--add-opens java.base/sun.nio.ch=ALL-UNNAMED</code>
+ * to be passed to the forked JVM with <code>-jvmArgsAppend</code>, otherwise
+ * the setup fails rather than silently measuring the standard set twice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SelectedKeysBenchmark {
+
+    static class CountingEventDispatch implements IOEventDispatch {
+
+        // updated by the I/O reactor thread only
+        private volatile long events;
+
+        public void connected(final IOSession session) {
+            session.setEventMask(SelectionKey.OP_WRITE);
+        }
+
+        public void inputReady(final IOSession session) {
+        }
+
+        public void outputReady(final IOSession session) {
+            this.events++;
+        }
+
+        public void timeout(final IOSession session) {
+        }
+
+        public void disconnected(final IOSession session) {
+        }
+
+        long getEvents() {
+            return this.events;
+        }
+
+    }
+
+    @Param({"false", "true"})
+    public boolean selectedKeysOptimized;
+
+    @Param({"16", "256"})
+    public int connections;
+
+    private BaseIOReactor ioReactor;
+    private CountingEventDispatch eventDispatch;
+    private List<SocketChannel> peers;
+    private Thread thread;
+
+    @Setup
+    public void setup() throws Exception {
+        this.ioReactor = new BaseIOReactor(IOReactorConfig.custom()
+                .setSelectedKeysOptimized(this.selectedKeysOptimized)
+                .build());
+        if (this.ioReactor.isSelectedKeysOptimized() != this.selectedKeysOptimized) {
+            this.ioReactor.hardShutdown();
+            throw new IllegalStateException("Selector does not permit the replacement "
+                    + "of its selected key set; run with --add-opens java.base/sun.nio.ch=ALL-UNNAMED");
+        }
+        this.eventDispatch = new CountingEventDispatch();
+        this.peers = new ArrayList<SocketChannel>(this.connections);
+        final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().bind(new InetSocketAddress("localhost", 0));
+            for (int i = 0; i < this.connections; i++) {
+                final SocketChannel channel = SocketChannel.open(
+                        serverChannel.socket().getLocalSocketAddress());
+                this.peers.add(serverChannel.accept());
+                channel.configureBlocking(false);
+                this.ioReactor.addChannel(new ChannelEntry(channel));
+            }
+        } finally {
+            serverChannel.close();
+        }
+        final BaseIOReactor reactor = this.ioReactor;
+        final CountingEventDispatch dispatch = this.eventDispatch;
+        this.thread = new Thread(new Runnable() {
+
+            public void run() {
+                try {
+                    reactor.execute(dispatch);
+                } catch (final IOException ignore) {
+                }
+            }
+
+        });
+        this.thread.start();
+        // Wait until all sessions have been set up and report write readiness
+        while (this.eventDispatch.getEvents() < this.connections) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.ioReactor.shutdown(1000);
+        this.thread.join(5000);
+        for (final SocketChannel peer: this.peers) {
+            peer.close();
+        }
+    }
+
+    @Benchmark
+    public long dispatchRound() {
+        final long target = this.eventDispatch.getEvents() + this.connections;
+        long events;
+        while ((events = this.eventDispatch.getEvents()) < target) {
+            Thread.yield();
+        }
+        return events;
+    }
+
+}
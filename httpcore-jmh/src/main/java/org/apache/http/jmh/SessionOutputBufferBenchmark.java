@@ -0,0 +1,139 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.util.CharArrayBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the cost of writing a message head line by line through
+ * the blocking and the non-blocking session output buffers. Heads
+ * consisting of ASCII chars only are narrowed in bulk, while heads
+ * with non-ASCII chars go through the charset encoder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SessionOutputBufferBenchmark {
+
+    private static final String[] ASCII_HEAD = new String[] {
+        "HTTP/1.1 200 OK",
+        "Date: Tue, 15 Nov 1994 08:12:31 GMT",
+        "Server: HttpComponents/1.1",
+        "Content-Type: text/html; charset=UTF-8",
+        "Content-Length: 4096",
+        "Cache-Control: private, max-age=0, must-revalidate",
+        "Last-Modified: Mon, 14 Nov 1994 17:40:07 GMT",
+        "ETag: \"737060cd8c284d8af7ad3082f209582d\"",
+        "Vary: Accept-Encoding, User-Agent",
+        "Set-Cookie: session=6f3a1c0e9b2d4a57; Path=/; HttpOnly",
+        "Connection: keep-alive"
+    };
+
+    @Param({"UTF-8", "ISO-8859-1"})
+    public String charset;
+
+    @Param({"ascii", "non-ascii"})
+    public String content;
+
+    private CharArrayBuffer[] lines;
+
+    private OutputStream outstream;
+    private org.apache.http.impl.io.SessionOutputBufferImpl outbuf;
+
+    private MemoryChannel channel;
+    private org.apache.http.impl.nio.reactor.SessionOutputBufferImpl nioOutbuf;
+
+    @Setup
+    public void setup() {
+        this.lines = new CharArrayBuffer[ASCII_HEAD.length];
+        for (int i = 0; i < ASCII_HEAD.length; i++) {
+            final String s = "non-ascii".equals(this.content)
+                ? ASCII_HEAD[i].replace('a', '\u00E4') : ASCII_HEAD[i];
+            this.lines[i] = new CharArrayBuffer(s.length());
+            this.lines[i].append(s);
+        }
+        final Charset cs = Charset.forName(this.charset);
+
+        this.outstream = new OutputStream() {
+
+            @Override
+            public void write(final int b) {
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+            }
+
+        };
+        final CharsetEncoder encoder = cs.newEncoder();
+        this.outbuf = new org.apache.http.impl.io.SessionOutputBufferImpl(
+                new HttpTransportMetricsImpl(), 8 * 1024, 512, encoder);
+        this.outbuf.bind(this.outstream);
+
+        this.channel = new MemoryChannel();
+        this.nioOutbuf = new org.apache.http.impl.nio.reactor.SessionOutputBufferImpl(
+                8 * 1024, 256, cs);
+    }
+
+    @Benchmark
+    public int writeHead() throws IOException {
+        for (final CharArrayBuffer line: this.lines) {
+            this.outbuf.writeLine(line);
+        }
+        this.outbuf.writeLine("");
+        final int len = this.outbuf.length();
+        this.outbuf.flush();
+        return len;
+    }
+
+    @Benchmark
+    public long writeHeadNio() throws IOException {
+        this.channel.reset();
+        for (final CharArrayBuffer line: this.lines) {
+            this.nioOutbuf.writeLine(line);
+        }
+        this.nioOutbuf.writeLine("");
+        this.nioOutbuf.flush(this.channel);
+        return this.channel.getBytesWritten();
+    }
+
+}
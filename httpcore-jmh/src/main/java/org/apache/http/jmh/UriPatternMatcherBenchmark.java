@@ -0,0 +1,81 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.protocol.UriPatternMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link UriPatternMatcher#lookup(String)} performance with
+ * a mix of exact, prefix and suffix patterns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UriPatternMatcherBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int patternCount;
+
+    @Param({
+        "/api/resource5/item",
+        "/static/css/site.css",
+        "/pages/about.html",
+        "/no/such/resource"
+    })
+    public String path;
+
+    private UriPatternMatcher<String> matcher;
+
+    @Setup
+    public void setup() {
+        this.matcher = new UriPatternMatcher<String>();
+        for (int i = 0; i < this.patternCount; i++) {
+            this.matcher.register("/api/resource" + i + "/*", "api" + i);
+            this.matcher.register("/exact/resource" + i, "exact" + i);
+            this.matcher.register("*.ext" + i, "ext" + i);
+        }
+        this.matcher.register("/static/*", "static");
+        this.matcher.register("*.html", "html");
+        this.matcher.register("*", "default");
+    }
+
+    @Benchmark
+    public String lookup() {
+        return this.matcher.lookup(this.path);
+    }
+
+}
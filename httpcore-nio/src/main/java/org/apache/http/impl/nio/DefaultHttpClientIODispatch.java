@@ -152,7 +152,11 @@ public class DefaultHttpClientIODispatch
 
     @Override
     protected void onClosed(final DefaultNHttpClientConnection conn) {
-        this.handler.closed(conn);
+        try {
+            this.handler.closed(conn);
+        } finally {
+            conn.releaseBuffers();
+        }
     }
 
     @Override
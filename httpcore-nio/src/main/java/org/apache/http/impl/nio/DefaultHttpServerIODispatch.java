@@ -144,7 +144,11 @@ public class DefaultHttpServerIODispatch
 
     @Override
     protected void onClosed(final DefaultNHttpServerConnection conn) {
-        this.handler.closed(conn);
+        try {
+            this.handler.closed(conn);
+        } finally {
+            conn.releaseBuffers();
+        }
     }
 
     @Override
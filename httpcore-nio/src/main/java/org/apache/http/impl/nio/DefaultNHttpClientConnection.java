@@ -219,6 +219,21 @@ public class DefaultNHttpClientConnection
     protected void onRequestSubmitted(final HttpRequest request) {
     }
 
+    /**
+     * Returns the session buffers to the buffer allocator once there is no
+     * message in progress in either direction and all output has been
+     * flushed. The output buffer is also returned once a request has been
+     * sent, as the response may take a while.
+     */
+    private void releaseIdleBuffers() {
+        if (this.response == null && this.contentDecoder == null
+                && this.request == null && this.contentEncoder == null
+                && !this.outbuf.hasData()) {
+            releaseIdleInputBuffer();
+            releaseIdleOutputBuffer();
+        }
+    }
+
     public void resetInput() {
         this.response = null;
         this.contentDecoder = null;
@@ -284,6 +299,9 @@ public class DefaultNHttpClientConnection
         } catch (final Exception ex) {
             handler.exception(this, ex);
         } finally {
+            if (this.status == ACTIVE) {
+                releaseIdleBuffers();
+            }
             // Finally set buffered input flag
             this.hasBufferedInput = this.inbuf.hasData();
         }
@@ -316,6 +334,7 @@ public class DefaultNHttpClientConnection
                 }
                 if (this.contentEncoder == null && this.status != CLOSED) {
                     this.session.clearEvent(EventMask.WRITE);
+                    releaseIdleOutputBuffer();
                 }
             }
         } catch (final Exception ex) {
@@ -234,6 +234,22 @@ public class DefaultNHttpServerConnection
     protected void onResponseSubmitted(final HttpResponse response) {
     }
 
+    /**
+     * Returns the session buffers to the buffer allocator once there is no
+     * message in progress in either direction and all output has been
+     * flushed. Buffers are kept while a request is being processed, so that
+     * they are not released and re-acquired between the request and
+     * the response.
+     */
+    private void releaseIdleBuffers() {
+        if (this.request == null && this.contentDecoder == null
+                && this.response == null && this.contentEncoder == null
+                && !this.outbuf.hasData()) {
+            releaseIdleInputBuffer();
+            releaseIdleOutputBuffer();
+        }
+    }
+
     public void resetInput() {
         this.request = null;
         this.contentDecoder = null;
@@ -302,6 +318,9 @@ public class DefaultNHttpServerConnection
         } catch (final Exception ex) {
             handler.exception(this, ex);
         } finally {
+            if (this.status == ACTIVE) {
+                releaseIdleBuffers();
+            }
             // Finally set buffered input flag
             this.hasBufferedInput = this.inbuf.hasData();
         }
@@ -334,6 +353,7 @@ public class DefaultNHttpServerConnection
                 }
                 if (this.contentEncoder == null && this.status != CLOSED) {
                     this.session.clearEvent(EventMask.WRITE);
+                    releaseIdleBuffers();
                 }
             }
         } catch (final Exception ex) {
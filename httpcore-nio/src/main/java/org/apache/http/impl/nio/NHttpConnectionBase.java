@@ -59,6 +59,7 @@ import org.apache.http.impl.entity.StrictContentLengthStrategy;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.impl.nio.codecs.ChunkDecoder;
 import org.apache.http.impl.nio.codecs.ChunkEncoder;
+import org.apache.http.impl.nio.codecs.FileTransferMetricsImpl;
 import org.apache.http.impl.nio.codecs.IdentityDecoder;
 import org.apache.http.impl.nio.codecs.IdentityEncoder;
 import org.apache.http.impl.nio.codecs.LengthDelimitedDecoder;
@@ -77,6 +78,7 @@ import org.apache.http.nio.reactor.SessionOutputBuffer;
 import org.apache.http.nio.reactor.SocketAccessor;
 import org.apache.http.nio.util.ByteBufferAllocator;
 import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.ReleasableByteBufferAllocator;
 import org.apache.http.params.CoreConnectionPNames;
 import org.apache.http.params.HttpParams;
 import org.apache.http.params.HttpProtocolParams;
@@ -103,6 +105,7 @@ public class NHttpConnectionBase
     protected final SessionInputBufferImpl inbuf;
     protected final SessionOutputBufferImpl outbuf;
     private final int fragmentSizeHint;
+    private final boolean releaseIdleBuffers;
 
     protected final HttpTransportMetricsImpl inTransportMetrics;
     protected final HttpTransportMetricsImpl outTransportMetrics;
@@ -166,6 +169,7 @@ public class NHttpConnectionBase
         this.inbuf = new SessionInputBufferImpl(buffersize, linebuffersize, decoder, allocator);
         this.outbuf = new SessionOutputBufferImpl(buffersize, linebuffersize, encoder, allocator);
         this.fragmentSizeHint = buffersize;
+        this.releaseIdleBuffers = allocator instanceof ReleasableByteBufferAllocator;
 
         this.incomingContentStrategy = createIncomingContentStrategy();
         this.outgoingContentStrategy = createOutgoingContentStrategy();
@@ -220,10 +224,11 @@ public class NHttpConnectionBase
         this.inbuf = new SessionInputBufferImpl(buffersize, linebuffersize, chardecoder, allocator);
         this.outbuf = new SessionOutputBufferImpl(buffersize, linebuffersize, charencoder, allocator);
         this.fragmentSizeHint = fragmentSizeHint >= 0 ? fragmentSizeHint : buffersize;
+        this.releaseIdleBuffers = allocator instanceof ReleasableByteBufferAllocator;
 
-        this.inTransportMetrics = new HttpTransportMetricsImpl();
-        this.outTransportMetrics = new HttpTransportMetricsImpl();
-        this.connMetrics = new HttpConnectionMetricsImpl(this.inTransportMetrics, this.outTransportMetrics);
+        this.inTransportMetrics = new FileTransferMetricsImpl();
+        this.outTransportMetrics = new FileTransferMetricsImpl();
+        this.connMetrics = new FileTransferConnectionMetrics(this.inTransportMetrics, this.outTransportMetrics);
         this.incomingContentStrategy = incomingContentStrategy != null ? incomingContentStrategy :
             LaxContentLengthStrategy.INSTANCE;
         this.outgoingContentStrategy = outgoingContentStrategy != null ? outgoingContentStrategy :
@@ -279,7 +284,7 @@ public class NHttpConnectionBase
      */
     @Deprecated
     protected HttpTransportMetricsImpl createTransportMetrics() {
-        return new HttpTransportMetricsImpl();
+        return new FileTransferMetricsImpl();
     }
 
     /**
@@ -291,7 +296,7 @@ public class NHttpConnectionBase
     protected HttpConnectionMetricsImpl createConnectionMetrics(
             final HttpTransportMetrics inTransportMetric,
             final HttpTransportMetrics outTransportMetric) {
-        return new HttpConnectionMetricsImpl(inTransportMetric, outTransportMetric);
+        return new FileTransferConnectionMetrics(inTransportMetric, outTransportMetric);
     }
 
     public int getStatus() {
@@ -525,6 +530,56 @@ public class NHttpConnectionBase
         this.session.shutdown();
     }
 
+    /**
+     * Returns session buffers of this connection to the buffer allocator,
+     * if it supports releasing of buffers. Any buffered content is discarded.
+     * This method is expected to be called once the connection has been closed.
+     *
+     * @see org.apache.http.nio.util.ReleasableByteBufferAllocator
+     *
+     * @since 4.3
+     */
+    protected void releaseBuffers() {
+        this.inbuf.release();
+        this.outbuf.release();
+    }
+
+    /**
+     * Returns the session input buffer to the buffer allocator if the buffer
+     * is empty and the allocator supports releasing of buffers. The buffer
+     * gets re-acquired lazily upon the next read operation. This method is
+     * expected to be called by the I/O dispatch thread once the connection
+     * has no message in progress. It must not be called from
+     * {@link #suspendInput()}, which may be invoked by other threads.
+     *
+     * @see org.apache.http.nio.util.ReleasableByteBufferAllocator
+     *
+     * @since 4.3
+     */
+    protected void releaseIdleInputBuffer() {
+        if (this.releaseIdleBuffers && !this.inbuf.isReleased() && !this.inbuf.hasData()) {
+            this.inbuf.release();
+        }
+    }
+
+    /**
+     * Returns the session output buffer to the buffer allocator if the buffer
+     * is empty and the allocator supports releasing of buffers. The buffer
+     * gets re-acquired lazily upon the next write operation. This method is
+     * expected to be called by the I/O dispatch thread once the connection
+     * has no message in progress. It must not be called from
+     * {@link #suspendOutput()}, which may be invoked by other threads.
+     *
+     * @see org.apache.http.nio.util.ReleasableByteBufferAllocator
+     *
+     * @since 4.3
+     */
+    protected void releaseIdleOutputBuffer() {
+        if (this.releaseIdleBuffers && !this.outbuf.isReleased() && !this.outbuf.hasData()) {
+            this.outbuf.release();
+        }
+    }
+
     public HttpConnectionMetrics getMetrics() {
         return this.connMetrics;
     }
@@ -563,4 +618,50 @@ public class NHttpConnectionBase
         }
     }
 
+    /**
+     * Connection metrics that also report how content was transferred
+     * to and from files.
+     *
+     * @see FileTransferMetricsImpl
+     */
+    private static class FileTransferConnectionMetrics extends HttpConnectionMetricsImpl {
+
+        private final HttpTransportMetrics inTransportMetric;
+        private final HttpTransportMetrics outTransportMetric;
+
+        FileTransferConnectionMetrics(
+                final HttpTransportMetrics inTransportMetric,
+                final HttpTransportMetrics outTransportMetric) {
+            super(inTransportMetric, outTransportMetric);
+            this.inTransportMetric = inTransportMetric;
+            this.outTransportMetric = outTransportMetric;
+        }
+
+        @Override
+        public Object getMetric(final String metricName) {
+            final Object value = super.getMetric(metricName);
+            if (value != null) {
+                return value;
+            }
+            if (this.outTransportMetric instanceof FileTransferMetricsImpl) {
+                final FileTransferMetricsImpl metrics = (FileTransferMetricsImpl) this.outTransportMetric;
+                if (FileTransferMetricsImpl.SENT_ZERO_COPY_BYTES_COUNT.equals(metricName)) {
+                    return metrics.getZeroCopyBytesTransferred();
+                } else if (FileTransferMetricsImpl.SENT_COPIED_BYTES_COUNT.equals(metricName)) {
+                    return metrics.getCopiedBytesTransferred();
+                }
+            }
+            if (this.inTransportMetric instanceof FileTransferMetricsImpl) {
+                final FileTransferMetricsImpl metrics = (FileTransferMetricsImpl) this.inTransportMetric;
+                if (FileTransferMetricsImpl.RECEIVED_ZERO_COPY_BYTES_COUNT.equals(metricName)) {
+                    return metrics.getZeroCopyBytesTransferred();
+                } else if (FileTransferMetricsImpl.RECEIVED_COPIED_BYTES_COUNT.equals(metricName)) {
+                    return metrics.getCopiedBytesTransferred();
+                }
+            }
+            return null;
+        }
+
+    }
+
 }
@@ -48,6 +48,7 @@ import org.apache.http.nio.reactor.ssl.SSLMode;
 import org.apache.http.nio.reactor.ssl.SSLSetupHandler;
 import org.apache.http.nio.util.ByteBufferAllocator;
 import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.ReleasableByteBufferAllocator;
 import org.apache.http.params.HttpParamConfig;
 import org.apache.http.params.HttpParams;
 import org.apache.http.util.Args;
@@ -181,7 +182,9 @@ public class SSLNHttpClientConnectionFactory
             final SSLSetupHandler sslHandler) {
         final SSLIOSession ssliosession = new SSLIOSession(iosession, SSLMode.CLIENT,
                 (sslcontext != null ? sslcontext : getDefaultSSLContext()),
-                sslHandler);
+                sslHandler,
+                (this.allocator instanceof ReleasableByteBufferAllocator ?
+                        (ReleasableByteBufferAllocator) this.allocator : null));
         iosession.setAttribute(SSLIOSession.SESSION_KEY, ssliosession);
         return ssliosession;
     }
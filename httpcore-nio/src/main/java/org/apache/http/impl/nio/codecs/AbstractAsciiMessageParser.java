@@ -0,0 +1,234 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.nio.codecs;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpMessage;
+import org.apache.http.MessageConstraintException;
+import org.apache.http.ParseException;
+import org.apache.http.ProtocolException;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.config.MessageConstraints;
+import org.apache.http.impl.nio.reactor.SessionInputBufferImpl;
+import org.apache.http.message.AsciiLineParser;
+import org.apache.http.nio.NHttpMessageParser;
+import org.apache.http.nio.reactor.SessionInputBuffer;
+import org.apache.http.util.Args;
+import org.apache.http.util.ByteArrayBuffer;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * Abstract {@link NHttpMessageParser} that parses the head of HTTP/1.x
+ * messages directly from raw bytes using {@link AsciiLineParser} without
+ * charset decoding. This class is intended for US-ASCII protocol elements
+ * and decodes other bytes as ISO-8859-1.
+ * <p>
+ * Lines are transferred from {@link SessionInputBufferImpl} as bytes.
+ * Other {@link SessionInputBuffer} implementations are supported through
+ * the standard line reading methods.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public abstract class AbstractAsciiMessageParser<T extends HttpMessage> implements NHttpMessageParser<T> {
+
+    private static final int READ_HEAD_LINE = 0;
+    private static final int READ_HEADERS   = 1;
+    private static final int COMPLETED      = 2;
+
+    private final SessionInputBuffer sessionBuffer;
+    private final SessionInputBufferImpl sessionBufferImpl;
+    private final MessageConstraints constraints;
+    protected final AsciiLineParser lineParser;
+
+    private int state;
+    private boolean endOfStream;
+
+    private T message;
+    private ByteArrayBuffer lineBuf;
+    private ByteArrayBuffer headerBuf;
+    private CharArrayBuffer charBuf;
+    private int headerCount;
+
+    /**
+     * Creates an instance of this class.
+     *
+     * @param buffer the session input buffer.
+     * @param lineParser the line parser. If <code>null</code>
+     *   {@link AsciiLineParser#INSTANCE} will be used.
+     * @param constraints Message constraints. If <code>null</code>
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     */
+    public AbstractAsciiMessageParser(
+            final SessionInputBuffer buffer,
+            final AsciiLineParser lineParser,
+            final MessageConstraints constraints) {
+        super();
+        this.sessionBuffer = Args.notNull(buffer, "Session input buffer");
+        this.sessionBufferImpl = buffer instanceof SessionInputBufferImpl ?
+                (SessionInputBufferImpl) buffer : null;
+        this.lineParser = lineParser != null ? lineParser : AsciiLineParser.INSTANCE;
+        this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
+        this.lineBuf = new ByteArrayBuffer(128);
+        this.headerBuf = new ByteArrayBuffer(128);
+        this.state = READ_HEAD_LINE;
+        this.endOfStream = false;
+    }
+
+    public void reset() {
+        this.state = READ_HEAD_LINE;
+        this.endOfStream = false;
+        this.lineBuf.clear();
+        this.headerBuf.clear();
+        this.headerCount = 0;
+        this.message = null;
+    }
+
+    public int fillBuffer(final ReadableByteChannel channel) throws IOException {
+        final int bytesRead = this.sessionBuffer.fill(channel);
+        if (bytesRead == -1) {
+            this.endOfStream = true;
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Creates {@link HttpMessage} instance based on the content of the buffer
+     * containing the first line of the incoming HTTP message.
+     *
+     * @param buffer the line buffer.
+     * @return HTTP message.
+     * @throws HttpException in case of HTTP protocol violation
+     * @throws ParseException in case of a parse error.
+     */
+    protected abstract T createMessage(ByteArrayBuffer buffer)
+        throws HttpException, ParseException;
+
+    private boolean readLine() throws IOException {
+        if (this.sessionBufferImpl != null) {
+            return this.sessionBufferImpl.readRawLine(this.lineBuf, this.endOfStream);
+        }
+        if (this.charBuf == null) {
+            this.charBuf = new CharArrayBuffer(128);
+        } else {
+            this.charBuf.clear();
+        }
+        if (!this.sessionBuffer.readLine(this.charBuf, this.endOfStream)) {
+            return false;
+        }
+        this.lineBuf.append(this.charBuf, 0, this.charBuf.length());
+        return true;
+    }
+
+    private void parseHeader() throws IOException, HttpException {
+        final ByteArrayBuffer current = this.lineBuf;
+        final byte first = current.buffer()[0];
+        if ((first == ' ' || first == '\t') && this.headerCount > 0) {
+            // Handle folded header line
+            final byte[] b = current.buffer();
+            int i = 0;
+            while (i < current.length() && (b[i] == ' ' || b[i] == '\t')) {
+                i++;
+            }
+            final int maxLineLen = this.constraints.getMaxLineLength();
+            if (maxLineLen > 0 && this.headerBuf.length() + 1 + current.length() - i > maxLineLen) {
+                throw new MessageConstraintException("Maximum line length limit exceeded");
+            }
+            this.headerBuf.append(' ');
+            this.headerBuf.append(b, i, current.length() - i);
+        } else {
+            final int maxHeaderCount = this.constraints.getMaxHeaderCount();
+            if (maxHeaderCount > 0 && this.headerCount >= maxHeaderCount) {
+                throw new MessageConstraintException("Maximum header count exceeded");
+            }
+            addHeader();
+            this.lineBuf = this.headerBuf;
+            this.headerBuf = current;
+            this.headerCount++;
+        }
+    }
+
+    private void addHeader() throws ProtocolException {
+        if (this.headerCount > 0) {
+            try {
+                this.message.addHeader(this.lineParser.parseHeader(this.headerBuf));
+            } catch (final ParseException ex) {
+                throw new ProtocolException(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    public T parse() throws IOException, HttpException {
+        while (this.state != COMPLETED) {
+            this.lineBuf.clear();
+            final boolean lineComplete = readLine();
+            final int maxLineLen = this.constraints.getMaxLineLength();
+            if (maxLineLen > 0 &&
+                    (this.lineBuf.length() > maxLineLen ||
+                            (!lineComplete && this.sessionBuffer.length() > maxLineLen))) {
+                throw new MessageConstraintException("Maximum line length limit exceeded");
+            }
+            if (!lineComplete) {
+                break;
+            }
+
+            switch (this.state) {
+            case READ_HEAD_LINE:
+                try {
+                    this.message = createMessage(this.lineBuf);
+                } catch (final ParseException px) {
+                    throw new ProtocolException(px.getMessage(), px);
+                }
+                this.state = READ_HEADERS;
+                break;
+            case READ_HEADERS:
+                if (this.lineBuf.length() > 0) {
+                    parseHeader();
+                } else {
+                    this.state = COMPLETED;
+                }
+                break;
+            }
+            if (this.endOfStream && !this.sessionBuffer.hasData()) {
+                this.state = COMPLETED;
+            }
+        }
+        if (this.state == COMPLETED) {
+            addHeader();
+            this.headerBuf.clear();
+            this.headerCount = 0;
+            return this.message;
+        } else {
+            return null;
+        }
+    }
+
+}
@@ -29,6 +29,7 @@ package org.apache.http.impl.nio.codecs;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 
 import org.apache.http.annotation.NotThreadSafe;
@@ -50,6 +51,8 @@ public abstract class AbstractContentDecoder implements ContentDecoder {
     protected final SessionInputBuffer buffer;
     protected final HttpTransportMetricsImpl metrics;
 
+    private final boolean zeroCopy;
+
     protected boolean completed;
 
     /**
@@ -71,6 +74,7 @@ public abstract class AbstractContentDecoder implements ContentDecoder {
         this.buffer = buffer;
         this.channel = channel;
         this.metrics = metrics;
+        this.zeroCopy = channel instanceof FileChannel;
     }
 
     public boolean isCompleted() {
@@ -133,4 +137,60 @@ public abstract class AbstractContentDecoder implements ContentDecoder {
         return bytesRead;
     }
 
+    /**
+     * Transfers content from the channel to the file and updates transport
+     * metrics. The session buffer is bypassed, so it is expected to be
+     * empty.
+     * <p>
+     * The transfer is counted as zero-copy by {@link FileTransferMetricsImpl}
+     * only if the channel is a file channel. {@link FileChannel#transferFrom}
+     * copies data from any other channel, including sockets, through
+     * an intermediate buffer.
+     *
+     * @param dst destination file channel.
+     * @param position the position within the file at which the transfer is to begin.
+     * @param count max number of bytes to transfer.
+     * @return number of bytes transferred.
+     *
+     * @since 4.3
+     */
+    protected long transferFromChannel(
+            final FileChannel dst, final long position, final long count) throws IOException {
+        final long bytesRead = dst.transferFrom(this.channel, position, count);
+        if (bytesRead > 0) {
+            this.metrics.incrementBytesTransferred(bytesRead);
+            if (this.metrics instanceof FileTransferMetricsImpl) {
+                final FileTransferMetricsImpl fileMetrics = (FileTransferMetricsImpl) this.metrics;
+                if (this.zeroCopy) {
+                    fileMetrics.recordZeroCopyTransfer(bytesRead);
+                } else {
+                    fileMetrics.recordCopiedTransfer(bytesRead);
+                }
+            }
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Transfers content of the session buffer to the file. Transport metrics
+     * are not updated as the data was counted when read into the buffer,
+     * but the transfer is counted as copied by {@link FileTransferMetricsImpl}.
+     *
+     * @param dst destination file channel.
+     * @param position the position within the file at which the transfer is to begin.
+     * @param limit max number of bytes to transfer.
+     * @return number of bytes transferred.
+     *
+     * @since 4.3
+     */
+    protected int transferFromBuffer(
+            final FileChannel dst, final long position, final int limit) throws IOException {
+        dst.position(position);
+        final int bytesRead = this.buffer.read(dst, limit);
+        if (bytesRead > 0 && this.metrics instanceof FileTransferMetricsImpl) {
+            ((FileTransferMetricsImpl) this.metrics).recordCopiedTransfer(bytesRead);
+        }
+        return bytesRead;
+    }
+
 }
@@ -29,10 +29,14 @@ package org.apache.http.impl.nio.codecs;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.WritableByteChannel;
 
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
 import org.apache.http.nio.ContentEncoder;
 import org.apache.http.nio.reactor.SessionOutputBuffer;
 import org.apache.http.util.Args;
@@ -51,6 +55,10 @@ public abstract class AbstractContentEncoder implements ContentEncoder {
     protected final SessionOutputBuffer buffer;
     protected final HttpTransportMetricsImpl metrics;
 
+    private final GatheringByteChannel gatheringChannel;
+    private final SessionOutputBufferImpl gatheringBuffer;
+    private final boolean zeroCopy;
+
     protected boolean completed;
 
     /**
@@ -72,6 +80,14 @@ public abstract class AbstractContentEncoder implements ContentEncoder {
         this.buffer = buffer;
         this.channel = channel;
         this.metrics = metrics;
+        if (channel instanceof GatheringByteChannel && buffer instanceof SessionOutputBufferImpl) {
+            this.gatheringChannel = (GatheringByteChannel) channel;
+            this.gatheringBuffer = (SessionOutputBufferImpl) buffer;
+        } else {
+            this.gatheringChannel = null;
+            this.gatheringBuffer = null;
+        }
+        this.zeroCopy = channel instanceof SelectableChannel || channel instanceof FileChannel;
     }
 
     public boolean isCompleted() {
@@ -148,6 +164,94 @@ public abstract class AbstractContentEncoder implements ContentEncoder {
         return doWriteChunk(src, limit, false);
     }
 
+    /**
+     * Determines whether content of the session buffer can be written out
+     * together with content supplied by the caller using a single gathering
+     * write. This is the case if the channel is a {@link GatheringByteChannel}
+     * and the session buffer is a {@link SessionOutputBufferImpl}.
+     *
+     * @since 4.3
+     */
+    protected boolean isGatheringSupported() {
+        return this.gatheringChannel != null;
+    }
+
+    /**
+     * Flushes content of the session buffer followed by content of the given
+     * buffers to the channel with a single gathering write and updates
+     * transport metrics.
+     *
+     * @param srcs the buffers to be written out after the session buffer.
+     * @return total number of bytes written to the channel, including those
+     *   of the session buffer.
+     *
+     * @since 4.3
+     */
+    protected long flushGathered(final ByteBuffer... srcs) throws IOException {
+        Asserts.check(this.gatheringChannel != null, "Gathering writes not supported");
+        final long bytesWritten = this.gatheringBuffer.flush(this.gatheringChannel, srcs);
+        if (bytesWritten > 0) {
+            this.metrics.incrementBytesTransferred(bytesWritten);
+        }
+        return bytesWritten;
+    }
+
+    /**
+     * Flushes content of the session buffer followed by up to the given
+     * number of bytes of the source to the channel with a single gathering
+     * write and updates transport metrics.
+     *
+     * @param src source.
+     * @param limit max number of bytes of the source to transfer.
+     * @return number of bytes of the source transferred.
+     *
+     * @since 4.3
+     */
+    protected int writeGathered(final ByteBuffer src, final int limit) throws IOException {
+        final int oldLimit = src.limit();
+        if (src.remaining() > limit) {
+            src.limit(src.position() + limit);
+        }
+        final int oldPosition = src.position();
+        flushGathered(src);
+        src.limit(oldLimit);
+        return src.position() - oldPosition;
+    }
+
+    /**
+     * Transfers content of the file to the channel and updates transport
+     * metrics. The session buffer is bypassed, so it is expected to be
+     * flushed beforehand.
+     * <p>
+     * The transfer is counted as zero-copy by {@link FileTransferMetricsImpl}
+     * only if the channel is a socket or file channel. For other channels,
+     * such as those of SSL sessions, {@link FileChannel#transferTo(long, long,
+     * WritableByteChannel)} copies the data through an intermediate buffer.
+     *
+     * @param src source file channel.
+     * @param position the position within the file at which the transfer is to begin.
+     * @param count max number of bytes to transfer.
+     * @return number of bytes transferred.
+     *
+     * @since 4.3
+     */
+    protected long transferToChannel(
+            final FileChannel src, final long position, final long count) throws IOException {
+        final long bytesWritten = src.transferTo(position, count, this.channel);
+        if (bytesWritten > 0) {
+            this.metrics.incrementBytesTransferred(bytesWritten);
+            if (this.metrics instanceof FileTransferMetricsImpl) {
+                final FileTransferMetricsImpl fileMetrics = (FileTransferMetricsImpl) this.metrics;
+                if (this.zeroCopy) {
+                    fileMetrics.recordZeroCopyTransfer(bytesWritten);
+                } else {
+                    fileMetrics.recordCopiedTransfer(bytesWritten);
+                }
+            }
+        }
+        return bytesWritten;
+    }
+
     private int doWriteChunk(
         final ByteBuffer src, final int chunk, final boolean direct) throws IOException {
         final int bytesWritten;
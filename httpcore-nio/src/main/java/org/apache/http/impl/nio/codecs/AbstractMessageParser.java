@@ -32,6 +32,7 @@ import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.http.Header;
 import org.apache.http.HttpException;
 import org.apache.http.HttpMessage;
 import org.apache.http.MessageConstraintException;
@@ -40,6 +41,8 @@ import org.apache.http.ProtocolException;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.config.MessageConstraints;
 import org.apache.http.message.BasicLineParser;
+import org.apache.http.message.HeaderBlock;
+import org.apache.http.message.LazyHeaderLineParser;
 import org.apache.http.message.LineParser;
 import org.apache.http.nio.NHttpMessageParser;
 import org.apache.http.nio.reactor.SessionInputBuffer;
@@ -70,6 +73,7 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements NH
     private T message;
     private CharArrayBuffer lineBuf;
     private final List<CharArrayBuffer> headerBufs;
+    private final HeaderBlock headerBlock;
 
     protected final LineParser lineParser;
     private final MessageConstraints constraints;
@@ -99,6 +103,7 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements NH
         this.headerBufs = new ArrayList<CharArrayBuffer>();
         this.constraints = HttpParamConfig.getMessageConstraints(params);
         this.lineParser = (lineParser != null) ? lineParser : BasicLineParser.INSTANCE;
+        this.headerBlock = this.lineParser instanceof LazyHeaderLineParser ? new HeaderBlock() : null;
     }
 
     /**
@@ -121,6 +126,7 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements NH
         this.lineParser = lineParser != null ? lineParser : BasicLineParser.INSTANCE;
         this.constraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
         this.headerBufs = new ArrayList<CharArrayBuffer>();
+        this.headerBlock = this.lineParser instanceof LazyHeaderLineParser ? new HeaderBlock() : null;
         this.state = READ_HEAD_LINE;
         this.endOfStream = false;
     }
@@ -129,6 +135,9 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements NH
         this.state = READ_HEAD_LINE;
         this.endOfStream = false;
         this.headerBufs.clear();
+        if (this.headerBlock != null) {
+            this.headerBlock.reset();
+        }
         this.message = null;
     }
 
@@ -182,8 +191,43 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements NH
         }
     }
 
+    /**
+     * Reads a header line directly into the shared header block.
+     *
+     * @return <code>false</code> if no complete line is available.
+     */
+    private boolean readHeaderLine() throws IOException {
+        final CharArrayBuffer buffer = this.headerBlock.getBuffer();
+        final int start = buffer.length();
+        final boolean lineComplete = this.sessionBuffer.readLine(buffer, this.endOfStream);
+        final int maxLineLen = this.constraints.getMaxLineLength();
+        if (!lineComplete) {
+            if (maxLineLen > 0 && this.sessionBuffer.length() > maxLineLen) {
+                throw new MessageConstraintException("Maximum line length limit exceeded");
+            }
+            return false;
+        }
+        if (!this.headerBlock.lineComplete(start, maxLineLen)) {
+            this.state = COMPLETED;
+        }
+        final int maxHeaderCount = this.constraints.getMaxHeaderCount();
+        if (maxHeaderCount > 0 && this.headerBlock.getLineCount() > maxHeaderCount) {
+            throw new MessageConstraintException("Maximum header count exceeded");
+        }
+        return true;
+    }
+
     public T parse() throws IOException, HttpException {
         while (this.state != COMPLETED) {
+            if (this.state == READ_HEADERS && this.headerBlock != null) {
+                if (!readHeaderLine()) {
+                    break;
+                }
+                if (this.endOfStream && !this.sessionBuffer.hasData()) {
+                    this.state = COMPLETED;
+                }
+                continue;
+            }
             if (this.lineBuf == null) {
                 this.lineBuf = new CharArrayBuffer(64);
             } else {
@@ -227,6 +271,19 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements NH
             }
         }
         if (this.state == COMPLETED) {
+            if (this.headerBlock != null) {
+                final Header[] headers;
+                try {
+                    headers = this.headerBlock.toHeaders(this.lineParser);
+                } catch (final ParseException ex) {
+                    throw new ProtocolException(ex.getMessage(), ex);
+                }
+                this.headerBlock.reset();
+                for (final Header header : headers) {
+                    this.message.addHeader(header);
+                }
+                return this.message;
+            }
             for (final CharArrayBuffer buffer : this.headerBufs) {
                 try {
                     this.message.addHeader(lineParser.parseHeader(buffer));
@@ -28,6 +28,7 @@
 package org.apache.http.impl.nio.codecs;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 import org.apache.http.Header;
@@ -36,6 +37,7 @@ import org.apache.http.HttpMessage;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.message.BasicLineFormatter;
 import org.apache.http.message.LineFormatter;
+import org.apache.http.message.PreEncodedHeader;
 import org.apache.http.nio.NHttpMessageWriter;
 import org.apache.http.nio.reactor.SessionOutputBuffer;
 import org.apache.http.params.HttpParams;
@@ -45,6 +47,9 @@ import org.apache.http.util.CharArrayBuffer;
 /**
  * Abstract {@link NHttpMessageWriter} that serves as a base for all message
  * writer implementations.
+ * <p>
+ * If the line formatter is {@link BasicLineFormatter}, {@link PreEncodedHeader}s
+ * are written to the session buffer in their encoded form.
  *
  * @since 4.0
  */
@@ -56,6 +61,8 @@ public abstract class AbstractMessageWriter<T extends HttpMessage> implements NH
     protected final CharArrayBuffer lineBuf;
     protected final LineFormatter lineFormatter;
 
+    private final boolean preEncoded;
+
     /**
      * Creates an instance of this class.
      *
@@ -75,6 +82,7 @@ public abstract class AbstractMessageWriter<T extends HttpMessage> implements NH
         this.sessionBuffer = buffer;
         this.lineBuf = new CharArrayBuffer(64);
         this.lineFormatter = (formatter != null) ? formatter : BasicLineFormatter.INSTANCE;
+        this.preEncoded = this.lineFormatter.getClass() == BasicLineFormatter.class;
     }
 
     /**
@@ -93,6 +101,7 @@ public abstract class AbstractMessageWriter<T extends HttpMessage> implements NH
         this.sessionBuffer = Args.notNull(buffer, "Session input buffer");
         this.lineFormatter = (formatter != null) ? formatter : BasicLineFormatter.INSTANCE;
         this.lineBuf = new CharArrayBuffer(64);
+        this.preEncoded = this.lineFormatter.getClass() == BasicLineFormatter.class;
     }
 
     public void reset() {
@@ -110,6 +119,13 @@ public abstract class AbstractMessageWriter<T extends HttpMessage> implements NH
         writeHeadLine(message);
         for (final Iterator<?> it = message.headerIterator(); it.hasNext(); ) {
             final Header header = (Header) it.next();
+            if (this.preEncoded && header instanceof PreEncodedHeader) {
+                final byte[] encoded = ((PreEncodedHeader) header).getEncoded();
+                if (encoded != null) {
+                    this.sessionBuffer.write(ByteBuffer.wrap(encoded));
+                    continue;
+                }
+            }
             this.sessionBuffer.writeLine
                 (lineFormatter.formatHeader(this.lineBuf, header));
         }
@@ -29,6 +29,7 @@ package org.apache.http.impl.nio.codecs;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
@@ -40,19 +41,27 @@ import org.apache.http.TruncatedChunkException;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.message.BufferedHeader;
+import org.apache.http.nio.FileContentDecoder;
 import org.apache.http.nio.reactor.SessionInputBuffer;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.util.Args;
 import org.apache.http.util.CharArrayBuffer;
+import org.apache.http.util.ScanUtils;
 
 /**
  * Implements chunked transfer coding. The content is received in small chunks.
  * Entities transferred using this encoder can be of unlimited length.
+ * <p>
+ * Chunk data is transferred directly from the underlying I/O session's
+ * channel to a {@link FileChannel} whenever possible. Chunk headers,
+ * delimiters and footers are processed through the session buffer.
  *
  * @since 4.0
  */
 @NotThreadSafe
-public class ChunkDecoder extends AbstractContentDecoder {
+public class ChunkDecoder extends AbstractContentDecoder implements FileContentDecoder {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
 
     private static final int READ_CONTENT   = 0;
     private static final int READ_FOOTERS  = 1;
@@ -105,10 +114,8 @@ public class ChunkDecoder extends AbstractContentDecoder {
             if (separator < 0) {
                 separator = this.lineBuf.length();
             }
-            try {
-                final String s = this.lineBuf.substringTrimmed(0, separator);
-                this.chunkSize = Integer.parseInt(s, 16);
-            } catch (final NumberFormatException e) {
+            this.chunkSize = ScanUtils.parseHex(this.lineBuf, 0, separator);
+            if (this.chunkSize < 0) {
                 throw new MalformedChunkCodingException("Bad chunk header");
             }
             this.pos = 0;
@@ -240,6 +247,57 @@ public class ChunkDecoder extends AbstractContentDecoder {
         return totalRead;
     }
 
+    public long transfer(
+            final FileChannel dst,
+            final long position,
+            final long count) throws IOException {
+
+        if (dst == null) {
+            return 0;
+        }
+        if (this.state == COMPLETED) {
+            return -1;
+        }
+        if (this.state != READ_CONTENT || this.chunkSize == -1) {
+            // Process chunk delimiter, chunk header or footers without consuming content
+            read(EMPTY);
+            if (this.state != READ_CONTENT || this.chunkSize == -1) {
+                return 0;
+            }
+        }
+
+        final int maxLen = (int) Math.min(this.chunkSize - this.pos, count);
+        final long bytesRead;
+        if (this.buffer.hasData()) {
+            bytesRead = transferFromBuffer(dst, position, maxLen);
+        } else {
+            if (position > dst.size()) {
+                throw new IOException("Position past end of file [" + position +
+                        " > " + dst.size() + "]");
+            }
+            bytesRead = this.channel.isOpen() ? transferFromChannel(dst, position, maxLen) : 0;
+            if (maxLen > 0 && bytesRead == 0) {
+                // The channel may have reached the end of stream
+                if (fillBufferFromChannel() == -1) {
+                    this.endOfStream = true;
+                    this.state = COMPLETED;
+                    this.completed = true;
+                    throw new TruncatedChunkException("Truncated chunk "
+                            + "( expected size: " + this.chunkSize
+                            + "; actual size: " + this.pos + ")");
+                }
+            }
+        }
+        this.pos += bytesRead;
+        if (this.pos == this.chunkSize) {
+            // At the end of the chunk
+            this.chunkSize = -1;
+            this.pos = 0;
+            this.endOfChunk = true;
+        }
+        return bytesRead;
+    }
+
     public Header[] getFooters() {
         if (this.footers != null) {
             return this.footers.clone();
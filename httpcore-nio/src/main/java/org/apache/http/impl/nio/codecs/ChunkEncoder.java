@@ -29,28 +29,47 @@ package org.apache.http.impl.nio.codecs;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.io.BufferInfo;
+import org.apache.http.nio.FileContentEncoder;
 import org.apache.http.nio.reactor.SessionOutputBuffer;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.Asserts;
 import org.apache.http.util.CharArrayBuffer;
 
 /**
  * Implements chunked transfer coding. The content is sent in small chunks.
  * Entities transferred using this decoder can be of unlimited length.
+ * <p>
+ * If the channel supports gathering writes, fragments larger than the
+ * fragment size hint are not copied into the session buffer. The chunk
+ * header, the chunk data and the closing line delimiter are written out
+ * with a single gathering write instead.
+ * <p>
+ * Content of a {@link FileChannel} is sent as a single chunk spanning the
+ * remainder of the file. The chunk header is written out through the session
+ * buffer and the chunk data is transferred directly from the file channel
+ * to the underlying I/O session's channel.
  *
  * @since 4.0
  */
 @NotThreadSafe
-public class ChunkEncoder extends AbstractContentEncoder {
+public class ChunkEncoder extends AbstractContentEncoder implements FileContentEncoder {
+
+    private static final byte[] CRLF = new byte[] {HTTP.CR, HTTP.LF};
 
     private final int fragHint;
     private final CharArrayBuffer lineBuffer;
+    private final ByteBuffer crlf;
 
     private final BufferInfo bufferinfo;
 
+    private long fileChunkRemaining;
+
     /**
      * @since 4.3
      *
@@ -69,6 +88,7 @@ public class ChunkEncoder extends AbstractContentEncoder {
         super(channel, buffer, metrics);
         this.fragHint = fragementSizeHint > 0 ? fragementSizeHint : 0;
         this.lineBuffer = new CharArrayBuffer(16);
+        this.crlf = ByteBuffer.wrap(CRLF);
         if (buffer instanceof BufferInfo) {
             this.bufferinfo = (BufferInfo) buffer;
         } else {
@@ -91,6 +111,25 @@ public class ChunkEncoder extends AbstractContentEncoder {
 
         int total = 0;
         while (src.hasRemaining()) {
+            if (this.fileChunkRemaining > 0) {
+                // Complete the chunk announced by a partial file transfer
+                int chunk = (int) Math.min(this.fileChunkRemaining, src.remaining());
+                if (this.bufferinfo != null) {
+                    chunk = Math.min(chunk, this.bufferinfo.available());
+                }
+                if (chunk > 0) {
+                    final int bytesWritten = writeToBuffer(src, chunk);
+                    total += bytesWritten;
+                    completeFileChunk(bytesWritten);
+                }
+                if (this.fileChunkRemaining > 0 && src.hasRemaining()) {
+                    final int bytesWritten = flushToChannel();
+                    if (bytesWritten == 0) {
+                        break;
+                    }
+                }
+                continue;
+            }
             int chunk = src.remaining();
             int avail;
             if (this.bufferinfo != null) {
@@ -103,6 +142,30 @@ public class ChunkEncoder extends AbstractContentEncoder {
             // 12345678\r\n
             // <chunk-data>\r\n
             avail -= 12;
+            if (avail > 0 && chunk > this.fragHint && isGatheringSupported()) {
+                if (avail < chunk) {
+                    chunk = avail;
+                }
+                this.lineBuffer.clear();
+                this.lineBuffer.append(Integer.toHexString(chunk));
+                this.buffer.writeLine(this.lineBuffer);
+                final int oldlimit = src.limit();
+                src.limit(src.position() + chunk);
+                this.crlf.clear();
+                flushGathered(src, this.crlf);
+                if (src.hasRemaining() || this.crlf.hasRemaining()) {
+                    // The channel accepted only part of the chunk. Buffer the rest
+                    // so that the chunk can be completed on the next flush
+                    this.buffer.write(src);
+                    this.buffer.write(this.crlf);
+                }
+                src.limit(oldlimit);
+                total += chunk;
+                if (this.buffer.hasData()) {
+                    break;
+                }
+                continue;
+            }
             if (avail > 0) {
                 if (avail < chunk) {
                     // write no more than 'avail' bytes
@@ -135,9 +198,52 @@ public class ChunkEncoder extends AbstractContentEncoder {
         return total;
     }
 
+    public long transfer(
+            final FileChannel src,
+            final long position,
+            final long count) throws IOException {
+
+        if (src == null) {
+            return 0;
+        }
+        assertNotCompleted();
+
+        if (this.fileChunkRemaining == 0) {
+            final long chunk = Math.min(count, src.size() - position);
+            if (chunk <= 0) {
+                return 0;
+            }
+            this.lineBuffer.clear();
+            this.lineBuffer.append(Long.toHexString(chunk));
+            this.buffer.writeLine(this.lineBuffer);
+            this.fileChunkRemaining = chunk;
+        }
+        flushToChannel();
+        if (this.buffer.hasData()) {
+            return 0;
+        }
+
+        final long bytesWritten = transferToChannel(
+                src, position, Math.min(count, this.fileChunkRemaining));
+        completeFileChunk(bytesWritten);
+        return bytesWritten;
+    }
+
+    private void completeFileChunk(final long bytesWritten) throws IOException {
+        if (bytesWritten > 0) {
+            this.fileChunkRemaining -= bytesWritten;
+            if (this.fileChunkRemaining == 0) {
+                this.lineBuffer.clear();
+                this.buffer.writeLine(this.lineBuffer);
+            }
+        }
+    }
+
     @Override
     public void complete() throws IOException {
         assertNotCompleted();
+        Asserts.check(this.fileChunkRemaining == 0,
+                "Chunk incomplete: %s bytes of content expected", this.fileChunkRemaining);
         this.lineBuffer.clear();
         this.lineBuffer.append("0");
         this.buffer.writeLine(this.lineBuffer);
@@ -0,0 +1,177 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.nio.codecs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.entity.CompressionPool;
+import org.apache.http.entity.ContentCompressor;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.util.Args;
+import org.apache.http.util.Asserts;
+
+/**
+ * Content encoder that compresses content using the <code>gzip</code> or
+ * <code>deflate</code> content coding and writes compressed output to another
+ * content encoder, usually a {@link ChunkEncoder}. Content is compressed
+ * incrementally through a buffer of a fixed size, so memory use does not
+ * depend on the length of content.
+ * <p>
+ * Compressed output that cannot be written out due to the channel being
+ * saturated is retained by the encoder and no more content is accepted
+ * until it has been written out. For the same reason {@link #complete()}
+ * may need to be called repeatedly until {@link #isCompleted()} returns
+ * <code>true</code>.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class CompressingContentEncoder implements ContentEncoder {
+
+    private final ContentEncoder encoder;
+    private final ContentCompressor compressor;
+    private final byte[] input;
+    private final byte[] output;
+    private final ByteBuffer outbuf;
+
+    private boolean completed;
+
+    /**
+     * Creates new instance of CompressingContentEncoder.
+     *
+     * @param encoder encoder to write compressed output to.
+     * @param coding content coding, either {@link ContentCompressor#GZIP} or
+     *   {@link ContentCompressor#DEFLATE}.
+     * @param pool pool to lease the deflater from.
+     * @param bufferSize size of input and output buffers.
+     */
+    public CompressingContentEncoder(
+            final ContentEncoder encoder,
+            final String coding,
+            final CompressionPool pool,
+            final int bufferSize) {
+        super();
+        Args.notNull(encoder, "Content encoder");
+        Args.positive(bufferSize, "Buffer size");
+        this.encoder = encoder;
+        this.compressor = new ContentCompressor(coding, pool);
+        this.input = new byte[bufferSize];
+        this.output = new byte[bufferSize];
+        this.outbuf = ByteBuffer.wrap(this.output);
+        this.outbuf.limit(0);
+    }
+
+    public CompressingContentEncoder(
+            final ContentEncoder encoder,
+            final String coding,
+            final CompressionPool pool) {
+        this(encoder, coding, pool, 4096);
+    }
+
+    /**
+     * Writes pending compressed output to the underlying encoder.
+     *
+     * @return <code>true</code> if all output has been written and the
+     *   compressor needs more input or is finished.
+     */
+    private boolean produceOutput() throws IOException {
+        for (;;) {
+            if (this.outbuf.hasRemaining()) {
+                this.encoder.write(this.outbuf);
+                if (this.outbuf.hasRemaining()) {
+                    return false;
+                }
+            }
+            final int n = this.compressor.compress(this.output, 0, this.output.length);
+            if (n == 0) {
+                return true;
+            }
+            this.outbuf.clear();
+            this.outbuf.limit(n);
+        }
+    }
+
+    public int write(final ByteBuffer src) throws IOException {
+        Asserts.check(!this.completed, "Encoding process already completed");
+        if (src == null) {
+            return 0;
+        }
+        if (this.compressor.isReleased() || this.compressor.isFinished()) {
+            Asserts.check(!src.hasRemaining(), "Compressed content already finished");
+            return 0;
+        }
+        int total = 0;
+        while (produceOutput() && src.hasRemaining()) {
+            final int chunk = Math.min(src.remaining(), this.input.length);
+            src.get(this.input, 0, chunk);
+            this.compressor.setInput(this.input, 0, chunk);
+            total += chunk;
+        }
+        return total;
+    }
+
+    public void complete() throws IOException {
+        if (this.completed) {
+            return;
+        }
+        this.compressor.finish();
+        if (produceOutput()) {
+            this.compressor.release();
+            this.encoder.complete();
+            this.completed = true;
+        }
+    }
+
+    public boolean isCompleted() {
+        return this.completed;
+    }
+
+    /**
+     * Returns the deflater to the pool without completing the content.
+     * Meant to be called when the message exchange is aborted.
+     */
+    public void release() {
+        this.compressor.release();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[");
+        buffer.append(this.compressor.getCoding());
+        buffer.append("; completed: ");
+        buffer.append(this.completed);
+        buffer.append("; ");
+        buffer.append(this.encoder);
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.nio.codecs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.entity.CompressionPool;
+import org.apache.http.entity.ContentCompressor;
+import org.apache.http.entity.ContentDecompressor;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.util.Args;
+
+/**
+ * Content decoder that decompresses content encoded with the <code>gzip</code>
+ * or <code>deflate</code> content coding read from another content decoder.
+ * Content is decompressed incrementally through a buffer of a fixed size,
+ * so memory use does not depend on the length of content.
+ * <p>
+ * Once the end of compressed content has been reached the underlying decoder
+ * is read to its end. Any content following the compressed content is
+ * discarded.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class DecompressingContentDecoder implements ContentDecoder {
+
+    private final ContentDecoder decoder;
+    private final ContentDecompressor decompressor;
+    private final byte[] input;
+    private final ByteBuffer inbuf;
+    private final byte[] output;
+
+    private boolean completed;
+
+    /**
+     * Creates new instance of DecompressingContentDecoder.
+     *
+     * @param decoder decoder to read compressed content from.
+     * @param coding content coding, either {@link ContentCompressor#GZIP} or
+     *   {@link ContentCompressor#DEFLATE}.
+     * @param pool pool to lease the inflater from.
+     * @param bufferSize size of the input buffer.
+     */
+    public DecompressingContentDecoder(
+            final ContentDecoder decoder,
+            final String coding,
+            final CompressionPool pool,
+            final int bufferSize) {
+        super();
+        Args.notNull(decoder, "Content decoder");
+        Args.positive(bufferSize, "Buffer size");
+        this.decoder = decoder;
+        this.decompressor = new ContentDecompressor(coding, pool);
+        this.input = new byte[bufferSize];
+        this.inbuf = ByteBuffer.wrap(this.input);
+        this.output = new byte[bufferSize];
+    }
+
+    public DecompressingContentDecoder(
+            final ContentDecoder decoder,
+            final String coding,
+            final CompressionPool pool) {
+        this(decoder, coding, pool, 4096);
+    }
+
+    public int read(final ByteBuffer dst) throws IOException {
+        Args.notNull(dst, "Byte buffer");
+        if (this.completed) {
+            return -1;
+        }
+        int total = 0;
+        while (!this.decompressor.isReleased()) {
+            if (this.decompressor.needsInput()) {
+                this.inbuf.clear();
+                final int n = this.decoder.read(this.inbuf);
+                if (n > 0) {
+                    this.decompressor.setInput(this.input, 0, n);
+                } else if (n == -1 || this.decoder.isCompleted()) {
+                    this.decompressor.release();
+                    throw new EOFException("Unexpected end of compressed content");
+                } else {
+                    return total;
+                }
+            }
+            if (!dst.hasRemaining()) {
+                return total;
+            }
+            final int n;
+            if (dst.hasArray()) {
+                n = this.decompressor.decompress(
+                        dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+                dst.position(dst.position() + n);
+            } else {
+                n = this.decompressor.decompress(
+                        this.output, 0, Math.min(dst.remaining(), this.output.length));
+                dst.put(this.output, 0, n);
+            }
+            total += n;
+            if (this.decompressor.isFinished()) {
+                this.decompressor.release();
+            }
+        }
+        // Read the underlying decoder to its end
+        while (!this.decoder.isCompleted()) {
+            this.inbuf.clear();
+            final int n = this.decoder.read(this.inbuf);
+            if (n == -1) {
+                break;
+            }
+            if (n == 0) {
+                return total;
+            }
+        }
+        this.completed = true;
+        return total;
+    }
+
+    public boolean isCompleted() {
+        return this.completed;
+    }
+
+    /**
+     * Returns the inflater to the pool without reading the content to its end.
+     * Meant to be called when the message exchange is aborted.
+     */
+    public void release() {
+        this.decompressor.release();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[");
+        buffer.append(this.decompressor.getCoding());
+        buffer.append("; completed: ");
+        buffer.append(this.completed);
+        buffer.append("; ");
+        buffer.append(this.decoder);
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+}
@@ -28,10 +28,12 @@
 package org.apache.http.impl.nio.codecs;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.message.BasicLineFormatter;
+import org.apache.http.message.EncodedStatusLineCache;
 import org.apache.http.message.LineFormatter;
 import org.apache.http.nio.NHttpMessageWriter;
 import org.apache.http.nio.reactor.SessionOutputBuffer;
@@ -40,6 +42,9 @@ import org.apache.http.util.CharArrayBuffer;
 
 /**
  * Default {@link NHttpMessageWriter} implementation for {@link HttpResponse}s.
+ * <p>
+ * If the line formatter is {@link BasicLineFormatter}, common status lines
+ * are written from {@link EncodedStatusLineCache}.
  *
  * @since 4.1
  */
@@ -47,6 +52,8 @@ import org.apache.http.util.CharArrayBuffer;
 @NotThreadSafe
 public class DefaultHttpResponseWriter extends AbstractMessageWriter<HttpResponse> {
 
+    private final boolean preEncoded;
+
     /**
      * @deprecated (4.3) use
      *   {@link DefaultHttpResponseWriter#DefaultHttpResponseWriter(SessionOutputBuffer, LineFormatter)}
@@ -56,6 +63,7 @@ public class DefaultHttpResponseWriter extends AbstractMessageWriter<HttpRespons
                               final LineFormatter formatter,
                               final HttpParams params) {
         super(buffer, formatter, params);
+        this.preEncoded = this.lineFormatter.getClass() == BasicLineFormatter.class;
     }
 
     /**
@@ -71,10 +79,18 @@ public class DefaultHttpResponseWriter extends AbstractMessageWriter<HttpRespons
             final SessionOutputBuffer buffer,
             final LineFormatter formatter) {
         super(buffer, formatter);
+        this.preEncoded = this.lineFormatter.getClass() == BasicLineFormatter.class;
     }
 
     @Override
     protected void writeHeadLine(final HttpResponse message) throws IOException {
+        if (this.preEncoded) {
+            final byte[] encoded = EncodedStatusLineCache.lookup(message.getStatusLine());
+            if (encoded != null) {
+                this.sessionBuffer.write(ByteBuffer.wrap(encoded));
+                return;
+            }
+        }
         final CharArrayBuffer buffer = lineFormatter.formatStatusLine(
                 this.lineBuf, message.getStatusLine());
         this.sessionBuffer.writeLine(buffer);
@@ -0,0 +1,112 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.nio.codecs;
+
+import java.nio.channels.FileChannel;
+
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.nio.FileContentDecoder;
+import org.apache.http.nio.FileContentEncoder;
+
+/**
+ * {@link HttpTransportMetricsImpl} that also keeps track of how content
+ * was transferred to or from {@link FileChannel}s by
+ * {@link FileContentEncoder}s and {@link FileContentDecoder}s.
+ * <p>
+ * A transfer is counted as zero-copy if the operating system could move
+ * the data without copying it into user space: content sent from a file
+ * to a socket or file channel, or content received from a file channel.
+ * All other transfers are counted as copied. This includes content
+ * received from a socket, which {@link FileChannel#transferFrom} reads
+ * through an intermediate buffer, data already held in the session
+ * buffer and content sent to or received from an SSL session.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class FileTransferMetricsImpl extends HttpTransportMetricsImpl {
+
+    public static final String SENT_ZERO_COPY_BYTES_COUNT = "http.sent-zero-copy-bytes-count";
+    public static final String SENT_COPIED_BYTES_COUNT = "http.sent-copied-bytes-count";
+    public static final String RECEIVED_ZERO_COPY_BYTES_COUNT = "http.received-zero-copy-bytes-count";
+    public static final String RECEIVED_COPIED_BYTES_COUNT = "http.received-copied-bytes-count";
+
+    private long zeroCopyTransferCount;
+    private long zeroCopyBytesTransferred;
+    private long copiedTransferCount;
+    private long copiedBytesTransferred;
+
+    public FileTransferMetricsImpl() {
+        super();
+    }
+
+    public long getZeroCopyTransferCount() {
+        return this.zeroCopyTransferCount;
+    }
+
+    public long getZeroCopyBytesTransferred() {
+        return this.zeroCopyBytesTransferred;
+    }
+
+    public long getCopiedTransferCount() {
+        return this.copiedTransferCount;
+    }
+
+    public long getCopiedBytesTransferred() {
+        return this.copiedBytesTransferred;
+    }
+
+    /**
+     * Records a file transfer that moved data directly between channels.
+     * Does not alter the total number of bytes transferred.
+     */
+    public void recordZeroCopyTransfer(final long count) {
+        this.zeroCopyTransferCount++;
+        this.zeroCopyBytesTransferred += count;
+    }
+
+    /**
+     * Records a file transfer that copied data through a buffer.
+     * Does not alter the total number of bytes transferred.
+     */
+    public void recordCopiedTransfer(final long count) {
+        this.copiedTransferCount++;
+        this.copiedBytesTransferred += count;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.zeroCopyTransferCount = 0;
+        this.zeroCopyBytesTransferred = 0;
+        this.copiedTransferCount = 0;
+        this.copiedBytesTransferred = 0;
+    }
+
+}
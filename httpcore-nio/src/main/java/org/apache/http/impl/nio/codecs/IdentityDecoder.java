@@ -104,24 +104,23 @@ public class IdentityDecoder extends AbstractContentDecoder
 
         long bytesRead;
         if (this.buffer.hasData()) {
-            dst.position(position);
-            bytesRead = this.buffer.read(dst);
+            bytesRead = transferFromBuffer(dst, position, Integer.MAX_VALUE);
         } else {
             if (this.channel.isOpen()) {
                 if (position > dst.size()) {
                     throw new IOException("Position past end of file [" + position +
                             " > " + dst.size() + "]");
                 }
-                bytesRead = dst.transferFrom(this.channel, position, count);
+                bytesRead = transferFromChannel(dst, position, count);
                 if (count > 0 && bytesRead == 0) {
                     bytesRead = this.buffer.fill(this.channel);
+                    if (bytesRead > 0) {
+                        this.metrics.incrementBytesTransferred(bytesRead);
+                    }
                 }
             } else {
                 bytesRead = -1;
             }
-            if (bytesRead > 0) {
-                this.metrics.incrementBytesTransferred(bytesRead);
-            }
         }
         if (bytesRead == -1) {
             this.completed = true;
@@ -46,6 +46,8 @@ import org.apache.http.nio.reactor.SessionOutputBuffer;
  * This decoder is optimized to transfer data directly from
  * a {@link FileChannel} to the underlying I/O session's channel whenever
  * possible avoiding intermediate buffering in the session buffer.
+ * Content of the session buffer and large fragments of the entity are
+ * written out with a single gathering write if the channel supports it.
  *
  * @since 4.0
  */
@@ -89,6 +91,15 @@ public class IdentityEncoder extends AbstractContentEncoder
 
         int total = 0;
         while (src.hasRemaining()) {
+            if (this.buffer.hasData() && isGatheringSupported() && src.remaining() > this.fragHint) {
+                // Write out buffered data along with the fragment without copying it
+                final int bytesWritten = writeGathered(src, src.remaining());
+                total += bytesWritten;
+                if (this.buffer.hasData()) {
+                    break;
+                }
+                continue;
+            }
             if (this.buffer.hasData() || this.fragHint > 0) {
                 if (src.remaining() <= this.fragHint) {
                     final int capacity = this.fragHint - this.buffer.length();
@@ -133,11 +144,7 @@ public class IdentityEncoder extends AbstractContentEncoder
             return 0;
         }
 
-        final long bytesWritten = src.transferTo(position, count, this.channel);
-        if (bytesWritten > 0) {
-            this.metrics.incrementBytesTransferred(bytesWritten);
-        }
-        return bytesWritten;
+        return transferToChannel(src, position, count);
     }
 
     @Override
@@ -120,8 +120,7 @@ public class LengthDelimitedDecoder extends AbstractContentDecoder
         final long bytesRead;
         if (this.buffer.hasData()) {
             final int maxLen = Math.min(chunk, this.buffer.length());
-            dst.position(position);
-            bytesRead = this.buffer.read(dst, maxLen);
+            bytesRead = transferFromBuffer(dst, position, maxLen);
         } else {
             if (count > chunk) {
                 count = chunk;
@@ -131,13 +130,10 @@ public class LengthDelimitedDecoder extends AbstractContentDecoder
                     throw new IOException("Position past end of file [" + position +
                             " > " + dst.size() + "]");
                 }
-                bytesRead = dst.transferFrom(this.channel, position, count);
+                bytesRead = transferFromChannel(dst, position, count);
             } else {
                 bytesRead = -1;
             }
-            if (bytesRead > 0) {
-                this.metrics.incrementBytesTransferred(bytesRead);
-            }
         }
         if (bytesRead == -1) {
             this.completed = true;
@@ -48,6 +48,9 @@ import org.apache.http.util.Args;
  * This decoder is optimized to transfer data directly from
  * a {@link FileChannel} to the underlying I/O session's channel whenever
  * possible avoiding intermediate buffering in the session buffer.
+ * Content of the session buffer and large or final fragments of
+ * the entity are written out with a single gathering write if the channel
+ * supports it.
  *
  * @since 4.0
  */
@@ -104,6 +107,20 @@ public class LengthDelimitedEncoder extends AbstractContentEncoder
 
         int total = 0;
         while (src.hasRemaining() && this.remaining > 0) {
+            if (this.buffer.hasData() && isGatheringSupported()) {
+                final int chunk = nextChunk(src);
+                if (chunk > this.fragHint || chunk == this.remaining) {
+                    // Write out buffered data, usually the message head, along with
+                    // a large fragment or the last one without copying it
+                    final int bytesWritten = writeGathered(src, chunk);
+                    this.remaining -= bytesWritten;
+                    total += bytesWritten;
+                    if (this.buffer.hasData()) {
+                        break;
+                    }
+                    continue;
+                }
+            }
             if (this.buffer.hasData() || this.fragHint > 0) {
                 final int chunk = nextChunk(src);
                 if (chunk <= this.fragHint) {
@@ -159,10 +176,7 @@ public class LengthDelimitedEncoder extends AbstractContentEncoder
         }
 
         final long chunk = Math.min(this.remaining, count);
-        final long bytesWritten = src.transferTo(position, chunk, this.channel);
-        if (bytesWritten > 0) {
-            this.metrics.incrementBytesTransferred(bytesWritten);
-        }
+        final long bytesWritten = transferToChannel(src, position, chunk);
         this.remaining -= bytesWritten;
         if (this.remaining <= 0) {
             this.completed = true;
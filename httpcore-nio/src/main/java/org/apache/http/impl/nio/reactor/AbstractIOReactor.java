@@ -35,11 +35,13 @@ import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.http.annotation.ThreadSafe;
 import org.apache.http.nio.reactor.IOReactor;
@@ -65,10 +67,13 @@ public abstract class AbstractIOReactor implements IOReactor {
     private final long selectTimeout;
     private final boolean interestOpsQueueing;
     private final Selector selector;
+    private final SelectedKeySet selectedKeySet;
     private final Set<IOSession> sessions;
     private final Queue<InterestOpEntry> interestOpsQueue;
     private final Queue<IOSession> closedSessions;
     private final Queue<ChannelEntry> newChannels;
+    private final Queue<ListenerShard> newListeners;
+    private final AtomicBoolean wakeupPending;
 
     /**
      * Creates new AbstractIOReactor instance.
@@ -91,6 +96,27 @@ public abstract class AbstractIOReactor implements IOReactor {
      * @since 4.1
      */
     public AbstractIOReactor(final long selectTimeout, final boolean interestOpsQueueing) throws IOReactorException {
+        this(selectTimeout, interestOpsQueueing, false);
+    }
+
+    /**
+     * Creates new AbstractIOReactor instance.
+     *
+     * @param selectTimeout the select timeout.
+     * @param interestOpsQueueing Ops queueing flag.
+     * @param selectedKeysOptimized flag indicating whether or not the I/O reactor
+     *   should attempt to collect selected keys into an array backed set.
+     *
+     * @throws IOReactorException in case if a non-recoverable I/O error.
+     *
+     * @see IOReactorConfig#isSelectedKeysOptimized()
+     *
+     * @since 4.3
+     */
+    public AbstractIOReactor(
+            final long selectTimeout,
+            final boolean interestOpsQueueing,
+            final boolean selectedKeysOptimized) throws IOReactorException {
         super();
         Args.positive(selectTimeout, "Select timeout");
         this.selectTimeout = selectTimeout;
@@ -99,11 +125,14 @@ public abstract class AbstractIOReactor implements IOReactor {
         this.interestOpsQueue = new ConcurrentLinkedQueue<InterestOpEntry>();
         this.closedSessions = new ConcurrentLinkedQueue<IOSession>();
         this.newChannels = new ConcurrentLinkedQueue<ChannelEntry>();
+        this.newListeners = new ConcurrentLinkedQueue<ListenerShard>();
+        this.wakeupPending = new AtomicBoolean(false);
         try {
             this.selector = Selector.open();
         } catch (final IOException ex) {
             throw new IOReactorException("Failure opening selector", ex);
         }
+        this.selectedKeySet = selectedKeysOptimized ? SelectedKeySet.install(this.selector) : null;
         this.statusMutex = new Object();
         this.status = IOReactorStatus.INACTIVE;
     }
@@ -211,6 +240,20 @@ public abstract class AbstractIOReactor implements IOReactor {
         return this.interestOpsQueueing;
     }
 
+    /**
+     * Returns <code>true</code> if selected keys are collected into an array backed
+     * set, <code>false</code> otherwise. This may be <code>false</code> even though
+     * the optimization has been requested, as the selector implementation may not
+     * permit the replacement of its selected key set.
+     *
+     * @see IOReactorConfig#isSelectedKeysOptimized()
+     *
+     * @since 4.3
+     */
+    public boolean isSelectedKeysOptimized() {
+        return this.selectedKeySet != null;
+    }
+
     /**
      * Adds new channel entry. The channel will be asynchronously registered
      * with the selector.
@@ -220,7 +263,59 @@ public abstract class AbstractIOReactor implements IOReactor {
     public void addChannel(final ChannelEntry channelEntry) {
         Args.notNull(channelEntry, "Channel entry");
         this.newChannels.add(channelEntry);
-        this.selector.wakeup();
+        wakeupForNewChannels();
+    }
+
+    /**
+     * Adds a batch of new channel entries. The channels will be asynchronously
+     * registered with the selector.
+     *
+     * @param channelEntries the channel entries.
+     *
+     * @since 4.3
+     */
+    public void addChannels(final Collection<ChannelEntry> channelEntries) {
+        Args.notNull(channelEntries, "Channel entries");
+        if (channelEntries.isEmpty()) {
+            return;
+        }
+        for (final ChannelEntry channelEntry: channelEntries) {
+            Args.notNull(channelEntry, "Channel entry");
+        }
+        this.newChannels.addAll(channelEntries);
+        wakeupForNewChannels();
+    }
+
+    /**
+     * Adds a server channel that is to accept connections on behalf of this
+     * I/O reactor. The channel will be asynchronously registered with
+     * the selector.
+     *
+     * @param shard the listener shard.
+     */
+    void addListener(final ListenerShard shard) {
+        Args.notNull(shard, "Listener shard");
+        this.newListeners.add(shard);
+        wakeupForNewChannels();
+    }
+
+    /**
+     * Wakes up the selector unless it has already been woken up since it last
+     * returned from a select operation. New channels get picked up by the I/O
+     * reactor after a select operation returns, so waking up the selector once
+     * is sufficient for any number of channels added in the meantime.
+     */
+    private void wakeupForNewChannels() {
+        if (this.wakeupPending.compareAndSet(false, true)) {
+            this.selector.wakeup();
+        }
+    }
+
+    /**
+     * Returns the number of I/O sessions currently managed by this I/O reactor.
+     */
+    int getSessionCount() {
+        return this.sessions.size();
     }
 
     /**
@@ -259,6 +354,8 @@ public abstract class AbstractIOReactor implements IOReactor {
                 } catch (final IOException ex) {
                     throw new IOReactorException("Unexpected selector failure", ex);
                 }
+                // Channels added from now on need a new wakeup
+                this.wakeupPending.set(false);
 
                 if (this.status == IOReactorStatus.SHUT_DOWN) {
                     // Hard shut down. Exit select loop immediately
@@ -274,7 +371,11 @@ public abstract class AbstractIOReactor implements IOReactor {
 
                 // Process selected I/O events
                 if (readyCount > 0) {
-                    processEvents(this.selector.selectedKeys());
+                    if (this.selectedKeySet != null) {
+                        processSelectedKeys();
+                    } else {
+                        processEvents(this.selector.selectedKeys());
+                    }
                 }
 
                 // Validate active channels
@@ -319,13 +420,29 @@ public abstract class AbstractIOReactor implements IOReactor {
         selectedKeys.clear();
     }
 
+    private void processSelectedKeys() {
+        final SelectedKeySet selectedKeys = this.selectedKeySet;
+        final int size = selectedKeys.size();
+        for (int i = 0; i < size; i++) {
+
+            processEvent(selectedKeys.get(i));
+
+        }
+        selectedKeys.reset();
+    }
+
     /**
      * Processes new event on the given selection key.
      *
      * @param key the selection key that triggered an event.
      */
     protected void processEvent(final SelectionKey key) {
-        final IOSessionImpl session = (IOSessionImpl) key.attachment();
+        final Object attachment = key.attachment();
+        if (attachment instanceof ListenerShard) {
+            processAccept(key, (ListenerShard) attachment);
+            return;
+        }
+        final IOSessionImpl session = (IOSessionImpl) attachment;
         try {
             if (key.isAcceptable()) {
                 acceptable(key);
@@ -347,6 +464,21 @@ public abstract class AbstractIOReactor implements IOReactor {
         }
     }
 
+    private void processAccept(final SelectionKey key, final ListenerShard shard) {
+        try {
+            if (key.isAcceptable()) {
+                SocketChannel channel;
+                while ((channel = shard.accept()) != null) {
+                    // Accepted channels get registered later in this select
+                    // loop, so there is no need to wake up the selector
+                    this.newChannels.add(new ChannelEntry(channel));
+                }
+            }
+        } catch (final CancelledKeyException ex) {
+            key.attach(null);
+        }
+    }
+
     /**
      * Queues the given I/O session to be processed asynchronously as closed.
      *
@@ -359,6 +491,14 @@ public abstract class AbstractIOReactor implements IOReactor {
     }
 
     private void processNewChannels() throws IOReactorException {
+        ListenerShard shard;
+        while ((shard = this.newListeners.poll()) != null) {
+            try {
+                shard.getChannel().register(this.selector, SelectionKey.OP_ACCEPT, shard);
+            } catch (final ClosedChannelException ex) {
+                // Listener endpoint has been closed in the meantime
+            }
+        }
         ChannelEntry entry;
         while ((entry = this.newChannels.poll()) != null) {
 
@@ -453,7 +593,11 @@ public abstract class AbstractIOReactor implements IOReactor {
         while ((entry = this.interestOpsQueue.poll()) != null) {
             // obtain the operation's details
             final SelectionKey key = entry.getSelectionKey();
-            final int eventMask = entry.getEventMask();
+            final Object attachment = key.attachment();
+            // entries queued concurrently may arrive out of order, so apply
+            // the most recent event mask of the session if available
+            final int eventMask = attachment instanceof IOSessionImpl ?
+                    ((IOSessionImpl) attachment).getEventMask() : entry.getEventMask();
             if (key.isValid()) {
                 key.interestOps(eventMask);
             }
@@ -483,8 +627,9 @@ public abstract class AbstractIOReactor implements IOReactor {
      * @param now current time as long value.
      */
     protected void timeoutCheck(final SelectionKey key, final long now) {
-        final IOSessionImpl session = (IOSessionImpl) key.attachment();
-        if (session != null) {
+        final Object attachment = key.attachment();
+        if (attachment instanceof IOSessionImpl) {
+            final IOSessionImpl session = (IOSessionImpl) attachment;
             final int timeout = session.getSocketTimeout();
             if (timeout > 0) {
                 if (session.getLastAccessTime() + timeout < now) {
@@ -534,6 +679,9 @@ public abstract class AbstractIOReactor implements IOReactor {
         try {
             final Set<SelectionKey> keys = this.selector.keys();
             for (final SelectionKey key : keys) {
+                if (key.attachment() instanceof ListenerShard) {
+                    continue;
+                }
                 final IOSession session = getSession(key);
                 if (session != null) {
                     session.close();
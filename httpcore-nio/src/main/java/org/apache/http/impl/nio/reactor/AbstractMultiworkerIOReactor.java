@@ -110,6 +110,8 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
     protected final long selectTimeout;
     protected final boolean interestOpsQueueing;
 
+    final SelectedKeySet selectedKeySet;
+
     private final int workerCount;
     private final ThreadFactory threadFactory;
     private final BaseIOReactor[] dispatchers;
@@ -120,6 +122,8 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
     protected IOReactorExceptionHandler exceptionHandler;
     protected List<ExceptionEvent> auditLog;
 
+    private final List<ChannelEntry>[] batches;
+    private final int[] batchLoads;
     private int currentWorker = 0;
 
     /**
@@ -132,6 +136,7 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
      *
      * @since 4.2
      */
+    @SuppressWarnings("unchecked")
     public AbstractMultiworkerIOReactor(
             final IOReactorConfig config,
             final ThreadFactory threadFactory) throws IOReactorException {
@@ -143,6 +148,8 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
         } catch (final IOException ex) {
             throw new IOReactorException("Failure opening selector", ex);
         }
+        this.selectedKeySet = this.config.isSelectedKeysOptimized() ?
+                SelectedKeySet.install(this.selector) : null;
         this.selectTimeout = this.config.getSelectInterval();
         this.interestOpsQueueing = this.config.isInterestOpQueued();
         this.statusLock = new Object();
@@ -155,6 +162,11 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
         this.dispatchers = new BaseIOReactor[workerCount];
         this.workers = new Worker[workerCount];
         this.threads = new Thread[workerCount];
+        this.batches = new List[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            this.batches[i] = new ArrayList<ChannelEntry>();
+        }
+        this.batchLoads = new int[workerCount];
         this.status = IOReactorStatus.INACTIVE;
     }
 
@@ -208,6 +220,20 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
         return this.status;
     }
 
+    /**
+     * Returns <code>true</code> if selected keys of the main selector are collected
+     * into an array backed set, <code>false</code> otherwise. This may be
+     * <code>false</code> even though the optimization has been requested, as the
+     * selector implementation may not permit the replacement of its selected key set.
+     *
+     * @see IOReactorConfig#isSelectedKeysOptimized()
+     *
+     * @since 4.3
+     */
+    public boolean isSelectedKeysOptimized() {
+        return this.selectedKeySet != null;
+    }
+
     /**
      * Returns the audit log containing exceptions thrown by the I/O reactor
      * prior and in the course of the reactor shutdown.
@@ -316,7 +342,7 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
             this.status = IOReactorStatus.ACTIVE;
             // Start I/O dispatchers
             for (int i = 0; i < this.dispatchers.length; i++) {
-                final BaseIOReactor dispatcher = new BaseIOReactor(this.selectTimeout, this.interestOpsQueueing);
+                final BaseIOReactor dispatcher = new BaseIOReactor(this.config);
                 dispatcher.setExceptionHandler(exceptionHandler);
                 this.dispatchers[i] = dispatcher;
             }
@@ -471,10 +497,89 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
      */
     protected void addChannel(final ChannelEntry entry) {
         // Distribute new channels among the workers
-        final int i = Math.abs(this.currentWorker++ % this.workerCount);
+        final int i = nextWorker();
         this.dispatchers[i].addChannel(entry);
     }
 
+    /**
+     * Assigns the given channel entries to the worker I/O reactors. Entries
+     * are grouped by worker and each worker is handed its group at once,
+     * which requires at most one selector wakeup per worker.
+     * <p>
+     * This method is expected to be called by the I/O dispatch thread of
+     * this I/O reactor only.
+     *
+     * @param entries the channel entries.
+     *
+     * @since 4.3
+     */
+    protected void addChannels(final List<ChannelEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (entries.size() == 1) {
+            addChannel(entries.get(0));
+            return;
+        }
+        try {
+            for (final ChannelEntry entry: entries) {
+                final int i = nextWorker();
+                this.batches[i].add(entry);
+                this.batchLoads[i]++;
+            }
+            for (int i = 0; i < this.workerCount; i++) {
+                final List<ChannelEntry> batch = this.batches[i];
+                if (!batch.isEmpty()) {
+                    this.dispatchers[i].addChannels(batch);
+                }
+            }
+        } finally {
+            for (int i = 0; i < this.workerCount; i++) {
+                this.batches[i].clear();
+                this.batchLoads[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of worker I/O reactors.
+     */
+    int getWorkerCount() {
+        return this.workerCount;
+    }
+
+    /**
+     * Assigns the given listener shard to the worker I/O reactor with
+     * the given index.
+     *
+     * @param worker the index of the worker I/O reactor.
+     * @param shard the listener shard.
+     */
+    void addListener(final int worker, final ListenerShard shard) {
+        this.dispatchers[worker].addListener(shard);
+    }
+
+    private int nextWorker() {
+        if (this.config.isLeastLoadedDispatch()) {
+            // Pick the worker with the fewest sessions including those
+            // assigned to it in the current batch. Ties are broken
+            // in a round-robin fashion
+            final int start = Math.abs(this.currentWorker++ % this.workerCount);
+            int worker = start;
+            int minLoad = Integer.MAX_VALUE;
+            for (int n = 0; n < this.workerCount; n++) {
+                final int i = (start + n) % this.workerCount;
+                final int load = this.dispatchers[i].getSessionCount() + this.batchLoads[i];
+                if (load < minLoad) {
+                    minLoad = load;
+                    worker = i;
+                }
+            }
+            return worker;
+        }
+        return Math.abs(this.currentWorker++ % this.workerCount);
+    }
+
     /**
      * Registers the given channel with the main {@link Selector}.
      *
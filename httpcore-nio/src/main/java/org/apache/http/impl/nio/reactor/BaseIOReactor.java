@@ -30,8 +30,10 @@ package org.apache.http.impl.nio.reactor;
 import java.io.InterruptedIOException;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.http.annotation.ThreadSafe;
@@ -54,8 +56,12 @@ import org.apache.http.util.Args;
 @ThreadSafe // public methods only
 public class BaseIOReactor extends AbstractIOReactor {
 
+    private static final int TIMEOUT_WHEEL_SIZE = 512;
+
     private final long timeoutCheckInterval;
     private final Set<IOSession> bufferingSessions;
+    private final SessionTimeoutWheel timeoutWheel;
+    private final List<IOSessionImpl> timedOutSessions;
 
     private long lastTimeoutCheck;
 
@@ -84,10 +90,40 @@ public class BaseIOReactor extends AbstractIOReactor {
      */
     public BaseIOReactor(
             final long selectTimeout, final boolean interestOpsQueueing) throws IOReactorException {
-        super(selectTimeout, interestOpsQueueing);
+        this(selectTimeout, interestOpsQueueing, false, false);
+    }
+
+    /**
+     * Creates new BaseIOReactor instance.
+     *
+     * @param config I/O reactor configuration.
+     *
+     * @throws IOReactorException in case if a non-recoverable I/O error.
+     *
+     * @since 4.3
+     */
+    public BaseIOReactor(final IOReactorConfig config) throws IOReactorException {
+        this(config.getSelectInterval(), config.isInterestOpQueued(),
+                config.isSelectedKeysOptimized(), config.isTimeoutWheel());
+    }
+
+    private BaseIOReactor(
+            final long selectTimeout,
+            final boolean interestOpsQueueing,
+            final boolean selectedKeysOptimized,
+            final boolean timeoutWheel) throws IOReactorException {
+        super(selectTimeout, interestOpsQueueing, selectedKeysOptimized);
         this.bufferingSessions = new HashSet<IOSession>();
         this.timeoutCheckInterval = selectTimeout;
         this.lastTimeoutCheck = System.currentTimeMillis();
+        if (timeoutWheel) {
+            this.timeoutWheel = new SessionTimeoutWheel(
+                    selectTimeout, TIMEOUT_WHEEL_SIZE, this.lastTimeoutCheck);
+            this.timedOutSessions = new ArrayList<IOSessionImpl>();
+        } else {
+            this.timeoutWheel = null;
+            this.timedOutSessions = null;
+        }
     }
 
     /**
@@ -189,7 +225,10 @@ public class BaseIOReactor extends AbstractIOReactor {
     /**
      * Verifies whether any of the sessions associated with the given selection
      * keys timed out by invoking the {@link #timeoutCheck(SelectionKey, long)}
-     * method.
+     * method. If the I/O reactor has been configured to use a timing wheel
+     * for session timeouts, only sessions due for a timeout check get examined
+     * and {@link #sessionTimedOut(IOSession)} is invoked directly for those
+     * that timed out.
      * <p>
      * This method will also invoke the
      * {@link IOEventDispatch#inputReady(IOSession)} method on all sessions
@@ -198,7 +237,15 @@ public class BaseIOReactor extends AbstractIOReactor {
     @Override
     protected void validate(final Set<SelectionKey> keys) {
         final long currentTime = System.currentTimeMillis();
-        if( (currentTime - this.lastTimeoutCheck) >= this.timeoutCheckInterval) {
+        if (this.timeoutWheel != null) {
+            this.timeoutWheel.expire(currentTime, this.timedOutSessions);
+            if (!this.timedOutSessions.isEmpty()) {
+                for (int i = 0; i < this.timedOutSessions.size(); i++) {
+                    sessionTimedOut(this.timedOutSessions.get(i));
+                }
+                this.timedOutSessions.clear();
+            }
+        } else if( (currentTime - this.lastTimeoutCheck) >= this.timeoutCheckInterval) {
             this.lastTimeoutCheck = currentTime;
             if (keys != null) {
                 for (final SelectionKey key : keys) {
@@ -236,6 +283,9 @@ public class BaseIOReactor extends AbstractIOReactor {
      */
     @Override
     protected void sessionCreated(final SelectionKey key, final IOSession session) {
+        if (this.timeoutWheel != null && session instanceof IOSessionImpl) {
+            this.timeoutWheel.register((IOSessionImpl) session);
+        }
         try {
             this.eventDispatch.connected(session);
         } catch (final CancelledKeyException ex) {
@@ -28,15 +28,18 @@
 package org.apache.http.impl.nio.reactor;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.ServerSocket;
 import java.net.SocketAddress;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -65,6 +68,7 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
     private final Queue<ListenerEndpointImpl> requestQueue;
     private final Set<ListenerEndpointImpl> endpoints;
     private final Set<SocketAddress> pausedEndpoints;
+    private final List<ChannelEntry> acceptedChannels;
 
     private volatile boolean paused;
 
@@ -85,6 +89,7 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
         this.requestQueue = new ConcurrentLinkedQueue<ListenerEndpointImpl>();
         this.endpoints = Collections.synchronizedSet(new HashSet<ListenerEndpointImpl>());
         this.pausedEndpoints = new HashSet<SocketAddress>();
+        this.acceptedChannels = new ArrayList<ChannelEntry>();
     }
 
     /**
@@ -147,13 +152,30 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
         }
 
         if (readyCount > 0) {
-            final Set<SelectionKey> selectedKeys = this.selector.selectedKeys();
-            for (final SelectionKey key : selectedKeys) {
+            try {
+                if (this.selectedKeySet != null) {
+                    final int size = this.selectedKeySet.size();
+                    for (int i = 0; i < size; i++) {
+
+                        processEvent(this.selectedKeySet.get(i));
+
+                    }
+                    this.selectedKeySet.reset();
+                } else {
+                    final Set<SelectionKey> selectedKeys = this.selector.selectedKeys();
+                    for (final SelectionKey key : selectedKeys) {
 
-                processEvent(key);
+                        processEvent(key);
 
+                    }
+                    selectedKeys.clear();
+                }
+            } finally {
+                // Hand over channels accepted in the course of this select
+                // to the worker I/O reactors in one go
+                addChannels(this.acceptedChannels);
+                this.acceptedChannels.clear();
             }
-            selectedKeys.clear();
         }
     }
 
@@ -188,7 +210,7 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
                         }
                     }
                     final ChannelEntry entry = new ChannelEntry(socketChannel);
-                    addChannel(entry);
+                    this.acceptedChannels.add(entry);
                 }
             }
 
@@ -223,6 +245,12 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
     private void processSessionRequests() throws IOReactorException {
         ListenerEndpointImpl request;
         while ((request = this.requestQueue.poll()) != null) {
+            if (this.config.isListenerSharding()) {
+                if (!processShardedRequest(request)) {
+                    return;
+                }
+                continue;
+            }
             final SocketAddress address = request.getAddress();
             final ServerSocketChannel serverChannel;
             try {
@@ -260,6 +288,90 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
         }
     }
 
+    /**
+     * Binds server channels for the given request and hands them over to
+     * the worker I/O reactors. With <code>SO_REUSEPORT</code> each worker gets
+     * a channel of its own, otherwise all workers share a single channel.
+     *
+     * @return <code>false</code> if binding failed and the failure has been
+     *   handled by the exception handler, <code>true</code> otherwise.
+     */
+    private boolean processShardedRequest(
+            final ListenerEndpointImpl request) throws IOReactorException {
+        final SocketAddress address = request.getAddress();
+        final int workerCount = getWorkerCount();
+        final ServerSocketChannel[] channels = new ServerSocketChannel[workerCount];
+        boolean reusePort = false;
+        try {
+            channels[0] = openServerChannel();
+            reusePort = workerCount > 1 && ListenerShard.setReusePort(channels[0]);
+            channels[0].socket().bind(address);
+            if (reusePort) {
+                // Bind the other channels to the actual local address
+                // in case an ephemeral port has been requested
+                final SocketAddress localAddress = channels[0].socket().getLocalSocketAddress();
+                for (int i = 1; i < workerCount; i++) {
+                    channels[i] = openServerChannel();
+                    ListenerShard.setReusePort(channels[i]);
+                    channels[i].socket().bind(localAddress);
+                }
+            }
+        } catch (final IOException ex) {
+            for (final ServerSocketChannel channel: channels) {
+                if (channel != null) {
+                    closeChannel(channel);
+                }
+            }
+            request.failed(ex);
+            if (this.exceptionHandler == null || !this.exceptionHandler.handle(ex)) {
+                throw new IOReactorException("Failure binding socket to address "
+                        + address, ex);
+            } else {
+                return false;
+            }
+        }
+        final ServerSocketChannel[] boundChannels = reusePort ?
+                channels : new ServerSocketChannel[] { channels[0] };
+        request.setChannels(boundChannels);
+        for (int i = 0; i < workerCount; i++) {
+            final ServerSocketChannel channel = boundChannels[reusePort ? i : 0];
+            addListener(i, new ListenerShard(channel, request, this));
+        }
+        this.endpoints.add(request);
+        request.completed(channels[0].socket().getLocalSocketAddress());
+        return true;
+    }
+
+    private ServerSocketChannel openServerChannel() throws IOException {
+        final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().setReuseAddress(this.config.isSoReuseAddress());
+            serverChannel.configureBlocking(false);
+        } catch (final IOException ex) {
+            closeChannel(serverChannel);
+            throw ex;
+        }
+        return serverChannel;
+    }
+
+    /**
+     * Closes server channels of sharded listener endpoints, which are not
+     * registered with the main selector, before shutting down the I/O reactor.
+     */
+    @Override
+    protected void doShutdown() throws InterruptedIOException {
+        if (this.config.isListenerSharding()) {
+            final List<ListenerEndpointImpl> endpoints;
+            synchronized (this.endpoints) {
+                endpoints = new ArrayList<ListenerEndpointImpl>(this.endpoints);
+            }
+            for (final ListenerEndpointImpl endpoint: endpoints) {
+                endpoint.close();
+            }
+        }
+        super.doShutdown();
+    }
+
     public Set<ListenerEndpoint> getEndpoints() {
         final Set<ListenerEndpoint> set = new HashSet<ListenerEndpoint>();
         synchronized (this.endpoints) {
@@ -58,6 +58,10 @@ public final class IOReactorConfig implements Cloneable {
     private int connectTimeout;
     private int sndBufSize;
     private int rcvBufSize;
+    private boolean timeoutWheel;
+    private boolean selectedKeysOptimized;
+    private boolean leastLoadedDispatch;
+    private boolean listenerSharding;
 
     @Deprecated
     public IOReactorConfig() {
@@ -74,6 +78,10 @@ public final class IOReactorConfig implements Cloneable {
         this.connectTimeout = 0;
         this.sndBufSize = 0;
         this.rcvBufSize = 0;
+        this.timeoutWheel = false;
+        this.selectedKeysOptimized = false;
+        this.leastLoadedDispatch = false;
+        this.listenerSharding = false;
     }
 
     IOReactorConfig(
@@ -88,7 +96,11 @@ public final class IOReactorConfig implements Cloneable {
             final boolean tcpNoDelay,
             final int connectTimeout,
             final int sndBufSize,
-            final int rcvBufSize) {
+            final int rcvBufSize,
+            final boolean timeoutWheel,
+            final boolean selectedKeysOptimized,
+            final boolean leastLoadedDispatch,
+            final boolean listenerSharding) {
         super();
         this.selectInterval = selectInterval;
         this.shutdownGracePeriod = shutdownGracePeriod;
@@ -102,6 +114,10 @@ public final class IOReactorConfig implements Cloneable {
         this.connectTimeout = connectTimeout;
         this.sndBufSize = sndBufSize;
         this.rcvBufSize = rcvBufSize;
+        this.timeoutWheel = timeoutWheel;
+        this.selectedKeysOptimized = selectedKeysOptimized;
+        this.leastLoadedDispatch = leastLoadedDispatch;
+        this.listenerSharding = listenerSharding;
     }
 
     /**
@@ -339,6 +355,70 @@ public final class IOReactorConfig implements Cloneable {
         this.rcvBufSize = rcvBufSize;
     }
 
+    /**
+     * Determines whether or not socket timeouts of I/O sessions are to be tracked
+     * by a hashed timing wheel instead of a periodic scan of all sessions
+     * registered with the I/O reactor. With the timing wheel the cost of timeout
+     * processing is proportional to the number of sessions due for a timeout check
+     * rather than to the total number of sessions.
+     * <p/>
+     * Default: <code>false</code>
+     *
+     * @since 4.3
+     */
+    public boolean isTimeoutWheel() {
+        return this.timeoutWheel;
+    }
+
+    /**
+     * Determines whether or not the I/O reactor should attempt to replace the set of
+     * selected keys maintained by the {@link java.nio.channels.Selector} with a set
+     * backed by a flat array, which makes dispatching of I/O events garbage-free.
+     * If the selector implementation does not permit the replacement the I/O reactor
+     * falls back onto the standard selected key set. This is the case on Java 9 and
+     * newer unless the <code>sun.nio.ch</code> package of the <code>java.base</code>
+     * module is opened to the unnamed module (<code>--add-opens</code>).
+     * {@link AbstractIOReactor#isSelectedKeysOptimized()} reports whether the
+     * optimization is actually in effect.
+     * <p/>
+     * Default: <code>false</code>
+     *
+     * @since 4.3
+     */
+    public boolean isSelectedKeysOptimized() {
+        return this.selectedKeysOptimized;
+    }
+
+    /**
+     * Determines whether new channels are to be assigned to the worker I/O reactor
+     * with the fewest active sessions rather than to worker I/O reactors in
+     * a round-robin fashion.
+     * <p/>
+     * Default: <code>false</code>
+     *
+     * @since 4.3
+     */
+    public boolean isLeastLoadedDispatch() {
+        return this.leastLoadedDispatch;
+    }
+
+    /**
+     * Determines whether listener endpoints are to be served by worker I/O reactors
+     * directly instead of the main I/O reactor. When enabled each worker I/O reactor
+     * accepts incoming connections on its own server socket bound to the endpoint
+     * address with <code>SO_REUSEPORT</code> if supported by the platform and
+     * the JRE, or on a server socket shared by all worker I/O reactors otherwise.
+     * This allows the rate of accepted connections to scale with the number of
+     * I/O dispatch threads.
+     * <p/>
+     * Default: <code>false</code>
+     *
+     * @since 4.3
+     */
+    public boolean isListenerSharding() {
+        return this.listenerSharding;
+    }
+
     @Override
     protected IOReactorConfig clone() throws CloneNotSupportedException {
         return (IOReactorConfig) super.clone();
@@ -360,7 +440,11 @@ public final class IOReactorConfig implements Cloneable {
             .setSoLinger(config.getSoLinger())
             .setSoKeepAlive(config.isSoKeepalive())
             .setTcpNoDelay(config.isTcpNoDelay())
-            .setConnectTimeout(config.getConnectTimeout());
+            .setConnectTimeout(config.getConnectTimeout())
+            .setTimeoutWheel(config.isTimeoutWheel())
+            .setSelectedKeysOptimized(config.isSelectedKeysOptimized())
+            .setLeastLoadedDispatch(config.isLeastLoadedDispatch())
+            .setListenerSharding(config.isListenerSharding());
     }
 
     public static class Builder {
@@ -377,6 +461,10 @@ public final class IOReactorConfig implements Cloneable {
         private int connectTimeout;
         private int sndBufSize;
         private int rcvBufSize;
+        private boolean timeoutWheel;
+        private boolean selectedKeysOptimized;
+        private boolean leastLoadedDispatch;
+        private boolean listenerSharding;
 
         Builder() {
             this.selectInterval = 1000;
@@ -391,6 +479,10 @@ public final class IOReactorConfig implements Cloneable {
             this.connectTimeout = 0;
             this.sndBufSize = 0;
             this.rcvBufSize = 0;
+            this.timeoutWheel = false;
+            this.selectedKeysOptimized = false;
+            this.leastLoadedDispatch = false;
+            this.listenerSharding = false;
         }
 
         public Builder setSelectInterval(final long selectInterval) {
@@ -453,11 +545,32 @@ public final class IOReactorConfig implements Cloneable {
             return this;
         }
 
+        public Builder setTimeoutWheel(final boolean timeoutWheel) {
+            this.timeoutWheel = timeoutWheel;
+            return this;
+        }
+
+        public Builder setSelectedKeysOptimized(final boolean selectedKeysOptimized) {
+            this.selectedKeysOptimized = selectedKeysOptimized;
+            return this;
+        }
+
+        public Builder setLeastLoadedDispatch(final boolean leastLoadedDispatch) {
+            this.leastLoadedDispatch = leastLoadedDispatch;
+            return this;
+        }
+
+        public Builder setListenerSharding(final boolean listenerSharding) {
+            this.listenerSharding = listenerSharding;
+            return this;
+        }
+
         public IOReactorConfig build() {
             return new IOReactorConfig(
                     selectInterval, shutdownGracePeriod, interestOpQueued, ioThreadCount,
                     soTimeout, soReuseAddress, soLinger, soKeepAlive, tcpNoDelay,
-                    connectTimeout, sndBufSize, rcvBufSize);
+                    connectTimeout, sndBufSize, rcvBufSize, timeoutWheel,
+                    selectedKeysOptimized, leastLoadedDispatch, listenerSharding);
         }
 
     }
@@ -477,6 +590,10 @@ public final class IOReactorConfig implements Cloneable {
                 .append(", connectTimeout=").append(this.connectTimeout)
                 .append(", sndBufSize=").append(this.sndBufSize)
                 .append(", rcvBufSize=").append(this.rcvBufSize)
+                .append(", timeoutWheel=").append(this.timeoutWheel)
+                .append(", selectedKeysOptimized=").append(this.selectedKeysOptimized)
+                .append(", leastLoadedDispatch=").append(this.leastLoadedDispatch)
+                .append(", listenerSharding=").append(this.listenerSharding)
                 .append("]");
         return builder.toString();
     }
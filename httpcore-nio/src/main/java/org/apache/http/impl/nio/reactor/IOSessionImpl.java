@@ -32,12 +32,14 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.Channel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.apache.http.annotation.ThreadSafe;
 import org.apache.http.nio.reactor.IOSession;
@@ -47,12 +49,22 @@ import org.apache.http.util.Args;
 
 /**
  * Default implementation of {@link IOSession}.
+ * <p/>
+ * The event mask is maintained by means of atomic updates and mirrors
+ * the interest operations of the underlying {@link SelectionKey}. Changes
+ * of the event mask that have no effect do not touch the selection key
+ * nor wake up the selector.
  *
  * @since 4.0
  */
 @ThreadSafe
 public class IOSessionImpl implements IOSession, SocketAccessor {
 
+    private static final AtomicIntegerFieldUpdater<IOSessionImpl> STATUS_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(IOSessionImpl.class, "status");
+    private static final AtomicIntegerFieldUpdater<IOSessionImpl> EVENT_MASK_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(IOSessionImpl.class, "currentEventMask");
+
     private final SelectionKey key;
     private final ByteChannel channel;
     private final Map<String, Object> attributes;
@@ -63,12 +75,14 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
     private volatile int currentEventMask;
     private volatile SessionBufferStatus bufferStatus;
     private volatile int socketTimeout;
+    private volatile SessionTimeoutWheel timeoutWheel;
+    private volatile SessionTimeoutWheel.Entry timeoutEntry;
 
     private final long startedTime;
 
-    private long lastReadTime;
-    private long lastWriteTime;
-    private long lastAccessTime;
+    private volatile long lastReadTime;
+    private volatile long lastWriteTime;
+    private volatile long lastAccessTime;
 
     /**
      * Creates new instance of IOSessionImpl.
@@ -134,65 +148,82 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
         }
     }
 
-    public synchronized int getEventMask() {
-        return this.interestOpsCallback != null ? this.currentEventMask : this.key.interestOps();
+    public int getEventMask() {
+        return this.currentEventMask;
     }
 
-    public synchronized void setEventMask(final int ops) {
+    public void setEventMask(final int ops) {
         if (this.status == CLOSED) {
             return;
         }
-        if (this.interestOpsCallback != null) {
-            // update the current event mask
-            this.currentEventMask = ops;
-
-            // local variable
-            final InterestOpEntry entry = new InterestOpEntry(this.key, this.currentEventMask);
-
-            // add this operation to the interestOps() queue
-            this.interestOpsCallback.addInterestOps(entry);
-        } else {
-            this.key.interestOps(ops);
+        final int current = EVENT_MASK_UPDATER.getAndSet(this, ops);
+        if (current != ops) {
+            applyEventMask(ops);
         }
-        this.key.selector().wakeup();
     }
 
-    public synchronized void setEvent(final int op) {
+    public void setEvent(final int op) {
         if (this.status == CLOSED) {
             return;
         }
-        if (this.interestOpsCallback != null) {
-            // update the current event mask
-            this.currentEventMask |= op;
-
-            // local variable
-            final InterestOpEntry entry = new InterestOpEntry(this.key, this.currentEventMask);
-
-            // add this operation to the interestOps() queue
-            this.interestOpsCallback.addInterestOps(entry);
-        } else {
-            final int ops = this.key.interestOps();
-            this.key.interestOps(ops | op);
+        for (;;) {
+            final int current = this.currentEventMask;
+            final int ops = current | op;
+            if (current == ops) {
+                return;
+            }
+            if (EVENT_MASK_UPDATER.compareAndSet(this, current, ops)) {
+                applyEventMask(ops);
+                return;
+            }
         }
-        this.key.selector().wakeup();
     }
 
-    public synchronized void clearEvent(final int op) {
+    public void clearEvent(final int op) {
         if (this.status == CLOSED) {
             return;
         }
-        if (this.interestOpsCallback != null) {
-            // update the current event mask
-            this.currentEventMask &= ~op;
-
-            // local variable
-            final InterestOpEntry entry = new InterestOpEntry(this.key, this.currentEventMask);
+        for (;;) {
+            final int current = this.currentEventMask;
+            final int ops = current & ~op;
+            if (current == ops) {
+                return;
+            }
+            if (EVENT_MASK_UPDATER.compareAndSet(this, current, ops)) {
+                applyEventMask(ops);
+                return;
+            }
+        }
+    }
 
+    /**
+     * Propagates the event mask to the selection key. Concurrent updates may
+     * reach the selection key out of order, therefore the event mask is
+     * re-applied until it is found to be unchanged after the selection key
+     * has been updated. The session may get closed concurrently, in which
+     * case the cancelled selection key is left alone.
+     */
+    private void applyEventMask(final int ops) {
+        if (this.interestOpsCallback != null) {
             // add this operation to the interestOps() queue
-            this.interestOpsCallback.addInterestOps(entry);
+            this.interestOpsCallback.addInterestOps(new InterestOpEntry(this.key, ops));
         } else {
-            final int ops = this.key.interestOps();
-            this.key.interestOps(ops & ~op);
+            int mask = ops;
+            for (;;) {
+                try {
+                    this.key.interestOps(mask);
+                } catch (final CancelledKeyException ex) {
+                    if (this.status == CLOSED) {
+                        return;
+                    }
+                    throw ex;
+                }
+                final int current = this.currentEventMask;
+                if (current == mask) {
+                    break;
+                }
+                mask = current;
+            }
         }
         this.key.selector().wakeup();
     }
@@ -201,16 +232,38 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
         return this.socketTimeout;
     }
 
-    public synchronized void setSocketTimeout(final int timeout) {
+    public void setSocketTimeout(final int timeout) {
+        final long now = System.currentTimeMillis();
         this.socketTimeout = timeout;
-        this.lastAccessTime = System.currentTimeMillis();
+        this.lastAccessTime = now;
+        final SessionTimeoutWheel wheel = this.timeoutWheel;
+        if (wheel != null && timeout > 0) {
+            wheel.timeoutChanged(this, now + timeout);
+        }
     }
 
-    public synchronized void close() {
-        if (this.status == CLOSED) {
-            return;
+    void setTimeoutWheel(final SessionTimeoutWheel timeoutWheel) {
+        this.timeoutWheel = timeoutWheel;
+    }
+
+    SessionTimeoutWheel.Entry getTimeoutEntry() {
+        return this.timeoutEntry;
+    }
+
+    void setTimeoutEntry(final SessionTimeoutWheel.Entry timeoutEntry) {
+        this.timeoutEntry = timeoutEntry;
+    }
+
+    public void close() {
+        for (;;) {
+            final int current = this.status;
+            if (current == CLOSED) {
+                return;
+            }
+            if (STATUS_UPDATER.compareAndSet(this, current, CLOSED)) {
+                break;
+            }
         }
-        this.status = CLOSED;
         this.key.cancel();
         try {
             this.key.channel().close();
@@ -266,29 +319,29 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
         this.attributes.put(name, obj);
     }
 
-    public synchronized long getStartedTime() {
+    public long getStartedTime() {
         return this.startedTime;
     }
 
-    public synchronized long getLastReadTime() {
+    public long getLastReadTime() {
         return this.lastReadTime;
     }
 
-    public synchronized long getLastWriteTime() {
+    public long getLastWriteTime() {
         return this.lastWriteTime;
     }
 
-    public synchronized long getLastAccessTime() {
+    public long getLastAccessTime() {
         return this.lastAccessTime;
     }
 
-    synchronized void resetLastRead() {
+    void resetLastRead() {
         final long now = System.currentTimeMillis();
         this.lastReadTime = now;
         this.lastAccessTime = now;
     }
 
-    synchronized void resetLastWrite() {
+    void resetLastWrite() {
         final long now = System.currentTimeMillis();
         this.lastWriteTime = now;
         this.lastAccessTime = now;
@@ -322,7 +375,7 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
     }
 
     @Override
-    public synchronized String toString() {
+    public String toString() {
         final StringBuilder buffer = new StringBuilder();
         final SocketAddress remoteAddress = getRemoteAddress();
         final SocketAddress localAddress = getLocalAddress();
@@ -345,8 +398,7 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
         }
         buffer.append("][");
         if (this.key.isValid()) {
-            formatOps(buffer, this.interestOpsCallback != null ?
-                    this.currentEventMask : this.key.interestOps());
+            formatOps(buffer, this.currentEventMask);
             buffer.append(":");
             formatOps(buffer, this.key.readyOps());
         }
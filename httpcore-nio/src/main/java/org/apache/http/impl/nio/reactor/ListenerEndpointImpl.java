@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.channels.Channel;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
 
 import org.apache.http.annotation.ThreadSafe;
 import org.apache.http.nio.reactor.ListenerEndpoint;
@@ -49,6 +50,7 @@ public class ListenerEndpointImpl implements ListenerEndpoint {
     private volatile SelectionKey key;
     private volatile SocketAddress address;
     private volatile IOException exception;
+    private volatile ServerSocketChannel[] channels;
 
     private final ListenerEndpointClosedCallback callback;
 
@@ -125,6 +127,29 @@ public class ListenerEndpointImpl implements ListenerEndpoint {
         this.key = key;
     }
 
+    /**
+     * Sets server channels of a sharded listener endpoint. The channels
+     * are not registered with the main I/O reactor and therefore get closed
+     * explicitly when the endpoint is closed.
+     */
+    void setChannels(final ServerSocketChannel[] channels) {
+        this.channels = channels;
+        if (this.closed) {
+            closeChannels();
+        }
+    }
+
+    private void closeChannels() {
+        final ServerSocketChannel[] channels = this.channels;
+        if (channels != null) {
+            for (final ServerSocketChannel channel: channels) {
+                try {
+                    channel.close();
+                } catch (final IOException ignore) {}
+            }
+        }
+    }
+
     public boolean isClosed() {
         return this.closed || (this.key != null && !this.key.isValid());
     }
@@ -144,6 +169,7 @@ public class ListenerEndpointImpl implements ListenerEndpoint {
                 } catch (final IOException ignore) {}
             }
         }
+        closeChannels();
         if (this.callback != null) {
             this.callback.endpointClosed(this);
         }
@@ -0,0 +1,160 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+
+import org.apache.http.annotation.Immutable;
+import org.apache.http.nio.reactor.IOReactorExceptionHandler;
+
+/**
+ * Server channel accepting incoming connections for a listener endpoint on
+ * behalf of a worker I/O reactor. Used when listener sharding is enabled.
+ *
+ * @see IOReactorConfig#isListenerSharding()
+ *
+ * @since 4.3
+ */
+@Immutable // assuming the owner I/O reactor is thread-safe
+class ListenerShard {
+
+    private static final Object SO_REUSEPORT;
+    private static final Method SUPPORTED_OPTIONS;
+    private static final Method SET_OPTION;
+
+    static {
+        Object option = null;
+        Method supportedOptions = null;
+        Method setOption = null;
+        try {
+            // SO_REUSEPORT is available as a standard socket option as of Java 9
+            final Class<?> optionsClass = Class.forName("java.net.StandardSocketOptions");
+            final Class<?> optionClass = Class.forName("java.net.SocketOption");
+            final Class<?> channelClass = Class.forName("java.nio.channels.NetworkChannel");
+            option = optionsClass.getField("SO_REUSEPORT").get(null);
+            supportedOptions = channelClass.getMethod("supportedOptions");
+            setOption = channelClass.getMethod("setOption", optionClass, Object.class);
+        } catch (final Exception ex) {
+            option = null;
+        }
+        SO_REUSEPORT = option;
+        SUPPORTED_OPTIONS = supportedOptions;
+        SET_OPTION = setOption;
+    }
+
+    /**
+     * Attempts to enable <code>SO_REUSEPORT</code> on the given unbound server
+     * channel.
+     *
+     * @return <code>true</code> if the option has been set, <code>false</code>
+     *   if the option is not supported.
+     */
+    static boolean setReusePort(final ServerSocketChannel channel) {
+        if (SO_REUSEPORT == null) {
+            return false;
+        }
+        try {
+            final Set<?> options = (Set<?>) SUPPORTED_OPTIONS.invoke(channel);
+            if (!options.contains(SO_REUSEPORT)) {
+                return false;
+            }
+            SET_OPTION.invoke(channel, SO_REUSEPORT, Boolean.TRUE);
+            return true;
+        } catch (final Exception ex) {
+            return false;
+        }
+    }
+
+    private final ServerSocketChannel channel;
+    private final ListenerEndpointImpl endpoint;
+    private final AbstractMultiworkerIOReactor owner;
+
+    ListenerShard(
+            final ServerSocketChannel channel,
+            final ListenerEndpointImpl endpoint,
+            final AbstractMultiworkerIOReactor owner) {
+        super();
+        this.channel = channel;
+        this.endpoint = endpoint;
+        this.owner = owner;
+    }
+
+    ServerSocketChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Accepts a pending connection and prepares its socket.
+     *
+     * @return new channel or <code>null</code> if no connection is pending
+     *   or the listener endpoint has been closed due to an I/O error.
+     */
+    SocketChannel accept() {
+        final SocketChannel socketChannel;
+        try {
+            socketChannel = this.channel.accept();
+        } catch (final IOException ex) {
+            if (!handle(ex)) {
+                failed(ex);
+            }
+            return null;
+        }
+        if (socketChannel == null) {
+            return null;
+        }
+        try {
+            this.owner.prepareSocket(socketChannel.socket());
+        } catch (final IOException ex) {
+            if (!handle(ex)) {
+                try {
+                    socketChannel.close();
+                } catch (final IOException ignore) {
+                }
+                failed(ex);
+                return null;
+            }
+        }
+        return socketChannel;
+    }
+
+    private boolean handle(final IOException ex) {
+        final IOReactorExceptionHandler exceptionHandler = this.owner.exceptionHandler;
+        return exceptionHandler != null && exceptionHandler.handle(ex);
+    }
+
+    private void failed(final IOException ex) {
+        // Unlike the main I/O reactor worker I/O reactors do not terminate on
+        // accept failures. The listener endpoint gets closed instead.
+        this.owner.addExceptionEvent(ex);
+        this.endpoint.close();
+    }
+
+}
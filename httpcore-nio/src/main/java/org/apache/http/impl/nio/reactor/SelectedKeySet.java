@@ -0,0 +1,175 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.lang.reflect.Field;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+/**
+ * Set of selected keys backed by a flat array. Once installed into a
+ * {@link Selector} it replaces the hash set the selector normally uses to
+ * collect keys ready for I/O, so that adding a selected key amounts to an array
+ * store and dispatching the keys requires neither hashing nor iterator objects.
+ * <p/>
+ * The set is meant to be filled by the selector and drained by the I/O reactor
+ * thread by indexed access using {@link #size()}, {@link #get(int)} and
+ * {@link #reset()}. {@link #contains(Object)} and {@link #remove(Object)} are
+ * not supported and always return <code>false</code>. A key is never selected
+ * twice by the same select operation, so the lack of duplicate detection is of
+ * no consequence as long as the set is reset after each select.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+final class SelectedKeySet extends AbstractSet<SelectionKey> {
+
+    private SelectionKey[] keys;
+    private int size;
+
+    SelectedKeySet() {
+        super();
+        this.keys = new SelectionKey[1024];
+    }
+
+    @Override
+    public boolean add(final SelectionKey key) {
+        if (key == null) {
+            return false;
+        }
+        if (this.size == this.keys.length) {
+            final SelectionKey[] newKeys = new SelectionKey[this.keys.length << 1];
+            System.arraycopy(this.keys, 0, newKeys, 0, this.size);
+            this.keys = newKeys;
+        }
+        this.keys[this.size++] = key;
+        return true;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        return false;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    SelectionKey get(final int i) {
+        return this.keys[i];
+    }
+
+    /**
+     * Empties the set and clears references to the keys it used to hold.
+     */
+    void reset() {
+        for (int i = 0; i < this.size; i++) {
+            this.keys[i] = null;
+        }
+        this.size = 0;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+    }
+
+    @Override
+    public Iterator<SelectionKey> iterator() {
+        return new Iterator<SelectionKey>() {
+
+            private int idx;
+
+            public boolean hasNext() {
+                return this.idx < size;
+            }
+
+            public SelectionKey next() {
+                if (this.idx >= size) {
+                    throw new NoSuchElementException();
+                }
+                return keys[this.idx++];
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+        };
+    }
+
+    /**
+     * Attempts to install a new array backed set of selected keys into the given
+     * selector. This relies on the internals of the selector implementation
+     * shipped with the JRE and may legitimately fail, for instance when
+     * a different {@link java.nio.channels.spi.SelectorProvider} is in use or
+     * the runtime denies reflective access to the JRE internals.
+     *
+     * @param selector the selector.
+     * @return the installed set or <code>null</code> if the selector does not
+     *   permit the replacement of its selected key set.
+     */
+    static SelectedKeySet install(final Selector selector) {
+        try {
+            final Class<?> clazz = Class.forName("sun.nio.ch.SelectorImpl", false,
+                    ClassLoader.getSystemClassLoader());
+            if (!clazz.isAssignableFrom(selector.getClass())) {
+                return null;
+            }
+            final Field selectedKeysField = clazz.getDeclaredField("selectedKeys");
+            final Field publicSelectedKeysField = clazz.getDeclaredField("publicSelectedKeys");
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+            final Object selectedKeys = selectedKeysField.get(selector);
+            final SelectedKeySet keySet = new SelectedKeySet();
+            selectedKeysField.set(selector, keySet);
+            try {
+                publicSelectedKeysField.set(selector, keySet);
+            } catch (final IllegalAccessException ex) {
+                selectedKeysField.set(selector, selectedKeys);
+                return null;
+            }
+            return keySet;
+        } catch (final Exception ex) {
+            return null;
+        } catch (final LinkageError ex) {
+            return null;
+        }
+    }
+
+}
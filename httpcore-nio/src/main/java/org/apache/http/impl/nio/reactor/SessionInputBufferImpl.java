@@ -47,8 +47,10 @@ import org.apache.http.params.CoreProtocolPNames;
 import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.util.Args;
+import org.apache.http.util.ByteArrayBuffer;
 import org.apache.http.util.CharArrayBuffer;
 import org.apache.http.util.CharsetUtils;
+import org.apache.http.util.ScanUtils;
 
 /**
  * Default implementation of {@link SessionInputBuffer} based on
@@ -228,17 +230,10 @@ public class SessionInputBufferImpl extends ExpandableBuffer implements SessionI
 
         setOutputMode();
         // See if there is LF char present in the buffer
-        int pos = -1;
-        boolean hasLine = false;
-        for (int i = this.buffer.position(); i < this.buffer.limit(); i++) {
-            final int b = this.buffer.get(i);
-            if (b == HTTP.LF) {
-                hasLine = true;
-                pos = i + 1;
-                break;
-            }
-        }
-        if (!hasLine) {
+        int pos = ScanUtils.indexOfLF(this.buffer, this.buffer.position(), this.buffer.limit());
+        if (pos != -1) {
+            pos++;
+        } else {
             if (endOfStream && this.buffer.hasRemaining()) {
                 // No more data. Get the rest
                 pos = this.buffer.limit();
@@ -326,6 +321,61 @@ public class SessionInputBufferImpl extends ExpandableBuffer implements SessionI
         return true;
     }
 
+    /**
+     * Attempts to transfer a complete line of bytes up to a line delimiter
+     * from this buffer to the destination buffer without decoding the line
+     * content. If a complete line is available in the buffer, the sequence
+     * of bytes is transferred to the destination buffer, the line delimiter
+     * is discarded and this method returns <code>true</code>. If a complete
+     * line is not available in the buffer, this method returns
+     * <code>false</code> without transferring any data to the destination
+     * buffer. If <code>endOfStream</code> parameter is set to
+     * <code>true</code> this method assumes the end of stream has been
+     * reached and the content currently stored in the buffer should be
+     * treated as a complete line.
+     *
+     * @param linebuffer the destination buffer.
+     * @param endOfStream end of stream flag
+     * @return <code>true</code> if a sequence of bytes representing
+     *  a complete line has been transferred to the destination buffer,
+     *  <code>false</code> otherwise.
+     *
+     * @since 4.3
+     */
+    public boolean readRawLine(
+            final ByteArrayBuffer linebuffer,
+            final boolean endOfStream) {
+        Args.notNull(linebuffer, "Byte array buffer");
+        setOutputMode();
+        final int off = this.buffer.position();
+        final int limit = this.buffer.limit();
+        int pos = ScanUtils.indexOfLF(this.buffer, off, limit);
+        final int next;
+        if (pos != -1) {
+            next = pos + 1;
+            if (pos > off && this.buffer.get(pos - 1) == HTTP.CR) {
+                pos--;
+            }
+        } else if (endOfStream && off < limit) {
+            // No more data. Get the rest
+            pos = limit;
+            next = limit;
+        } else {
+            return false;
+        }
+        final int len = pos - off;
+        if (this.buffer.hasArray()) {
+            linebuffer.append(this.buffer.array(), this.buffer.arrayOffset() + off, len);
+        } else {
+            linebuffer.ensureCapacity(len);
+            for (int i = off; i < pos; i++) {
+                linebuffer.append(this.buffer.get(i));
+            }
+        }
+        this.buffer.position(next);
+        return true;
+    }
+
     public String readLine(final boolean endOfStream) throws CharacterCodingException {
         final CharArrayBuffer charbuffer = new CharArrayBuffer(64);
         final boolean found = readLine(charbuffer, endOfStream);
@@ -30,6 +30,7 @@ package org.apache.http.impl.nio.reactor;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.CharacterCodingException;
@@ -38,6 +39,7 @@ import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 
+import org.apache.http.Consts;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.nio.reactor.SessionOutputBuffer;
 import org.apache.http.nio.util.ByteBufferAllocator;
@@ -49,6 +51,7 @@ import org.apache.http.protocol.HTTP;
 import org.apache.http.util.Args;
 import org.apache.http.util.CharArrayBuffer;
 import org.apache.http.util.CharsetUtils;
+import org.apache.http.util.ScanUtils;
 
 /**
  * Default implementation of {@link SessionOutputBuffer} based on
@@ -63,6 +66,7 @@ public class SessionOutputBufferImpl extends ExpandableBuffer implements Session
     private static final byte[] CRLF = new byte[] {HTTP.CR, HTTP.LF};
 
     private final CharsetEncoder charencoder;
+    private final boolean asciiCompatible;
     private final int lineBuffersize;
 
     private CharBuffer charbuffer;
@@ -88,6 +92,7 @@ public class SessionOutputBufferImpl extends ExpandableBuffer implements Session
         super(buffersize, allocator != null ? allocator : HeapByteBufferAllocator.INSTANCE);
         this.lineBuffersize = Args.positive(lineBuffersize, "Line buffer size");
         this.charencoder = charencoder;
+        this.asciiCompatible = charencoder == null || isAsciiCompatible(charencoder.charset());
     }
 
     /**
@@ -116,6 +121,17 @@ public class SessionOutputBufferImpl extends ExpandableBuffer implements Session
         } else {
             this.charencoder = null;
         }
+        this.asciiCompatible = charset == null || isAsciiCompatible(charset);
+    }
+
+    /**
+     * Determines whether the charset encodes 7-bit ASCII chars as the same
+     * single bytes, so that ASCII-only lines can bypass the encoder.
+     */
+    private static boolean isAsciiCompatible(final Charset charset) {
+        return Consts.ASCII.equals(charset)
+            || Consts.ISO_8859_1.equals(charset)
+            || Consts.UTF_8.equals(charset);
     }
 
     /**
@@ -167,6 +183,28 @@ public class SessionOutputBufferImpl extends ExpandableBuffer implements Session
         return channel.write(this.buffer);
     }
 
+    /**
+     * Writes out content of this buffer followed by content of the given
+     * sources to the channel with a single gathering write. As with
+     * {@link #flush(WritableByteChannel)} the channel may accept only
+     * some of the bytes, in which case the positions of this buffer and
+     * the sources reflect the bytes actually written.
+     *
+     * @param channel the destination channel.
+     * @param srcs the buffers to be written out after content of this buffer.
+     * @return total number of bytes written, including those of this buffer.
+     *
+     * @since 4.3
+     */
+    public long flush(final GatheringByteChannel channel, final ByteBuffer... srcs) throws IOException {
+        Args.notNull(channel, "Channel");
+        setOutputMode();
+        final ByteBuffer[] bufs = new ByteBuffer[srcs.length + 1];
+        bufs[0] = this.buffer;
+        System.arraycopy(srcs, 0, bufs, 1, srcs.length);
+        return channel.write(bufs);
+    }
+
     public void write(final ByteBuffer src) {
         if (src == null) {
             return;
@@ -208,20 +246,22 @@ public class SessionOutputBufferImpl extends ExpandableBuffer implements Session
         setInputMode();
         // Do not bother if the buffer is empty
         if (linebuffer.length() > 0 ) {
-            if (this.charencoder == null) {
-                final int requiredCapacity = this.buffer.position() + linebuffer.length();
+            final char[] chars = linebuffer.buffer();
+            final int len = linebuffer.length();
+            if (this.charencoder == null
+                    || (this.asciiCompatible && ScanUtils.isAscii(chars, 0, len))) {
+                final int requiredCapacity = this.buffer.position() + len;
                 ensureCapacity(requiredCapacity);
                 if (this.buffer.hasArray()) {
                     final byte[] b = this.buffer.array();
-                    final int len = linebuffer.length();
-                    final int off = this.buffer.position();
+                    final int off = this.buffer.arrayOffset() + this.buffer.position();
                     for (int i = 0; i < len; i++) {
-                        b[off + i]  = (byte) linebuffer.charAt(i);
+                        b[off + i] = (byte) chars[i];
                     }
-                    this.buffer.position(off + len);
+                    this.buffer.position(this.buffer.position() + len);
                 } else {
-                    for (int i = 0; i < linebuffer.length(); i++) {
-                        this.buffer.put((byte) linebuffer.charAt(i));
+                    for (int i = 0; i < len; i++) {
+                        this.buffer.put((byte) chars[i]);
                     }
                 }
             } else {
@@ -279,8 +319,26 @@ public class SessionOutputBufferImpl extends ExpandableBuffer implements Session
         if (s == null) {
             return;
         }
-        if (s.length() > 0) {
-            final CharArrayBuffer tmp = new CharArrayBuffer(s.length());
+        final int len = s.length();
+        if (len > 0 && (this.charencoder == null || (this.asciiCompatible && ScanUtils.isAscii(s)))) {
+            setInputMode();
+            final int requiredCapacity = this.buffer.position() + len;
+            ensureCapacity(requiredCapacity);
+            if (this.buffer.hasArray()) {
+                final byte[] b = this.buffer.array();
+                final int off = this.buffer.arrayOffset() + this.buffer.position();
+                for (int i = 0; i < len; i++) {
+                    b[off + i] = (byte) s.charAt(i);
+                }
+                this.buffer.position(this.buffer.position() + len);
+            } else {
+                for (int i = 0; i < len; i++) {
+                    this.buffer.put((byte) s.charAt(i));
+                }
+            }
+            writeCRLF();
+        } else if (len > 0) {
+            final CharArrayBuffer tmp = new CharArrayBuffer(len);
             tmp.append(s);
             writeLine(tmp);
         } else {
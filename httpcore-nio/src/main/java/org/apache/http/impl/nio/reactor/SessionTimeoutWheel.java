@@ -0,0 +1,184 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Hashed timing wheel used by I/O reactors to keep track of socket timeouts
+ * of I/O sessions.
+ * <p/>
+ * Each session is scheduled into the bucket corresponding to its timeout
+ * deadline. Activity on the session does not cause it to be re-scheduled;
+ * instead, once its bucket is due the session is checked against its actual
+ * last access time and either reported as timed out or re-scheduled to its
+ * new deadline. This way a session is examined at most once per its socket
+ * timeout period rather than on each timeout check. Only changes of socket
+ * timeout that may bring the deadline forward need to be propagated to the
+ * wheel explicitly, which is done by {@link #timeoutChanged(IOSessionImpl, long)}.
+ * <p/>
+ * {@link #timeoutChanged(IOSessionImpl, long)} may be called from any thread.
+ * All other methods are expected to be called by the I/O reactor thread only.
+ *
+ * @since 4.3
+ */
+@ThreadSafe // timeoutChanged only
+class SessionTimeoutWheel {
+
+    private final long tickDuration;
+    private final int mask;
+    private final List<Entry>[] buckets;
+    private final Queue<IOSessionImpl> changed;
+
+    private List<Entry> spare;
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    SessionTimeoutWheel(final long tickDuration, final int wheelSize, final long now) {
+        super();
+        Args.positive(tickDuration, "Tick duration");
+        Args.positive(wheelSize, "Wheel size");
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickDuration = tickDuration;
+        this.mask = size - 1;
+        this.buckets = new List[size];
+        for (int i = 0; i < size; i++) {
+            this.buckets[i] = new ArrayList<Entry>();
+        }
+        this.changed = new ConcurrentLinkedQueue<IOSessionImpl>();
+        this.spare = new ArrayList<Entry>();
+        this.lastTick = now / tickDuration;
+    }
+
+    /**
+     * Registers the session with this wheel and schedules a timeout check
+     * according to its current socket timeout.
+     */
+    void register(final IOSessionImpl session) {
+        session.setTimeoutWheel(this);
+        schedule(session);
+    }
+
+    /**
+     * Notifies the wheel that the socket timeout of the session has been
+     * changed and the session is now expected to time out at the given time.
+     * The session gets re-scheduled by the I/O reactor thread only if the
+     * new deadline precedes the one the session is currently scheduled for.
+     */
+    void timeoutChanged(final IOSessionImpl session, final long deadline) {
+        final Entry entry = session.getTimeoutEntry();
+        if (entry == null || deadline < entry.deadline) {
+            this.changed.add(session);
+        }
+    }
+
+    private void schedule(final IOSessionImpl session) {
+        final int timeout = session.getSocketTimeout();
+        if (timeout <= 0 || session.isClosed()) {
+            session.setTimeoutEntry(null);
+            return;
+        }
+        final long deadline = session.getLastAccessTime() + timeout;
+        final long tick = Math.max(deadline / this.tickDuration + 1, this.lastTick + 1);
+        final Entry entry = new Entry(session, tick, deadline);
+        session.setTimeoutEntry(entry);
+        this.buckets[(int) (tick & this.mask)].add(entry);
+    }
+
+    /**
+     * Checks all sessions due for a timeout check at the given time and adds
+     * those that timed out to the given list. Timed out sessions remain
+     * scheduled and will be reported again on next tick unless their last
+     * access time or socket timeout changes.
+     */
+    void expire(final long now, final List<IOSessionImpl> expired) {
+        IOSessionImpl session;
+        while ((session = this.changed.poll()) != null) {
+            schedule(session);
+        }
+        final long nowTick = now / this.tickDuration;
+        if (nowTick <= this.lastTick) {
+            return;
+        }
+        final long from = Math.max(this.lastTick + 1, nowTick - this.mask);
+        this.lastTick = nowTick;
+        for (long tick = from; tick <= nowTick; tick++) {
+            final int idx = (int) (tick & this.mask);
+            final List<Entry> bucket = this.buckets[idx];
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            this.buckets[idx] = this.spare;
+            for (int i = 0; i < bucket.size(); i++) {
+                final Entry entry = bucket.get(i);
+                session = entry.session;
+                if (session.getTimeoutEntry() != entry) {
+                    // Stale entry of a re-scheduled session
+                    continue;
+                }
+                if (entry.tick > nowTick) {
+                    // Due in one of the subsequent rounds
+                    this.buckets[idx].add(entry);
+                    continue;
+                }
+                final int timeout = session.getSocketTimeout();
+                if (timeout > 0 && !session.isClosed()
+                        && session.getLastAccessTime() + timeout < now) {
+                    expired.add(session);
+                }
+                schedule(session);
+            }
+            bucket.clear();
+            this.spare = bucket;
+        }
+    }
+
+    static class Entry {
+
+        final IOSessionImpl session;
+        final long tick;
+        final long deadline;
+
+        Entry(final IOSessionImpl session, final long tick, final long deadline) {
+            super();
+            this.session = session;
+            this.tick = tick;
+            this.deadline = deadline;
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.nio.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.MappedFileCache;
+import org.apache.http.entity.MappedFileEntity;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+
+/**
+ * A self contained, repeatable non-blocking entity that retrieves its content
+ * from a memory mapped file. Mapped regions are obtained from
+ * a {@link MappedFileCache} shared by all entities serving the same set of
+ * files and passed to the content encoder as is. Encoders write mapped
+ * content large enough to bypass the session buffer directly to the channel.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class NMappedFileEntity extends MappedFileEntity implements HttpAsyncContentProducer {
+
+    private ByteBuffer region;
+    private long idx;
+
+    public NMappedFileEntity(final File file, final ContentType contentType, final MappedFileCache cache) {
+        super(file, contentType, cache);
+    }
+
+    public NMappedFileEntity(final File file, final MappedFileCache cache) {
+        super(file, cache);
+    }
+
+    public void produceContent(final ContentEncoder encoder, final IOControl ioctrl)
+            throws IOException {
+        if (this.region == null || !this.region.hasRemaining()) {
+            this.region = this.cache.getRegion(this.file, this.idx);
+        }
+        if (this.region != null) {
+            final int transferred = encoder.write(this.region);
+            if (transferred > 0) {
+                this.idx += transferred;
+            }
+        }
+        if (this.region == null || (!this.region.hasRemaining() && this.idx >= this.file.length())) {
+            encoder.complete();
+            close();
+        }
+    }
+
+    public void close() throws IOException {
+        this.region = null;
+        this.idx = 0;
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        final NMappedFileEntity clone = (NMappedFileEntity) super.clone();
+        clone.region = null;
+        clone.idx = 0;
+        return clone;
+    }
+
+}
@@ -0,0 +1,821 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.nio.pool;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.SessionRequest;
+import org.apache.http.nio.reactor.SessionRequestCallback;
+import org.apache.http.pool.ConnPool;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolEntry;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.Args;
+import org.apache.http.util.Asserts;
+
+/**
+ * Abstract non-blocking connection pool with per route lock partitioning.
+ * <p/>
+ * Unlike {@link AbstractNIOConnPool} this pool does not guard its state with
+ * a single lock. Leasing requests are queued per route and each route is
+ * guarded by a lock of its own. Available connections are kept in per route
+ * deques indexed by state, so that an idle connection can be found without
+ * scanning. When a connection is released, or a connection request completes,
+ * only the queue of the affected route gets processed. Routes whose requests
+ * are held back by the total connection limit are signaled once some capacity
+ * becomes available elsewhere in the pool.
+ * <p/>
+ * Lease futures are completed outside of any pool lock.
+ *
+ * @param <T> route
+ * @param <C> connection object
+ * @param <E> pool entry
+ *
+ * @since 4.3
+ */
+@ThreadSafe
+public abstract class AbstractConcurrentNIOConnPool<T, C, E extends PoolEntry<T, C>>
+                                                  implements ConnPool<T, E>, ConnPoolControl<T> {
+
+    private final ConnectingIOReactor ioreactor;
+    private final NIOConnFactory<T, C> connFactory;
+    private final SocketAddressResolver<T> addressResolver;
+    private final SessionRequestCallback sessionRequestCallback;
+    private final ConcurrentMap<T, RoutePool> routeToPool;
+    private final ConcurrentMap<SessionRequest, Boolean> pending;
+    private final ConcurrentMap<E, Boolean> leased;
+    private final ConcurrentLinkedQueue<RoutePool> starved;
+    private final ConcurrentMap<T, Integer> maxPerRoute;
+    private final AtomicInteger allocatedCount;
+    private final AtomicInteger availableCount;
+
+    private volatile boolean isShutDown;
+    private volatile int defaultMaxPerRoute;
+    private volatile int maxTotal;
+
+    public AbstractConcurrentNIOConnPool(
+            final ConnectingIOReactor ioreactor,
+            final NIOConnFactory<T, C> connFactory,
+            final SocketAddressResolver<T> addressResolver,
+            final int defaultMaxPerRoute,
+            final int maxTotal) {
+        super();
+        Args.notNull(ioreactor, "I/O reactor");
+        Args.notNull(connFactory, "Connection factory");
+        Args.notNull(addressResolver, "Address resolver");
+        Args.positive(defaultMaxPerRoute, "Max per route value");
+        Args.positive(maxTotal, "Max total value");
+        this.ioreactor = ioreactor;
+        this.connFactory = connFactory;
+        this.addressResolver = addressResolver;
+        this.sessionRequestCallback = new InternalSessionRequestCallback();
+        this.routeToPool = new ConcurrentHashMap<T, RoutePool>();
+        this.pending = new ConcurrentHashMap<SessionRequest, Boolean>();
+        this.leased = new ConcurrentHashMap<E, Boolean>();
+        this.starved = new ConcurrentLinkedQueue<RoutePool>();
+        this.maxPerRoute = new ConcurrentHashMap<T, Integer>();
+        this.allocatedCount = new AtomicInteger(0);
+        this.availableCount = new AtomicInteger(0);
+        this.defaultMaxPerRoute = defaultMaxPerRoute;
+        this.maxTotal = maxTotal;
+    }
+
+    protected abstract E createEntry(T route, C conn);
+
+    public boolean isShutdown() {
+        return this.isShutDown;
+    }
+
+    public void shutdown(final long waitMs) throws IOException {
+        if (this.isShutDown) {
+            return ;
+        }
+        this.isShutDown = true;
+        for (final RoutePool routePool: this.routeToPool.values()) {
+            routePool.lock.lock();
+            try {
+                routePool.shutdown();
+            } finally {
+                routePool.lock.unlock();
+            }
+        }
+        for (final E entry: this.leased.keySet()) {
+            entry.close();
+        }
+        this.routeToPool.clear();
+        this.leased.clear();
+        this.pending.clear();
+        this.starved.clear();
+        this.allocatedCount.set(0);
+        this.availableCount.set(0);
+        this.ioreactor.shutdown(waitMs);
+    }
+
+    private RoutePool getPool(final T route) {
+        RoutePool routePool = this.routeToPool.get(route);
+        if (routePool == null) {
+            final RoutePool newPool = new RoutePool(route);
+            routePool = this.routeToPool.putIfAbsent(route, newPool);
+            if (routePool == null) {
+                routePool = newPool;
+            }
+        }
+        return routePool;
+    }
+
+    public Future<E> lease(
+            final T route, final Object state,
+            final long connectTimeout, final TimeUnit tunit,
+            final FutureCallback<E> callback) {
+        return this.lease(route, state, connectTimeout, connectTimeout, tunit, callback);
+    }
+
+    public Future<E> lease(
+            final T route, final Object state,
+            final long connectTimeout, final long leaseTimeout, final TimeUnit tunit,
+            final FutureCallback<E> callback) {
+        Args.notNull(route, "Route");
+        Args.notNull(tunit, "Time unit");
+        Asserts.check(!this.isShutDown, "Connection pool shut down");
+        final long timeout = connectTimeout > 0 ? tunit.toMillis(connectTimeout) : 0;
+        final BasicFuture<E> future = new BasicFuture<E>(callback);
+        final LeaseRequest<T, C, E> request = new LeaseRequest<T, C, E>(
+                route, state, timeout, leaseTimeout > 0 ? tunit.toMillis(leaseTimeout) : 0, future);
+        final List<Outcome<E>> outcomes = new ArrayList<Outcome<E>>(1);
+        final RoutePool routePool = getPool(route);
+        routePool.lock.lock();
+        try {
+            if (!processPendingRequest(routePool, request, outcomes)) {
+                routePool.leasingRequests.add(request);
+                holdBack(routePool, outcomes);
+            }
+        } finally {
+            routePool.lock.unlock();
+        }
+        fire(outcomes);
+        return future;
+    }
+
+    public Future<E> lease(final T route, final Object state, final FutureCallback<E> callback) {
+        return lease(route, state, -1, TimeUnit.MICROSECONDS, callback);
+    }
+
+    public Future<E> lease(final T route, final Object state) {
+        return lease(route, state, -1, TimeUnit.MICROSECONDS, null);
+    }
+
+    public void release(final E entry, final boolean reusable) {
+        if (entry == null) {
+            return;
+        }
+        if (this.isShutDown) {
+            return;
+        }
+        if (this.leased.remove(entry) == null) {
+            return;
+        }
+        final RoutePool routePool = getPool(entry.getRoute());
+        final List<Outcome<E>> outcomes = new ArrayList<Outcome<E>>(1);
+        routePool.lock.lock();
+        try {
+            routePool.free(entry, reusable);
+            if (reusable) {
+                this.availableCount.incrementAndGet();
+            } else {
+                entry.close();
+                this.allocatedCount.decrementAndGet();
+            }
+            processPendingRequests(routePool, outcomes);
+        } finally {
+            routePool.lock.unlock();
+        }
+        fire(outcomes);
+        processStarvedRoutes();
+    }
+
+    /**
+     * Processes leasing requests queued for the given route in their order
+     * of arrival. The remaining requests are not examined once a request
+     * could not be satisfied and the route has no available connections left,
+     * as none of them could be satisfied either.
+     */
+    private void processPendingRequests(final RoutePool routePool, final List<Outcome<E>> outcomes) {
+        final ListIterator<LeaseRequest<T, C, E>> it = routePool.leasingRequests.listIterator();
+        while (it.hasNext()) {
+            final LeaseRequest<T, C, E> request = it.next();
+            if (processPendingRequest(routePool, request, outcomes)) {
+                it.remove();
+            } else if (routePool.availableCount == 0) {
+                break;
+            }
+        }
+        if (!routePool.leasingRequests.isEmpty()) {
+            holdBack(routePool, outcomes);
+        }
+    }
+
+    /**
+     * Marks the route as starved if its leasing requests are held back
+     * by the total limit rather than by the per route one. The limit is
+     * re-checked once the route is marked in order to rule out a race with
+     * a concurrent release of capacity by another route.
+     */
+    private void holdBack(final RoutePool routePool, final List<Outcome<E>> outcomes) {
+        if (routePool.getAllocatedCount() >= getMax(routePool.route)) {
+            return;
+        }
+        if (routePool.starved.compareAndSet(false, true)) {
+            this.starved.add(routePool);
+        }
+        if (this.allocatedCount.get() < this.maxTotal) {
+            final ListIterator<LeaseRequest<T, C, E>> it = routePool.leasingRequests.listIterator();
+            while (it.hasNext()) {
+                final LeaseRequest<T, C, E> request = it.next();
+                if (processPendingRequest(routePool, request, outcomes)) {
+                    it.remove();
+                } else {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void processStarvedRoutes() {
+        if (this.isShutDown) {
+            return;
+        }
+        final List<Outcome<E>> outcomes = new ArrayList<Outcome<E>>(1);
+        // Routes still held back are queued again by holdBack; keep making
+        // passes over the queue for as long as any route gets served
+        boolean progress;
+        do {
+            progress = false;
+            final int pending = this.starved.size();
+            for (int i = 0; i < pending; i++) {
+                final RoutePool routePool = this.starved.poll();
+                if (routePool == null) {
+                    break;
+                }
+                routePool.starved.set(false);
+                routePool.lock.lock();
+                try {
+                    final int queued = routePool.leasingRequests.size();
+                    processPendingRequests(routePool, outcomes);
+                    if (routePool.leasingRequests.size() < queued) {
+                        progress = true;
+                    }
+                } finally {
+                    routePool.lock.unlock();
+                }
+            }
+        } while (progress && !this.starved.isEmpty());
+        fire(outcomes);
+    }
+
+    private boolean processPendingRequest(
+            final RoutePool routePool,
+            final LeaseRequest<T, C, E> request,
+            final List<Outcome<E>> outcomes) {
+        final T route = request.getRoute();
+        final Object state = request.getState();
+        final long deadline = request.getDeadline();
+        final BasicFuture<E> future = request.getFuture();
+
+        final long now = System.currentTimeMillis();
+        if (now > deadline) {
+            outcomes.add(new Outcome<E>(future, null, new TimeoutException()));
+            return true;
+        }
+
+        E entry;
+        for (;;) {
+            entry = routePool.getFree(state);
+            if (entry == null) {
+                break;
+            }
+            this.availableCount.decrementAndGet();
+            if (entry.isClosed() || entry.isExpired(System.currentTimeMillis())) {
+                entry.close();
+                routePool.free(entry, false);
+                this.allocatedCount.decrementAndGet();
+            } else {
+                break;
+            }
+        }
+        if (entry != null) {
+            this.leased.put(entry, Boolean.TRUE);
+            outcomes.add(new Outcome<E>(future, entry, null));
+            return true;
+        }
+
+        // New connection is needed
+        final int maxPerRoute = getMax(route);
+        // Shrink the pool prior to allocating a new connection
+        final int excess = Math.max(0, routePool.getAllocatedCount() + 1 - maxPerRoute);
+        if (excess > 0) {
+            for (int i = 0; i < excess; i++) {
+                final E lastUsed = routePool.removeLastUsed();
+                if (lastUsed == null) {
+                    break;
+                }
+                lastUsed.close();
+                this.availableCount.decrementAndGet();
+                this.allocatedCount.decrementAndGet();
+            }
+        }
+
+        if (routePool.getAllocatedCount() < maxPerRoute) {
+            if (!reserveTotal()) {
+                if (!evictLastUsed() || !reserveTotal()) {
+                    return false;
+                }
+            }
+
+            final SocketAddress localAddress;
+            final SocketAddress remoteAddress;
+            try {
+                remoteAddress = this.addressResolver.resolveRemoteAddress(route);
+                localAddress = this.addressResolver.resolveLocalAddress(route);
+            } catch (final IOException ex) {
+                this.allocatedCount.decrementAndGet();
+                outcomes.add(new Outcome<E>(future, null, ex));
+                return true;
+            }
+
+            final SessionRequest sessionRequest = this.ioreactor.connect(
+                    remoteAddress, localAddress, route, this.sessionRequestCallback);
+            final int timout = request.getConnectTimeout() < Integer.MAX_VALUE ?
+                    (int) request.getConnectTimeout() : Integer.MAX_VALUE;
+            sessionRequest.setConnectTimeout(timout);
+            this.pending.put(sessionRequest, Boolean.TRUE);
+            routePool.pending.put(sessionRequest, future);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private boolean reserveTotal() {
+        for (;;) {
+            final int current = this.allocatedCount.get();
+            if (current >= this.maxTotal) {
+                return false;
+            }
+            if (this.allocatedCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Closes the least recently used available connection of any route.
+     * Locks of other routes are only acquired if immediately available
+     * in order to rule out lock ordering issues.
+     */
+    private boolean evictLastUsed() {
+        if (this.availableCount.get() <= 0) {
+            return false;
+        }
+        for (final RoutePool routePool: this.routeToPool.values()) {
+            if (!routePool.lock.tryLock()) {
+                continue;
+            }
+            try {
+                final E lastUsed = routePool.removeLastUsed();
+                if (lastUsed != null) {
+                    lastUsed.close();
+                    this.availableCount.decrementAndGet();
+                    this.allocatedCount.decrementAndGet();
+                    return true;
+                }
+            } finally {
+                routePool.lock.unlock();
+            }
+        }
+        return false;
+    }
+
+    private void fire(final List<Outcome<E>> outcomes) {
+        for (int i = 0; i < outcomes.size(); i++) {
+            final Outcome<E> outcome = outcomes.get(i);
+            if (!outcome.fire() && outcome.entry != null) {
+                // The lease request has been cancelled in the meantime
+                release(outcome.entry, true);
+            }
+        }
+    }
+
+    public void validatePendingRequests() {
+        final List<Outcome<E>> outcomes = new ArrayList<Outcome<E>>(1);
+        final long now = System.currentTimeMillis();
+        for (final RoutePool routePool: this.routeToPool.values()) {
+            routePool.lock.lock();
+            try {
+                final ListIterator<LeaseRequest<T, C, E>> it = routePool.leasingRequests.listIterator();
+                while (it.hasNext()) {
+                    final LeaseRequest<T, C, E> request = it.next();
+                    final long deadline = request.getDeadline();
+                    if (now > deadline) {
+                        it.remove();
+                        outcomes.add(new Outcome<E>(request.getFuture(), null, new TimeoutException()));
+                    }
+                }
+            } finally {
+                routePool.lock.unlock();
+            }
+        }
+        fire(outcomes);
+        processStarvedRoutes();
+    }
+
+    protected void requestCompleted(final SessionRequest request) {
+        if (this.isShutDown) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        final
+        T route = (T) request.getAttachment();
+        this.pending.remove(request);
+        final RoutePool routePool = getPool(route);
+        final List<Outcome<E>> outcomes = new ArrayList<Outcome<E>>(1);
+        routePool.lock.lock();
+        try {
+            final BasicFuture<E> future = routePool.removeRequest(request);
+            final IOSession session = request.getSession();
+            try {
+                final C conn = this.connFactory.create(route, session);
+                final E entry = createEntry(route, conn);
+                routePool.leased.add(entry);
+                this.leased.put(entry, Boolean.TRUE);
+                outcomes.add(new Outcome<E>(future, entry, null));
+            } catch (final IOException ex) {
+                this.allocatedCount.decrementAndGet();
+                outcomes.add(new Outcome<E>(future, null, ex));
+                processPendingRequests(routePool, outcomes);
+            }
+        } finally {
+            routePool.lock.unlock();
+        }
+        fire(outcomes);
+    }
+
+    protected void requestCancelled(final SessionRequest request) {
+        requestAborted(request, null);
+    }
+
+    protected void requestFailed(final SessionRequest request) {
+        requestAborted(request, request.getException());
+    }
+
+    protected void requestTimeout(final SessionRequest request) {
+        requestAborted(request, new SocketTimeoutException());
+    }
+
+    private void requestAborted(final SessionRequest request, final Exception ex) {
+        if (this.isShutDown) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        final
+        T route = (T) request.getAttachment();
+        this.pending.remove(request);
+        final RoutePool routePool = getPool(route);
+        final List<Outcome<E>> outcomes = new ArrayList<Outcome<E>>(1);
+        routePool.lock.lock();
+        try {
+            final BasicFuture<E> future = routePool.removeRequest(request);
+            this.allocatedCount.decrementAndGet();
+            outcomes.add(new Outcome<E>(future, null, ex));
+            processPendingRequests(routePool, outcomes);
+        } finally {
+            routePool.lock.unlock();
+        }
+        fire(outcomes);
+        processStarvedRoutes();
+    }
+
+    private int getMax(final T route) {
+        final Integer v = this.maxPerRoute.get(route);
+        if (v != null) {
+            return v;
+        } else {
+            return this.defaultMaxPerRoute;
+        }
+    }
+
+    public void setMaxTotal(final int max) {
+        Args.positive(max, "Max value");
+        this.maxTotal = max;
+    }
+
+    public int getMaxTotal() {
+        return this.maxTotal;
+    }
+
+    public void setDefaultMaxPerRoute(final int max) {
+        Args.positive(max, "Max value");
+        this.defaultMaxPerRoute = max;
+    }
+
+    public int getDefaultMaxPerRoute() {
+        return this.defaultMaxPerRoute;
+    }
+
+    public void setMaxPerRoute(final T route, final int max) {
+        Args.notNull(route, "Route");
+        Args.positive(max, "Max value");
+        this.maxPerRoute.put(route, max);
+    }
+
+    public int getMaxPerRoute(final T route) {
+        Args.notNull(route, "Route");
+        return getMax(route);
+    }
+
+    public PoolStats getTotalStats() {
+        return new PoolStats(
+                this.leased.size(),
+                this.pending.size(),
+                this.availableCount.get(),
+                this.maxTotal);
+    }
+
+    public PoolStats getStats(final T route) {
+        Args.notNull(route, "Route");
+        final RoutePool routePool = getPool(route);
+        routePool.lock.lock();
+        try {
+            return new PoolStats(
+                    routePool.leased.size(),
+                    routePool.pending.size(),
+                    routePool.availableCount,
+                    getMax(route));
+        } finally {
+            routePool.lock.unlock();
+        }
+    }
+
+    public void closeIdle(final long idletime, final TimeUnit tunit) {
+        Args.notNull(tunit, "Time unit");
+        long time = tunit.toMillis(idletime);
+        if (time < 0) {
+            time = 0;
+        }
+        final long deadline = System.currentTimeMillis() - time;
+        purge(deadline, false);
+    }
+
+    public void closeExpired() {
+        final long now = System.currentTimeMillis();
+        purge(now, true);
+    }
+
+    private void purge(final long time, final boolean expired) {
+        final List<Outcome<E>> outcomes = new ArrayList<Outcome<E>>(1);
+        for (final RoutePool routePool: this.routeToPool.values()) {
+            routePool.lock.lock();
+            try {
+                for (final LinkedList<E> entries: routePool.available.values()) {
+                    final Iterator<E> it = entries.iterator();
+                    while (it.hasNext()) {
+                        final E entry = it.next();
+                        if (expired ? entry.isExpired(time) : entry.getUpdated() <= time) {
+                            entry.close();
+                            it.remove();
+                            routePool.availableCount--;
+                            this.availableCount.decrementAndGet();
+                            this.allocatedCount.decrementAndGet();
+                        }
+                    }
+                }
+                processPendingRequests(routePool, outcomes);
+            } finally {
+                routePool.lock.unlock();
+            }
+        }
+        fire(outcomes);
+        processStarvedRoutes();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[leased: ");
+        buffer.append(this.leased.size());
+        buffer.append("][available: ");
+        buffer.append(this.availableCount.get());
+        buffer.append("][pending: ");
+        buffer.append(this.pending.size());
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+    /**
+     * Per route state guarded by its own lock.
+     */
+    class RoutePool {
+
+        final T route;
+        final Lock lock;
+        final Set<E> leased;
+        final Map<Object, LinkedList<E>> available;
+        final Map<SessionRequest, BasicFuture<E>> pending;
+        final LinkedList<LeaseRequest<T, C, E>> leasingRequests;
+        final AtomicBoolean starved;
+        int availableCount;
+
+        RoutePool(final T route) {
+            super();
+            this.route = route;
+            this.lock = new ReentrantLock();
+            this.leased = new HashSet<E>();
+            this.available = new HashMap<Object, LinkedList<E>>();
+            this.pending = new HashMap<SessionRequest, BasicFuture<E>>();
+            this.leasingRequests = new LinkedList<LeaseRequest<T, C, E>>();
+            this.starved = new AtomicBoolean(false);
+        }
+
+        int getAllocatedCount() {
+            return this.availableCount + this.leased.size() + this.pending.size();
+        }
+
+        private E poll(final Object state) {
+            final LinkedList<E> entries = this.available.get(state);
+            if (entries != null && !entries.isEmpty()) {
+                final E entry = entries.removeFirst();
+                this.availableCount--;
+                this.leased.add(entry);
+                return entry;
+            }
+            return null;
+        }
+
+        E getFree(final Object state) {
+            if (this.availableCount == 0) {
+                return null;
+            }
+            if (state != null) {
+                final E entry = poll(state);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+            return poll(null);
+        }
+
+        void free(final E entry, final boolean reusable) {
+            final boolean found = this.leased.remove(entry);
+            Asserts.check(found, "Entry %s has not been leased from this pool", entry);
+            if (reusable) {
+                final Object state = entry.getState();
+                LinkedList<E> entries = this.available.get(state);
+                if (entries == null) {
+                    entries = new LinkedList<E>();
+                    this.available.put(state, entries);
+                }
+                entries.addFirst(entry);
+                this.availableCount++;
+            }
+        }
+
+        E removeLastUsed() {
+            if (this.availableCount == 0) {
+                return null;
+            }
+            LinkedList<E> candidate = null;
+            for (final LinkedList<E> entries: this.available.values()) {
+                if (!entries.isEmpty() && (candidate == null
+                        || entries.getLast().getUpdated() < candidate.getLast().getUpdated())) {
+                    candidate = entries;
+                }
+            }
+            if (candidate == null) {
+                return null;
+            }
+            this.availableCount--;
+            return candidate.removeLast();
+        }
+
+        BasicFuture<E> removeRequest(final SessionRequest request) {
+            final BasicFuture<E> future = this.pending.remove(request);
+            Asserts.notNull(future, "Session request future");
+            return future;
+        }
+
+        void shutdown() {
+            for (final SessionRequest sessionRequest: this.pending.keySet()) {
+                sessionRequest.cancel();
+            }
+            this.pending.clear();
+            for (final LinkedList<E> entries: this.available.values()) {
+                for (final E entry: entries) {
+                    entry.close();
+                }
+            }
+            this.available.clear();
+            this.availableCount = 0;
+            for (final E entry: this.leased) {
+                entry.close();
+            }
+            this.leased.clear();
+            this.leasingRequests.clear();
+        }
+
+    }
+
+    static class Outcome<E> {
+
+        final BasicFuture<E> future;
+        final E entry;
+        final Exception ex;
+
+        Outcome(final BasicFuture<E> future, final E entry, final Exception ex) {
+            super();
+            this.future = future;
+            this.entry = entry;
+            this.ex = ex;
+        }
+
+        boolean fire() {
+            if (this.entry != null) {
+                return this.future.completed(this.entry);
+            } else if (this.ex != null) {
+                return this.future.failed(this.ex);
+            } else {
+                return this.future.cancel(true);
+            }
+        }
+
+    }
+
+    class InternalSessionRequestCallback implements SessionRequestCallback {
+
+        public void completed(final SessionRequest request) {
+            requestCompleted(request);
+        }
+
+        public void cancelled(final SessionRequest request) {
+            requestCancelled(request);
+        }
+
+        public void failed(final SessionRequest request) {
+            requestFailed(request);
+        }
+
+        public void timeout(final SessionRequest request) {
+            requestTimeout(request);
+        }
+
+    }
+
+}
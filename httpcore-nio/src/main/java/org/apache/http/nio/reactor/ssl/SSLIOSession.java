@@ -48,6 +48,7 @@ import org.apache.http.nio.reactor.EventMask;
 import org.apache.http.nio.reactor.IOSession;
 import org.apache.http.nio.reactor.SessionBufferStatus;
 import org.apache.http.nio.reactor.SocketAccessor;
+import org.apache.http.nio.util.ReleasableByteBufferAllocator;
 import org.apache.http.util.Args;
 import org.apache.http.util.Asserts;
 
@@ -65,6 +66,22 @@ import org.apache.http.util.Asserts;
  *      iosession, SSLMode.CLIENT, sslcontext, null);
  *  iosession.setAttribute(SSLIOSession.SESSION_KEY, sslsession);
  * </pre>
+ * <p/>
+ * By default the session allocates its network and application buffers
+ * upfront and keeps them for its entire lifetime. If created with
+ * a {@link ReleasableByteBufferAllocator} the session obtains buffers from
+ * the allocator only when they are needed and returns them as soon as they
+ * are empty once the handshake has been completed, so that idle sessions
+ * hold no buffers. In this mode incoming data is decrypted directly into
+ * the buffer of the consumer whenever it has room for a complete record.
+ * Data received while input is suspended is decrypted as it arrives.
+ * <p/>
+ * Please note that allocators may hand out buffers larger than requested.
+ * The network buffers have to hold a complete SSL/TLS record and are slightly
+ * larger than 16 KB, which {@link org.apache.http.nio.util.PooledByteBufferAllocator}
+ * rounds up to its 32 KB size class. An active session may therefore hold
+ * about 96 KB, compared to about 66 KB held by a session with upfront
+ * buffers, while idle sessions hold none.
  *
  * @since 4.2
  */
@@ -77,13 +94,18 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
      */
     public static final String SESSION_KEY = "http.session.ssl";
 
+    // content type, protocol version and length of a TLS record
+    private static final int RECORD_HEADER_LEN = 5;
+
     private final IOSession session;
     private final SSLMode defaultMode;
     private final SSLEngine sslEngine;
-    private final ByteBuffer inEncrypted;
-    private final ByteBuffer outEncrypted;
-    private final ByteBuffer inPlain;
-    private final ByteBuffer outPlain;
+    private final InternalBuffer inEncrypted;
+    private final InternalBuffer outEncrypted;
+    private final InternalBuffer inPlain;
+    private final InternalBuffer outPlain;
+    private final int appBufferSize;
+    private final boolean directUnwrap;
     private final InternalByteChannel channel;
     private final SSLSetupHandler handler;
 
@@ -107,6 +129,29 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
             final SSLMode defaultMode,
             final SSLContext sslContext,
             final SSLSetupHandler handler) {
+        this(session, defaultMode, sslContext, handler, null);
+    }
+
+    /**
+     * Creates new instance of <tt>SSLIOSession</tt> class that obtains its
+     * buffers from the given allocator on demand and releases them once
+     * empty.
+     *
+     * @param session I/O session to be decorated with the TLS/SSL capabilities.
+     * @param defaultMode default mode (client or server)
+     * @param sslContext SSL context to use for this I/O session.
+     * @param handler optional SSL setup handler. May be <code>null</code>.
+     * @param allocator allocator to obtain buffers from. If <code>null</code>
+     *   buffers are allocated upfront and kept for the lifetime of the session.
+     *
+     * @since 4.3
+     */
+    public SSLIOSession(
+            final IOSession session,
+            final SSLMode defaultMode,
+            final SSLContext sslContext,
+            final SSLSetupHandler handler,
+            final ReleasableByteBufferAllocator allocator) {
         super();
         Args.notNull(session, "IO session");
         Args.notNull(sslContext, "SSL context");
@@ -128,15 +173,17 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
             this.sslEngine = sslContext.createSSLEngine();
         }
 
-        // Allocate buffers for network (encrypted) data
+        // Buffers for network (encrypted) data
         final int netBuffersize = this.sslEngine.getSession().getPacketBufferSize();
-        this.inEncrypted = ByteBuffer.allocate(netBuffersize);
-        this.outEncrypted = ByteBuffer.allocate(netBuffersize);
+        this.inEncrypted = new InternalBuffer(allocator, netBuffersize);
+        this.outEncrypted = new InternalBuffer(allocator, netBuffersize);
 
-        // Allocate buffers for application (unencrypted) data
+        // Buffers for application (unencrypted) data
         final int appBuffersize = this.sslEngine.getSession().getApplicationBufferSize();
-        this.inPlain = ByteBuffer.allocate(appBuffersize);
-        this.outPlain = ByteBuffer.allocate(appBuffersize);
+        this.inPlain = new InternalBuffer(allocator, appBuffersize);
+        this.outPlain = new InternalBuffer(allocator, appBuffersize);
+        this.appBufferSize = appBuffersize;
+        this.directUnwrap = allocator != null;
     }
 
     protected SSLSetupHandler getSSLSetupHandler() {
@@ -247,18 +294,20 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
             switch (this.sslEngine.getHandshakeStatus()) {
             case NEED_WRAP:
                 // Generate outgoing handshake data
-                this.outPlain.flip();
-                result = doWrap(this.outPlain, this.outEncrypted);
-                this.outPlain.compact();
+                final ByteBuffer outPlainBuf = this.outPlain.acquire();
+                outPlainBuf.flip();
+                result = doWrap(outPlainBuf, this.outEncrypted.acquire());
+                outPlainBuf.compact();
                 if (result.getStatus() != Status.OK) {
                     handshaking = false;
                 }
                 break;
             case NEED_UNWRAP:
                 // Process incoming handshake data
-                this.inEncrypted.flip();
-                result = doUnwrap(this.inEncrypted, this.inPlain);
-                this.inEncrypted.compact();
+                final ByteBuffer inEncryptedBuf = this.inEncrypted.acquire();
+                inEncryptedBuf.flip();
+                result = doUnwrap(inEncryptedBuf, this.inPlain.acquire());
+                inEncryptedBuf.compact();
                 if (result.getStatus() != Status.OK) {
                     handshaking = false;
                 }
@@ -297,6 +346,7 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
         }
         if (this.status == CLOSED) {
             this.session.close();
+            disposeBuffers();
             return;
         }
         // Need to toggle the event mask for this channel?
@@ -319,7 +369,7 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
         }
 
         // Do we have encrypted data ready to be sent?
-        if (this.outEncrypted.position() > 0) {
+        if (this.outEncrypted.hasData()) {
             newMask = newMask | EventMask.WRITE;
         }
 
@@ -329,10 +379,40 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
         }
     }
 
+    /**
+     * Returns empty buffers to the allocator once the handshake has been
+     * completed.
+     */
+    private void releaseBuffers() {
+        if (this.status != CLOSED
+                && this.sslEngine.getHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING) {
+            return;
+        }
+        this.inEncrypted.release();
+        this.outEncrypted.release();
+        this.inPlain.release();
+        this.outPlain.release();
+    }
+
+    /**
+     * Returns all buffers to the allocator regardless of their content once
+     * the session has been closed.
+     */
+    private void disposeBuffers() {
+        this.inEncrypted.dispose();
+        this.outEncrypted.dispose();
+        this.inPlain.dispose();
+        this.outPlain.dispose();
+    }
+
     private int sendEncryptedData() throws IOException {
-        this.outEncrypted.flip();
-        final int bytesWritten = this.session.channel().write(this.outEncrypted);
-        this.outEncrypted.compact();
+        if (!this.outEncrypted.hasData()) {
+            return 0;
+        }
+        final ByteBuffer outEncryptedBuf = this.outEncrypted.acquire();
+        outEncryptedBuf.flip();
+        final int bytesWritten = this.session.channel().write(outEncryptedBuf);
+        outEncryptedBuf.compact();
         return bytesWritten;
     }
 
@@ -340,17 +420,18 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
         if (this.endOfStream) {
             return -1;
         }
-        return this.session.channel().read(this.inEncrypted);
+        return this.session.channel().read(this.inEncrypted.acquire());
     }
 
-    private boolean decryptData() throws SSLException {
-        boolean decrypted = false;
-        while (this.inEncrypted.position() > 0) {
-            this.inEncrypted.flip();
-            final SSLEngineResult result = doUnwrap(this.inEncrypted, this.inPlain);
-            this.inEncrypted.compact();
+    private int decryptData(final ByteBuffer dst) throws SSLException {
+        int decrypted = 0;
+        while (this.inEncrypted.hasData()) {
+            final ByteBuffer inEncryptedBuf = this.inEncrypted.acquire();
+            inEncryptedBuf.flip();
+            final SSLEngineResult result = doUnwrap(inEncryptedBuf, dst);
+            inEncryptedBuf.compact();
             if (result.getStatus() == Status.OK) {
-                decrypted = true;
+                decrypted += result.bytesProduced();
             } else {
                 break;
             }
@@ -376,17 +457,40 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
             this.endOfStream = true;
         }
         doHandshake();
+        final boolean reading = (this.appEventMask & SelectionKey.OP_READ) > 0;
         final HandshakeStatus status = this.sslEngine.getHandshakeStatus();
         if (status == HandshakeStatus.NOT_HANDSHAKING || status == HandshakeStatus.FINISHED) {
-            decryptData();
+            // In the direct mode data gets decrypted once the consumer reads it.
+            // While input is suspended records are decrypted right away, so that
+            // alerts and post-handshake messages do not wait for the consumer.
+            if (!this.directUnwrap || !reading) {
+                decryptData(this.inPlain.acquire());
+            }
         }
+        releaseBuffers();
         // Some decrypted data is available or at the end of stream
-        return (this.appEventMask & SelectionKey.OP_READ) > 0
-            && (this.inPlain.position() > 0
+        return reading
+            && (this.inPlain.hasData()
+                    || (this.directUnwrap && hasCompleteRecord())
                     || (this.appBufferStatus != null && this.appBufferStatus.hasBufferedInput())
                     || (this.endOfStream && this.status == ACTIVE));
     }
 
+    /**
+     * Returns <code>true</code> if the encrypted input buffer contains at least
+     * one complete SSL/TLS record, which can be decrypted without reading more
+     * data from the channel.
+     */
+    private boolean hasCompleteRecord() {
+        final int len = this.inEncrypted.position();
+        if (len < RECORD_HEADER_LEN) {
+            return false;
+        }
+        final ByteBuffer inEncryptedBuf = this.inEncrypted.acquire();
+        final int recordLen = ((inEncryptedBuf.get(3) & 0xff) << 8) | (inEncryptedBuf.get(4) & 0xff);
+        return len >= RECORD_HEADER_LEN + recordLen;
+    }
+
     /**
      * Returns whether the channel associated with this session is ready to
      * accept outbound unecrypted data for writing.
@@ -406,6 +510,7 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
      */
     public synchronized void inboundTransport() throws IOException {
         updateEventMask();
+        releaseBuffers();
     }
 
     /**
@@ -417,6 +522,7 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
         sendEncryptedData();
         doHandshake();
         updateEventMask();
+        releaseBuffers();
     }
 
     /**
@@ -438,33 +544,55 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
         if (this.status != ACTIVE) {
             return -1;
         }
-        if (this.outPlain.position() > 0) {
-            this.outPlain.flip();
-            doWrap(this.outPlain, this.outEncrypted);
-            this.outPlain.compact();
+        if (this.outPlain.hasData()) {
+            final ByteBuffer outPlainBuf = this.outPlain.acquire();
+            outPlainBuf.flip();
+            doWrap(outPlainBuf, this.outEncrypted.acquire());
+            outPlainBuf.compact();
         }
-        if (this.outPlain.position() == 0) {
-            final SSLEngineResult result = doWrap(src, this.outEncrypted);
+        if (!this.outPlain.hasData()) {
+            final SSLEngineResult result = doWrap(src, this.outEncrypted.acquire());
             if (result.getStatus() == Status.CLOSED) {
                 this.status = CLOSED;
             }
+            releaseBuffers();
             return result.bytesConsumed();
         } else {
             return 0;
         }
     }
 
-    private synchronized int readPlain(final ByteBuffer dst) {
+    private synchronized int readPlain(final ByteBuffer dst) throws SSLException {
         Args.notNull(dst, "Byte buffer");
-        if (this.inPlain.position() > 0) {
-            this.inPlain.flip();
-            final int n = Math.min(this.inPlain.remaining(), dst.remaining());
-            for (int i = 0; i < n; i++) {
-                dst.put(this.inPlain.get());
+        if (this.directUnwrap && !this.inPlain.hasData() && this.inEncrypted.hasData()) {
+            if (dst.remaining() >= this.appBufferSize) {
+                // Decrypt straight into the destination
+                final int n = decryptData(dst);
+                if (n > 0) {
+                    releaseBuffers();
+                    return n;
+                }
+            } else {
+                decryptData(this.inPlain.acquire());
+            }
+        }
+        if (this.inPlain.hasData()) {
+            final ByteBuffer inPlainBuf = this.inPlain.acquire();
+            inPlainBuf.flip();
+            final int n = Math.min(inPlainBuf.remaining(), dst.remaining());
+            if (n < inPlainBuf.remaining()) {
+                final int limit = inPlainBuf.limit();
+                inPlainBuf.limit(inPlainBuf.position() + n);
+                dst.put(inPlainBuf);
+                inPlainBuf.limit(limit);
+            } else {
+                dst.put(inPlainBuf);
             }
-            this.inPlain.compact();
+            inPlainBuf.compact();
+            releaseBuffers();
             return n;
         } else {
+            releaseBuffers();
             if (this.endOfStream) {
                 return -1;
             } else {
@@ -488,6 +616,7 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
         }
         this.status = CLOSED;
         this.session.shutdown();
+        disposeBuffers();
     }
 
     public int getStatus() {
@@ -539,14 +668,14 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
 
     public synchronized boolean hasBufferedInput() {
         return (this.appBufferStatus != null && this.appBufferStatus.hasBufferedInput())
-            || this.inEncrypted.position() > 0
-            || this.inPlain.position() > 0;
+            || this.inEncrypted.hasData()
+            || this.inPlain.hasData();
     }
 
     public synchronized boolean hasBufferedOutput() {
         return (this.appBufferStatus != null && this.appBufferStatus.hasBufferedOutput())
-            || this.outEncrypted.position() > 0
-            || this.outPlain.position() > 0;
+            || this.outEncrypted.hasData()
+            || this.outPlain.hasData();
     }
 
     public synchronized void setBufferStatus(final SessionBufferStatus status) {
@@ -615,6 +744,16 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
         return buffer.toString();
     }
 
+    /**
+     * Returns <code>true</code> if the session currently holds any buffers.
+     *
+     * @since 4.3
+     */
+    public synchronized boolean hasBuffers() {
+        return this.inEncrypted.isAcquired() || this.outEncrypted.isAcquired()
+            || this.inPlain.isAcquired() || this.outPlain.isAcquired();
+    }
+
     public Socket getSocket(){
         if (this.session instanceof SocketAccessor){
             return ((SocketAccessor) this.session).getSocket();
@@ -643,4 +782,59 @@ public class SSLIOSession implements IOSession, SessionBufferStatus, SocketAcces
 
     }
 
+    /**
+     * Buffer that is either allocated upfront or obtained from an allocator
+     * on demand and released once empty.
+     */
+    static class InternalBuffer {
+
+        private final ReleasableByteBufferAllocator allocator;
+        private final int size;
+
+        private ByteBuffer buffer;
+
+        InternalBuffer(final ReleasableByteBufferAllocator allocator, final int size) {
+            super();
+            this.allocator = allocator;
+            this.size = size;
+            if (allocator == null) {
+                this.buffer = ByteBuffer.allocate(size);
+            }
+        }
+
+        ByteBuffer acquire() {
+            if (this.buffer == null) {
+                this.buffer = this.allocator.allocate(this.size);
+            }
+            return this.buffer;
+        }
+
+        boolean isAcquired() {
+            return this.buffer != null;
+        }
+
+        boolean hasData() {
+            return this.buffer != null && this.buffer.position() > 0;
+        }
+
+        int position() {
+            return this.buffer != null ? this.buffer.position() : 0;
+        }
+
+        void release() {
+            if (this.allocator != null && this.buffer != null && this.buffer.position() == 0) {
+                this.allocator.release(this.buffer);
+                this.buffer = null;
+            }
+        }
+
+        void dispose() {
+            if (this.allocator != null && this.buffer != null) {
+                this.allocator.release(this.buffer);
+                this.buffer = null;
+            }
+        }
+
+    }
+
 }
@@ -49,9 +49,13 @@ public class ExpandableBuffer implements BufferInfo, org.apache.http.nio.util.Bu
     public final static int INPUT_MODE = 0;
     public final static int OUTPUT_MODE = 1;
 
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
     private final ByteBufferAllocator allocator;
+    private final int buffersize;
 
     private int mode;
+    private boolean released;
     protected ByteBuffer buffer = null;
 
     /**
@@ -64,6 +68,7 @@ public class ExpandableBuffer implements BufferInfo, org.apache.http.nio.util.Bu
         super();
         Args.notNull(allocator, "ByteBuffer allocator");
         this.allocator = allocator;
+        this.buffersize = buffersize;
         this.buffer = allocator.allocate(buffersize);
         this.mode = INPUT_MODE;
     }
@@ -95,6 +100,13 @@ public class ExpandableBuffer implements BufferInfo, org.apache.http.nio.util.Bu
      * Sets input mode. The buffer can now be written into.
      */
     protected void setInputMode() {
+        if (this.released) {
+            // Re-acquire buffer on demand
+            this.buffer = this.allocator.allocate(this.buffersize);
+            this.released = false;
+            this.mode = INPUT_MODE;
+            return;
+        }
         if (this.mode != INPUT_MODE) {
             if (this.buffer.hasRemaining()) {
                 this.buffer.compact();
@@ -107,9 +119,51 @@ public class ExpandableBuffer implements BufferInfo, org.apache.http.nio.util.Bu
 
     private void expandCapacity(final int capacity) {
         final ByteBuffer oldbuffer = this.buffer;
-        this.buffer = allocator.allocate(capacity);
+        this.buffer = allocator.allocate(this.released ? Math.max(capacity, this.buffersize) : capacity);
         oldbuffer.flip();
         this.buffer.put(oldbuffer);
+        if (this.released) {
+            this.released = false;
+        } else {
+            releaseBuffer(oldbuffer);
+        }
+    }
+
+    private void releaseBuffer(final ByteBuffer buffer) {
+        if (this.allocator instanceof ReleasableByteBufferAllocator) {
+            ((ReleasableByteBufferAllocator) this.allocator).release(buffer);
+        }
+    }
+
+    /**
+     * Discards the content of this buffer and returns the underlying
+     * {@link ByteBuffer} to the allocator, if the allocator supports
+     * {@link ReleasableByteBufferAllocator releasing} of buffers. A new
+     * {@link ByteBuffer} is obtained from the allocator as soon as this buffer
+     * needs to be written into again.
+     *
+     * @since 4.3
+     */
+    public void release() {
+        if (this.released) {
+            return;
+        }
+        final ByteBuffer oldbuffer = this.buffer;
+        this.buffer = EMPTY;
+        this.released = true;
+        this.mode = INPUT_MODE;
+        releaseBuffer(oldbuffer);
+    }
+
+    /**
+     * Determines whether the underlying {@link ByteBuffer} has been released.
+     *
+     * @see #release()
+     *
+     * @since 4.3
+     */
+    public boolean isReleased() {
+        return this.released;
     }
 
     /**
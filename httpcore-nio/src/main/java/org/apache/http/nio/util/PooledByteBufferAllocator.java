@@ -0,0 +1,301 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.nio.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * {@link ByteBufferAllocator} that pools released buffers for re-use.
+ * <p>
+ * Buffer sizes are rounded up to the nearest size class. Size classes are
+ * powers of two between the minimal and the maximal pooled buffer size.
+ * Requests for buffers larger than the maximal pooled size are served with
+ * freshly allocated buffers that get discarded upon release.
+ * <p>
+ * Each thread that allocates buffers keeps a small cache of released buffers
+ * per size class, which is consulted first and requires no synchronization.
+ * Buffers that do not fit into the thread cache are kept in a shared arena per
+ * size class, whose total size is bounded by the maximal number of pooled
+ * bytes. Buffers released by threads that have never allocated a buffer, such
+ * as worker threads shutting down a session, go straight to the shared arenas
+ * so that they can be re-used by the allocating threads.
+ * <p>
+ * Please note that buffers obtained from this allocator can have a larger
+ * capacity than requested.
+ *
+ * @since 4.3
+ */
+@ThreadSafe
+public class PooledByteBufferAllocator implements ReleasableByteBufferAllocator {
+
+    public static final int DEFAULT_MIN_SIZE = 1024;
+    public static final int DEFAULT_MAX_SIZE = 64 * 1024;
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 16;
+    public static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+    private final boolean direct;
+    private final int minShift;
+    private final int minSize;
+    private final int maxSize;
+    private final int threadCacheSize;
+    private final long maxPooledBytes;
+    private final Queue<ByteBuffer>[] arenas;
+    private final ThreadLocal<ThreadCache> threadCache;
+
+    private final AtomicLong pooledBytes;
+    private final AtomicInteger pooledCount;
+    private final AtomicLong allocationCount;
+    private final AtomicLong discardCount;
+
+    /**
+     * Creates new pooled allocator.
+     *
+     * @param direct if <code>true</code> allocates direct buffers, otherwise
+     *   heap buffers.
+     * @param minSize minimal pooled buffer size. Rounded up to a power of two.
+     * @param maxSize maximal pooled buffer size. Rounded up to a power of two.
+     * @param threadCacheSize maximal number of buffers per size class cached
+     *   by a thread. <code>0</code> disables thread caches.
+     * @param maxPooledBytes maximal total capacity of buffers kept in the shared
+     *   arenas.
+     */
+    @SuppressWarnings("unchecked")
+    public PooledByteBufferAllocator(
+            final boolean direct,
+            final int minSize,
+            final int maxSize,
+            final int threadCacheSize,
+            final long maxPooledBytes) {
+        super();
+        Args.positive(minSize, "Min buffer size");
+        Args.check(maxSize >= minSize, "Max buffer size may not be less than min buffer size");
+        Args.check(maxSize <= 1 << 30, "Max buffer size may not exceed 1GB");
+        Args.notNegative(threadCacheSize, "Thread cache size");
+        Args.notNegative(maxPooledBytes, "Max pooled bytes");
+        this.direct = direct;
+        this.minShift = shift(minSize);
+        this.minSize = 1 << this.minShift;
+        this.maxSize = 1 << shift(maxSize);
+        this.threadCacheSize = threadCacheSize;
+        this.maxPooledBytes = maxPooledBytes;
+        final int classCount = shift(this.maxSize) - this.minShift + 1;
+        this.arenas = new Queue[classCount];
+        for (int i = 0; i < classCount; i++) {
+            this.arenas[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+        }
+        this.threadCache = new ThreadLocal<ThreadCache>();
+        this.pooledBytes = new AtomicLong();
+        this.pooledCount = new AtomicInteger();
+        this.allocationCount = new AtomicLong();
+        this.discardCount = new AtomicLong();
+    }
+
+    /**
+     * Creates new pooled allocator with default settings.
+     *
+     * @param direct if <code>true</code> allocates direct buffers, otherwise
+     *   heap buffers.
+     */
+    public PooledByteBufferAllocator(final boolean direct) {
+        this(direct, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE,
+                DEFAULT_THREAD_CACHE_SIZE, DEFAULT_MAX_POOLED_BYTES);
+    }
+
+    /**
+     * Returns log2 of the given size rounded up to a power of two.
+     */
+    private static int shift(final int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    private int sizeClass(final int size) {
+        return size <= this.minSize ? 0 : shift(size) - this.minShift;
+    }
+
+    private ByteBuffer newBuffer(final int size) {
+        this.allocationCount.incrementAndGet();
+        return this.direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    public ByteBuffer allocate(final int size) {
+        Args.notNegative(size, "Buffer size");
+        if (size > this.maxSize) {
+            return newBuffer(size);
+        }
+        final int idx = sizeClass(size);
+        ByteBuffer buffer = null;
+        if (this.threadCacheSize > 0) {
+            ThreadCache cache = this.threadCache.get();
+            if (cache == null) {
+                cache = new ThreadCache(this.arenas.length, this.threadCacheSize);
+                this.threadCache.set(cache);
+            }
+            buffer = cache.poll(idx);
+        }
+        if (buffer == null) {
+            buffer = this.arenas[idx].poll();
+            if (buffer != null) {
+                this.pooledCount.decrementAndGet();
+                this.pooledBytes.addAndGet(-buffer.capacity());
+            }
+        }
+        if (buffer == null) {
+            buffer = newBuffer(this.minSize << idx);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(final ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        final int capacity = buffer.capacity();
+        if (buffer.isDirect() != this.direct
+                || buffer.isReadOnly()
+                || capacity < this.minSize || capacity > this.maxSize
+                || (capacity & (capacity - 1)) != 0) {
+            // Not one of ours
+            this.discardCount.incrementAndGet();
+            return;
+        }
+        final int idx = sizeClass(capacity);
+        buffer.clear();
+        // Only threads that allocate buffers can make use of a thread cache
+        final ThreadCache cache = this.threadCacheSize > 0 ? this.threadCache.get() : null;
+        if (cache != null && cache.offer(idx, buffer)) {
+            return;
+        }
+        if (this.pooledBytes.addAndGet(capacity) > this.maxPooledBytes) {
+            this.pooledBytes.addAndGet(-capacity);
+            this.discardCount.incrementAndGet();
+            return;
+        }
+        this.pooledCount.incrementAndGet();
+        this.arenas[idx].add(buffer);
+    }
+
+    /**
+     * Returns <code>true</code> if this allocator allocates direct buffers.
+     */
+    public boolean isDirect() {
+        return this.direct;
+    }
+
+    /**
+     * Returns the total number of buffers allocated by this allocator because
+     * no pooled buffer was available.
+     */
+    public long getAllocationCount() {
+        return this.allocationCount.get();
+    }
+
+    /**
+     * Returns the total number of released buffers that were discarded because
+     * the pool was full or they could not be pooled.
+     */
+    public long getDiscardCount() {
+        return this.discardCount.get();
+    }
+
+    /**
+     * Returns the number of buffers currently kept in the shared arenas.
+     * Buffers held by thread caches are not included.
+     */
+    public int getPooledCount() {
+        return this.pooledCount.get();
+    }
+
+    /**
+     * Returns the total capacity of buffers currently kept in the shared arenas.
+     * Buffers held by thread caches are not included.
+     */
+    public long getPooledBytes() {
+        return this.pooledBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[direct: ");
+        buffer.append(this.direct);
+        buffer.append("][allocated: ");
+        buffer.append(this.allocationCount.get());
+        buffer.append("][discarded: ");
+        buffer.append(this.discardCount.get());
+        buffer.append("][pooled: ");
+        buffer.append(this.pooledCount.get());
+        buffer.append("][pooled bytes: ");
+        buffer.append(this.pooledBytes.get());
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+    static class ThreadCache {
+
+        private final ByteBuffer[][] stacks;
+        private final int[] counts;
+
+        ThreadCache(final int classCount, final int size) {
+            super();
+            this.stacks = new ByteBuffer[classCount][size];
+            this.counts = new int[classCount];
+        }
+
+        ByteBuffer poll(final int idx) {
+            final int count = this.counts[idx];
+            if (count == 0) {
+                return null;
+            }
+            final ByteBuffer[] stack = this.stacks[idx];
+            final ByteBuffer buffer = stack[count - 1];
+            stack[count - 1] = null;
+            this.counts[idx] = count - 1;
+            return buffer;
+        }
+
+        boolean offer(final int idx, final ByteBuffer buffer) {
+            final int count = this.counts[idx];
+            final ByteBuffer[] stack = this.stacks[idx];
+            if (count == stack.length) {
+                return false;
+            }
+            stack[count] = buffer;
+            this.counts[idx] = count + 1;
+            return true;
+        }
+
+    }
+
+}
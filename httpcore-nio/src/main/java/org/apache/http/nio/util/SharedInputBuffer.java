@@ -232,12 +232,27 @@ public class SharedInputBuffer extends ExpandableBuffer implements ContentInputB
         this.shutdown = true;
         this.lock.lock();
         try {
+            // The buffer content is no longer needed
+            release();
             this.condition.signalAll();
         } finally {
             this.lock.unlock();
         }
     }
 
+    /**
+     * @since 4.3
+     */
+    @Override
+    public void release() {
+        this.lock.lock();
+        try {
+            super.release();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     protected boolean isShutdown() {
         return this.shutdown;
     }
@@ -203,12 +203,27 @@ public class SharedOutputBuffer extends ExpandableBuffer implements ContentOutpu
         this.shutdown = true;
         this.lock.lock();
         try {
+            // The buffer content is no longer needed
+            release();
             this.condition.signalAll();
         } finally {
             this.lock.unlock();
         }
     }
 
+    /**
+     * @since 4.3
+     */
+    @Override
+    public void release() {
+        this.lock.lock();
+        try {
+            super.release();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     public void write(final byte[] b, int off, final int len) throws IOException {
         if (b == null) {
             return;
@@ -0,0 +1,75 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+public class GatheringByteChannelMock extends WritableByteChannelMock implements GatheringByteChannel {
+
+    private int writeCount;
+
+    public GatheringByteChannelMock(final int size, final int capacityLimit) {
+        super(size, capacityLimit);
+    }
+
+    public GatheringByteChannelMock(final int size) {
+        super(size);
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        this.writeCount++;
+        return super.write(src);
+    }
+
+    public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+        this.writeCount++;
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            final ByteBuffer src = srcs[i];
+            final int remaining = src.remaining();
+            final int bytesWritten = super.write(src);
+            total += bytesWritten;
+            if (bytesWritten < remaining) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    public long write(final ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    public int getWriteCount() {
+        return this.writeCount;
+    }
+
+}
@@ -41,6 +41,7 @@ import org.apache.http.HttpVersion;
 import org.apache.http.ReadableByteChannelMock;
 import org.apache.http.WritableByteChannelMock;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.DefaultHttpRequestFactory;
 import org.apache.http.impl.nio.codecs.LengthDelimitedDecoder;
 import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.nio.ContentDecoder;
@@ -52,7 +53,9 @@ import org.apache.http.nio.NHttpServerEventHandler;
 import org.apache.http.nio.entity.HttpAsyncContentProducer;
 import org.apache.http.nio.entity.NStringEntity;
 import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.util.PooledByteBufferAllocator;
 import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.params.BasicHttpParams;
 import org.apache.http.protocol.HTTP;
 import org.junit.Assert;
 import org.junit.Before;
@@ -669,4 +672,100 @@ public class TestDefaultNHttpServerConnection {
         Mockito.verify(session, Mockito.times(1)).clearEvent(SelectionKey.OP_READ);
     }
 
+    @Test
+    public void testReleaseIdleBuffers() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(false);
+        final DefaultNHttpServerConnection conn = new DefaultNHttpServerConnection(
+                session, DefaultHttpRequestFactory.INSTANCE, allocator, new BasicHttpParams());
+
+        final ReadableByteChannelMock rchannel = new ReadableByteChannelMock(
+            new String[] {"GET / HTTP/1.1\r\n\r\n"}, Consts.ASCII);
+        final WritableByteChannelMock wchannel = new WritableByteChannelMock(64);
+        final ByteChannelMock channel = new ByteChannelMock(rchannel, wchannel);
+        Mockito.when(session.channel()).thenReturn(channel);
+        Mockito.when(session.getEventMask()).thenReturn(SelectionKey.OP_READ);
+        Mockito.doAnswer(new Answer<Void>() {
+
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final NHttpServerConnection conn = (NHttpServerConnection) invocation.getArguments()[0];
+                conn.submitResponse(new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK"));
+                return null;
+            }
+
+        }).when(handler).requestReceived(Mockito.<NHttpServerConnection>any());
+
+        conn.consumeInput(handler);
+
+        Mockito.verify(handler, Mockito.times(1)).requestReceived(
+            Mockito.<NHttpServerConnection>any());
+        // Buffers are kept while the response is pending
+        Assert.assertFalse(conn.inbuf.isReleased());
+        Assert.assertFalse(conn.outbuf.isReleased());
+        Assert.assertTrue(conn.hasBufferedOutput());
+
+        conn.produceOutput(handler);
+
+        Mockito.verify(session).clearEvent(SelectionKey.OP_WRITE);
+        Assert.assertEquals("HTTP/1.1 200 OK\r\n\r\n", wchannel.dump(Consts.ASCII));
+        Assert.assertFalse(conn.hasBufferedOutput());
+        // The connection is idle
+        Assert.assertTrue(conn.inbuf.isReleased());
+        Assert.assertTrue(conn.outbuf.isReleased());
+        Mockito.verify(session, Mockito.never()).clearEvent(SelectionKey.OP_READ);
+    }
+
+    @Test
+    public void testBuffersRetainedWithPipelinedRequest() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(false);
+        final DefaultNHttpServerConnection conn = new DefaultNHttpServerConnection(
+                session, DefaultHttpRequestFactory.INSTANCE, allocator, new BasicHttpParams());
+
+        final ReadableByteChannelMock rchannel = new ReadableByteChannelMock(
+            new String[] {"GET /1 HTTP/1.1\r\n\r\nGET /2 HTTP/1.1\r\n\r\n"}, Consts.ASCII);
+        final WritableByteChannelMock wchannel = new WritableByteChannelMock(64);
+        final ByteChannelMock channel = new ByteChannelMock(rchannel, wchannel);
+        Mockito.when(session.channel()).thenReturn(channel);
+        Mockito.when(session.getEventMask()).thenReturn(SelectionKey.OP_READ);
+
+        conn.consumeInput(handler);
+        Assert.assertTrue(conn.hasBufferedInput());
+        conn.submitResponse(new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK"));
+        conn.produceOutput(handler);
+
+        // The second request is still buffered
+        Assert.assertFalse(conn.inbuf.isReleased());
+        Assert.assertTrue(conn.outbuf.isReleased());
+    }
+
+    @Test
+    public void testBuffersRetainedWithMessageInProgress() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(false);
+        final DefaultNHttpServerConnection conn = new DefaultNHttpServerConnection(
+                session, DefaultHttpRequestFactory.INSTANCE, allocator, new BasicHttpParams());
+
+        final ReadableByteChannelMock rchannel = new ReadableByteChannelMock(
+            new String[] {"POST / HTTP/1.1\r\nContent-Length: 10\r\n\r\n"}, Consts.ASCII);
+        final ByteChannelMock channel = new ByteChannelMock(rchannel, null);
+        Mockito.when(session.channel()).thenReturn(channel);
+        Mockito.when(session.getEventMask()).thenReturn(SelectionKey.OP_READ);
+
+        conn.consumeInput(handler);
+        Assert.assertNotNull(conn.getHttpRequest());
+        Assert.assertFalse(conn.inbuf.isReleased());
+    }
+
+    @Test
+    public void testBuffersRetainedWithNonReleasableAllocator() throws Exception {
+        final ReadableByteChannelMock rchannel = new ReadableByteChannelMock(
+            new String[] {"GET / HTTP/1.1\r\n\r\n"}, Consts.ASCII);
+        final ByteChannelMock channel = new ByteChannelMock(rchannel, null);
+        Mockito.when(session.channel()).thenReturn(channel);
+        Mockito.when(session.getEventMask()).thenReturn(SelectionKey.OP_READ);
+
+        conn.consumeInput(handler);
+
+        Assert.assertFalse(conn.inbuf.isReleased());
+        Assert.assertFalse(conn.outbuf.isReleased());
+    }
+
 }
@@ -0,0 +1,213 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.nio.codecs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import org.apache.http.Consts;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.config.MessageConstraints;
+import org.apache.http.impl.nio.reactor.SessionInputBufferImpl;
+import org.apache.http.nio.NHttpMessageParser;
+import org.apache.http.nio.reactor.SessionInputBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Simple tests for {@link AbstractAsciiMessageParser}.
+ */
+public class TestAsciiHttpMessageParser {
+
+    private static ReadableByteChannel newChannel(final String s)
+            throws UnsupportedEncodingException {
+        return Channels.newChannel(new ByteArrayInputStream(s.getBytes("US-ASCII")));
+    }
+
+    @Test
+    public void testSimpleParsing() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+        final NHttpMessageParser<HttpRequest> requestParser = new AsciiHttpRequestParser(inbuf);
+        requestParser.fillBuffer(newChannel("GET /whatever HTTP/1.1\r\nSome header: stuff\r\n\r\n"));
+        final HttpRequest request = requestParser.parse();
+        Assert.assertNotNull(request);
+        Assert.assertEquals("/whatever", request.getRequestLine().getUri());
+        Assert.assertSame(HttpVersion.HTTP_1_1, request.getRequestLine().getProtocolVersion());
+        Assert.assertEquals(1, request.getAllHeaders().length);
+        Assert.assertEquals("stuff", request.getFirstHeader("Some header").getValue());
+    }
+
+    @Test
+    public void testParsingFoldedHeaders() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+        final NHttpMessageParser<HttpRequest> requestParser = new AsciiHttpRequestParser(inbuf);
+
+        requestParser.fillBuffer(newChannel("GET /whatev"));
+        HttpRequest request = requestParser.parse();
+        Assert.assertNull(request);
+        requestParser.fillBuffer(newChannel("er HTTP/1.1\r"));
+        request = requestParser.parse();
+        Assert.assertNull(request);
+        requestParser.fillBuffer(newChannel("\nSome header: stuff\r\n"));
+        request = requestParser.parse();
+        Assert.assertNull(request);
+        requestParser.fillBuffer(newChannel("   more\r\n"));
+        request = requestParser.parse();
+        Assert.assertNull(request);
+        requestParser.fillBuffer(newChannel("\tstuff\r\n"));
+        request = requestParser.parse();
+        Assert.assertNull(request);
+        requestParser.fillBuffer(newChannel("Other header: whatever\r\n\r\n"));
+        request = requestParser.parse();
+
+        Assert.assertNotNull(request);
+        Assert.assertEquals("/whatever", request.getRequestLine().getUri());
+        Assert.assertEquals(2, request.getAllHeaders().length);
+        Assert.assertEquals("stuff more stuff", request.getFirstHeader("Some header").getValue());
+        Assert.assertEquals("whatever", request.getFirstHeader("Other header").getValue());
+    }
+
+    @Test
+    public void testParsingIncompleteHeader() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+        final NHttpMessageParser<HttpRequest> requestParser = new AsciiHttpRequestParser(inbuf);
+
+        final ReadableByteChannel channel = newChannel("GET /whatever HTTP/1.0\r\nHeader: whatever");
+        requestParser.fillBuffer(channel);
+        requestParser.fillBuffer(channel);
+        final HttpRequest request = requestParser.parse();
+        Assert.assertNotNull(request);
+        Assert.assertEquals(1, request.getAllHeaders().length);
+        Assert.assertEquals("whatever", request.getFirstHeader("Header").getValue());
+    }
+
+    @Test
+    public void testParsingInvalidRequestLine() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+        final NHttpMessageParser<HttpRequest> requestParser = new AsciiHttpRequestParser(inbuf);
+
+        requestParser.fillBuffer(newChannel("GET garbage\r\n"));
+        try {
+            requestParser.parse();
+            Assert.fail("HttpException should have been thrown");
+        } catch (final HttpException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testParsingInvalidHeader() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+        final NHttpMessageParser<HttpResponse> responseParser = new AsciiHttpResponseParser(inbuf);
+
+        responseParser.fillBuffer(newChannel("HTTP/1.0 200 OK\r\nstuff\r\n\r\n"));
+        try {
+            responseParser.parse();
+            Assert.fail("HttpException should have been thrown");
+        } catch (final HttpException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testResponseParsing() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+        final NHttpMessageParser<HttpResponse> responseParser = new AsciiHttpResponseParser(inbuf);
+
+        responseParser.fillBuffer(newChannel("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n\r\n"));
+        final HttpResponse response = responseParser.parse();
+        Assert.assertNotNull(response);
+        Assert.assertSame(HttpVersion.HTTP_1_1, response.getStatusLine().getProtocolVersion());
+        Assert.assertEquals(404, response.getStatusLine().getStatusCode());
+        Assert.assertEquals("Not Found", response.getStatusLine().getReasonPhrase());
+        Assert.assertEquals("0", response.getFirstHeader("Content-Length").getValue());
+    }
+
+    @Test
+    public void testResetParser() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+        final NHttpMessageParser<HttpRequest> requestParser = new AsciiHttpRequestParser(inbuf);
+
+        requestParser.fillBuffer(newChannel("GET /whatever HTTP/1.0\r\nHeader: one\r\n\r\n"));
+        HttpRequest request = requestParser.parse();
+        Assert.assertNotNull(request);
+        Assert.assertEquals(1, request.getAllHeaders().length);
+        Assert.assertEquals("one", request.getFirstHeader("Header").getValue());
+
+        requestParser.reset();
+
+        requestParser.fillBuffer(newChannel("GET /whatever HTTP/1.0\r\nHeader: two\r\n\r\n"));
+        request = requestParser.parse();
+        Assert.assertNotNull(request);
+        Assert.assertEquals(1, request.getAllHeaders().length);
+        Assert.assertEquals("two", request.getFirstHeader("Header").getValue());
+    }
+
+    @Test
+    public void testLineLimitForFoldedHeader() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+
+        final MessageConstraints constraints = MessageConstraints.custom()
+                .setMaxHeaderCount(2).setMaxLineLength(15).build();
+        final NHttpMessageParser<HttpRequest> requestParser = new AsciiHttpRequestParser(inbuf, constraints);
+        try {
+            requestParser.fillBuffer(newChannel("GET / HTTP/1.0\r\nHeader: 9012345\r\n" +
+                    " 23456789012345\r\n 23456789012345\r\n 23456789012345\r\n\r\n"));
+            requestParser.parse();
+            Assert.fail("IOException should have been thrown");
+        } catch (final IOException expected) {
+        }
+    }
+
+    @Test
+    public void testMaxHeaderCount() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+
+        final MessageConstraints constraints = MessageConstraints.custom()
+                .setMaxHeaderCount(2).setMaxLineLength(-1).build();
+        final NHttpMessageParser<HttpRequest> requestParser = new AsciiHttpRequestParser(inbuf, constraints);
+        requestParser.fillBuffer(newChannel("GET /whatever HTTP/1.0\r\nHeader: one\r\nHeader: two\r\n\r\n"));
+        Assert.assertNotNull(requestParser.parse());
+        requestParser.reset();
+
+        try {
+            requestParser.fillBuffer(newChannel("GET /whatever HTTP/1.0\r\nHeader: one\r\n" +
+                    "Header: two\r\nHeader: three\r\n\r\n"));
+            requestParser.parse();
+            Assert.fail("IOException should have been thrown");
+        } catch (final IOException expected) {
+        }
+    }
+
+}
@@ -27,17 +27,23 @@
 
 package org.apache.http.impl.nio.codecs;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
 import java.nio.channels.ReadableByteChannel;
 
 import org.apache.http.Consts;
 import org.apache.http.Header;
 import org.apache.http.MalformedChunkCodingException;
 import org.apache.http.ReadableByteChannelMock;
+import org.apache.http.TruncatedChunkException;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.impl.nio.reactor.SessionInputBufferImpl;
 import org.apache.http.nio.reactor.SessionInputBuffer;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -46,6 +52,20 @@ import org.junit.Test;
  */
 public class TestChunkDecoder {
 
+    private File tmpfile;
+
+    protected File createTempFile() throws IOException {
+        this.tmpfile = File.createTempFile("testFile", ".txt");
+        return this.tmpfile;
+    }
+
+    @After
+    public void deleteTempFile() {
+        if (this.tmpfile != null && this.tmpfile.exists()) {
+            this.tmpfile.delete();
+        }
+    }
+
     @Test
     public void testBasicDecoding() throws Exception {
         final String s = "5\r\n01234\r\n5\r\n56789\r\n6\r\nabcdef\r\n0\r\n\r\n";
@@ -423,4 +443,123 @@ public class TestChunkDecoder {
         }
     }
 
+    @Test
+    public void testDecodingFile() throws Exception {
+        final ReadableByteChannel channel = new ReadableByteChannelMock(
+                new String[] {"10\r\n", "0123456789abcdef", "\r\n5;ext=1\r\n", "12345",
+                        "\r\n0\r\nFooter: stuff\r\n\r\n"}, Consts.ASCII);
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 256, Consts.ASCII);
+        final FileTransferMetricsImpl metrics = new FileTransferMetricsImpl();
+        final ChunkDecoder decoder = new ChunkDecoder(channel, inbuf, metrics);
+
+        createTempFile();
+        final RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "rw");
+        try {
+            final FileChannel fchannel = testfile.getChannel();
+            long pos = 0;
+            while (!decoder.isCompleted()) {
+                final long bytesRead = decoder.transfer(fchannel, pos, 10);
+                if (bytesRead > 0) {
+                    pos += bytesRead;
+                }
+            }
+            Assert.assertEquals(21, pos);
+            Assert.assertEquals(-1, decoder.transfer(fchannel, pos, 10));
+        } finally {
+            testfile.close();
+        }
+        Assert.assertEquals("0123456789abcdef12345", CodecTestUtils.readFromFile(this.tmpfile));
+        final Header[] footers = decoder.getFooters();
+        Assert.assertEquals(1, footers.length);
+        Assert.assertEquals("Footer", footers[0].getName());
+        Assert.assertEquals(21, metrics.getCopiedBytesTransferred());
+        Assert.assertEquals(0, metrics.getZeroCopyBytesTransferred());
+    }
+
+    @Test
+    public void testDecodingFileFromSelectableChannel() throws Exception {
+        final Pipe pipe = Pipe.open();
+        final Pipe.SourceChannel source = pipe.source();
+        source.configureBlocking(false);
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 256, Consts.ASCII);
+        final FileTransferMetricsImpl metrics = new FileTransferMetricsImpl();
+        final ChunkDecoder decoder = new ChunkDecoder(source, inbuf, metrics);
+
+        createTempFile();
+        final RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "rw");
+        try {
+            final FileChannel fchannel = testfile.getChannel();
+            pipe.sink().write(ByteBuffer.wrap("6\r\n".getBytes("US-ASCII")));
+            Assert.assertEquals(0, decoder.transfer(fchannel, 0, 100));
+            pipe.sink().write(ByteBuffer.wrap("abcdef\r\n0\r\n\r\n".getBytes("US-ASCII")));
+            long pos = 0;
+            while (!decoder.isCompleted()) {
+                final long bytesRead = decoder.transfer(fchannel, pos, 100);
+                if (bytesRead > 0) {
+                    pos += bytesRead;
+                }
+            }
+            Assert.assertEquals(6, pos);
+        } finally {
+            testfile.close();
+            pipe.sink().close();
+            source.close();
+        }
+        Assert.assertEquals("abcdef", CodecTestUtils.readFromFile(this.tmpfile));
+        Assert.assertEquals(0, metrics.getZeroCopyBytesTransferred());
+        Assert.assertEquals(6, metrics.getCopiedBytesTransferred());
+    }
+
+    @Test
+    public void testDecodingFileWithBufferedSessionData() throws Exception {
+        final String s = "5\r\n01234\r\n5\r\n56789\r\n6\r\nabcdef\r\n0\r\n\r\n";
+        final ReadableByteChannel channel = new ReadableByteChannelMock(
+                new String[] {s}, Consts.ASCII);
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 256, Consts.ASCII);
+        final FileTransferMetricsImpl metrics = new FileTransferMetricsImpl();
+        final ChunkDecoder decoder = new ChunkDecoder(channel, inbuf, metrics);
+
+        createTempFile();
+        final RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "rw");
+        try {
+            final FileChannel fchannel = testfile.getChannel();
+            long pos = 0;
+            while (!decoder.isCompleted()) {
+                final long bytesRead = decoder.transfer(fchannel, pos, 100);
+                if (bytesRead > 0) {
+                    pos += bytesRead;
+                }
+            }
+        } finally {
+            testfile.close();
+        }
+        Assert.assertEquals("0123456789abcdef", CodecTestUtils.readFromFile(this.tmpfile));
+        Assert.assertEquals(s.length(), metrics.getBytesTransferred());
+        Assert.assertEquals(3, metrics.getCopiedTransferCount());
+    }
+
+    @Test(expected=TruncatedChunkException.class)
+    public void testDecodingFileTruncatedChunk() throws Exception {
+        final ReadableByteChannel channel = new ReadableByteChannelMock(
+                new String[] {"10\r\n", "0123456789"}, Consts.ASCII);
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 256, Consts.ASCII);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        final ChunkDecoder decoder = new ChunkDecoder(channel, inbuf, metrics);
+
+        createTempFile();
+        final RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "rw");
+        try {
+            final FileChannel fchannel = testfile.getChannel();
+            long pos = 0;
+            while (!decoder.isCompleted()) {
+                final long bytesRead = decoder.transfer(fchannel, pos, 100);
+                if (bytesRead > 0) {
+                    pos += bytesRead;
+                }
+            }
+        } finally {
+            testfile.close();
+        }
+    }
+
 }
@@ -27,13 +27,19 @@
 
 package org.apache.http.impl.nio.codecs;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.apache.http.Consts;
+import org.apache.http.GatheringByteChannelMock;
 import org.apache.http.WritableByteChannelMock;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
 import org.apache.http.nio.reactor.SessionOutputBuffer;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -43,6 +49,20 @@ import org.mockito.Mockito;
  */
 public class TestChunkEncoder {
 
+    private File tmpfile;
+
+    protected File createTempFile() throws IOException {
+        this.tmpfile = File.createTempFile("testFile", ".txt");
+        return this.tmpfile;
+    }
+
+    @After
+    public void deleteTempFile() {
+        if (this.tmpfile != null && this.tmpfile.exists()) {
+            this.tmpfile.delete();
+        }
+    }
+
     @Test
     public void testBasicCoding() throws Exception {
         final WritableByteChannelMock channel = new WritableByteChannelMock(64);
@@ -228,4 +248,165 @@ public class TestChunkEncoder {
         }
     }
 
+
+    @Test
+    public void testGatheringWriteHeadAndChunk() throws Exception {
+        final GatheringByteChannelMock channel = new GatheringByteChannelMock(64);
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        outbuf.writeLine("HTTP/1.1 200 OK");
+        outbuf.writeLine("");
+
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, metrics, 4);
+        Assert.assertEquals(10, encoder.write(CodecTestUtils.wrap("0123456789")));
+
+        Assert.assertFalse(outbuf.hasData());
+        Assert.assertEquals(1, channel.getWriteCount());
+        Assert.assertEquals(34, metrics.getBytesTransferred());
+
+        encoder.complete();
+        outbuf.flush(channel);
+        Assert.assertEquals("HTTP/1.1 200 OK\r\n\r\na\r\n0123456789\r\n0\r\n\r\n",
+                channel.dump(Consts.ASCII));
+    }
+
+    @Test
+    public void testGatheringWriteChannelSaturated() throws Exception {
+        final GatheringByteChannelMock channel = new GatheringByteChannelMock(64, 25);
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        outbuf.writeLine("HTTP/1.1 200 OK");
+        outbuf.writeLine("");
+
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, metrics, 4);
+        final ByteBuffer src = CodecTestUtils.wrap("0123456789");
+        Assert.assertEquals(10, encoder.write(src));
+        Assert.assertFalse(src.hasRemaining());
+        Assert.assertEquals(25, metrics.getBytesTransferred());
+        Assert.assertEquals(9, outbuf.length());
+
+        channel.flush();
+        encoder.complete();
+        outbuf.flush(channel);
+        Assert.assertEquals("HTTP/1.1 200 OK\r\n\r\na\r\n0123456789\r\n0\r\n\r\n",
+                channel.dump(Consts.ASCII));
+    }
+
+    @Test
+    public void testCodingFromFile() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final FileTransferMetricsImpl metrics = new FileTransferMetricsImpl();
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, metrics);
+
+        createTempFile();
+        RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "rw");
+        try {
+            testfile.write("0123456789abcdef".getBytes("US-ASCII"));
+        } finally {
+            testfile.close();
+        }
+
+        testfile = new RandomAccessFile(this.tmpfile, "rw");
+        try {
+            final FileChannel fchannel = testfile.getChannel();
+            Assert.assertEquals(16, encoder.transfer(fchannel, 0, Long.MAX_VALUE));
+            Assert.assertEquals(0, encoder.transfer(fchannel, 16, Long.MAX_VALUE));
+        } finally {
+            testfile.close();
+        }
+        encoder.write(CodecTestUtils.wrap("more stuff"));
+        encoder.complete();
+        outbuf.flush(channel);
+
+        Assert.assertEquals("10\r\n0123456789abcdef\r\na\r\nmore stuff\r\n0\r\n\r\n",
+                channel.dump(Consts.ASCII));
+        Assert.assertEquals(1, metrics.getCopiedTransferCount());
+        Assert.assertEquals(16, metrics.getCopiedBytesTransferred());
+        Assert.assertEquals(0, metrics.getZeroCopyTransferCount());
+    }
+
+    @Test
+    public void testCodingFromFileToFileChannel() throws Exception {
+        final File outfile = File.createTempFile("testFile", ".out");
+        final RandomAccessFile out = new RandomAccessFile(outfile, "rw");
+        try {
+            final FileChannel outchannel = out.getChannel();
+            final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+            final FileTransferMetricsImpl metrics = new FileTransferMetricsImpl();
+            final ChunkEncoder encoder = new ChunkEncoder(outchannel, outbuf, metrics);
+
+            createTempFile();
+            RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "rw");
+            try {
+                testfile.write("0123456789abcdef".getBytes("US-ASCII"));
+            } finally {
+                testfile.close();
+            }
+
+            testfile = new RandomAccessFile(this.tmpfile, "rw");
+            try {
+                final FileChannel fchannel = testfile.getChannel();
+                Assert.assertEquals(6, encoder.transfer(fchannel, 10, Long.MAX_VALUE));
+            } finally {
+                testfile.close();
+            }
+            encoder.complete();
+            outbuf.flush(outchannel);
+
+            Assert.assertEquals(1, metrics.getZeroCopyTransferCount());
+            Assert.assertEquals(6, metrics.getZeroCopyBytesTransferred());
+            Assert.assertEquals(0, metrics.getCopiedTransferCount());
+        } finally {
+            out.close();
+        }
+        try {
+            Assert.assertEquals("6\r\nabcdef\r\n0\r\n\r\n", CodecTestUtils.readFromFile(outfile));
+        } finally {
+            outfile.delete();
+        }
+    }
+
+    @Test
+    public void testCodingFromFileChannelSaturated() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64, 10);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, metrics);
+
+        createTempFile();
+        RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "rw");
+        try {
+            testfile.write("0123456789abcdef".getBytes("US-ASCII"));
+        } finally {
+            testfile.close();
+        }
+
+        testfile = new RandomAccessFile(this.tmpfile, "rw");
+        try {
+            final FileChannel fchannel = testfile.getChannel();
+            Assert.assertEquals(6, encoder.transfer(fchannel, 0, Long.MAX_VALUE));
+            Assert.assertEquals(0, encoder.transfer(fchannel, 6, Long.MAX_VALUE));
+            try {
+                encoder.complete();
+                Assert.fail("IllegalStateException should have been thrown");
+            } catch (final IllegalStateException ex) {
+                // expected
+            }
+            channel.flush();
+            Assert.assertEquals(4, encoder.transfer(fchannel, 6, 4));
+        } finally {
+            testfile.close();
+        }
+        channel.flush();
+        // the remainder of the chunk announced by the file transfer
+        Assert.assertEquals(6, encoder.write(CodecTestUtils.wrap("abcdef")));
+        encoder.complete();
+        outbuf.flush(channel);
+        channel.flush();
+        outbuf.flush(channel);
+
+        Assert.assertEquals("10\r\n0123456789abcdef\r\n0\r\n\r\n", channel.dump(Consts.ASCII));
+    }
+
 }
@@ -0,0 +1,180 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.nio.codecs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.http.Consts;
+import org.apache.http.WritableByteChannelMock;
+import org.apache.http.entity.CompressionPool;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.reactor.SessionOutputBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Simple tests for {@link CompressingContentEncoder}.
+ */
+public class TestCompressingContentEncoder {
+
+    private static final String CONTENT;
+
+    static {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buffer.append("{\"id\":").append(i).append(",\"name\":\"stuff\"},");
+        }
+        CONTENT = buffer.toString();
+    }
+
+    private static String gunzip(final byte[] b) throws Exception {
+        final InputStream instream = new GZIPInputStream(new ByteArrayInputStream(b));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] tmp = new byte[1024];
+        int l;
+        while ((l = instream.read(tmp)) != -1) {
+            out.write(tmp, 0, l);
+        }
+        return new String(out.toByteArray(), "ISO-8859-1");
+    }
+
+    /**
+     * Content encoder accepting a limited number of bytes until reset.
+     */
+    static class LimitedContentEncoder implements ContentEncoder {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int limit;
+        private int available;
+        private boolean completed;
+
+        LimitedContentEncoder(final int limit) {
+            this.limit = limit;
+            this.available = limit;
+        }
+
+        public int write(final ByteBuffer src) {
+            final int n = Math.min(src.remaining(), this.available);
+            for (int i = 0; i < n; i++) {
+                this.out.write(src.get());
+            }
+            this.available -= n;
+            return n;
+        }
+
+        public void complete() {
+            this.completed = true;
+        }
+
+        public boolean isCompleted() {
+            return this.completed;
+        }
+
+        void reset() {
+            this.available = this.limit;
+        }
+
+        byte[] toByteArray() {
+            return this.out.toByteArray();
+        }
+
+    }
+
+    @Test
+    public void testBasicCoding() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        final CompressionPool pool = new CompressionPool();
+
+        final IdentityEncoder identity = new IdentityEncoder(channel, outbuf, metrics);
+        final CompressingContentEncoder encoder = new CompressingContentEncoder(
+                identity, "gzip", pool, 256);
+        Assert.assertEquals(CONTENT.length(), encoder.write(CodecTestUtils.wrap(CONTENT)));
+        Assert.assertEquals(0, encoder.write(null));
+        Assert.assertFalse(encoder.isCompleted());
+        encoder.complete();
+        Assert.assertTrue(encoder.isCompleted());
+        Assert.assertTrue(identity.isCompleted());
+        Assert.assertEquals(1, pool.getIdleCount());
+
+        outbuf.flush(channel);
+        final String s = channel.dump(Consts.ISO_8859_1);
+        Assert.assertTrue(s.length() < CONTENT.length() / 2);
+        Assert.assertEquals(CONTENT, gunzip(s.getBytes("ISO-8859-1")));
+        Assert.assertEquals("[gzip; completed: true; [identity; completed: true]]", encoder.toString());
+    }
+
+    @Test
+    public void testCodingSaturated() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final LimitedContentEncoder limited = new LimitedContentEncoder(100);
+        final CompressingContentEncoder encoder = new CompressingContentEncoder(
+                limited, "gzip", pool, 64);
+
+        final ByteBuffer src = CodecTestUtils.wrap(CONTENT);
+        int i = 0;
+        while (src.hasRemaining() && i++ < 1000) {
+            encoder.write(src);
+            limited.reset();
+        }
+        Assert.assertFalse(src.hasRemaining());
+        while (!encoder.isCompleted() && i++ < 2000) {
+            encoder.write(src);
+            encoder.complete();
+            limited.reset();
+        }
+        Assert.assertTrue(encoder.isCompleted());
+        Assert.assertTrue(limited.isCompleted());
+        Assert.assertEquals(CONTENT, gunzip(limited.toByteArray()));
+    }
+
+    @Test
+    public void testCodingCompleted() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final LimitedContentEncoder limited = new LimitedContentEncoder(1024);
+        final CompressingContentEncoder encoder = new CompressingContentEncoder(
+                limited, "deflate", pool);
+        encoder.write(CodecTestUtils.wrap("stuff"));
+        encoder.complete();
+        Assert.assertTrue(encoder.isCompleted());
+        try {
+            encoder.write(CodecTestUtils.wrap("more stuff"));
+            Assert.fail("IllegalStateException should have been thrown");
+        } catch (final IllegalStateException ex) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.nio.codecs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.Consts;
+import org.apache.http.ReadableByteChannelMock;
+import org.apache.http.entity.CompressionPool;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.nio.reactor.SessionInputBufferImpl;
+import org.apache.http.nio.reactor.SessionInputBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Simple tests for {@link DecompressingContentDecoder}.
+ */
+public class TestDecompressingContentDecoder {
+
+    private static final String CONTENT;
+
+    static {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buffer.append("{\"id\":").append(i).append(",\"name\":\"stuff\"},");
+        }
+        CONTENT = buffer.toString();
+    }
+
+    private static String gzip(final String s) throws Exception {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final GZIPOutputStream outstream = new GZIPOutputStream(buffer);
+        outstream.write(s.getBytes("ISO-8859-1"));
+        outstream.close();
+        return new String(buffer.toByteArray(), "ISO-8859-1");
+    }
+
+    private static String[] split(final String s, final int chunk) {
+        final String[] chunks = new String[(s.length() + chunk - 1) / chunk];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = s.substring(i * chunk, Math.min(s.length(), (i + 1) * chunk));
+        }
+        return chunks;
+    }
+
+    @Test
+    public void testBasicDecoding() throws Exception {
+        final String compressed = gzip(CONTENT);
+        final ReadableByteChannel channel = new ReadableByteChannelMock(
+                split(compressed, 100), Consts.ISO_8859_1);
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 256, Consts.ISO_8859_1);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        final CompressionPool pool = new CompressionPool();
+
+        final LengthDelimitedDecoder delimited = new LengthDelimitedDecoder(
+                channel, inbuf, metrics, compressed.length());
+        final DecompressingContentDecoder decoder = new DecompressingContentDecoder(
+                delimited, "gzip", pool, 64);
+
+        final ByteBuffer dst = ByteBuffer.allocate(1024);
+        final StringBuilder buffer = new StringBuilder();
+        int i = 0;
+        while (!decoder.isCompleted() && i++ < 1000) {
+            decoder.read(dst);
+            buffer.append(CodecTestUtils.convert(dst));
+            dst.clear();
+        }
+        Assert.assertTrue(decoder.isCompleted());
+        Assert.assertTrue(delimited.isCompleted());
+        Assert.assertEquals(CONTENT, buffer.toString());
+        Assert.assertEquals(-1, decoder.read(dst));
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertEquals("[gzip; completed: true; " + delimited + "]", decoder.toString());
+    }
+
+    @Test
+    public void testDecodingChunkedDirectBuffer() throws Exception {
+        final String compressed = gzip(CONTENT);
+        final String[] chunks = split(compressed, 300);
+        final StringBuilder chunked = new StringBuilder();
+        for (final String chunk: chunks) {
+            chunked.append(Integer.toHexString(chunk.length())).append("\r\n").append(chunk).append("\r\n");
+        }
+        chunked.append("0\r\n\r\n");
+        final ReadableByteChannel channel = new ReadableByteChannelMock(
+                split(chunked.toString(), 128), Consts.ISO_8859_1);
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 256, Consts.ISO_8859_1);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+
+        final ChunkDecoder chunkDecoder = new ChunkDecoder(channel, inbuf, metrics);
+        final DecompressingContentDecoder decoder = new DecompressingContentDecoder(
+                chunkDecoder, "gzip", new CompressionPool());
+
+        final ByteBuffer dst = ByteBuffer.allocateDirect(100);
+        final StringBuilder buffer = new StringBuilder();
+        int i = 0;
+        while (!decoder.isCompleted() && i++ < 1000) {
+            decoder.read(dst);
+            buffer.append(CodecTestUtils.convert(dst));
+            dst.clear();
+        }
+        Assert.assertTrue(decoder.isCompleted());
+        Assert.assertTrue(chunkDecoder.isCompleted());
+        Assert.assertEquals(CONTENT, buffer.toString());
+    }
+
+    @Test(expected=EOFException.class)
+    public void testDecodingTruncated() throws Exception {
+        final String compressed = gzip(CONTENT);
+        final ReadableByteChannel channel = new ReadableByteChannelMock(
+                new String[] {compressed.substring(0, compressed.length() - 10)}, Consts.ISO_8859_1);
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 256, Consts.ISO_8859_1);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+
+        final IdentityDecoder identity = new IdentityDecoder(channel, inbuf, metrics);
+        final DecompressingContentDecoder decoder = new DecompressingContentDecoder(
+                identity, "gzip", new CompressionPool());
+
+        final ByteBuffer dst = ByteBuffer.allocate(1024);
+        for (int i = 0; i < 1000; i++) {
+            decoder.read(dst);
+            dst.clear();
+        }
+    }
+
+}
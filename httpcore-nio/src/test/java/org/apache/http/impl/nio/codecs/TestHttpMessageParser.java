@@ -34,12 +34,15 @@ import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 
 import org.apache.http.Consts;
+import org.apache.http.Header;
 import org.apache.http.HttpException;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpVersion;
 import org.apache.http.config.MessageConstraints;
 import org.apache.http.impl.nio.reactor.SessionInputBufferImpl;
+import org.apache.http.message.BufferedHeaderView;
+import org.apache.http.message.LazyHeaderLineParser;
 import org.apache.http.nio.NHttpMessageParser;
 import org.apache.http.nio.reactor.SessionInputBuffer;
 import org.junit.Assert;
@@ -372,4 +375,57 @@ public class TestHttpMessageParser {
         }
     }
 
+    @Test
+    public void testLazyHeaderParsing() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+        final NHttpMessageParser<HttpRequest> requestParser = new DefaultHttpRequestParser(
+                inbuf, LazyHeaderLineParser.INSTANCE, null, MessageConstraints.DEFAULT);
+
+        requestParser.fillBuffer(newChannel("GET /whatever HTTP/1.1\r\nHost: loc"));
+        HttpRequest request = requestParser.parse();
+        Assert.assertNull(request);
+        requestParser.fillBuffer(newChannel("alhost\r\nSome header: stuff\r\n"));
+        request = requestParser.parse();
+        Assert.assertNull(request);
+        requestParser.fillBuffer(newChannel("   more\r\n\tstuff\r\n\r\n"));
+        request = requestParser.parse();
+
+        Assert.assertNotNull(request);
+        final Header[] headers = request.getAllHeaders();
+        Assert.assertEquals(2, headers.length);
+        Assert.assertTrue(headers[0] instanceof BufferedHeaderView);
+        Assert.assertEquals("Host", headers[0].getName());
+        Assert.assertEquals("localhost", headers[0].getValue());
+        Assert.assertEquals("stuff more stuff", request.getFirstHeader("Some header").getValue());
+
+        requestParser.reset();
+        requestParser.fillBuffer(newChannel("GET /stuff HTTP/1.1\r\nHost: somehost\r\n\r\n"));
+        request = requestParser.parse();
+        Assert.assertNotNull(request);
+        Assert.assertEquals("somehost", request.getFirstHeader("Host").getValue());
+        // Headers of the previous message must remain intact
+        Assert.assertEquals("localhost", headers[0].getValue());
+    }
+
+    @Test
+    public void testLazyHeaderParsingMaxHeaderCount() throws Exception {
+        final SessionInputBuffer inbuf = new SessionInputBufferImpl(1024, 128, Consts.ASCII);
+
+        final MessageConstraints constraints = MessageConstraints.custom()
+                .setMaxHeaderCount(2).setMaxLineLength(-1).build();
+        final NHttpMessageParser<HttpRequest> requestParser = new DefaultHttpRequestParser(
+                inbuf, LazyHeaderLineParser.INSTANCE, null, constraints);
+        requestParser.fillBuffer(newChannel("GET /whatever HTTP/1.0\r\nHeader: one\r\nHeader: two\r\n\r\n"));
+        Assert.assertNotNull(requestParser.parse());
+        requestParser.reset();
+
+        try {
+            requestParser.fillBuffer(newChannel("GET /whatever HTTP/1.0\r\nHeader: one\r\n" +
+                    "Header: two\r\nHeader: three\r\n\r\n"));
+            requestParser.parse();
+            Assert.fail("IOException should have been thrown");
+        } catch (final IOException expected) {
+        }
+    }
+
 }
@@ -34,6 +34,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
 import org.apache.http.Consts;
+import org.apache.http.GatheringByteChannelMock;
 import org.apache.http.WritableByteChannelMock;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
@@ -567,4 +568,23 @@ public class TestIdentityEncoder {
         Assert.assertEquals(0, outbuf.length());
     }
 
+
+    @Test
+    public void testGatheringWriteHeadAndContent() throws Exception {
+        final GatheringByteChannelMock channel = new GatheringByteChannelMock(64);
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        outbuf.writeLine("HTTP/1.0 200 OK");
+        outbuf.writeLine("");
+
+        final IdentityEncoder encoder = new IdentityEncoder(channel, outbuf, metrics, 4);
+        Assert.assertEquals(10, encoder.write(CodecTestUtils.wrap("0123456789")));
+        encoder.complete();
+
+        Assert.assertFalse(outbuf.hasData());
+        Assert.assertEquals(1, channel.getWriteCount());
+        Assert.assertEquals(29, metrics.getBytesTransferred());
+        Assert.assertEquals("HTTP/1.0 200 OK\r\n\r\n0123456789", channel.dump(Consts.ASCII));
+    }
+
 }
@@ -34,6 +34,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
 import org.apache.http.Consts;
+import org.apache.http.GatheringByteChannelMock;
 import org.apache.http.WritableByteChannelMock;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
@@ -660,4 +661,63 @@ public class TestLengthDelimitedEncoder {
         Assert.assertEquals(0, outbuf.length());
     }
 
+
+    @Test
+    public void testGatheringWriteHeadAndContent() throws Exception {
+        final GatheringByteChannelMock channel = new GatheringByteChannelMock(64);
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        outbuf.writeLine("HTTP/1.1 200 OK");
+        outbuf.writeLine("");
+
+        final LengthDelimitedEncoder encoder = new LengthDelimitedEncoder(channel, outbuf, metrics,
+            10, 1024);
+        Assert.assertEquals(10, encoder.write(CodecTestUtils.wrap("0123456789")));
+
+        Assert.assertTrue(encoder.isCompleted());
+        Assert.assertFalse(outbuf.hasData());
+        Assert.assertEquals(1, channel.getWriteCount());
+        Assert.assertEquals(29, metrics.getBytesTransferred());
+        Assert.assertEquals("HTTP/1.1 200 OK\r\n\r\n0123456789", channel.dump(Consts.ASCII));
+    }
+
+    @Test
+    public void testGatheringWriteChannelSaturated() throws Exception {
+        final GatheringByteChannelMock channel = new GatheringByteChannelMock(64, 22);
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        outbuf.writeLine("HTTP/1.1 200 OK");
+        outbuf.writeLine("");
+
+        final LengthDelimitedEncoder encoder = new LengthDelimitedEncoder(channel, outbuf, metrics,
+            10, 0);
+        final ByteBuffer src = CodecTestUtils.wrap("0123456789");
+        Assert.assertEquals(3, encoder.write(src));
+        Assert.assertEquals(7, src.remaining());
+        Assert.assertFalse(outbuf.hasData());
+        Assert.assertEquals(0, encoder.write(src));
+
+        channel.flush();
+        Assert.assertEquals(7, encoder.write(src));
+        Assert.assertTrue(encoder.isCompleted());
+        Assert.assertEquals(29, metrics.getBytesTransferred());
+        Assert.assertEquals("HTTP/1.1 200 OK\r\n\r\n0123456789", channel.dump(Consts.ASCII));
+    }
+
+    @Test
+    public void testGatheringWriteHeadOnly() throws Exception {
+        final GatheringByteChannelMock channel = new GatheringByteChannelMock(64, 8);
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        outbuf.writeLine("HTTP/1.1 200 OK");
+        outbuf.writeLine("");
+
+        final LengthDelimitedEncoder encoder = new LengthDelimitedEncoder(channel, outbuf, metrics,
+            10, 0);
+        Assert.assertEquals(0, encoder.write(CodecTestUtils.wrap("0123456789")));
+        Assert.assertEquals(1, channel.getWriteCount());
+        Assert.assertEquals(11, outbuf.length());
+        Assert.assertEquals(8, metrics.getBytesTransferred());
+    }
+
 }
@@ -30,8 +30,14 @@ package org.apache.http.impl.nio.reactor;
 import java.io.IOException;
 import java.net.BindException;
 import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpResponseInterceptor;
@@ -42,6 +48,7 @@ import org.apache.http.nio.protocol.UriHttpAsyncRequestHandlerMapper;
 import org.apache.http.nio.reactor.IOEventDispatch;
 import org.apache.http.nio.reactor.IOReactorExceptionHandler;
 import org.apache.http.nio.reactor.IOReactorStatus;
+import org.apache.http.nio.reactor.IOSession;
 import org.apache.http.nio.reactor.ListenerEndpoint;
 import org.apache.http.nio.reactor.ListeningIOReactor;
 import org.apache.http.protocol.HttpProcessor;
@@ -214,4 +221,174 @@ public class TestDefaultListeningIOReactor {
         Assert.assertEquals(IOReactorStatus.SHUT_DOWN, ioreactor.getStatus());
     }
 
+    static class WorkerCountingDispatch implements IOEventDispatch {
+
+        private final Map<Thread, Integer> counts = new HashMap<Thread, Integer>();
+        private final Semaphore connected = new Semaphore(0);
+
+        public void connected(final IOSession session) {
+            synchronized (this.counts) {
+                final Thread thread = Thread.currentThread();
+                final Integer count = this.counts.get(thread);
+                this.counts.put(thread, Integer.valueOf(count != null ? count.intValue() + 1 : 1));
+            }
+            this.connected.release();
+        }
+
+        public void inputReady(final IOSession session) {
+        }
+
+        public void outputReady(final IOSession session) {
+        }
+
+        public void timeout(final IOSession session) {
+        }
+
+        public void disconnected(final IOSession session) {
+        }
+
+        void awaitConnected(final int n) throws InterruptedException {
+            Assert.assertTrue(this.connected.tryAcquire(n, 5, TimeUnit.SECONDS));
+        }
+
+        List<Integer> getCounts() {
+            synchronized (this.counts) {
+                return new ArrayList<Integer>(this.counts.values());
+            }
+        }
+
+    }
+
+    private static void testDispatch(
+            final IOReactorConfig config, final boolean sequential) throws Exception {
+        final WorkerCountingDispatch eventDispatch = new WorkerCountingDispatch();
+        final ListeningIOReactor ioreactor = new DefaultListeningIOReactor(config);
+
+        final Thread t = new Thread(new Runnable() {
+
+            public void run() {
+                try {
+                    ioreactor.execute(eventDispatch);
+                } catch (final IOException ex) {
+                }
+            }
+
+        });
+
+        t.start();
+
+        final ListenerEndpoint endpoint = ioreactor.listen(new InetSocketAddress("localhost", 0));
+        endpoint.waitFor();
+        final InetSocketAddress address = (InetSocketAddress) endpoint.getAddress();
+
+        final List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            for (int i = 0; i < 40; i++) {
+                sockets.add(new Socket("localhost", address.getPort()));
+                if (sequential) {
+                    eventDispatch.awaitConnected(1);
+                }
+            }
+            if (!sequential) {
+                eventDispatch.awaitConnected(40);
+            }
+            final List<Integer> counts = eventDispatch.getCounts();
+            Assert.assertEquals(4, counts.size());
+            for (final Integer count: counts) {
+                Assert.assertEquals(10, count.intValue());
+            }
+        } finally {
+            for (final Socket socket: sockets) {
+                socket.close();
+            }
+            ioreactor.shutdown(1000);
+            t.join(1000);
+        }
+
+        Assert.assertEquals(IOReactorStatus.SHUT_DOWN, ioreactor.getStatus());
+    }
+
+    @Test
+    public void testRoundRobinDispatch() throws Exception {
+        final IOReactorConfig config = IOReactorConfig.custom()
+                .setIoThreadCount(4)
+                .build();
+        testDispatch(config, false);
+    }
+
+    @Test
+    public void testLeastLoadedDispatch() throws Exception {
+        final IOReactorConfig config = IOReactorConfig.custom()
+                .setIoThreadCount(4)
+                .setLeastLoadedDispatch(true)
+                .build();
+        testDispatch(config, true);
+    }
+
+    @Test
+    public void testShardedListener() throws Exception {
+        final IOReactorConfig config = IOReactorConfig.custom()
+                .setIoThreadCount(4)
+                .setListenerSharding(true)
+                .build();
+        final WorkerCountingDispatch eventDispatch = new WorkerCountingDispatch();
+        final ListeningIOReactor ioreactor = new DefaultListeningIOReactor(config);
+
+        final Thread t = new Thread(new Runnable() {
+
+            public void run() {
+                try {
+                    ioreactor.execute(eventDispatch);
+                } catch (final IOException ex) {
+                }
+            }
+
+        });
+
+        t.start();
+
+        final ListenerEndpoint endpoint = ioreactor.listen(new InetSocketAddress("localhost", 0));
+        endpoint.waitFor();
+        Assert.assertNull(endpoint.getException());
+        final InetSocketAddress address = (InetSocketAddress) endpoint.getAddress();
+        Assert.assertTrue(address.getPort() > 0);
+        Assert.assertEquals(1, ioreactor.getEndpoints().size());
+
+        final List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            for (int i = 0; i < 40; i++) {
+                sockets.add(new Socket("localhost", address.getPort()));
+            }
+            eventDispatch.awaitConnected(40);
+            int total = 0;
+            for (final Integer count: eventDispatch.getCounts()) {
+                total += count.intValue();
+            }
+            Assert.assertEquals(40, total);
+
+            endpoint.close();
+            Assert.assertTrue(endpoint.isClosed());
+            Assert.assertEquals(0, ioreactor.getEndpoints().size());
+            // Server sockets get closed once deregistered from worker selectors
+            boolean refused = false;
+            for (int i = 0; i < 50 && !refused; i++) {
+                try {
+                    sockets.add(new Socket("localhost", address.getPort()));
+                    Thread.sleep(100);
+                } catch (final IOException expected) {
+                    refused = true;
+                }
+            }
+            Assert.assertTrue(refused);
+        } finally {
+            for (final Socket socket: sockets) {
+                socket.close();
+            }
+            ioreactor.shutdown(1000);
+            t.join(1000);
+        }
+
+        Assert.assertEquals(IOReactorStatus.SHUT_DOWN, ioreactor.getStatus());
+    }
+
 }
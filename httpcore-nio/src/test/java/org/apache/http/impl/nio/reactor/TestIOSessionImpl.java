@@ -0,0 +1,201 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.nio.reactor.EventMask;
+import org.apache.http.nio.reactor.IOSession;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestIOSessionImpl {
+
+    private Selector selector;
+    private DatagramChannel channel;
+    private SelectionKey key;
+
+    @Before
+    public void setUp() throws Exception {
+        this.selector = Selector.open();
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+        this.key = this.channel.register(this.selector, SelectionKey.OP_READ);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.channel.close();
+        this.selector.close();
+    }
+
+    @Test
+    public void testEventMask() throws Exception {
+        final IOSessionImpl session = new IOSessionImpl(this.key, null);
+        Assert.assertEquals(EventMask.READ, session.getEventMask());
+        session.setEvent(EventMask.WRITE);
+        Assert.assertEquals(EventMask.READ_WRITE, session.getEventMask());
+        Assert.assertEquals(EventMask.READ_WRITE, this.key.interestOps());
+        session.clearEvent(EventMask.READ);
+        Assert.assertEquals(EventMask.WRITE, session.getEventMask());
+        Assert.assertEquals(EventMask.WRITE, this.key.interestOps());
+        session.setEventMask(0);
+        Assert.assertEquals(0, session.getEventMask());
+        Assert.assertEquals(0, this.key.interestOps());
+    }
+
+    @Test
+    public void testRedundantEventChangesCoalesced() throws Exception {
+        final List<InterestOpEntry> entries = new ArrayList<InterestOpEntry>();
+        final IOSessionImpl session = new IOSessionImpl(this.key, new InterestOpsCallback() {
+
+            public void addInterestOps(final InterestOpEntry entry) {
+                entries.add(entry);
+            }
+
+        }, null);
+        session.setEvent(EventMask.READ);
+        session.clearEvent(EventMask.WRITE);
+        session.setEventMask(EventMask.READ);
+        Assert.assertEquals(0, entries.size());
+        session.setEvent(EventMask.WRITE);
+        session.setEvent(EventMask.WRITE);
+        Assert.assertEquals(1, entries.size());
+        Assert.assertEquals(EventMask.READ_WRITE, entries.get(0).getEventMask());
+        Assert.assertEquals(EventMask.READ_WRITE, session.getEventMask());
+        // Interest ops are to be applied by the I/O reactor
+        Assert.assertEquals(EventMask.READ, this.key.interestOps());
+    }
+
+    @Test
+    public void testConcurrentEventChanges() throws Exception {
+        final IOSessionImpl session = new IOSessionImpl(this.key, null);
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final boolean write = i % 2 == 0;
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+                    for (int n = 0; n < 1000; n++) {
+                        if (write) {
+                            session.setEvent(EventMask.WRITE);
+                            session.clearEvent(EventMask.WRITE);
+                        } else {
+                            session.clearEvent(EventMask.READ);
+                            session.setEvent(EventMask.READ);
+                        }
+                    }
+                }
+
+            };
+        }
+        for (final Thread thread: threads) {
+            thread.start();
+        }
+        for (final Thread thread: threads) {
+            thread.join();
+        }
+        Assert.assertEquals(EventMask.READ, session.getEventMask());
+        Assert.assertEquals(EventMask.READ, this.key.interestOps());
+    }
+
+    @Test
+    public void testCloseOnce() throws Exception {
+        final AtomicInteger count = new AtomicInteger(0);
+        final IOSessionImpl session = new IOSessionImpl(this.key, new SessionClosedCallback() {
+
+            public void sessionClosed(final IOSession session) {
+                count.incrementAndGet();
+            }
+
+        });
+        session.close();
+        session.close();
+        Assert.assertTrue(session.isClosed());
+        Assert.assertEquals(1, count.get());
+        Assert.assertFalse(this.key.isValid());
+        session.setEvent(EventMask.WRITE);
+        Assert.assertEquals(EventMask.READ, session.getEventMask());
+    }
+
+    @Test
+    public void testEventChangesConcurrentWithClose() throws Exception {
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        for (int i = 0; i < 100; i++) {
+            final DatagramChannel channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            final SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+            final IOSessionImpl session = new IOSessionImpl(key, null);
+            final Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        while (!session.isClosed()) {
+                            session.setEvent(EventMask.WRITE);
+                            session.clearEvent(EventMask.WRITE);
+                        }
+                    } catch (final Throwable ex) {
+                        synchronized (failures) {
+                            failures.add(ex);
+                        }
+                    }
+                }
+
+            };
+            thread.start();
+            Thread.yield();
+            session.close();
+            thread.join();
+        }
+        Assert.assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+    @Test
+    public void testLastAccessTime() throws Exception {
+        final IOSessionImpl session = new IOSessionImpl(this.key, null);
+        final long started = session.getStartedTime();
+        Thread.sleep(20);
+        session.resetLastRead();
+        Assert.assertTrue(session.getLastReadTime() > started);
+        Assert.assertEquals(session.getLastReadTime(), session.getLastAccessTime());
+        Assert.assertEquals(started, session.getLastWriteTime());
+        Thread.sleep(20);
+        session.resetLastWrite();
+        Assert.assertTrue(session.getLastWriteTime() > session.getLastReadTime());
+        Assert.assertEquals(session.getLastWriteTime(), session.getLastAccessTime());
+    }
+
+}
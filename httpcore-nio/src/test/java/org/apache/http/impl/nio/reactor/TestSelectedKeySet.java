@@ -0,0 +1,120 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSelectedKeySet {
+
+    private Selector selector;
+    private DatagramChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        this.selector = Selector.open();
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.channel.close();
+        this.selector.close();
+    }
+
+    @Test
+    public void testAddAndReset() throws Exception {
+        final SelectionKey key = this.channel.register(this.selector, SelectionKey.OP_WRITE);
+        final SelectedKeySet keySet = new SelectedKeySet();
+        Assert.assertEquals(0, keySet.size());
+        for (int i = 0; i < 2000; i++) {
+            Assert.assertTrue(keySet.add(key));
+        }
+        Assert.assertFalse(keySet.add(null));
+        Assert.assertEquals(2000, keySet.size());
+        Assert.assertSame(key, keySet.get(0));
+        Assert.assertSame(key, keySet.get(1999));
+        int count = 0;
+        final Iterator<SelectionKey> it = keySet.iterator();
+        while (it.hasNext()) {
+            Assert.assertSame(key, it.next());
+            count++;
+        }
+        Assert.assertEquals(2000, count);
+        keySet.reset();
+        Assert.assertEquals(0, keySet.size());
+        Assert.assertNull(keySet.get(0));
+        Assert.assertFalse(keySet.iterator().hasNext());
+    }
+
+    @Test
+    public void testInstall() throws Exception {
+        final SelectedKeySet keySet = SelectedKeySet.install(this.selector);
+        final SelectionKey key = this.channel.register(this.selector, SelectionKey.OP_WRITE);
+        Assert.assertEquals(1, this.selector.select(1000));
+        if (keySet != null) {
+            Assert.assertSame(keySet, this.selector.selectedKeys());
+            Assert.assertEquals(1, keySet.size());
+            Assert.assertSame(key, keySet.get(0));
+            keySet.reset();
+        } else {
+            // Selector implementation rejected the replacement
+            Assert.assertEquals(1, this.selector.selectedKeys().size());
+            Assert.assertTrue(this.selector.selectedKeys().contains(key));
+            this.selector.selectedKeys().clear();
+        }
+        Assert.assertEquals(1, this.selector.select(1000));
+        Assert.assertEquals(1, this.selector.selectedKeys().size());
+    }
+
+    @Test
+    public void testReactorReportsOptimization() throws Exception {
+        final boolean supported = SelectedKeySet.install(this.selector) != null;
+        final BaseIOReactor optimized = new BaseIOReactor(IOReactorConfig.custom()
+                .setSelectedKeysOptimized(true)
+                .build());
+        final BaseIOReactor standard = new BaseIOReactor(IOReactorConfig.custom()
+                .setSelectedKeysOptimized(false)
+                .build());
+        try {
+            Assert.assertEquals(supported, optimized.isSelectedKeysOptimized());
+            Assert.assertFalse(standard.isSelectedKeysOptimized());
+        } finally {
+            optimized.hardShutdown();
+            standard.hardShutdown();
+        }
+    }
+
+}
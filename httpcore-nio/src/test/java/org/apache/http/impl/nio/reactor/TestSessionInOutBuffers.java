@@ -455,6 +455,36 @@ public class TestSessionInOutBuffers {
         }
     }
 
+    @Test
+    public void testMixedAsciiCodedWriteLine() throws Exception {
+        final String s1 = "Content-Type: text/plain; charset=UTF-8";
+        final String s2 = constructString(RUSSIAN_HELLO);
+
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(16, 16,
+                Consts.UTF_8.newEncoder(), this.allocator);
+        final CharArrayBuffer chbuffer = new CharArrayBuffer(16);
+        for (int i = 0; i < 3; i++) {
+            outbuf.writeLine(s1);
+            outbuf.writeLine(s2);
+            chbuffer.clear();
+            chbuffer.append(s1);
+            outbuf.writeLine(chbuffer);
+            chbuffer.clear();
+            chbuffer.append(s2);
+            outbuf.writeLine(chbuffer);
+        }
+
+        final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+        final WritableByteChannel outChannel = newChannel(outstream);
+        outbuf.flush(outChannel);
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            expected.append(s1).append("\r\n").append(s2).append("\r\n");
+        }
+        Assert.assertArrayEquals(expected.toString().getBytes("UTF-8"), outstream.toByteArray());
+    }
+
     @Test
     public void testInputMatchesBufferLength() throws Exception {
         final String s1 = "abcde";
@@ -0,0 +1,178 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSessionTimeoutWheel {
+
+    private Selector selector;
+    private List<DatagramChannel> channels;
+
+    @Before
+    public void setUp() throws Exception {
+        this.selector = Selector.open();
+        this.channels = new ArrayList<DatagramChannel>();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (final DatagramChannel channel: this.channels) {
+            channel.close();
+        }
+        this.selector.close();
+    }
+
+    private IOSessionImpl createSession() throws Exception {
+        final DatagramChannel channel = DatagramChannel.open();
+        this.channels.add(channel);
+        channel.configureBlocking(false);
+        final SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+        return new IOSessionImpl(key, null);
+    }
+
+    @Test
+    public void testSessionTimeout() throws Exception {
+        final IOSessionImpl session = createSession();
+        session.setSocketTimeout(500);
+        final long start = session.getLastAccessTime();
+        final SessionTimeoutWheel wheel = new SessionTimeoutWheel(100, 8, start);
+        wheel.register(session);
+
+        final List<IOSessionImpl> expired = new ArrayList<IOSessionImpl>();
+        wheel.expire(start + 200, expired);
+        Assert.assertTrue(expired.isEmpty());
+        wheel.expire(start + 450, expired);
+        Assert.assertTrue(expired.isEmpty());
+        wheel.expire(start + 650, expired);
+        Assert.assertEquals(1, expired.size());
+        Assert.assertSame(session, expired.get(0));
+        expired.clear();
+        // Reported again on next tick unless the session has been accessed
+        wheel.expire(start + 750, expired);
+        Assert.assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void testSessionTimeoutMultipleRounds() throws Exception {
+        final IOSessionImpl session = createSession();
+        session.setSocketTimeout(2000);
+        final long start = session.getLastAccessTime();
+        final SessionTimeoutWheel wheel = new SessionTimeoutWheel(100, 8, start);
+        wheel.register(session);
+
+        final List<IOSessionImpl> expired = new ArrayList<IOSessionImpl>();
+        for (long t = start; t < start + 2000; t += 100) {
+            wheel.expire(t, expired);
+            Assert.assertTrue(expired.isEmpty());
+        }
+        wheel.expire(start + 2200, expired);
+        Assert.assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void testActiveSessionRescheduled() throws Exception {
+        final IOSessionImpl session = createSession();
+        session.setSocketTimeout(500);
+        final long start = session.getLastAccessTime();
+        final SessionTimeoutWheel wheel = new SessionTimeoutWheel(100, 8, start);
+        wheel.register(session);
+
+        Thread.sleep(50);
+        session.resetLastRead();
+        final long lastRead = session.getLastAccessTime();
+        Assert.assertTrue(lastRead > start);
+
+        final List<IOSessionImpl> expired = new ArrayList<IOSessionImpl>();
+        wheel.expire(start + 520, expired);
+        Assert.assertTrue(expired.isEmpty());
+        wheel.expire(lastRead + 650, expired);
+        Assert.assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void testTimeoutReduced() throws Exception {
+        final IOSessionImpl session = createSession();
+        session.setSocketTimeout(10000);
+        final long start = session.getLastAccessTime();
+        final SessionTimeoutWheel wheel = new SessionTimeoutWheel(100, 8, start);
+        wheel.register(session);
+
+        session.setSocketTimeout(200);
+        final long changed = session.getLastAccessTime();
+
+        final List<IOSessionImpl> expired = new ArrayList<IOSessionImpl>();
+        wheel.expire(changed + 100, expired);
+        Assert.assertTrue(expired.isEmpty());
+        wheel.expire(changed + 350, expired);
+        Assert.assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void testTimeoutDisabled() throws Exception {
+        final IOSessionImpl session = createSession();
+        session.setSocketTimeout(200);
+        final long start = session.getLastAccessTime();
+        final SessionTimeoutWheel wheel = new SessionTimeoutWheel(100, 8, start);
+        wheel.register(session);
+
+        session.setSocketTimeout(0);
+        final List<IOSessionImpl> expired = new ArrayList<IOSessionImpl>();
+        wheel.expire(start + 1000, expired);
+        Assert.assertTrue(expired.isEmpty());
+        Assert.assertNull(session.getTimeoutEntry());
+
+        session.setSocketTimeout(200);
+        wheel.expire(start + 1200, expired);
+        Assert.assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void testClosedSessionDropped() throws Exception {
+        final IOSessionImpl session = createSession();
+        session.setSocketTimeout(200);
+        final long start = session.getLastAccessTime();
+        final SessionTimeoutWheel wheel = new SessionTimeoutWheel(100, 8, start);
+        wheel.register(session);
+        session.close();
+
+        final List<IOSessionImpl> expired = new ArrayList<IOSessionImpl>();
+        wheel.expire(start + 5000, expired);
+        Assert.assertTrue(expired.isEmpty());
+        Assert.assertNull(session.getTimeoutEntry());
+    }
+
+}
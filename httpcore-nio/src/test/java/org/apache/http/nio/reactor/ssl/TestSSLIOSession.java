@@ -0,0 +1,457 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.nio.reactor.ssl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.http.nio.reactor.EventMask;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.SessionBufferStatus;
+import org.apache.http.nio.testserver.SSLTestContexts;
+import org.apache.http.nio.util.ReleasableByteBufferAllocator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SSLIOSession} obtaining its buffers from an allocator.
+ */
+public class TestSSLIOSession {
+
+    static class TrackingAllocator implements ReleasableByteBufferAllocator {
+
+        private final Map<ByteBuffer, Integer> outstanding = new IdentityHashMap<ByteBuffer, Integer>();
+        private int allocated;
+        private int released;
+
+        public synchronized ByteBuffer allocate(final int size) {
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+            this.outstanding.put(buffer, Integer.valueOf(size));
+            this.allocated++;
+            return buffer;
+        }
+
+        public synchronized void release(final ByteBuffer buffer) {
+            Assert.assertNotNull("Buffer not outstanding", this.outstanding.remove(buffer));
+            this.released++;
+        }
+
+        synchronized int getOutstanding() {
+            return this.outstanding.size();
+        }
+
+        synchronized boolean isOutstanding(final int size) {
+            return this.outstanding.containsValue(Integer.valueOf(size));
+        }
+
+        synchronized int getAllocated() {
+            return this.allocated;
+        }
+
+        synchronized int getReleased() {
+            return this.released;
+        }
+
+    }
+
+    static class SocketChannelSession implements IOSession {
+
+        private final SocketChannel socketChannel;
+        private final ByteChannel channel;
+        private final Map<String, Object> attributes;
+
+        private volatile int readLimit;
+        private volatile int eventMask;
+        private volatile int status;
+        private volatile int socketTimeout;
+
+        SocketChannelSession(final SocketChannel socketChannel) {
+            super();
+            this.socketChannel = socketChannel;
+            this.attributes = new HashMap<String, Object>();
+            this.readLimit = Integer.MAX_VALUE;
+            this.eventMask = EventMask.READ_WRITE;
+            this.status = ACTIVE;
+            this.channel = new ByteChannel() {
+
+                public int read(final ByteBuffer dst) throws IOException {
+                    final int limit = SocketChannelSession.this.readLimit;
+                    if (dst.remaining() <= limit) {
+                        return SocketChannelSession.this.socketChannel.read(dst);
+                    }
+                    final int oldLimit = dst.limit();
+                    dst.limit(dst.position() + limit);
+                    try {
+                        return SocketChannelSession.this.socketChannel.read(dst);
+                    } finally {
+                        dst.limit(oldLimit);
+                    }
+                }
+
+                public int write(final ByteBuffer src) throws IOException {
+                    return SocketChannelSession.this.socketChannel.write(src);
+                }
+
+                public boolean isOpen() {
+                    return SocketChannelSession.this.socketChannel.isOpen();
+                }
+
+                public void close() throws IOException {
+                    SocketChannelSession.this.socketChannel.close();
+                }
+
+            };
+        }
+
+        void setReadLimit(final int readLimit) {
+            this.readLimit = readLimit;
+        }
+
+        public ByteChannel channel() {
+            return this.channel;
+        }
+
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        public SocketAddress getLocalAddress() {
+            return null;
+        }
+
+        public int getEventMask() {
+            return this.eventMask;
+        }
+
+        public void setEventMask(final int ops) {
+            this.eventMask = ops;
+        }
+
+        public void setEvent(final int op) {
+            this.eventMask = this.eventMask | op;
+        }
+
+        public void clearEvent(final int op) {
+            this.eventMask = this.eventMask & ~op;
+        }
+
+        public void close() {
+            shutdown();
+        }
+
+        public void shutdown() {
+            this.status = CLOSED;
+            try {
+                this.socketChannel.close();
+            } catch (final IOException ignore) {
+            }
+        }
+
+        public int getStatus() {
+            return this.status;
+        }
+
+        public boolean isClosed() {
+            return this.status == CLOSED;
+        }
+
+        public int getSocketTimeout() {
+            return this.socketTimeout;
+        }
+
+        public void setSocketTimeout(final int timeout) {
+            this.socketTimeout = timeout;
+        }
+
+        public void setBufferStatus(final SessionBufferStatus status) {
+        }
+
+        public boolean hasBufferedInput() {
+            return false;
+        }
+
+        public boolean hasBufferedOutput() {
+            return false;
+        }
+
+        public void setAttribute(final String name, final Object obj) {
+            this.attributes.put(name, obj);
+        }
+
+        public Object getAttribute(final String name) {
+            return this.attributes.get(name);
+        }
+
+        public Object removeAttribute(final String name) {
+            return this.attributes.remove(name);
+        }
+
+    }
+
+    /**
+     * One end of an SSL connection driven the same way the I/O reactor
+     * drives SSL sessions.
+     */
+    static class Peer {
+
+        final SocketChannelSession iosession;
+        final TrackingAllocator allocator;
+        final SSLIOSession sslsession;
+        final ByteArrayOutputStream received;
+        final int appBufferSize;
+
+        ByteBuffer dst;
+        int readEvents;
+        int emptyReads;
+
+        Peer(final SocketChannel channel, final SSLMode mode) throws Exception {
+            super();
+            channel.configureBlocking(false);
+            this.iosession = new SocketChannelSession(channel);
+            this.allocator = new TrackingAllocator();
+            this.sslsession = new SSLIOSession(this.iosession, mode,
+                    mode == SSLMode.CLIENT ? SSLTestContexts.createClientSSLContext() :
+                        SSLTestContexts.createServerSSLContext(),
+                    null, this.allocator);
+            this.received = new ByteArrayOutputStream();
+            this.appBufferSize = this.sslsession.getSSLSession().getApplicationBufferSize();
+            this.dst = ByteBuffer.allocate(this.appBufferSize);
+        }
+
+        void pump() throws IOException {
+            if (this.iosession.isClosed()) {
+                return;
+            }
+            this.sslsession.outboundTransport();
+            if (this.sslsession.isAppInputReady()) {
+                this.readEvents++;
+                final int n = this.sslsession.channel().read(this.dst);
+                if (n > 0) {
+                    this.dst.flip();
+                    this.received.write(this.dst.array(), this.dst.position(), this.dst.remaining());
+                    this.dst.clear();
+                } else if (n == 0) {
+                    this.emptyReads++;
+                }
+            }
+            this.sslsession.inboundTransport();
+        }
+
+        String getReceived() throws IOException {
+            return this.received.toString("US-ASCII");
+        }
+
+    }
+
+    private SocketChannel clientChannel;
+    private SocketChannel serverChannel;
+    private Peer client;
+    private Peer server;
+
+    @Before
+    public void setUp() throws Exception {
+        final ServerSocketChannel listener = ServerSocketChannel.open();
+        try {
+            listener.socket().bind(new InetSocketAddress("localhost", 0));
+            this.clientChannel = SocketChannel.open(listener.socket().getLocalSocketAddress());
+            this.serverChannel = listener.accept();
+        } finally {
+            listener.close();
+        }
+        this.client = new Peer(this.clientChannel, SSLMode.CLIENT);
+        this.server = new Peer(this.serverChannel, SSLMode.SERVER);
+        this.client.sslsession.initialize();
+        this.server.sslsession.initialize();
+        for (int i = 0; i < 5000; i++) {
+            if (this.client.sslsession.isAppOutputReady() && this.server.sslsession.isAppOutputReady()) {
+                break;
+            }
+            pump();
+        }
+        Assert.assertTrue(this.client.sslsession.isAppOutputReady());
+        Assert.assertTrue(this.server.sslsession.isAppOutputReady());
+        // Let post-handshake messages settle
+        for (int i = 0; i < 20; i++) {
+            pump();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.client.sslsession.shutdown();
+        this.server.sslsession.shutdown();
+    }
+
+    private void pump() throws Exception {
+        this.client.pump();
+        this.server.pump();
+        Thread.sleep(1);
+    }
+
+    private static String createContent(final int len) {
+        final StringBuilder buffer = new StringBuilder(len);
+        for (int i = 0; i < len; i++) {
+            buffer.append((char) ('a' + i % 26));
+        }
+        return buffer.toString();
+    }
+
+    private void send(final Peer peer, final String content) throws Exception {
+        final ByteBuffer src = ByteBuffer.wrap(content.getBytes("US-ASCII"));
+        for (int i = 0; i < 5000 && src.hasRemaining(); i++) {
+            peer.sslsession.channel().write(src);
+            pump();
+        }
+        Assert.assertFalse(src.hasRemaining());
+    }
+
+    private void awaitReceived(final Peer peer, final int len) throws Exception {
+        for (int i = 0; i < 5000 && peer.received.size() < len; i++) {
+            pump();
+        }
+        Assert.assertEquals(len, peer.received.size());
+    }
+
+    @Test
+    public void testNoBuffersWhenIdle() throws Exception {
+        Assert.assertFalse(this.client.sslsession.hasBuffers());
+        Assert.assertFalse(this.server.sslsession.hasBuffers());
+
+        final String content = createContent(1000);
+        send(this.client, content);
+        awaitReceived(this.server, content.length());
+        send(this.server, content);
+        awaitReceived(this.client, content.length());
+        for (int i = 0; i < 5; i++) {
+            pump();
+        }
+        Assert.assertEquals(content, this.server.getReceived());
+        Assert.assertEquals(content, this.client.getReceived());
+        Assert.assertFalse(this.client.sslsession.hasBuffers());
+        Assert.assertFalse(this.server.sslsession.hasBuffers());
+        Assert.assertEquals(0, this.client.allocator.getOutstanding());
+        Assert.assertEquals(0, this.server.allocator.getOutstanding());
+    }
+
+    @Test
+    public void testDirectRead() throws Exception {
+        final String content = createContent(100000);
+        send(this.client, content);
+        awaitReceived(this.server, content.length());
+        Assert.assertEquals(content, this.server.getReceived());
+        Assert.assertFalse(this.server.sslsession.hasBuffers());
+    }
+
+    @Test
+    public void testSmallDestination() throws Exception {
+        this.server.dst = ByteBuffer.allocate(100);
+        final String content = createContent(50000);
+        send(this.client, content);
+        awaitReceived(this.server, content.length());
+        Assert.assertEquals(content, this.server.getReceived());
+        Assert.assertFalse(this.server.sslsession.hasBuffers());
+    }
+
+    @Test
+    public void testPartialRecordNotReported() throws Exception {
+        this.server.iosession.setReadLimit(10);
+        final ByteBuffer src = ByteBuffer.wrap("stuff".getBytes("US-ASCII"));
+        this.client.sslsession.channel().write(src);
+        Assert.assertFalse(src.hasRemaining());
+        this.client.pump();
+        Thread.sleep(50);
+        final int readEvents = this.server.readEvents;
+        this.server.pump();
+        Assert.assertEquals(readEvents, this.server.readEvents);
+        this.server.iosession.setReadLimit(Integer.MAX_VALUE);
+        awaitReceived(this.server, 5);
+        Assert.assertEquals("stuff", this.server.getReceived());
+        Assert.assertEquals(0, this.server.emptyReads);
+    }
+
+    @Test
+    public void testCloseNotifyWhileInputSuspended() throws Exception {
+        this.server.sslsession.clearEvent(EventMask.READ);
+        this.client.sslsession.close();
+        for (int i = 0; i < 5000 && !this.server.sslsession.isInboundDone(); i++) {
+            pump();
+        }
+        Assert.assertTrue(this.server.sslsession.isInboundDone());
+    }
+
+    @Test
+    public void testShutdownWithBufferedData() throws Exception {
+        this.server.sslsession.clearEvent(EventMask.READ);
+        final String content = createContent(1000);
+        send(this.client, content);
+        for (int i = 0; i < 5000 && !this.server.sslsession.hasBufferedInput(); i++) {
+            pump();
+        }
+        Assert.assertTrue(this.server.sslsession.hasBufferedInput());
+        Assert.assertTrue(this.server.allocator.getOutstanding() > 0);
+
+        this.server.sslsession.shutdown();
+        this.server.sslsession.shutdown();
+        Assert.assertFalse(this.server.sslsession.hasBuffers());
+        Assert.assertEquals(0, this.server.allocator.getOutstanding());
+        Assert.assertEquals(this.server.allocator.getAllocated(), this.server.allocator.getReleased());
+    }
+
+    @Test
+    public void testGracefulCloseWithBufferedData() throws Exception {
+        this.server.sslsession.clearEvent(EventMask.READ);
+        final String content = createContent(1000);
+        send(this.client, content);
+        for (int i = 0; i < 5000 && !this.server.sslsession.hasBufferedInput(); i++) {
+            pump();
+        }
+        Assert.assertTrue(this.server.sslsession.hasBufferedInput());
+
+        this.server.sslsession.close();
+        for (int i = 0; i < 5000 && !this.server.iosession.isClosed(); i++) {
+            pump();
+        }
+        Assert.assertTrue(this.server.iosession.isClosed());
+        Assert.assertEquals(IOSession.CLOSED, this.server.sslsession.getStatus());
+        Assert.assertFalse(this.server.sslsession.hasBuffers());
+        Assert.assertEquals(0, this.server.allocator.getOutstanding());
+        Assert.assertEquals(this.server.allocator.getAllocated(), this.server.allocator.getReleased());
+    }
+
+}
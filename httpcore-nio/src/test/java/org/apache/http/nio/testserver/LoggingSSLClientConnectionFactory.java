@@ -33,19 +33,27 @@ import org.apache.http.nio.NHttpConnectionFactory;
 import org.apache.http.nio.reactor.IOSession;
 import org.apache.http.nio.reactor.ssl.SSLIOSession;
 import org.apache.http.nio.reactor.ssl.SSLMode;
+import org.apache.http.nio.util.ReleasableByteBufferAllocator;
 
 public class LoggingSSLClientConnectionFactory implements NHttpConnectionFactory<DefaultNHttpClientConnection> {
 
     private final SSLContext sslcontext;
+    private final ReleasableByteBufferAllocator allocator;
 
-    public LoggingSSLClientConnectionFactory(final SSLContext sslcontext) {
+    public LoggingSSLClientConnectionFactory(
+            final SSLContext sslcontext, final ReleasableByteBufferAllocator allocator) {
         super();
         this.sslcontext = sslcontext;
+        this.allocator = allocator;
+    }
+
+    public LoggingSSLClientConnectionFactory(final SSLContext sslcontext) {
+        this(sslcontext, null);
     }
 
     public DefaultNHttpClientConnection createConnection(final IOSession iosession) {
         final SSLIOSession ssliosession = new SSLIOSession(
-                iosession, SSLMode.CLIENT, this.sslcontext, null);
+                iosession, SSLMode.CLIENT, this.sslcontext, null, this.allocator);
         iosession.setAttribute(SSLIOSession.SESSION_KEY, ssliosession);
         return new LoggingNHttpClientConnection(ssliosession);
     }
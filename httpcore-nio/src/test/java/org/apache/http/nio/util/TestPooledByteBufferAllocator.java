@@ -0,0 +1,177 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.nio.util;
+
+import java.nio.ByteBuffer;
+
+import org.apache.http.util.EncodingUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPooledByteBufferAllocator {
+
+    @Test
+    public void testSizeClasses() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(
+                false, 1000, 5000, 4, 1024 * 1024);
+        Assert.assertEquals(1024, allocator.allocate(0).capacity());
+        Assert.assertEquals(1024, allocator.allocate(1).capacity());
+        Assert.assertEquals(1024, allocator.allocate(1024).capacity());
+        Assert.assertEquals(2048, allocator.allocate(1025).capacity());
+        Assert.assertEquals(8192, allocator.allocate(8192).capacity());
+        Assert.assertEquals(8193, allocator.allocate(8193).capacity());
+        Assert.assertFalse(allocator.allocate(1).isDirect());
+        Assert.assertEquals(7, allocator.getAllocationCount());
+    }
+
+    @Test
+    public void testDirect() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(true);
+        final ByteBuffer buffer = allocator.allocate(100);
+        Assert.assertTrue(buffer.isDirect());
+        allocator.release(buffer);
+        Assert.assertSame(buffer, allocator.allocate(100));
+        allocator.release(ByteBuffer.allocate(1024));
+        Assert.assertEquals(1, allocator.getDiscardCount());
+    }
+
+    @Test
+    public void testReuseThreadCache() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(
+                false, 1024, 8192, 4, 1024 * 1024);
+        final ByteBuffer b1 = allocator.allocate(1000);
+        b1.put((byte) 1);
+        allocator.release(b1);
+        final ByteBuffer b2 = allocator.allocate(1024);
+        Assert.assertSame(b1, b2);
+        Assert.assertEquals(0, b2.position());
+        Assert.assertEquals(1024, b2.limit());
+        Assert.assertEquals(1, allocator.getAllocationCount());
+        Assert.assertEquals(0, allocator.getPooledCount());
+        // Different size class
+        final ByteBuffer b3 = allocator.allocate(2000);
+        Assert.assertNotSame(b2, b3);
+        Assert.assertEquals(2, allocator.getAllocationCount());
+    }
+
+    @Test
+    public void testSharedArena() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(
+                false, 1024, 8192, 0, 3 * 1024);
+        final ByteBuffer b1 = allocator.allocate(1024);
+        final ByteBuffer b2 = allocator.allocate(1024);
+        final ByteBuffer b3 = allocator.allocate(1024);
+        final ByteBuffer b4 = allocator.allocate(1024);
+        allocator.release(b1);
+        allocator.release(b2);
+        allocator.release(b3);
+        allocator.release(b4);
+        Assert.assertEquals(3, allocator.getPooledCount());
+        Assert.assertEquals(3 * 1024, allocator.getPooledBytes());
+        Assert.assertEquals(1, allocator.getDiscardCount());
+
+        final ByteBuffer b5 = allocator.allocate(1000);
+        Assert.assertTrue(b5 == b1 || b5 == b2 || b5 == b3);
+        Assert.assertEquals(2, allocator.getPooledCount());
+        Assert.assertEquals(2 * 1024, allocator.getPooledBytes());
+        Assert.assertEquals(4, allocator.getAllocationCount());
+    }
+
+    @Test
+    public void testReleaseAcrossThreads() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(
+                false, 1024, 8192, 1, 1024 * 1024);
+        final ByteBuffer b1 = allocator.allocate(1024);
+        final ByteBuffer b2 = allocator.allocate(1024);
+        final Thread t = new Thread(new Runnable() {
+
+            public void run() {
+                // The thread has never allocated, so both buffers go to the shared arena
+                allocator.release(b1);
+                allocator.release(b2);
+            }
+
+        });
+        t.start();
+        t.join();
+        Assert.assertEquals(2, allocator.getPooledCount());
+        final ByteBuffer b3 = allocator.allocate(1024);
+        Assert.assertTrue(b3 == b1 || b3 == b2);
+        Assert.assertEquals(2, allocator.getAllocationCount());
+    }
+
+    @Test
+    public void testReleaseByAllocatingThread() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(
+                false, 1024, 8192, 1, 1024 * 1024);
+        final ByteBuffer b1 = allocator.allocate(1024);
+        final ByteBuffer b2 = allocator.allocate(1024);
+        final Thread t = new Thread(new Runnable() {
+
+            public void run() {
+                // First buffer goes to the thread cache, second to the shared arena
+                allocator.release(allocator.allocate(1024));
+                allocator.release(b1);
+                allocator.release(b2);
+            }
+
+        });
+        t.start();
+        t.join();
+        Assert.assertEquals(2, allocator.getPooledCount());
+        Assert.assertEquals(3, allocator.getAllocationCount());
+    }
+
+    @Test
+    public void testExpandableBufferRelease() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(
+                false, 16, 1024, 0, 1024 * 1024);
+        final SimpleOutputBuffer buffer = new SimpleOutputBuffer(16, allocator);
+        final byte[] b = EncodingUtils.getAsciiBytes("0123456789abcdefghij");
+        buffer.write(b, 0, b.length);
+        // The original buffer has been released upon expansion
+        Assert.assertEquals(1, allocator.getPooledCount());
+        Assert.assertEquals(32, buffer.capacity());
+        Assert.assertEquals(20, buffer.length());
+
+        buffer.release();
+        Assert.assertTrue(buffer.isReleased());
+        Assert.assertEquals(2, allocator.getPooledCount());
+        Assert.assertFalse(buffer.hasData());
+        Assert.assertEquals(0, buffer.length());
+        Assert.assertEquals(0, buffer.capacity());
+        Assert.assertEquals(2, allocator.getPooledCount());
+
+        buffer.write(b, 0, 5);
+        Assert.assertFalse(buffer.isReleased());
+        Assert.assertEquals(16, buffer.capacity());
+        Assert.assertEquals(5, buffer.length());
+        Assert.assertEquals(1, allocator.getPooledCount());
+        Assert.assertEquals(2, allocator.getAllocationCount());
+    }
+
+}
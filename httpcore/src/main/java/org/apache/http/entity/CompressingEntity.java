@@ -0,0 +1,239 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.Args;
+
+/**
+ * Entity wrapper that compresses content of the wrapped entity using
+ * the <code>gzip</code> or <code>deflate</code> content coding while it is
+ * being written out or read. Content is compressed incrementally with a
+ * {@link ContentCompressor}, so memory use does not depend on the length
+ * of content.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class CompressingEntity extends HttpEntityWrapper {
+
+    private final String coding;
+    private final CompressionPool pool;
+
+    /**
+     * Creates new instance of CompressingEntity.
+     *
+     * @param entity the entity to compress.
+     * @param coding content coding, either {@link ContentCompressor#GZIP} or
+     *   {@link ContentCompressor#DEFLATE}.
+     * @param pool pool to lease deflaters from.
+     */
+    public CompressingEntity(final HttpEntity entity, final String coding, final CompressionPool pool) {
+        super(entity);
+        Args.notNull(coding, "Content coding");
+        Args.check(ContentCompressor.isGzip(coding) || ContentCompressor.DEFLATE.equalsIgnoreCase(coding),
+                "Unsupported content coding: %s", coding);
+        this.coding = coding;
+        this.pool = Args.notNull(pool, "Compression pool");
+    }
+
+    /**
+     * Creates new instance of CompressingEntity using the <code>gzip</code>
+     * content coding.
+     */
+    public CompressingEntity(final HttpEntity entity, final CompressionPool pool) {
+        this(entity, ContentCompressor.GZIP, pool);
+    }
+
+    @Override
+    public Header getContentEncoding() {
+        return new BasicHeader(HTTP.CONTENT_ENCODING, this.coding);
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isChunked() {
+        // force content chunking
+        return true;
+    }
+
+    /**
+     * Returns a stream that compresses content of the wrapped entity as it
+     * is being read. The compressor is returned to the pool once the end of
+     * the stream has been reached or the stream has been closed.
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        return new CompressingInputStream(this.wrappedEntity.getContent(),
+                new ContentCompressor(this.coding, this.pool));
+    }
+
+    @Override
+    public void writeTo(final OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        final CompressingOutputStream out = new CompressingOutputStream(outstream,
+                new ContentCompressor(this.coding, this.pool));
+        try {
+            this.wrappedEntity.writeTo(out);
+            out.finish();
+        } finally {
+            out.release();
+        }
+    }
+
+    static class CompressingInputStream extends InputStream {
+
+        private final InputStream in;
+        private final ContentCompressor compressor;
+        private final byte[] buffer;
+        private final byte[] single;
+
+        CompressingInputStream(final InputStream in, final ContentCompressor compressor) {
+            super();
+            this.in = in;
+            this.compressor = compressor;
+            this.buffer = new byte[AbstractHttpEntity.OUTPUT_BUFFER_SIZE];
+            this.single = new byte[1];
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int n = read(this.single, 0, 1);
+            return n == -1 ? -1 : this.single[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (this.compressor.isReleased()) {
+                return -1;
+            }
+            for (;;) {
+                final int n = this.compressor.compress(b, off, len);
+                if (n > 0) {
+                    return n;
+                }
+                if (this.compressor.isFinished()) {
+                    this.compressor.release();
+                    return -1;
+                }
+                if (this.compressor.needsInput()) {
+                    final int l = this.in.read(this.buffer);
+                    if (l == -1) {
+                        this.compressor.finish();
+                    } else {
+                        this.compressor.setInput(this.buffer, 0, l);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.compressor.release();
+            this.in.close();
+        }
+
+    }
+
+    static class CompressingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final ContentCompressor compressor;
+        private final byte[] buffer;
+        private final byte[] single;
+
+        CompressingOutputStream(final OutputStream out, final ContentCompressor compressor) {
+            super();
+            this.out = out;
+            this.compressor = compressor;
+            this.buffer = new byte[AbstractHttpEntity.OUTPUT_BUFFER_SIZE];
+            this.single = new byte[1];
+        }
+
+        private void drain() throws IOException {
+            int n;
+            while ((n = this.compressor.compress(this.buffer, 0, this.buffer.length)) > 0) {
+                this.out.write(this.buffer, 0, n);
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            this.single[0] = (byte) b;
+            write(this.single, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            this.compressor.setInput(b, off, len);
+            drain();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.out.flush();
+        }
+
+        void finish() throws IOException {
+            if (!this.compressor.isReleased() && !this.compressor.isFinished()) {
+                this.compressor.finish();
+                drain();
+            }
+        }
+
+        void release() {
+            this.compressor.release();
+        }
+
+        /**
+         * Finishes compressed content without closing the underlying stream.
+         */
+        @Override
+        public void close() throws IOException {
+            finish();
+            this.out.flush();
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.util.LinkedList;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Pool of {@link Deflater} and {@link Inflater} instances. Both hold
+ * native compression state that is expensive to set up, so instances are
+ * reset and kept for reuse once released, up to the maximum number of idle
+ * instances per kind.
+ * <p/>
+ * Instances producing raw deflate data (as used by the <code>gzip</code>
+ * content coding) and instances producing zlib wrapped data (as used by
+ * the <code>deflate</code> content coding) are pooled separately.
+ *
+ * @see ContentCompressor
+ * @see ContentDecompressor
+ *
+ * @since 4.3
+ */
+@ThreadSafe
+public class CompressionPool {
+
+    public static final int DEFAULT_MAX_IDLE = 32;
+
+    private final int level;
+    private final int maxIdle;
+    @GuardedBy("this")
+    private final LinkedList<Deflater> deflaters;
+    @GuardedBy("this")
+    private final LinkedList<Deflater> rawDeflaters;
+    @GuardedBy("this")
+    private final LinkedList<Inflater> inflaters;
+    @GuardedBy("this")
+    private final LinkedList<Inflater> rawInflaters;
+
+    /**
+     * Creates new instance of CompressionPool.
+     *
+     * @param level compression level (0-9) or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param maxIdle maximum number of idle instances of each kind.
+     */
+    public CompressionPool(final int level, final int maxIdle) {
+        super();
+        Args.check(level == Deflater.DEFAULT_COMPRESSION
+                || (level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION),
+                "Invalid compression level: %d", level);
+        this.level = level;
+        this.maxIdle = Args.notNegative(maxIdle, "Max idle");
+        this.deflaters = new LinkedList<Deflater>();
+        this.rawDeflaters = new LinkedList<Deflater>();
+        this.inflaters = new LinkedList<Inflater>();
+        this.rawInflaters = new LinkedList<Inflater>();
+    }
+
+    public CompressionPool() {
+        this(Deflater.DEFAULT_COMPRESSION, DEFAULT_MAX_IDLE);
+    }
+
+    public int getLevel() {
+        return this.level;
+    }
+
+    public int getMaxIdle() {
+        return this.maxIdle;
+    }
+
+    /**
+     * Leases a deflater from the pool.
+     *
+     * @param nowrap <code>true</code> for raw deflate output,
+     *   <code>false</code> for zlib wrapped output.
+     */
+    public Deflater leaseDeflater(final boolean nowrap) {
+        final Deflater deflater;
+        synchronized (this) {
+            deflater = (nowrap ? this.rawDeflaters : this.deflaters).poll();
+        }
+        return deflater != null ? deflater : new Deflater(this.level, nowrap);
+    }
+
+    /**
+     * Returns a deflater leased with the given <code>nowrap</code> flag to
+     * the pool.
+     */
+    public void releaseDeflater(final Deflater deflater, final boolean nowrap) {
+        Args.notNull(deflater, "Deflater");
+        deflater.reset();
+        synchronized (this) {
+            final LinkedList<Deflater> idle = nowrap ? this.rawDeflaters : this.deflaters;
+            if (idle.size() < this.maxIdle) {
+                idle.add(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    /**
+     * Leases an inflater from the pool.
+     *
+     * @param nowrap <code>true</code> for raw deflate input,
+     *   <code>false</code> for zlib wrapped input.
+     */
+    public Inflater leaseInflater(final boolean nowrap) {
+        final Inflater inflater;
+        synchronized (this) {
+            inflater = (nowrap ? this.rawInflaters : this.inflaters).poll();
+        }
+        return inflater != null ? inflater : new Inflater(nowrap);
+    }
+
+    /**
+     * Returns an inflater leased with the given <code>nowrap</code> flag to
+     * the pool.
+     */
+    public void releaseInflater(final Inflater inflater, final boolean nowrap) {
+        Args.notNull(inflater, "Inflater");
+        inflater.reset();
+        synchronized (this) {
+            final LinkedList<Inflater> idle = nowrap ? this.rawInflaters : this.inflaters;
+            if (idle.size() < this.maxIdle) {
+                idle.add(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    /**
+     * Returns total number of idle instances kept by the pool.
+     */
+    public synchronized int getIdleCount() {
+        return this.deflaters.size() + this.rawDeflaters.size()
+                + this.inflaters.size() + this.rawInflaters.size();
+    }
+
+    /**
+     * Releases native resources of all idle instances.
+     */
+    public synchronized void clear() {
+        for (final Deflater deflater: this.deflaters) {
+            deflater.end();
+        }
+        for (final Deflater deflater: this.rawDeflaters) {
+            deflater.end();
+        }
+        for (final Inflater inflater: this.inflaters) {
+            inflater.end();
+        }
+        for (final Inflater inflater: this.rawInflaters) {
+            inflater.end();
+        }
+        this.deflaters.clear();
+        this.rawDeflaters.clear();
+        this.inflaters.clear();
+        this.rawInflaters.clear();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[level: ");
+        buffer.append(this.level);
+        buffer.append("; idle: ");
+        buffer.append(getIdleCount());
+        buffer.append(" of ");
+        buffer.append(this.maxIdle);
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.util.Args;
+import org.apache.http.util.Asserts;
+
+/**
+ * Incremental compressor for the <code>gzip</code> and <code>deflate</code>
+ * content codings. Content is fed in with {@link #setInput(byte[], int, int)}
+ * whenever {@link #needsInput()} returns <code>true</code> and compressed
+ * output is taken out with {@link #compress(byte[], int, int)}. Compression
+ * state is kept by a {@link Deflater} leased from a {@link CompressionPool}
+ * and returned to the pool by {@link #release()}, so that memory used
+ * by the compressor does not depend on the length of content.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class ContentCompressor {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private static final byte[] GZIP_HEADER = new byte[] {
+        0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private final String coding;
+    private final boolean gzip;
+    private final CompressionPool pool;
+    private final CRC32 crc;
+    private final byte[] pending;
+
+    private Deflater deflater;
+    private int pendingPos;
+    private int pendingLen;
+    private boolean finishing;
+    private boolean trailer;
+
+    /**
+     * Creates new instance of ContentCompressor.
+     *
+     * @param coding content coding, either {@link #GZIP} or {@link #DEFLATE}.
+     * @param pool pool to lease the deflater from.
+     */
+    public ContentCompressor(final String coding, final CompressionPool pool) {
+        super();
+        Args.notNull(coding, "Content coding");
+        Args.notNull(pool, "Compression pool");
+        this.gzip = isGzip(coding);
+        Args.check(this.gzip || DEFLATE.equalsIgnoreCase(coding),
+                "Unsupported content coding: %s", coding);
+        this.coding = this.gzip ? GZIP : DEFLATE;
+        this.pool = pool;
+        this.deflater = pool.leaseDeflater(this.gzip);
+        if (this.gzip) {
+            this.crc = new CRC32();
+            this.pending = new byte[GZIP_HEADER.length];
+            System.arraycopy(GZIP_HEADER, 0, this.pending, 0, GZIP_HEADER.length);
+            this.pendingLen = GZIP_HEADER.length;
+        } else {
+            this.crc = null;
+            this.pending = null;
+        }
+    }
+
+    static boolean isGzip(final String coding) {
+        return GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding);
+    }
+
+    public String getCoding() {
+        return this.coding;
+    }
+
+    private void assertNotReleased() {
+        Asserts.check(this.deflater != null, "Compressor already released");
+    }
+
+    /**
+     * Returns <code>true</code> if all content fed in so far has been
+     * consumed and more content can be fed in.
+     */
+    public boolean needsInput() {
+        assertNotReleased();
+        return !this.finishing && this.deflater.needsInput();
+    }
+
+    /**
+     * Feeds in content to be compressed. The compressor keeps a reference
+     * to the array until the content has been consumed, that is until
+     * {@link #needsInput()} returns <code>true</code> again.
+     */
+    public void setInput(final byte[] b, final int off, final int len) {
+        assertNotReleased();
+        Asserts.check(!this.finishing, "Compressor already finished");
+        this.deflater.setInput(b, off, len);
+        if (this.gzip) {
+            this.crc.update(b, off, len);
+        }
+    }
+
+    /**
+     * Signals the end of content.
+     */
+    public void finish() {
+        assertNotReleased();
+        if (!this.finishing) {
+            this.finishing = true;
+            this.deflater.finish();
+        }
+    }
+
+    /**
+     * Takes out compressed output.
+     *
+     * @return number of bytes written into the array. <code>0</code> if more
+     *   content needs to be fed in or once the compressor is finished.
+     */
+    public int compress(final byte[] b, final int off, final int len) {
+        assertNotReleased();
+        int total = 0;
+        for (;;) {
+            if (this.pendingPos < this.pendingLen) {
+                final int chunk = Math.min(this.pendingLen - this.pendingPos, len - total);
+                System.arraycopy(this.pending, this.pendingPos, b, off + total, chunk);
+                this.pendingPos += chunk;
+                total += chunk;
+            }
+            if (total == len || this.pendingPos < this.pendingLen) {
+                return total;
+            }
+            if (this.deflater.finished()) {
+                if (this.gzip && !this.trailer) {
+                    this.trailer = true;
+                    writeIntLE(this.pending, 0, (int) this.crc.getValue());
+                    writeIntLE(this.pending, 4, (int) this.deflater.getBytesRead());
+                    this.pendingPos = 0;
+                    this.pendingLen = 8;
+                    continue;
+                }
+                return total;
+            }
+            final int n = this.deflater.deflate(b, off + total, len - total);
+            if (n == 0 && !this.deflater.finished()) {
+                return total;
+            }
+            total += n;
+        }
+    }
+
+    private static void writeIntLE(final byte[] b, final int off, final int n) {
+        b[off] = (byte) n;
+        b[off + 1] = (byte) (n >> 8);
+        b[off + 2] = (byte) (n >> 16);
+        b[off + 3] = (byte) (n >> 24);
+    }
+
+    /**
+     * Returns <code>true</code> once the end of content has been signalled and
+     * all compressed output has been taken out.
+     */
+    public boolean isFinished() {
+        assertNotReleased();
+        return this.deflater.finished() && this.pendingPos == this.pendingLen
+                && (!this.gzip || this.trailer);
+    }
+
+    /**
+     * Returns number of bytes of content fed in.
+     */
+    public long getBytesRead() {
+        assertNotReleased();
+        return this.deflater.getBytesRead();
+    }
+
+    /**
+     * Returns number of bytes of compressed output excluding
+     * <code>gzip</code> header and trailer.
+     */
+    public long getBytesWritten() {
+        assertNotReleased();
+        return this.deflater.getBytesWritten();
+    }
+
+    /**
+     * Returns the deflater to the pool. This method can be called more
+     * than once.
+     */
+    public void release() {
+        if (this.deflater != null) {
+            this.pool.releaseDeflater(this.deflater, this.gzip);
+            this.deflater = null;
+        }
+    }
+
+    public boolean isReleased() {
+        return this.deflater == null;
+    }
+
+}
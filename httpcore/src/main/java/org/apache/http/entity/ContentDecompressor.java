@@ -0,0 +1,304 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.util.Args;
+import org.apache.http.util.Asserts;
+
+/**
+ * Incremental decompressor for the <code>gzip</code> and <code>deflate</code>
+ * content codings. Compressed content is fed in with
+ * {@link #setInput(byte[], int, int)} whenever {@link #needsInput()} returns
+ * <code>true</code> and decompressed content is taken out with
+ * {@link #decompress(byte[], int, int)}. Decompression state is kept by
+ * an {@link Inflater} leased from a {@link CompressionPool} and returned
+ * to the pool by {@link #release()}.
+ * <p/>
+ * Only the first member of a <code>gzip</code> stream is decompressed.
+ * Any input following it is ignored.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class ContentDecompressor {
+
+    private static final int FHCRC    = 2;
+    private static final int FEXTRA   = 4;
+    private static final int FNAME    = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int HEADER        = 0;
+    private static final int HEADER_XLEN   = 1;
+    private static final int HEADER_EXTRA  = 2;
+    private static final int HEADER_NAME   = 3;
+    private static final int HEADER_COMMENT = 4;
+    private static final int HEADER_CRC    = 5;
+    private static final int CONTENT       = 6;
+    private static final int TRAILER       = 7;
+    private static final int COMPLETED     = 8;
+
+    private final String coding;
+    private final boolean gzip;
+    private final CompressionPool pool;
+    private final CRC32 crc;
+    private final byte[] fields;
+
+    private Inflater inflater;
+    private int state;
+    private int flags;
+    private int count;
+    private int skip;
+
+    private byte[] input;
+    private int inputPos;
+    private int inputEnd;
+
+    /**
+     * Creates new instance of ContentDecompressor.
+     *
+     * @param coding content coding, either {@link ContentCompressor#GZIP} or
+     *   {@link ContentCompressor#DEFLATE}.
+     * @param pool pool to lease the inflater from.
+     */
+    public ContentDecompressor(final String coding, final CompressionPool pool) {
+        super();
+        Args.notNull(coding, "Content coding");
+        Args.notNull(pool, "Compression pool");
+        this.gzip = ContentCompressor.isGzip(coding);
+        Args.check(this.gzip || ContentCompressor.DEFLATE.equalsIgnoreCase(coding),
+                "Unsupported content coding: %s", coding);
+        this.coding = this.gzip ? ContentCompressor.GZIP : ContentCompressor.DEFLATE;
+        this.pool = pool;
+        this.inflater = pool.leaseInflater(this.gzip);
+        this.crc = this.gzip ? new CRC32() : null;
+        this.fields = new byte[10];
+        this.state = this.gzip ? HEADER : CONTENT;
+    }
+
+    public String getCoding() {
+        return this.coding;
+    }
+
+    private void assertNotReleased() {
+        Asserts.check(this.inflater != null, "Decompressor already released");
+    }
+
+    /**
+     * Returns <code>true</code> if all compressed content fed in so far has
+     * been consumed and decompression cannot proceed without more input.
+     */
+    public boolean needsInput() {
+        assertNotReleased();
+        if (this.state == COMPLETED || this.inputPos < this.inputEnd) {
+            return false;
+        }
+        return this.state != CONTENT || this.inflater.needsInput();
+    }
+
+    /**
+     * Feeds in compressed content. The decompressor keeps a reference
+     * to the array until the content has been consumed, that is until
+     * {@link #needsInput()} returns <code>true</code> again.
+     */
+    public void setInput(final byte[] b, final int off, final int len) {
+        assertNotReleased();
+        Args.notNull(b, "Byte array");
+        this.input = b;
+        this.inputPos = off;
+        this.inputEnd = off + len;
+    }
+
+    /**
+     * Takes out decompressed content.
+     *
+     * @return number of bytes written into the array. <code>0</code> if more
+     *   compressed content needs to be fed in or once the decompressor is
+     *   finished.
+     * @throws ZipException if the compressed content is malformed.
+     */
+    public int decompress(final byte[] b, final int off, final int len) throws ZipException {
+        assertNotReleased();
+        int total = 0;
+        for (;;) {
+            switch (this.state) {
+            case CONTENT:
+                if (this.inputPos < this.inputEnd && this.inflater.needsInput()) {
+                    this.inflater.setInput(this.input, this.inputPos, this.inputEnd - this.inputPos);
+                    this.inputPos = this.inputEnd;
+                }
+                final int n;
+                try {
+                    n = this.inflater.inflate(b, off + total, len - total);
+                } catch (final DataFormatException ex) {
+                    throw new ZipException(ex.getMessage());
+                }
+                if (this.gzip) {
+                    this.crc.update(b, off + total, n);
+                }
+                total += n;
+                if (this.inflater.finished()) {
+                    // Give back input not consumed by the inflater
+                    this.inputPos = this.inputEnd - this.inflater.getRemaining();
+                    this.count = 0;
+                    this.state = this.gzip ? TRAILER : COMPLETED;
+                    continue;
+                }
+                if (this.inflater.needsDictionary()) {
+                    throw new ZipException("Preset dictionary not supported");
+                }
+                if (n == 0 || total == len) {
+                    return total;
+                }
+                break;
+            case COMPLETED:
+                return total;
+            default:
+                if (this.inputPos == this.inputEnd) {
+                    return total;
+                }
+                parse(this.input[this.inputPos++] & 0xff);
+            }
+        }
+    }
+
+    private void parse(final int ch) throws ZipException {
+        switch (this.state) {
+        case HEADER:
+            this.fields[this.count++] = (byte) ch;
+            if (this.count == 10) {
+                if ((this.fields[0] & 0xff) != 0x1f || (this.fields[1] & 0xff) != 0x8b) {
+                    throw new ZipException("Not in GZIP format");
+                }
+                if (this.fields[2] != 8) {
+                    throw new ZipException("Unsupported compression method: " + this.fields[2]);
+                }
+                this.flags = this.fields[3] & 0xff;
+                this.count = 0;
+                nextHeaderField(HEADER);
+            }
+            break;
+        case HEADER_XLEN:
+            this.skip |= ch << (8 * this.count++);
+            if (this.count == 2) {
+                this.state = HEADER_EXTRA;
+                if (this.skip == 0) {
+                    nextHeaderField(HEADER_EXTRA);
+                }
+            }
+            break;
+        case HEADER_EXTRA:
+            if (--this.skip == 0) {
+                nextHeaderField(HEADER_EXTRA);
+            }
+            break;
+        case HEADER_NAME:
+        case HEADER_COMMENT:
+            if (ch == 0) {
+                nextHeaderField(this.state);
+            }
+            break;
+        case HEADER_CRC:
+            if (++this.count == 2) {
+                nextHeaderField(HEADER_CRC);
+            }
+            break;
+        case TRAILER:
+            this.fields[this.count++] = (byte) ch;
+            if (this.count == 8) {
+                if (readIntLE(this.fields, 0) != (int) this.crc.getValue()) {
+                    throw new ZipException("Corrupt GZIP trailer: CRC mismatch");
+                }
+                if (readIntLE(this.fields, 4) != (int) this.inflater.getBytesWritten()) {
+                    throw new ZipException("Corrupt GZIP trailer: length mismatch");
+                }
+                this.state = COMPLETED;
+            }
+            break;
+        }
+    }
+
+    private void nextHeaderField(final int current) {
+        this.count = 0;
+        this.skip = 0;
+        if (current < HEADER_XLEN && (this.flags & FEXTRA) != 0) {
+            this.state = HEADER_XLEN;
+        } else if (current < HEADER_NAME && (this.flags & FNAME) != 0) {
+            this.state = HEADER_NAME;
+        } else if (current < HEADER_COMMENT && (this.flags & FCOMMENT) != 0) {
+            this.state = HEADER_COMMENT;
+        } else if (current < HEADER_CRC && (this.flags & FHCRC) != 0) {
+            this.state = HEADER_CRC;
+        } else {
+            this.state = CONTENT;
+        }
+    }
+
+    private static int readIntLE(final byte[] b, final int off) {
+        return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8
+                | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+    }
+
+    /**
+     * Returns <code>true</code> once the end of compressed content has been
+     * reached and all decompressed content has been taken out.
+     */
+    public boolean isFinished() {
+        return this.state == COMPLETED;
+    }
+
+    /**
+     * Returns number of bytes of decompressed content.
+     */
+    public long getBytesWritten() {
+        assertNotReleased();
+        return this.inflater.getBytesWritten();
+    }
+
+    /**
+     * Returns the inflater to the pool. This method can be called more
+     * than once.
+     */
+    public void release() {
+        if (this.inflater != null) {
+            this.pool.releaseInflater(this.inflater, this.gzip);
+            this.inflater = null;
+        }
+        this.input = null;
+    }
+
+    public boolean isReleased() {
+        return this.inflater == null;
+    }
+
+}
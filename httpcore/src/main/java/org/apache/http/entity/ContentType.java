@@ -34,14 +34,13 @@ import java.util.Locale;
 
 import org.apache.http.Consts;
 import org.apache.http.Header;
-import org.apache.http.HeaderElement;
 import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
 import org.apache.http.ParseException;
 import org.apache.http.annotation.Immutable;
 import org.apache.http.message.BasicHeaderValueFormatter;
-import org.apache.http.message.BasicHeaderValueParser;
-import org.apache.http.message.ParserCursor;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.message.HeaderElementCursor;
 import org.apache.http.util.Args;
 import org.apache.http.util.CharArrayBuffer;
 import org.apache.http.util.TextUtils;
@@ -204,10 +203,27 @@ public final class ContentType implements Serializable {
         return create(mimeType, !TextUtils.isBlank(charset) ? Charset.forName(charset) : null);
     }
 
-    private static ContentType create(final HeaderElement helem) {
-        final String mimeType = helem.getName();
-        final NameValuePair[] params = helem.getParameters();
-        return new ContentType(mimeType, params != null && params.length > 0 ? params : null);
+    private static ContentType create(final HeaderElementCursor cursor) {
+        final String mimeType = cursor.getName();
+        NameValuePair[] params = null;
+        int count = 0;
+        while (cursor.nextParameter()) {
+            if (params == null) {
+                params = new NameValuePair[1];
+            } else if (count == params.length) {
+                final NameValuePair[] expanded = new NameValuePair[count * 2];
+                System.arraycopy(params, 0, expanded, 0, count);
+                params = expanded;
+            }
+            params[count++] = new BasicNameValuePair(
+                    cursor.getParameterName(), cursor.getParameterValue());
+        }
+        if (params != null && count < params.length) {
+            final NameValuePair[] trimmed = new NameValuePair[count];
+            System.arraycopy(params, 0, trimmed, 0, count);
+            params = trimmed;
+        }
+        return new ContentType(mimeType, params);
     }
 
     /**
@@ -225,10 +241,10 @@ public final class ContentType implements Serializable {
         Args.notNull(s, "Content type");
         final CharArrayBuffer buf = new CharArrayBuffer(s.length());
         buf.append(s);
-        final ParserCursor cursor = new ParserCursor(0, s.length());
-        final HeaderElement[] elements = BasicHeaderValueParser.INSTANCE.parseElements(buf, cursor);
-        if (elements.length > 0) {
-            return create(elements[0]);
+        final HeaderElementCursor cursor = new HeaderElementCursor();
+        cursor.reset(buf, 0, buf.length());
+        if (cursor.nextElement()) {
+            return create(cursor);
         } else {
             throw new ParseException("Invalid content type: " + s);
         }
@@ -253,9 +269,10 @@ public final class ContentType implements Serializable {
         }
         final Header header = entity.getContentType();
         if (header != null) {
-            final HeaderElement[] elements = header.getElements();
-            if (elements.length > 0) {
-                return create(elements[0]);
+            final HeaderElementCursor cursor = new HeaderElementCursor();
+            cursor.reset(header);
+            if (cursor.nextElement()) {
+                return create(cursor);
             }
         }
         return null;
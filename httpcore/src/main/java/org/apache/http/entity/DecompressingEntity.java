@@ -0,0 +1,188 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.Args;
+
+/**
+ * Entity wrapper that decompresses content of the wrapped entity encoded
+ * with the <code>gzip</code> or <code>deflate</code> content coding while it
+ * is being read. Content is decompressed incrementally with
+ * a {@link ContentDecompressor}, so memory use does not depend on the length
+ * of content.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class DecompressingEntity extends HttpEntityWrapper {
+
+    private final String coding;
+    private final CompressionPool pool;
+
+    /**
+     * Creates new instance of DecompressingEntity.
+     *
+     * @param entity the entity to decompress.
+     * @param coding content coding, either {@link ContentCompressor#GZIP} or
+     *   {@link ContentCompressor#DEFLATE}.
+     * @param pool pool to lease inflaters from.
+     */
+    public DecompressingEntity(final HttpEntity entity, final String coding, final CompressionPool pool) {
+        super(entity);
+        Args.notNull(coding, "Content coding");
+        Args.check(ContentCompressor.isGzip(coding) || ContentCompressor.DEFLATE.equalsIgnoreCase(coding),
+                "Unsupported content coding: %s", coding);
+        this.coding = coding;
+        this.pool = Args.notNull(pool, "Compression pool");
+    }
+
+    /**
+     * Creates new instance of DecompressingEntity using the content coding
+     * given by the <code>Content-Encoding</code> header of the wrapped entity.
+     * <code>identity</code> elements of the header are ignored. Exactly one
+     * other content coding is expected.
+     */
+    public DecompressingEntity(final HttpEntity entity, final CompressionPool pool) {
+        this(entity, getCoding(entity), pool);
+    }
+
+    private static String getCoding(final HttpEntity entity) {
+        Args.notNull(entity, "Wrapped entity");
+        final Header header = entity.getContentEncoding();
+        Args.check(header != null, "Content coding not specified");
+        String coding = null;
+        for (final HeaderElement element : header.getElements()) {
+            final String name = element.getName();
+            if (name.length() == 0 || HTTP.IDENTITY_CODING.equalsIgnoreCase(name)) {
+                continue;
+            }
+            Args.check(coding == null, "Multiple content codings not supported: %s", header.getValue());
+            coding = name;
+        }
+        Args.check(coding != null, "Content coding not specified");
+        return coding;
+    }
+
+    @Override
+    public Header getContentEncoding() {
+        return null;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new DecompressingInputStream(this.wrappedEntity.getContent(),
+                new ContentDecompressor(this.coding, this.pool));
+    }
+
+    @Override
+    public void writeTo(final OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        final InputStream instream = getContent();
+        try {
+            final byte[] tmp = new byte[AbstractHttpEntity.OUTPUT_BUFFER_SIZE];
+            int l;
+            while ((l = instream.read(tmp)) != -1) {
+                outstream.write(tmp, 0, l);
+            }
+        } finally {
+            instream.close();
+        }
+    }
+
+    static class DecompressingInputStream extends InputStream {
+
+        private final InputStream in;
+        private final ContentDecompressor decompressor;
+        private final byte[] buffer;
+        private final byte[] single;
+
+        DecompressingInputStream(final InputStream in, final ContentDecompressor decompressor) {
+            super();
+            this.in = in;
+            this.decompressor = decompressor;
+            this.buffer = new byte[AbstractHttpEntity.OUTPUT_BUFFER_SIZE];
+            this.single = new byte[1];
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int n = read(this.single, 0, 1);
+            return n == -1 ? -1 : this.single[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (this.decompressor.isReleased()) {
+                return -1;
+            }
+            for (;;) {
+                final int n = this.decompressor.decompress(b, off, len);
+                if (n > 0) {
+                    return n;
+                }
+                if (this.decompressor.isFinished()) {
+                    this.decompressor.release();
+                    return -1;
+                }
+                if (this.decompressor.needsInput()) {
+                    final int l = this.in.read(this.buffer);
+                    if (l == -1) {
+                        throw new EOFException("Unexpected end of compressed content");
+                    }
+                    this.decompressor.setInput(this.buffer, 0, l);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.decompressor.release();
+            this.in.close();
+        }
+
+    }
+
+}
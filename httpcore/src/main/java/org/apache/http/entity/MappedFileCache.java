@@ -0,0 +1,295 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * Bounded cache of memory mapped file regions intended to be shared by
+ * all entities serving the same set of files. Files are mapped in regions
+ * of a fixed size. Once the total size of mapped regions exceeds the
+ * maximum cache size the least recently used regions are evicted.
+ * <p/>
+ * Regions are remapped if the length or the modification time of the
+ * file changes. Please note that the JVM provides no means of releasing
+ * a mapping explicitly. Evicted regions get unmapped once their buffers
+ * have been garbage collected.
+ * <p/>
+ * Files are looked up and mapped without holding any lock shared by
+ * other threads. Threads racing to map the same region may each create
+ * a mapping, in which case only one of them is retained by the cache.
+ * <p/>
+ * Mapped files must not be truncated while they are in use. Accessing
+ * a mapped region beyond the new end of the file can crash the JVM with
+ * <code>SIGBUS</code> or cause an {@link InternalError} to be thrown,
+ * and a change of the file length may not be noticed before the buffer
+ * is accessed. Files served through this cache should be replaced by
+ * renaming a new file into place rather than rewritten in place.
+ *
+ * @see MappedFileEntity
+ *
+ * @since 4.3
+ */
+@ThreadSafe
+public class MappedFileCache {
+
+    public static final int DEFAULT_REGION_SIZE = 4 * 1024 * 1024;
+    public static final long DEFAULT_MAX_SIZE = 64L * DEFAULT_REGION_SIZE;
+
+    private final long maxSize;
+    private final int regionSize;
+    private final ConcurrentMap<RegionKey, Region> regions;
+    private final AtomicLong size;
+    private final AtomicLong clock;
+
+    /**
+     * Creates new instance of MappedFileCache.
+     *
+     * @param maxSize maximum total size of mapped regions.
+     * @param regionSize size of individual regions.
+     */
+    public MappedFileCache(final long maxSize, final int regionSize) {
+        super();
+        Args.positive(regionSize, "Region size");
+        Args.check(maxSize >= regionSize, "Max size may not be less than region size");
+        this.maxSize = maxSize;
+        this.regionSize = regionSize;
+        this.regions = new ConcurrentHashMap<RegionKey, Region>();
+        this.size = new AtomicLong();
+        this.clock = new AtomicLong();
+    }
+
+    public MappedFileCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_REGION_SIZE);
+    }
+
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    public int getRegionSize() {
+        return this.regionSize;
+    }
+
+    /**
+     * Returns total size of regions currently mapped by this cache.
+     */
+    public long getSize() {
+        return this.size.get();
+    }
+
+    /**
+     * Returns a read-only buffer with the content of the given file starting
+     * at the given position up to the end of the region containing it. Returned
+     * buffers are independent of each other and can be consumed concurrently.
+     *
+     * @param file the file.
+     * @param position position within the file.
+     * @return content buffer or <code>null</code> if the position is at or
+     *   beyond the end of the file.
+     * @throws IOException in case of an I/O error.
+     */
+    public ByteBuffer getRegion(final File file, final long position) throws IOException {
+        Args.notNull(file, "File");
+        Args.notNegative(position, "Position");
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        if (position >= length) {
+            return null;
+        }
+        final RegionKey key = new RegionKey(file.getAbsolutePath(), position / this.regionSize);
+        final int offset = (int) (position - key.index * this.regionSize);
+        Region mapped = null;
+        for (;;) {
+            final Region region = this.regions.get(key);
+            if (region != null) {
+                if (region.length == length && region.lastModified == lastModified) {
+                    return region.slice(this.clock.incrementAndGet(), offset);
+                }
+                remove(key, region);
+            }
+            if (mapped == null) {
+                mapped = new Region(map(file, key.index * this.regionSize, length), length, lastModified);
+            }
+            if (this.regions.putIfAbsent(key, mapped) == null) {
+                this.size.addAndGet(mapped.buffer.capacity());
+                final ByteBuffer buffer = mapped.slice(this.clock.incrementAndGet(), offset);
+                evict(key);
+                return buffer;
+            }
+            // Another thread has mapped the region in the meantime. Use its
+            // mapping if it is current, the one created here gets discarded.
+        }
+    }
+
+    private MappedByteBuffer map(final File file, final long start, final long length) throws IOException {
+        final RandomAccessFile accessfile = new RandomAccessFile(file, "r");
+        try {
+            // The mapping stays valid after the channel has been closed
+            return accessfile.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    start, Math.min(this.regionSize, length - start));
+        } finally {
+            accessfile.close();
+        }
+    }
+
+    private void remove(final RegionKey key, final Region region) {
+        if (this.regions.remove(key, region)) {
+            this.size.addAndGet(-region.buffer.capacity());
+        }
+    }
+
+    private void evict(final RegionKey retain) {
+        if (this.size.get() <= this.maxSize) {
+            return;
+        }
+        final List<Map.Entry<RegionKey, Region>> entries =
+                new ArrayList<Map.Entry<RegionKey, Region>>(this.regions.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<RegionKey, Region>>() {
+
+            public int compare(final Map.Entry<RegionKey, Region> e1, final Map.Entry<RegionKey, Region> e2) {
+                final long t1 = e1.getValue().lastAccess;
+                final long t2 = e2.getValue().lastAccess;
+                return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+            }
+
+        });
+        for (int i = 0; i < entries.size() && this.size.get() > this.maxSize; i++) {
+            final Map.Entry<RegionKey, Region> entry = entries.get(i);
+            if (!entry.getKey().equals(retain)) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Evicts all regions of the given file.
+     */
+    public void evict(final File file) {
+        Args.notNull(file, "File");
+        final String path = file.getAbsolutePath();
+        for (final Map.Entry<RegionKey, Region> entry : this.regions.entrySet()) {
+            if (entry.getKey().path.equals(path)) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Evicts all regions.
+     */
+    public void clear() {
+        for (final Map.Entry<RegionKey, Region> entry : this.regions.entrySet()) {
+            remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[regions: ");
+        buffer.append(this.regions.size());
+        buffer.append("; size: ");
+        buffer.append(this.size.get());
+        buffer.append(" of ");
+        buffer.append(this.maxSize);
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+    static class RegionKey {
+
+        private final String path;
+        private final long index;
+
+        RegionKey(final String path, final long index) {
+            super();
+            this.path = path;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof RegionKey) {
+                final RegionKey that = (RegionKey) obj;
+                return this.index == that.index && this.path.equals(that.path);
+            } else {
+                return false;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.path.hashCode() + (int) (this.index ^ (this.index >>> 32));
+        }
+
+    }
+
+    static class Region {
+
+        private final MappedByteBuffer buffer;
+        private final long length;
+        private final long lastModified;
+        private volatile long lastAccess;
+
+        Region(final MappedByteBuffer buffer, final long length, final long lastModified) {
+            super();
+            this.buffer = buffer;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        ByteBuffer slice(final long time, final int offset) {
+            this.lastAccess = time;
+            final ByteBuffer dup = this.buffer.asReadOnlyBuffer();
+            dup.position(offset);
+            return dup;
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.util.Args;
+
+/**
+ * A self contained, repeatable entity that obtains its content from
+ * a memory mapped file. Mapped regions of the file are obtained from
+ * a {@link MappedFileCache} shared by all entities serving the same set
+ * of files, so that repeated requests for the same file are served from
+ * memory without reading the file again.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class MappedFileEntity extends AbstractHttpEntity implements Cloneable {
+
+    protected final File file;
+    protected final MappedFileCache cache;
+
+    public MappedFileEntity(final File file, final ContentType contentType, final MappedFileCache cache) {
+        super();
+        this.file = Args.notNull(file, "File");
+        this.cache = Args.notNull(cache, "Mapped file cache");
+        if (contentType != null) {
+            setContentType(contentType.toString());
+        }
+    }
+
+    public MappedFileEntity(final File file, final MappedFileCache cache) {
+        this(file, null, cache);
+    }
+
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    public long getContentLength() {
+        return this.file.length();
+    }
+
+    public InputStream getContent() throws IOException {
+        return new FileInputStream(this.file);
+    }
+
+    public void writeTo(final OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        final byte[] tmp = new byte[OUTPUT_BUFFER_SIZE];
+        long pos = 0;
+        ByteBuffer region;
+        while ((region = this.cache.getRegion(this.file, pos)) != null) {
+            pos += region.remaining();
+            while (region.hasRemaining()) {
+                final int l = Math.min(region.remaining(), tmp.length);
+                region.get(tmp, 0, l);
+                outstream.write(tmp, 0, l);
+            }
+        }
+        outstream.flush();
+    }
+
+    /**
+     * Tells that this entity is not streaming.
+     *
+     * @return <code>false</code>
+     */
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        // File instance is considered immutable
+        // The cache is meant to be shared
+        return super.clone();
+    }
+
+}
@@ -38,6 +38,7 @@ import org.apache.http.ProtocolVersion;
 import org.apache.http.TokenIterator;
 import org.apache.http.annotation.Immutable;
 import org.apache.http.message.BasicTokenIterator;
+import org.apache.http.message.HeaderElementCursor;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.Args;
@@ -65,8 +66,22 @@ public class DefaultConnectionReuseStrategy implements ConnectionReuseStrategy {
 
     public static final DefaultConnectionReuseStrategy INSTANCE = new DefaultConnectionReuseStrategy();
 
+    private final boolean customTokenIterator;
+
     public DefaultConnectionReuseStrategy() {
         super();
+        this.customTokenIterator = isTokenIteratorOverridden(getClass());
+    }
+
+    private static boolean isTokenIteratorOverridden(final Class<?> clazz) {
+        for (Class<?> c = clazz; c != DefaultConnectionReuseStrategy.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("createTokenIterator", HeaderIterator.class);
+                return true;
+            } catch (final NoSuchMethodException ignore) {
+            }
+        }
+        return false;
     }
 
     // see interface ConnectionReuseStrategy
@@ -134,7 +149,30 @@ public class DefaultConnectionReuseStrategy implements ConnectionReuseStrategy {
         // it takes precedence and indicates a non-persistent connection.
         // If there is no "close" but a "keep-alive", we take the hint.
 
-        if (hit.hasNext()) {
+        if (hit.hasNext() && !this.customTokenIterator) {
+            // scan the tokens in place
+            final HeaderElementCursor cursor = new HeaderElementCursor();
+            boolean keepalive = false;
+            while (hit.hasNext()) {
+                cursor.reset(hit.nextHeader());
+                while (cursor.nextElement()) {
+                    if (!cursor.isToken()) {
+                        // invalid connection header means no persistent connection
+                        return false;
+                    }
+                    if (cursor.nameEqualsIgnoreCase(HTTP.CONN_CLOSE)) {
+                        return false;
+                    } else if (cursor.nameEqualsIgnoreCase(HTTP.CONN_KEEP_ALIVE)) {
+                        // continue the loop, there may be a "close" afterwards
+                        keepalive = true;
+                    }
+                }
+            }
+            if (keepalive) {
+                return true;
+            }
+            // neither "close" nor "keep-alive", use default policy
+        } else if (hit.hasNext()) {
             try {
                 final TokenIterator ti = createTokenIterator(hit);
                 boolean keepalive = false;
@@ -168,7 +206,8 @@ public class DefaultConnectionReuseStrategy implements ConnectionReuseStrategy {
     /**
      * Creates a token iterator from a header iterator.
      * This method can be overridden to replace the implementation of
-     * the token iterator.
+     * the token iterator. If it is not overridden, tokens are scanned in
+     * place with a {@link HeaderElementCursor} instead.
      *
      * @param hit       the header iterator
      *
@@ -0,0 +1,207 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.io;
+
+import java.io.IOException;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpMessage;
+import org.apache.http.MessageConstraintException;
+import org.apache.http.ParseException;
+import org.apache.http.ProtocolException;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.config.MessageConstraints;
+import org.apache.http.io.HttpMessageParser;
+import org.apache.http.io.SessionInputBuffer;
+import org.apache.http.message.AsciiLineParser;
+import org.apache.http.util.Args;
+import org.apache.http.util.ByteArrayBuffer;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * Abstract {@link HttpMessageParser} that parses the head of HTTP/1.x
+ * messages directly from raw bytes using {@link AsciiLineParser} without
+ * charset decoding. This class is intended for US-ASCII protocol elements
+ * and decodes other bytes as ISO-8859-1.
+ * <p>
+ * Lines are transferred from {@link SessionInputBufferImpl} as bytes.
+ * Other {@link SessionInputBuffer} implementations are supported through
+ * the standard line reading methods.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public abstract class AbstractAsciiMessageParser<T extends HttpMessage> implements HttpMessageParser<T> {
+
+    private static final int HEAD_LINE    = 0;
+    private static final int HEADERS      = 1;
+
+    private final SessionInputBuffer sessionBuffer;
+    private final SessionInputBufferImpl sessionBufferImpl;
+    private final MessageConstraints messageConstraints;
+    protected final AsciiLineParser lineParser;
+
+    private int state;
+    private T message;
+    private ByteArrayBuffer current;
+    private ByteArrayBuffer previous;
+    private CharArrayBuffer charBuf;
+    private int headerCount;
+
+    /**
+     * Creates new instance of AbstractAsciiMessageParser.
+     *
+     * @param buffer the session input buffer.
+     * @param lineParser the line parser. If <code>null</code>
+     *   {@link AsciiLineParser#INSTANCE} will be used.
+     * @param constraints the message constraints. If <code>null</code>
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     */
+    public AbstractAsciiMessageParser(
+            final SessionInputBuffer buffer,
+            final AsciiLineParser lineParser,
+            final MessageConstraints constraints) {
+        super();
+        this.sessionBuffer = Args.notNull(buffer, "Session input buffer");
+        this.sessionBufferImpl = buffer instanceof SessionInputBufferImpl ?
+                (SessionInputBufferImpl) buffer : null;
+        this.lineParser = lineParser != null ? lineParser : AsciiLineParser.INSTANCE;
+        this.messageConstraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
+        this.current = new ByteArrayBuffer(128);
+        this.previous = new ByteArrayBuffer(128);
+        this.state = HEAD_LINE;
+    }
+
+    /**
+     * Reads a complete line of bytes from the session buffer into the given
+     * byte buffer. The line delimiter is discarded.
+     *
+     * @param dst the line buffer.
+     * @return number of bytes of the line or <code>-1</code> if the end of
+     *  stream has been reached.
+     * @throws IOException in case of an I/O error.
+     */
+    protected int readLine(final ByteArrayBuffer dst) throws IOException {
+        if (this.sessionBufferImpl != null) {
+            return this.sessionBufferImpl.readRawLine(dst);
+        }
+        if (this.charBuf == null) {
+            this.charBuf = new CharArrayBuffer(128);
+        } else {
+            this.charBuf.clear();
+        }
+        final int l = this.sessionBuffer.readLine(this.charBuf);
+        if (l != -1) {
+            dst.append(this.charBuf, 0, this.charBuf.length());
+        }
+        return l;
+    }
+
+    /**
+     * Subclasses must override this method to generate an instance of
+     * {@link HttpMessage} based on the first line read from the session
+     * buffer by means of {@link #readLine(ByteArrayBuffer)}.
+     *
+     * @return HTTP message based on the input from the session buffer.
+     * @throws IOException in case of an I/O error.
+     * @throws HttpException in case of HTTP protocol violation.
+     * @throws ParseException in case of a parse error.
+     */
+    protected abstract T parseHead() throws IOException, HttpException, ParseException;
+
+    private void addHeader() throws HttpException {
+        if (this.headerCount > 0) {
+            try {
+                this.message.addHeader(this.lineParser.parseHeader(this.previous));
+            } catch (final ParseException ex) {
+                throw new ProtocolException(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private void parseHeaders() throws IOException, HttpException {
+        final int maxHeaderCount = this.messageConstraints.getMaxHeaderCount();
+        final int maxLineLen = this.messageConstraints.getMaxLineLength();
+        for (;;) {
+            this.current.clear();
+            final int l = readLine(this.current);
+            if (l == -1 || this.current.length() < 1) {
+                break;
+            }
+            final byte[] b = this.current.buffer();
+            // Check for folded headers first
+            if ((b[0] == ' ' || b[0] == '\t') && this.headerCount > 0) {
+                int i = 0;
+                while (i < this.current.length() && (b[i] == ' ' || b[i] == '\t')) {
+                    i++;
+                }
+                if (maxLineLen > 0
+                        && this.previous.length() + 1 + this.current.length() - i > maxLineLen) {
+                    throw new MessageConstraintException("Maximum line length limit exceeded");
+                }
+                this.previous.append(' ');
+                this.previous.append(b, i, this.current.length() - i);
+            } else {
+                addHeader();
+                final ByteArrayBuffer tmp = this.previous;
+                this.previous = this.current;
+                this.current = tmp;
+                this.headerCount++;
+            }
+            if (maxHeaderCount > 0 && this.headerCount > maxHeaderCount) {
+                throw new MessageConstraintException("Maximum header count exceeded");
+            }
+        }
+        addHeader();
+    }
+
+    public T parse() throws IOException, HttpException {
+        final int st = this.state;
+        switch (st) {
+        case HEAD_LINE:
+            try {
+                this.message = parseHead();
+            } catch (final ParseException px) {
+                throw new ProtocolException(px.getMessage(), px);
+            }
+            this.state = HEADERS;
+            //$FALL-THROUGH$
+        case HEADERS:
+            parseHeaders();
+            final T result = this.message;
+            this.message = null;
+            this.previous.clear();
+            this.headerCount = 0;
+            this.state = HEAD_LINE;
+            return result;
+        default:
+            throw new IllegalStateException("Inconsistent parser state");
+        }
+    }
+
+}
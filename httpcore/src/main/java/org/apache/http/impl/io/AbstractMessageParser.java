@@ -42,6 +42,8 @@ import org.apache.http.config.MessageConstraints;
 import org.apache.http.io.HttpMessageParser;
 import org.apache.http.io.SessionInputBuffer;
 import org.apache.http.message.BasicLineParser;
+import org.apache.http.message.HeaderBlock;
+import org.apache.http.message.LazyHeaderLineParser;
 import org.apache.http.message.LineParser;
 import org.apache.http.params.HttpParamConfig;
 import org.apache.http.params.HttpParams;
@@ -64,6 +66,7 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
     private final SessionInputBuffer sessionBuffer;
     private final MessageConstraints messageConstraints;
     private final List<CharArrayBuffer> headerLines;
+    private final HeaderBlock headerBlock;
     protected final LineParser lineParser;
 
     private int state;
@@ -91,6 +94,7 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
         this.messageConstraints = HttpParamConfig.getMessageConstraints(params);
         this.lineParser = (parser != null) ? parser : BasicLineParser.INSTANCE;
         this.headerLines = new ArrayList<CharArrayBuffer>();
+        this.headerBlock = this.lineParser instanceof LazyHeaderLineParser ? new HeaderBlock() : null;
         this.state = HEAD_LINE;
     }
 
@@ -114,6 +118,7 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
         this.lineParser = lineParser != null ? lineParser : BasicLineParser.INSTANCE;
         this.messageConstraints = constraints != null ? constraints : MessageConstraints.DEFAULT;
         this.headerLines = new ArrayList<CharArrayBuffer>();
+        this.headerBlock = this.lineParser instanceof LazyHeaderLineParser ? new HeaderBlock() : null;
         this.state = HEAD_LINE;
     }
 
@@ -231,7 +236,7 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
             try {
                 headers[i] = parser.parseHeader(buffer);
             } catch (final ParseException ex) {
-                throw new ProtocolException(ex.getMessage());
+                throw new ProtocolException(ex.getMessage(), ex);
             }
         }
         return headers;
@@ -254,6 +259,40 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
     protected abstract T parseHead(SessionInputBuffer sessionBuffer)
         throws IOException, HttpException, ParseException;
 
+    /**
+     * Reads all header lines into the shared header block and creates
+     * headers backed by it. The header block is discarded if the headers
+     * turn out to be malformed. Lines read prior to an I/O error are kept,
+     * so that parsing can be resumed.
+     */
+    private Header[] parseHeaderBlock() throws IOException, HttpException {
+        final int maxHeaderCount = this.messageConstraints.getMaxHeaderCount();
+        final int maxLineLen = this.messageConstraints.getMaxLineLength();
+        final Header[] headers;
+        try {
+            for (;;) {
+                final CharArrayBuffer buffer = this.headerBlock.getBuffer();
+                final int start = buffer.length();
+                final int l = this.sessionBuffer.readLine(buffer);
+                if (l == -1 || !this.headerBlock.lineComplete(start, maxLineLen)) {
+                    break;
+                }
+                if (maxHeaderCount > 0 && this.headerBlock.getLineCount() > maxHeaderCount) {
+                    throw new MessageConstraintException("Maximum header count exceeded");
+                }
+            }
+            headers = this.headerBlock.toHeaders(this.lineParser);
+        } catch (final MessageConstraintException ex) {
+            this.headerBlock.reset();
+            throw ex;
+        } catch (final ParseException ex) {
+            this.headerBlock.reset();
+            throw new ProtocolException(ex.getMessage(), ex);
+        }
+        this.headerBlock.reset();
+        return headers;
+    }
+
     public T parse() throws IOException, HttpException {
         final int st = this.state;
         switch (st) {
@@ -266,12 +305,17 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
             this.state = HEADERS;
             //$FALL-THROUGH$
         case HEADERS:
-            final Header[] headers = AbstractMessageParser.parseHeaders(
-                    this.sessionBuffer,
-                    this.messageConstraints.getMaxHeaderCount(),
-                    this.messageConstraints.getMaxLineLength(),
-                    this.lineParser,
-                    this.headerLines);
+            final Header[] headers;
+            if (this.headerBlock != null) {
+                headers = parseHeaderBlock();
+            } else {
+                headers = AbstractMessageParser.parseHeaders(
+                        this.sessionBuffer,
+                        this.messageConstraints.getMaxHeaderCount(),
+                        this.messageConstraints.getMaxLineLength(),
+                        this.lineParser,
+                        this.headerLines);
+            }
             this.message.setHeaders(headers);
             final T result = this.message;
             this.message = null;
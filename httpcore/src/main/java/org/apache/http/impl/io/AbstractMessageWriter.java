@@ -38,6 +38,7 @@ import org.apache.http.io.HttpMessageWriter;
 import org.apache.http.io.SessionOutputBuffer;
 import org.apache.http.message.BasicLineFormatter;
 import org.apache.http.message.LineFormatter;
+import org.apache.http.message.PreEncodedHeader;
 import org.apache.http.params.HttpParams;
 import org.apache.http.util.Args;
 import org.apache.http.util.CharArrayBuffer;
@@ -45,6 +46,9 @@ import org.apache.http.util.CharArrayBuffer;
 /**
  * Abstract base class for HTTP message writers that serialize output to
  * an instance of {@link SessionOutputBuffer}.
+ * <p>
+ * If the line formatter is {@link BasicLineFormatter}, {@link PreEncodedHeader}s
+ * are written to the session buffer in their encoded form.
  *
  * @since 4.0
  */
@@ -56,6 +60,8 @@ public abstract class AbstractMessageWriter<T extends HttpMessage> implements Ht
     protected final CharArrayBuffer lineBuf;
     protected final LineFormatter lineFormatter;
 
+    private final boolean preEncoded;
+
     /**
      * Creates an instance of AbstractMessageWriter.
      *
@@ -75,6 +81,7 @@ public abstract class AbstractMessageWriter<T extends HttpMessage> implements Ht
         this.sessionBuffer = buffer;
         this.lineBuf = new CharArrayBuffer(128);
         this.lineFormatter = (formatter != null) ? formatter : BasicLineFormatter.INSTANCE;
+        this.preEncoded = this.lineFormatter.getClass() == BasicLineFormatter.class;
     }
 
     /**
@@ -93,6 +100,7 @@ public abstract class AbstractMessageWriter<T extends HttpMessage> implements Ht
         this.sessionBuffer = Args.notNull(buffer, "Session input buffer");
         this.lineFormatter = (formatter != null) ? formatter : BasicLineFormatter.INSTANCE;
         this.lineBuf = new CharArrayBuffer(128);
+        this.preEncoded = this.lineFormatter.getClass() == BasicLineFormatter.class;
     }
 
     /**
@@ -109,6 +117,13 @@ public abstract class AbstractMessageWriter<T extends HttpMessage> implements Ht
         writeHeadLine(message);
         for (final HeaderIterator it = message.headerIterator(); it.hasNext(); ) {
             final Header header = it.nextHeader();
+            if (this.preEncoded && header instanceof PreEncodedHeader) {
+                final byte[] encoded = ((PreEncodedHeader) header).getEncoded();
+                if (encoded != null) {
+                    this.sessionBuffer.write(encoded, 0, encoded.length);
+                    continue;
+                }
+            }
             this.sessionBuffer.writeLine
                 (lineFormatter.formatHeader(this.lineBuf, header));
         }
@@ -0,0 +1,105 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.io;
+
+import java.io.IOException;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestFactory;
+import org.apache.http.ParseException;
+import org.apache.http.RequestLine;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.config.MessageConstraints;
+import org.apache.http.impl.DefaultHttpRequestFactory;
+import org.apache.http.io.SessionInputBuffer;
+import org.apache.http.message.AsciiLineParser;
+import org.apache.http.util.ByteArrayBuffer;
+
+/**
+ * HTTP request parser that obtain its input from an instance of
+ * {@link SessionInputBuffer} and parses the message head directly
+ * from raw bytes.
+ *
+ * @see AbstractAsciiMessageParser
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class AsciiHttpRequestParser extends AbstractAsciiMessageParser<HttpRequest> {
+
+    private final HttpRequestFactory requestFactory;
+    private final ByteArrayBuffer lineBuf;
+
+    /**
+     * Creates new instance of AsciiHttpRequestParser.
+     *
+     * @param buffer the session input buffer.
+     * @param lineParser the line parser. If <code>null</code>
+     *   {@link AsciiLineParser#INSTANCE} will be used.
+     * @param requestFactory the request factory. If <code>null</code>
+     *   {@link DefaultHttpRequestFactory#INSTANCE} will be used.
+     * @param constraints the message constraints. If <code>null</code>
+     *   {@link MessageConstraints#DEFAULT} will be used.
+     */
+    public AsciiHttpRequestParser(
+            final SessionInputBuffer buffer,
+            final AsciiLineParser lineParser,
+            final HttpRequestFactory requestFactory,
+            final MessageConstraints constraints) {
+        super(buffer, lineParser, constraints);
+        this.requestFactory = requestFactory != null ? requestFactory :
+            DefaultHttpRequestFactory.INSTANCE;
+        this.lineBuf = new ByteArrayBuffer(128);
+    }
+
+    public AsciiHttpRequestParser(
+            final SessionInputBuffer buffer,
+            final MessageConstraints constraints) {
+        this(buffer, null, null, constraints);
+    }
+
+    public AsciiHttpRequestParser(final SessionInputBuffer buffer) {
+        this(buffer, null, null, MessageConstraints.DEFAULT);
+    }
+
+    @Override
+    protected HttpRequest parseHead()
+        throws IOException, HttpException, ParseException {
+
+        this.lineBuf.clear();
+        final int i = readLine(this.lineBuf);
+        if (i == -1) {
+            throw new ConnectionClosedException("Client closed connection");
+        }
+        final RequestLine requestline = this.lineParser.parseRequestLine(this.lineBuf);
+        return this.requestFactory.newHttpRequest(requestline);
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.io;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestFactory;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.config.MessageConstraints;
+import org.apache.http.impl.DefaultHttpRequestFactory;
+import org.apache.http.io.HttpMessageParser;
+import org.apache.http.io.HttpMessageParserFactory;
+import org.apache.http.io.SessionInputBuffer;
+import org.apache.http.message.AsciiLineParser;
+
+/**
+ * Factory for request message parsers that parse the message head directly
+ * from raw bytes.
+ *
+ * @see AsciiHttpRequestParser
+ *
+ * @since 4.3
+ */
+@Immutable
+public class AsciiHttpRequestParserFactory implements HttpMessageParserFactory<HttpRequest> {
+
+    public static final AsciiHttpRequestParserFactory INSTANCE = new AsciiHttpRequestParserFactory();
+
+    private final AsciiLineParser lineParser;
+    private final HttpRequestFactory requestFactory;
+
+    public AsciiHttpRequestParserFactory(final AsciiLineParser lineParser,
+            final HttpRequestFactory requestFactory) {
+        super();
+        this.lineParser = lineParser != null ? lineParser : AsciiLineParser.INSTANCE;
+        this.requestFactory = requestFactory != null ? requestFactory
+                : DefaultHttpRequestFactory.INSTANCE;
+    }
+
+    public AsciiHttpRequestParserFactory() {
+        this(null, null);
+    }
+
+    public HttpMessageParser<HttpRequest> create(final SessionInputBuffer buffer,
+            final MessageConstraints constraints) {
+        return new AsciiHttpRequestParser(buffer, lineParser, requestFactory, constraints);
+    }
+
+}
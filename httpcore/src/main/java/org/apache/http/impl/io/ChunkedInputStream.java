@@ -39,6 +39,7 @@ import org.apache.http.io.BufferInfo;
 import org.apache.http.io.SessionInputBuffer;
 import org.apache.http.util.Args;
 import org.apache.http.util.CharArrayBuffer;
+import org.apache.http.util.ScanUtils;
 
 /**
  * Implements chunked transfer coding. The content is received in small chunks.
@@ -246,11 +247,11 @@ public class ChunkedInputStream extends InputStream {
             if (separator < 0) {
                 separator = this.buffer.length();
             }
-            try {
-                return Integer.parseInt(this.buffer.substringTrimmed(0, separator), 16);
-            } catch (final NumberFormatException e) {
+            final int chunkSize = ScanUtils.parseHex(this.buffer, 0, separator);
+            if (chunkSize < 0) {
                 throw new MalformedChunkCodingException("Bad chunk header");
             }
+            return chunkSize;
         default:
             throw new IllegalStateException("Inconsistent codec state");
         }
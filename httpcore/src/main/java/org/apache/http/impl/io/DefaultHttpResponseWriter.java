@@ -33,16 +33,22 @@ import org.apache.http.HttpResponse;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.io.SessionOutputBuffer;
 import org.apache.http.message.BasicLineFormatter;
+import org.apache.http.message.EncodedStatusLineCache;
 import org.apache.http.message.LineFormatter;
 
 /**
  * HTTP response writer that serializes its output to an instance of {@link SessionOutputBuffer}.
+ * <p>
+ * If the line formatter is {@link BasicLineFormatter}, common status lines
+ * are written from {@link EncodedStatusLineCache}.
  *
  * @since 4.3
  */
 @NotThreadSafe
 public class DefaultHttpResponseWriter extends AbstractMessageWriter<HttpResponse> {
 
+    private final boolean preEncoded;
+
     /**
      * Creates an instance of DefaultHttpResponseWriter.
      *
@@ -54,14 +60,22 @@ public class DefaultHttpResponseWriter extends AbstractMessageWriter<HttpRespons
             final SessionOutputBuffer buffer,
             final LineFormatter formatter) {
         super(buffer, formatter);
+        this.preEncoded = this.lineFormatter.getClass() == BasicLineFormatter.class;
     }
 
     public DefaultHttpResponseWriter(final SessionOutputBuffer buffer) {
-        super(buffer, null);
+        this(buffer, null);
     }
 
     @Override
     protected void writeHeadLine(final HttpResponse message) throws IOException {
+        if (this.preEncoded) {
+            final byte[] encoded = EncodedStatusLineCache.lookup(message.getStatusLine());
+            if (encoded != null) {
+                this.sessionBuffer.write(encoded, 0, encoded.length);
+                return;
+            }
+        }
         lineFormatter.formatStatusLine(this.lineBuf, message.getStatusLine());
         this.sessionBuffer.writeLine(this.lineBuf);
     }
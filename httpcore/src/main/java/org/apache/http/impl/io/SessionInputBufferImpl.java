@@ -45,6 +45,7 @@ import org.apache.http.util.Args;
 import org.apache.http.util.Asserts;
 import org.apache.http.util.ByteArrayBuffer;
 import org.apache.http.util.CharArrayBuffer;
+import org.apache.http.util.ScanUtils;
 
 /**
  * Abstract base class for session input buffers that stream data from
@@ -62,6 +63,7 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
 
     private final HttpTransportMetricsImpl metrics;
     private final byte[] buffer;
+    private final ByteBuffer bufferView;
     private final ByteArrayBuffer linebuffer;
     private final int minChunkLimit;
     private final MessageConstraints constraints;
@@ -97,6 +99,7 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
         Args.positive(buffersize, "Buffer size");
         this.metrics = metrics;
         this.buffer = new byte[buffersize];
+        this.bufferView = ByteBuffer.wrap(this.buffer);
         this.bufferpos = 0;
         this.bufferlen = 0;
         this.minChunkLimit = minChunkLimit >= 0 ? minChunkLimit : 512;
@@ -214,12 +217,7 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
     }
 
     private int locateLF() {
-        for (int i = this.bufferpos; i < this.bufferlen; i++) {
-            if (this.buffer[i] == HTTP.LF) {
-                return i;
-            }
-        }
-        return -1;
+        return ScanUtils.indexOfLF(this.bufferView, this.bufferpos, this.bufferlen);
     }
 
     /**
@@ -278,6 +276,84 @@ public class SessionInputBufferImpl implements SessionInputBuffer, BufferInfo {
         return lineFromLineBuffer(charbuffer);
     }
 
+    /**
+     * Reads a complete line of bytes up to a line delimiter from this
+     * session buffer into the given byte buffer. Unlike
+     * {@link #readLine(CharArrayBuffer)} this method does not decode
+     * the line content. The number of bytes actually read is returned as
+     * an integer. The line delimiter itself is discarded. If no byte is
+     * available because the end of the stream has been reached, the value
+     * <code>-1</code> is returned. This method blocks until input data is
+     * available, end of file is detected, or an exception is thrown.
+     * <p>
+     * This method treats a lone LF as a valid line delimiters in addition
+     * to CR-LF required by the HTTP specification.
+     *
+     * @param      bytebuffer   the line buffer.
+     * @return     number of bytes of the line
+     * @exception  IOException  if an I/O error occurs.
+     *
+     * @since 4.3
+     */
+    public int readRawLine(final ByteArrayBuffer bytebuffer) throws IOException {
+        Args.notNull(bytebuffer, "Byte array buffer");
+        int noRead = 0;
+        boolean retry = true;
+        while (retry) {
+            // attempt to find end of line (LF)
+            final int i = locateLF();
+            if (i != -1) {
+                // end of line found.
+                if (this.linebuffer.isEmpty()) {
+                    // the entire line is preset in the read buffer
+                    final int off = this.bufferpos;
+                    int pos = i;
+                    this.bufferpos = i + 1;
+                    if (pos > off && this.buffer[pos - 1] == HTTP.CR) {
+                        // skip CR if found
+                        pos--;
+                    }
+                    bytebuffer.append(this.buffer, off, pos - off);
+                    return pos - off;
+                }
+                retry = false;
+                final int len = i + 1 - this.bufferpos;
+                this.linebuffer.append(this.buffer, this.bufferpos, len);
+                this.bufferpos = i + 1;
+            } else {
+                // end of line not found
+                if (hasBufferedData()) {
+                    final int len = this.bufferlen - this.bufferpos;
+                    this.linebuffer.append(this.buffer, this.bufferpos, len);
+                    this.bufferpos = this.bufferlen;
+                }
+                noRead = fillBuffer();
+                if (noRead == -1) {
+                    retry = false;
+                }
+            }
+            final int maxLineLen = this.constraints.getMaxLineLength();
+            if (maxLineLen > 0 && this.linebuffer.length() >= maxLineLen) {
+                throw new MessageConstraintException("Maximum line length limit exceeded");
+            }
+        }
+        if (noRead == -1 && this.linebuffer.isEmpty()) {
+            // indicate the end of stream
+            return -1;
+        }
+        // discard LF and CR if found
+        int len = this.linebuffer.length();
+        if (len > 0 && this.linebuffer.byteAt(len - 1) == HTTP.LF) {
+            len--;
+        }
+        if (len > 0 && this.linebuffer.byteAt(len - 1) == HTTP.CR) {
+            len--;
+        }
+        bytebuffer.append(this.linebuffer.buffer(), 0, len);
+        this.linebuffer.clear();
+        return len;
+    }
+
     /**
      * Reads a complete line of characters up to a line delimiter from this
      * session buffer. The line delimiter itself is discarded. If no char is
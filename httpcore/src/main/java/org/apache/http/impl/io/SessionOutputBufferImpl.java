@@ -31,9 +31,11 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 
+import org.apache.http.Consts;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.http.io.BufferInfo;
 import org.apache.http.io.HttpTransportMetrics;
@@ -43,6 +45,7 @@ import org.apache.http.util.Args;
 import org.apache.http.util.Asserts;
 import org.apache.http.util.ByteArrayBuffer;
 import org.apache.http.util.CharArrayBuffer;
+import org.apache.http.util.ScanUtils;
 
 /**
  * Abstract base class for session output buffers that stream data to
@@ -63,6 +66,7 @@ public class SessionOutputBufferImpl implements SessionOutputBuffer, BufferInfo
     private final ByteArrayBuffer buffer;
     private final int fragementSizeHint;
     private final CharsetEncoder encoder;
+    private final boolean asciiCompatible;
 
     private OutputStream outstream;
     private ByteBuffer bbuf;
@@ -90,6 +94,17 @@ public class SessionOutputBufferImpl implements SessionOutputBuffer, BufferInfo
         this.buffer = new ByteArrayBuffer(buffersize);
         this.fragementSizeHint = fragementSizeHint >= 0 ? fragementSizeHint : 0;
         this.encoder = charencoder;
+        this.asciiCompatible = charencoder == null || isAsciiCompatible(charencoder.charset());
+    }
+
+    /**
+     * Determines whether the charset encodes 7-bit ASCII chars as the same
+     * single bytes, so that ASCII-only lines can bypass the encoder.
+     */
+    private static boolean isAsciiCompatible(final Charset charset) {
+        return Consts.ASCII.equals(charset)
+            || Consts.ISO_8859_1.equals(charset)
+            || Consts.UTF_8.equals(charset);
     }
 
     public void bind(final OutputStream outstream) {
@@ -195,10 +210,8 @@ public class SessionOutputBufferImpl implements SessionOutputBuffer, BufferInfo
             return;
         }
         if (s.length() > 0) {
-            if (this.encoder == null) {
-                for (int i = 0; i < s.length(); i++) {
-                    write(s.charAt(i));
-                }
+            if (this.encoder == null || (this.asciiCompatible && ScanUtils.isAscii(s))) {
+                writeNarrowed(s);
             } else {
                 final CharBuffer cbuf = CharBuffer.wrap(s);
                 writeEncoded(cbuf);
@@ -220,7 +233,8 @@ public class SessionOutputBufferImpl implements SessionOutputBuffer, BufferInfo
         if (charbuffer == null) {
             return;
         }
-        if (this.encoder == null) {
+        if (this.encoder == null
+                || (this.asciiCompatible && ScanUtils.isAscii(charbuffer.buffer(), 0, charbuffer.length()))) {
             int off = 0;
             int remaining = charbuffer.length();
             while (remaining > 0) {
@@ -242,6 +256,25 @@ public class SessionOutputBufferImpl implements SessionOutputBuffer, BufferInfo
         write(CRLF);
     }
 
+    private void writeNarrowed(final String s) throws IOException {
+        int off = 0;
+        int remaining = s.length();
+        while (remaining > 0) {
+            if (this.buffer.isFull()) {
+                flushBuffer();
+            }
+            final int chunk = Math.min(this.buffer.capacity() - this.buffer.length(), remaining);
+            final byte[] b = this.buffer.buffer();
+            final int pos = this.buffer.length();
+            for (int i = 0; i < chunk; i++) {
+                b[pos + i] = (byte) s.charAt(off + i);
+            }
+            this.buffer.setLength(pos + chunk);
+            off += chunk;
+            remaining -= chunk;
+        }
+    }
+
     private void writeEncoded(final CharBuffer cbuf) throws IOException {
         if (!cbuf.hasRemaining()) {
             return;
@@ -264,10 +297,10 @@ public class SessionOutputBufferImpl implements SessionOutputBuffer, BufferInfo
             result.throwException();
         }
         this.bbuf.flip();
-        while (this.bbuf.hasRemaining()) {
-            write(this.bbuf.get());
+        if (this.bbuf.hasRemaining()) {
+            write(this.bbuf.array(), this.bbuf.arrayOffset() + this.bbuf.position(), this.bbuf.remaining());
         }
-        this.bbuf.compact();
+        this.bbuf.clear();
     }
 
     public HttpTransportMetrics getMetrics() {
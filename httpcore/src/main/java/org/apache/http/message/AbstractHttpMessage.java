@@ -122,15 +122,7 @@ public abstract class AbstractHttpMessage implements HttpMessage {
 
     // non-javadoc, see interface HttpMessage
     public void removeHeaders(final String name) {
-        if (name == null) {
-            return;
-        }
-        for (final HeaderIterator i = this.headergroup.iterator(); i.hasNext(); ) {
-            final Header header = i.nextHeader();
-            if (name.equalsIgnoreCase(header.getName())) {
-                i.remove();
-            }
-        }
+        this.headergroup.removeHeaders(name);
     }
 
     // non-javadoc, see interface HttpMessage
@@ -0,0 +1,282 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.Header;
+import org.apache.http.HttpVersion;
+import org.apache.http.ParseException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.RequestLine;
+import org.apache.http.StatusLine;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.util.Args;
+import org.apache.http.util.ByteArrayBuffer;
+
+/**
+ * Parser for lines in the head section of an HTTP/1.x message that operates
+ * on raw bytes rather than decoded characters. Each line is scanned exactly
+ * once. Bytes are converted to characters by simple widening, which is
+ * equivalent to ISO-8859-1 decoding and lossless for US-ASCII.
+ * <p>
+ * The parser has fast paths for <code>HTTP/1.1</code> and
+ * <code>HTTP/1.0</code>, which are resolved to the shared
+ * {@link HttpVersion} instances, and for standard request methods and
+ * well known header names, which are resolved to constant strings.
+ * HTTP/1.0 and HTTP/1.1 status lines with the standard reason phrase of
+ * their status code are returned as shared instances.
+ * <p>
+ * Instances of this class are stateless and thread-safe.
+ *
+ * @since 4.3
+ */
+@Immutable
+public class AsciiLineParser {
+
+    public final static AsciiLineParser INSTANCE = new AsciiLineParser();
+
+    private static final byte[] HTTP_1_ = { 'H', 'T', 'T', 'P', '/', '1', '.' };
+
+    public AsciiLineParser() {
+        super();
+    }
+
+    /**
+     * Parses the protocol version from the given region of the buffer. The
+     * region must contain nothing but the protocol version.
+     *
+     * @param buffer the buffer
+     * @param beginIndex the beginning index of the region, inclusive.
+     * @param endIndex the ending index of the region, exclusive.
+     * @return the protocol version
+     * @throws ParseException in case of a parse error
+     */
+    public ProtocolVersion parseProtocolVersion(
+            final ByteArrayBuffer buffer,
+            final int beginIndex,
+            final int endIndex) throws ParseException {
+        Args.notNull(buffer, "Byte array buffer");
+        return parseProtocolVersion(buffer.buffer(), beginIndex, endIndex);
+    }
+
+    private static ProtocolVersion parseProtocolVersion(
+            final byte[] b, final int beginIndex, final int endIndex) throws ParseException {
+        if (endIndex - beginIndex == 8 && b[beginIndex + 7] >= '0' && b[beginIndex + 7] <= '1') {
+            int i = 0;
+            while (i < HTTP_1_.length && b[beginIndex + i] == HTTP_1_[i]) {
+                i++;
+            }
+            if (i == HTTP_1_.length) {
+                return b[beginIndex + 7] == '1' ? HttpVersion.HTTP_1_1 : HttpVersion.HTTP_1_0;
+            }
+        }
+        // long enough for "HTTP/1.1"?
+        if (endIndex - beginIndex < 8
+                || b[beginIndex] != 'H' || b[beginIndex + 1] != 'T'
+                || b[beginIndex + 2] != 'T' || b[beginIndex + 3] != 'P'
+                || b[beginIndex + 4] != '/') {
+            throw new ParseException("Not a valid protocol version: " +
+                    toString(b, beginIndex, endIndex));
+        }
+        int period = -1;
+        for (int i = beginIndex + 5; i < endIndex; i++) {
+            if (b[i] == '.') {
+                period = i;
+                break;
+            }
+        }
+        if (period == -1) {
+            throw new ParseException("Invalid protocol version number: " +
+                    toString(b, beginIndex, endIndex));
+        }
+        final int major = parseNumber(b, beginIndex + 5, period);
+        if (major < 0) {
+            throw new ParseException("Invalid protocol major version number: " +
+                    toString(b, beginIndex, endIndex));
+        }
+        final int minor = parseNumber(b, period + 1, endIndex);
+        if (minor < 0) {
+            throw new ParseException("Invalid protocol minor version number: " +
+                    toString(b, beginIndex, endIndex));
+        }
+        return HttpVersion.HTTP_1_1.forVersion(major, minor);
+    }
+
+    /**
+     * Parses a request line.
+     *
+     * @param buffer the buffer containing the request line without the line
+     *  delimiter.
+     * @return the request line
+     * @throws ParseException in case of a parse error
+     */
+    public RequestLine parseRequestLine(final ByteArrayBuffer buffer) throws ParseException {
+        Args.notNull(buffer, "Byte array buffer");
+        final byte[] b = buffer.buffer();
+        final int end = trimTrailing(b, 0, buffer.length());
+        final int methodStart = skipWhitespace(b, 0, end);
+        final int methodEnd = indexOfWhitespace(b, methodStart, end);
+        final int uriStart = skipWhitespace(b, methodEnd, end);
+        final int uriEnd = indexOfWhitespace(b, uriStart, end);
+        final int protoStart = skipWhitespace(b, uriEnd, end);
+        if (methodEnd == methodStart || uriEnd == uriStart || protoStart == end
+                || indexOfWhitespace(b, protoStart, end) != end) {
+            throw new ParseException("Invalid request line: " + toString(b, 0, buffer.length()));
+        }
+        final ProtocolVersion ver = parseProtocolVersion(b, protoStart, end);
+        String method = CanonicalLines.method(b, methodStart, methodEnd);
+        if (method == null) {
+            method = toString(b, methodStart, methodEnd);
+        }
+        final String uri = toString(b, uriStart, uriEnd);
+        return new BasicRequestLine(method, uri, ver);
+    }
+
+    /**
+     * Parses a status line.
+     *
+     * @param buffer the buffer containing the status line without the line
+     *  delimiter.
+     * @return the status line
+     * @throws ParseException in case of a parse error
+     */
+    public StatusLine parseStatusLine(final ByteArrayBuffer buffer) throws ParseException {
+        Args.notNull(buffer, "Byte array buffer");
+        final byte[] b = buffer.buffer();
+        final int end = trimTrailing(b, 0, buffer.length());
+        final int protoStart = skipWhitespace(b, 0, end);
+        final int protoEnd = indexOfWhitespace(b, protoStart, end);
+        final ProtocolVersion ver = parseProtocolVersion(b, protoStart, protoEnd);
+        final int codeStart = skipWhitespace(b, protoEnd, end);
+        final int codeEnd = indexOfWhitespace(b, codeStart, end);
+        final int statusCode = parseNumber(b, codeStart, codeEnd);
+        if (statusCode < 0) {
+            throw new ParseException("Status line contains invalid status code: " +
+                    toString(b, 0, buffer.length()));
+        }
+        final int reasonStart = skipWhitespace(b, codeEnd, end);
+        final StatusLine standard = CanonicalLines.statusLine(ver, statusCode);
+        if (standard != null) {
+            final String reason = standard.getReasonPhrase();
+            if (reason.length() == end - reasonStart
+                    && CanonicalLines.regionMatches(reason, b, reasonStart)) {
+                return standard;
+            }
+        }
+        return new BasicStatusLine(ver, statusCode, toString(b, reasonStart, end));
+    }
+
+    /**
+     * Parses a header line. Continuation lines are expected to have been
+     * unfolded.
+     *
+     * @param buffer the buffer containing the header line without the line
+     *  delimiter.
+     * @return the header
+     * @throws ParseException in case of a parse error
+     */
+    public Header parseHeader(final ByteArrayBuffer buffer) throws ParseException {
+        Args.notNull(buffer, "Byte array buffer");
+        final byte[] b = buffer.buffer();
+        final int len = buffer.length();
+        int colon = -1;
+        for (int i = 0; i < len; i++) {
+            if (b[i] == ':') {
+                colon = i;
+                break;
+            }
+        }
+        final int nameStart = skipWhitespace(b, 0, colon);
+        final int nameEnd = trimTrailing(b, nameStart, colon);
+        if (nameEnd <= nameStart) {
+            throw new ParseException("Invalid header: " + toString(b, 0, len));
+        }
+        final String canonical = IndexedHeaderList.canonicalName(b, nameStart, nameEnd);
+        final String name = canonical != null ? canonical : toString(b, nameStart, nameEnd);
+        final int valueEnd = trimTrailing(b, colon + 1, len);
+        final String value = toString(b, skipWhitespace(b, colon + 1, valueEnd), valueEnd);
+        return new BasicHeader(name, value);
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static int skipWhitespace(final byte[] b, final int beginIndex, final int endIndex) {
+        int i = beginIndex;
+        while (i < endIndex && isWhitespace(b[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int indexOfWhitespace(final byte[] b, final int beginIndex, final int endIndex) {
+        int i = beginIndex;
+        while (i < endIndex && !isWhitespace(b[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int trimTrailing(final byte[] b, final int beginIndex, final int endIndex) {
+        int i = endIndex;
+        while (i > beginIndex && isWhitespace(b[i - 1])) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Parses a non-negative decimal number. Returns <code>-1</code> if the
+     * region is empty, contains a non-digit or the number is too large.
+     */
+    private static int parseNumber(final byte[] b, final int beginIndex, final int endIndex) {
+        if (beginIndex >= endIndex || endIndex - beginIndex > 9) {
+            return -1;
+        }
+        int n = 0;
+        for (int i = beginIndex; i < endIndex; i++) {
+            final int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            n = n * 10 + digit;
+        }
+        return n;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String toString(final byte[] b, final int beginIndex, final int endIndex) {
+        final int len = endIndex - beginIndex;
+        if (len <= 0) {
+            return "";
+        }
+        // Widens each byte to a char without an intermediate char array
+        return new String(b, 0, beginIndex, len);
+    }
+
+}
@@ -284,7 +284,11 @@ public class BasicLineFormatter implements LineFormatter {
         Args.notNull(header, "Header");
         final CharArrayBuffer result;
 
-        if (header instanceof FormattedHeader) {
+        if (header instanceof BufferedHeaderView) {
+            // If the header is backed by a shared buffer, copy the line verbatim
+            result = initBuffer(buffer);
+            ((BufferedHeaderView) header).formatTo(result);
+        } else if (header instanceof FormattedHeader) {
             // If the header is backed by a buffer, re-use the buffer
             result = ((FormattedHeader)header).getBuffer();
         } else {
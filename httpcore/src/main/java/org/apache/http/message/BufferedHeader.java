@@ -33,6 +33,7 @@ import org.apache.http.FormattedHeader;
 import org.apache.http.HeaderElement;
 import org.apache.http.ParseException;
 import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.protocol.HTTP;
 import org.apache.http.util.Args;
 import org.apache.http.util.CharArrayBuffer;
 
@@ -48,9 +49,9 @@ public class BufferedHeader implements FormattedHeader, Cloneable, Serializable
     private static final long serialVersionUID = -2768352615787625448L;
 
     /**
-     * Header name.
+     * Header name. Materialized on demand.
      */
-    private final String name;
+    private String name;
 
     /**
      * The buffer containing the entire header line.
@@ -65,8 +66,8 @@ public class BufferedHeader implements FormattedHeader, Cloneable, Serializable
 
     /**
      * Creates a new header from a buffer.
-     * The name of the header will be parsed immediately,
-     * the value only if it is accessed.
+     * The header line will be validated immediately, the name and
+     * the value of the header will be parsed only if accessed.
      *
      * @param buffer    the buffer containing the header to represent
      *
@@ -82,18 +83,27 @@ public class BufferedHeader implements FormattedHeader, Cloneable, Serializable
             throw new ParseException
                 ("Invalid header: " + buffer.toString());
         }
-        final String s = buffer.substringTrimmed(0, colon);
-        if (s.length() == 0) {
+        if (isBlank(buffer, 0, colon)) {
             throw new ParseException
                 ("Invalid header: " + buffer.toString());
         }
         this.buffer = buffer;
-        this.name = s;
         this.valuePos = colon + 1;
     }
 
+    static boolean isBlank(final CharArrayBuffer buffer, final int beginIndex, final int endIndex) {
+        for (int i = beginIndex; i < endIndex; i++) {
+            if (!HTTP.isWhitespace(buffer.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
 
     public String getName() {
+        if (this.name == null) {
+            this.name = this.buffer.substringTrimmed(0, this.valuePos - 1);
+        }
         return this.name;
     }
 
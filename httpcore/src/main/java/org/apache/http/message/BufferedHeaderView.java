@@ -0,0 +1,183 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+import org.apache.http.FormattedHeader;
+import org.apache.http.HeaderElement;
+import org.apache.http.ParseException;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.Args;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * This class represents a raw HTTP header backed by a region of a buffer
+ * that can be shared with other headers, usually the entire header block of
+ * a message. Neither the name nor the value of the header are materialized
+ * until accessed. Header elements are parsed directly from the shared buffer.
+ * <p>
+ * The content of the shared buffer is expected to remain unchanged for
+ * as long as the header is in use.
+ *
+ * @see LazyHeaderLineParser
+ * @see HeaderBlock
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class BufferedHeaderView implements FormattedHeader, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -4137393016232542390L;
+
+    private final CharArrayBuffer buffer;
+    private final int beginIndex;
+    private final int endIndex;
+    private final int colon;
+
+    private String name;
+    private String value;
+    private CharArrayBuffer line;
+
+    /**
+     * Creates a new header from a region of the given buffer. The header line
+     * will be validated immediately, the name and the value of the header will
+     * be parsed only if accessed.
+     *
+     * @param buffer the buffer containing the header line
+     * @param beginIndex the beginning index of the header line, inclusive.
+     * @param endIndex the ending index of the header line, exclusive.
+     *
+     * @throws ParseException in case of a parse error
+     */
+    public BufferedHeaderView(
+            final CharArrayBuffer buffer,
+            final int beginIndex,
+            final int endIndex) throws ParseException {
+        super();
+        Args.notNull(buffer, "Char array buffer");
+        if (beginIndex < 0 || endIndex > buffer.length() || beginIndex > endIndex) {
+            throw new IndexOutOfBoundsException("Invalid header line bounds [" + beginIndex +
+                    ", " + endIndex + "); buffer length: " + buffer.length());
+        }
+        final int colon = buffer.indexOf(':', beginIndex, endIndex);
+        if (colon == -1 || BufferedHeader.isBlank(buffer, beginIndex, colon)) {
+            throw new ParseException
+                ("Invalid header: " + buffer.substring(beginIndex, endIndex));
+        }
+        this.buffer = buffer;
+        this.beginIndex = beginIndex;
+        this.endIndex = endIndex;
+        this.colon = colon;
+    }
+
+    public String getName() {
+        if (this.name == null) {
+            int begin = this.beginIndex;
+            int end = this.colon;
+            while (begin < end && HTTP.isWhitespace(this.buffer.charAt(begin))) {
+                begin++;
+            }
+            while (end > begin && HTTP.isWhitespace(this.buffer.charAt(end - 1))) {
+                end--;
+            }
+            final String canonical = IndexedHeaderList.canonicalName(this.buffer, begin, end);
+            this.name = canonical != null ? canonical : this.buffer.substring(begin, end);
+        }
+        return this.name;
+    }
+
+    public String getValue() {
+        if (this.value == null) {
+            this.value = this.buffer.substringTrimmed(this.colon + 1, this.endIndex);
+        }
+        return this.value;
+    }
+
+    public HeaderElement[] getElements() throws ParseException {
+        final ParserCursor cursor = new ParserCursor(this.beginIndex, this.endIndex);
+        cursor.updatePos(this.colon + 1);
+        return BasicHeaderValueParser.INSTANCE.parseElements(this.buffer, cursor);
+    }
+
+    /**
+     * Returns a buffer containing only this header line. The buffer gets
+     * copied from the shared buffer upon the first invocation of this method.
+     */
+    public CharArrayBuffer getBuffer() {
+        if (this.line == null) {
+            final CharArrayBuffer copy = new CharArrayBuffer(this.endIndex - this.beginIndex);
+            copy.append(this.buffer, this.beginIndex, this.endIndex - this.beginIndex);
+            this.line = copy;
+        }
+        return this.line;
+    }
+
+    /**
+     * Returns the position of the header value relative to the buffer
+     * returned by {@link #getBuffer()}.
+     */
+    public int getValuePos() {
+        return this.colon + 1 - this.beginIndex;
+    }
+
+    /**
+     * Appends the header line verbatim to the given buffer.
+     *
+     * @param dst the buffer to append the header line to.
+     */
+    public void formatTo(final CharArrayBuffer dst) {
+        Args.notNull(dst, "Char array buffer");
+        dst.append(this.buffer, this.beginIndex, this.endIndex - this.beginIndex);
+    }
+
+    @Override
+    public String toString() {
+        return this.buffer.substring(this.beginIndex, this.endIndex);
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        // shared buffer is considered immutable
+        // no need to make a copy of it
+        return super.clone();
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        // Do not serialize content of other headers in the shared buffer
+        try {
+            return new BufferedHeader(getBuffer());
+        } catch (final ParseException ex) {
+            // Cannot happen: the header line has already been validated
+            throw new IllegalStateException(ex.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.ParseException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.RequestLine;
+import org.apache.http.StatusLine;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.Args;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * Line parser that returns shared immutable instances where possible instead
+ * of allocating new objects for every message. HTTP/1.0 and HTTP/1.1 protocol
+ * versions, common request methods and status lines with the standard reason
+ * phrase of their status code are represented by shared constants.
+ * <p>
+ * Well-formed request and status lines are recognized without intermediate
+ * string allocation. Any other input is parsed by {@link BasicLineParser}.
+ *
+ * @since 4.3
+ */
+@Immutable
+public class CanonicalLineParser extends BasicLineParser {
+
+    public final static CanonicalLineParser INSTANCE = new CanonicalLineParser();
+
+    private final boolean http;
+
+    /**
+     * Creates a new line parser for the given HTTP-like protocol.
+     *
+     * @param proto     a version of the protocol to parse, or
+     *                  <code>null</code> for HTTP. The actual version
+     *                  is not relevant, only the protocol name.
+     */
+    public CanonicalLineParser(final ProtocolVersion proto) {
+        super(proto);
+        this.http = HttpVersion.HTTP.equals(this.protocol.getProtocol());
+    }
+
+    /**
+     * Creates a new line parser for HTTP.
+     */
+    public CanonicalLineParser() {
+        this(null);
+    }
+
+    /**
+     * Returns HTTP/1.0 or HTTP/1.1 if the buffer contains either of them at
+     * the given position, followed by a blank or the end of the region.
+     */
+    private ProtocolVersion matchVersion(final char[] b, final int pos, final int indexTo) {
+        if (!this.http || pos + 8 > indexTo || (pos + 8 < indexTo && b[pos + 8] != ' ')) {
+            return null;
+        }
+        if (b[pos] != 'H' || b[pos + 1] != 'T' || b[pos + 2] != 'T' || b[pos + 3] != 'P'
+                || b[pos + 4] != '/' || b[pos + 5] != '1' || b[pos + 6] != '.') {
+            return null;
+        }
+        switch (b[pos + 7]) {
+        case '1':
+            return HttpVersion.HTTP_1_1;
+        case '0':
+            return HttpVersion.HTTP_1_0;
+        default:
+            return null;
+        }
+    }
+
+    @Override
+    public ProtocolVersion parseProtocolVersion(
+            final CharArrayBuffer buffer,
+            final ParserCursor cursor) throws ParseException {
+        Args.notNull(buffer, "Char array buffer");
+        Args.notNull(cursor, "Parser cursor");
+        final int pos = cursor.getPos();
+        final ProtocolVersion ver = matchVersion(buffer.buffer(), pos, cursor.getUpperBound());
+        if (ver != null) {
+            cursor.updatePos(pos + 8);
+            return ver;
+        }
+        return super.parseProtocolVersion(buffer, cursor);
+    }
+
+    @Override
+    public RequestLine parseRequestLine(
+            final CharArrayBuffer buffer,
+            final ParserCursor cursor) throws ParseException {
+        Args.notNull(buffer, "Char array buffer");
+        Args.notNull(cursor, "Parser cursor");
+        final char[] b = buffer.buffer();
+        final int indexFrom = cursor.getPos();
+        final int indexTo = cursor.getUpperBound();
+        // fast path for "<method> <uri> HTTP/1.x" with single blanks
+        final int blank1 = buffer.indexOf(' ', indexFrom, indexTo);
+        final int blank2 = blank1 > indexFrom ? buffer.indexOf(' ', blank1 + 1, indexTo) : -1;
+        if (blank2 > blank1 + 1 && blank2 + 9 == indexTo
+                && !HTTP.isWhitespace(b[indexFrom]) && !HTTP.isWhitespace(b[blank1 - 1])
+                && !HTTP.isWhitespace(b[blank1 + 1]) && !HTTP.isWhitespace(b[blank2 - 1])) {
+            final ProtocolVersion ver = matchVersion(b, blank2 + 1, indexTo);
+            if (ver != null) {
+                String method = CanonicalLines.method(buffer, indexFrom, blank1);
+                if (method == null) {
+                    method = buffer.substring(indexFrom, blank1);
+                }
+                final String uri = buffer.substring(blank1 + 1, blank2);
+                cursor.updatePos(indexTo);
+                return createRequestLine(method, uri, ver);
+            }
+        }
+        return super.parseRequestLine(buffer, cursor);
+    }
+
+    @Override
+    public StatusLine parseStatusLine(
+            final CharArrayBuffer buffer,
+            final ParserCursor cursor) throws ParseException {
+        Args.notNull(buffer, "Char array buffer");
+        Args.notNull(cursor, "Parser cursor");
+        final char[] b = buffer.buffer();
+        final int indexFrom = cursor.getPos();
+        final int indexTo = cursor.getUpperBound();
+        // fast path for "HTTP/1.x <3 digit code>[ <reason>]"
+        final ProtocolVersion ver = matchVersion(b, indexFrom, indexTo);
+        final int i = indexFrom + 9;
+        if (ver != null && i + 3 <= indexTo && (i + 3 == indexTo || b[i + 3] == ' ')
+                && isDigit(b[i]) && isDigit(b[i + 1]) && isDigit(b[i + 2])) {
+            final int statusCode = (b[i] - '0') * 100 + (b[i + 1] - '0') * 10 + (b[i + 2] - '0');
+            int reasonFrom = i + 3;
+            int reasonTo = indexTo;
+            while (reasonFrom < reasonTo && HTTP.isWhitespace(b[reasonFrom])) {
+                reasonFrom++;
+            }
+            while (reasonTo > reasonFrom && HTTP.isWhitespace(b[reasonTo - 1])) {
+                reasonTo--;
+            }
+            cursor.updatePos(indexTo);
+            final StatusLine standard = CanonicalLines.statusLine(ver, statusCode);
+            if (standard != null) {
+                final String reason = standard.getReasonPhrase();
+                if (reason.length() == reasonTo - reasonFrom
+                        && CanonicalLines.regionMatches(reason, b, reasonFrom)) {
+                    return standard;
+                }
+            }
+            return createStatusLine(ver, statusCode, buffer.substring(reasonFrom, reasonTo));
+        }
+        return super.parseStatusLine(buffer, cursor);
+    }
+
+    private static boolean isDigit(final char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    @Override
+    protected StatusLine createStatusLine(
+            final ProtocolVersion ver,
+            final int status,
+            final String reason) {
+        final StatusLine standard = CanonicalLines.statusLine(ver, status);
+        if (standard != null && standard.getReasonPhrase().equals(reason)) {
+            return standard;
+        }
+        return super.createStatusLine(ver, status, reason);
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * Shared immutable instances of common request methods and of HTTP/1.0 and
+ * HTTP/1.1 status lines with standard reason phrases.
+ */
+@Immutable
+final class CanonicalLines {
+
+    private static final String[] METHODS = {
+        "GET", "POST", "PUT", "HEAD", "DELETE", "OPTIONS", "TRACE", "CONNECT", "PATCH"
+    };
+
+    private static final int MIN_CODE = 100;
+    private static final int MAX_CODE = 599;
+
+    private static final StatusLine[] HTTP_1_0 = createStatusLines(HttpVersion.HTTP_1_0);
+    private static final StatusLine[] HTTP_1_1 = createStatusLines(HttpVersion.HTTP_1_1);
+
+    private CanonicalLines() {
+    }
+
+    private static StatusLine[] createStatusLines(final ProtocolVersion ver) {
+        final StatusLine[] lines = new StatusLine[MAX_CODE - MIN_CODE + 1];
+        for (int code = MIN_CODE; code <= MAX_CODE; code++) {
+            final String reason = EnglishReasonPhraseCatalog.INSTANCE.getReason(code, null);
+            if (reason != null) {
+                lines[code - MIN_CODE] = new BasicStatusLine(ver, code, reason);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the shared status line with the standard reason phrase for
+     * the given version and status code or <code>null</code> if there is
+     * none.
+     */
+    static StatusLine statusLine(final ProtocolVersion ver, final int code) {
+        if (code < MIN_CODE || code > MAX_CODE) {
+            return null;
+        }
+        if (ver == HttpVersion.HTTP_1_1) {
+            return HTTP_1_1[code - MIN_CODE];
+        } else if (ver == HttpVersion.HTTP_1_0) {
+            return HTTP_1_0[code - MIN_CODE];
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the shared method name equal to the given region of the buffer
+     * or <code>null</code> if the method is not a common one.
+     */
+    static String method(final CharArrayBuffer buffer, final int beginIndex, final int endIndex) {
+        final char[] b = buffer.buffer();
+        final int len = endIndex - beginIndex;
+        for (final String method : METHODS) {
+            if (method.length() == len && regionMatches(method, b, beginIndex)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the shared method name equal to the given region of the byte
+     * array or <code>null</code> if the method is not a common one.
+     */
+    static String method(final byte[] b, final int beginIndex, final int endIndex) {
+        final int len = endIndex - beginIndex;
+        for (final String method : METHODS) {
+            if (method.length() == len && regionMatches(method, b, beginIndex)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    static boolean regionMatches(final String s, final char[] b, final int beginIndex) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != b[beginIndex + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean regionMatches(final String s, final byte[] b, final int beginIndex) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != b[beginIndex + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
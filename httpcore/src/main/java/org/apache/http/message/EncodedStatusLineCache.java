@@ -0,0 +1,129 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import java.util.Arrays;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.util.Args;
+
+/**
+ * Cache of HTTP/1.0 and HTTP/1.1 status lines in US-ASCII encoded form as
+ * produced by {@link BasicLineFormatter}. Only status lines with the
+ * standard reason phrase of {@link EnglishReasonPhraseCatalog} are cached,
+ * so the content of the cache does not depend on the order of lookups.
+ * <p>
+ * The cache is populated lazily. Concurrent lookups can race to populate
+ * the same slot, which is harmless as cache entries are immutable.
+ *
+ * @since 4.3
+ */
+@ThreadSafe
+public final class EncodedStatusLineCache {
+
+    private static final int MIN_CODE = 100;
+    private static final int MAX_CODE = 599;
+
+    private static final Entry[] HTTP_1_0 = new Entry[MAX_CODE - MIN_CODE + 1];
+    private static final Entry[] HTTP_1_1 = new Entry[MAX_CODE - MIN_CODE + 1];
+
+    static final class Entry {
+
+        final String reason;
+        final byte[] encoded;
+
+        Entry(final String reason, final byte[] encoded) {
+            super();
+            this.reason = reason;
+            this.encoded = encoded;
+        }
+
+    }
+
+    private EncodedStatusLineCache() {
+    }
+
+    /**
+     * Returns the status line including the line delimiter encoded as
+     * US-ASCII or <code>null</code> if the status line is not cacheable.
+     * Status lines are cacheable if their protocol version is HTTP/1.0 or
+     * HTTP/1.1 and their reason phrase is the standard one for the status
+     * code.
+     * The returned array is shared and must not be modified.
+     *
+     * @param statusline the status line.
+     * @return the encoded status line or <code>null</code>.
+     */
+    public static byte[] lookup(final StatusLine statusline) {
+        Args.notNull(statusline, "Status line");
+        final int code = statusline.getStatusCode();
+        if (code < MIN_CODE || code > MAX_CODE) {
+            return null;
+        }
+        final ProtocolVersion ver = statusline.getProtocolVersion();
+        final Entry[] table;
+        if (HttpVersion.HTTP_1_1.equals(ver)) {
+            table = HTTP_1_1;
+        } else if (HttpVersion.HTTP_1_0.equals(ver)) {
+            table = HTTP_1_0;
+        } else {
+            return null;
+        }
+        final String reason = statusline.getReasonPhrase();
+        if (reason == null) {
+            return null;
+        }
+        final int i = code - MIN_CODE;
+        final Entry entry = table[i];
+        if (entry != null) {
+            return reason.equals(entry.reason) ? entry.encoded : null;
+        }
+        if (!reason.equals(EnglishReasonPhraseCatalog.INSTANCE.getReason(code, null))) {
+            return null;
+        }
+        final byte[] encoded = PreEncodedHeader.encodeLine(
+                BasicLineFormatter.INSTANCE.formatStatusLine(null, statusline));
+        if (encoded != null) {
+            table[i] = new Entry(reason, encoded);
+        }
+        return encoded;
+    }
+
+    /**
+     * Discards all cached status lines. Intended for unit tests.
+     */
+    static void clear() {
+        Arrays.fill(HTTP_1_0, null);
+        Arrays.fill(HTTP_1_1, null);
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.Header;
+import org.apache.http.MessageConstraintException;
+import org.apache.http.ParseException;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.util.Args;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * Collects header lines of a message in one buffer. Message parsers append
+ * each line received from the session buffer to the {@link #getBuffer()
+ * shared buffer} and then call {@link #lineComplete(int, int)}, which unfolds
+ * continuation lines and keeps track of the line boundaries.
+ * <p>
+ * Headers produced by {@link #toHeaders(LineParser)} may reference the
+ * shared buffer, therefore a new buffer is allocated upon {@link #reset()}
+ * rather than cleared.
+ *
+ * @see LazyHeaderLineParser
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class HeaderBlock {
+
+    private final int initialCapacity;
+
+    private CharArrayBuffer buffer;
+    private int[] lineStarts;
+    private int lineCount;
+
+    public HeaderBlock(final int initialCapacity) {
+        super();
+        this.initialCapacity = Args.positive(initialCapacity, "Initial capacity");
+        this.lineStarts = new int[16];
+        this.buffer = new CharArrayBuffer(initialCapacity);
+    }
+
+    public HeaderBlock() {
+        this(512);
+    }
+
+    /**
+     * Returns the buffer the header lines are to be appended to.
+     */
+    public CharArrayBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Returns the number of header lines collected so far.
+     */
+    public int getLineCount() {
+        return this.lineCount;
+    }
+
+    /**
+     * Completes a line appended to the buffer at the given position. Folded
+     * continuation lines are merged with the previous line.
+     *
+     * @param start position in the buffer at which the line begins.
+     * @param maxLineLen maximum length of a header line, including its
+     *  continuation lines. Setting this parameter to a negative value or zero
+     *  will disable the check.
+     * @return <code>false</code> if the line is empty and therefore marks
+     *  the end of the header block, <code>true</code> otherwise.
+     * @throws MessageConstraintException if the line is too long.
+     */
+    public boolean lineComplete(final int start, final int maxLineLen) throws MessageConstraintException {
+        final int end = this.buffer.length();
+        if (end == start) {
+            return false;
+        }
+        final char first = this.buffer.charAt(start);
+        if ((first == ' ' || first == '\t') && this.lineCount > 0) {
+            // Continuation of the previous line: replace leading LWS with a single space
+            int i = start;
+            while (i < end) {
+                final char ch = this.buffer.charAt(i);
+                if (ch != ' ' && ch != '\t') {
+                    break;
+                }
+                i++;
+            }
+            final int prevStart = this.lineStarts[this.lineCount - 1];
+            final int len = end - i;
+            if (maxLineLen > 0 && start - prevStart + 1 + len > maxLineLen) {
+                throw new MessageConstraintException("Maximum line length limit exceeded");
+            }
+            final char[] chars = this.buffer.buffer();
+            chars[start] = ' ';
+            System.arraycopy(chars, i, chars, start + 1, len);
+            this.buffer.setLength(start + 1 + len);
+        } else {
+            if (maxLineLen > 0 && end - start > maxLineLen) {
+                throw new MessageConstraintException("Maximum line length limit exceeded");
+            }
+            if (this.lineCount == this.lineStarts.length) {
+                final int[] newLineStarts = new int[this.lineCount << 1];
+                System.arraycopy(this.lineStarts, 0, newLineStarts, 0, this.lineCount);
+                this.lineStarts = newLineStarts;
+            }
+            this.lineStarts[this.lineCount++] = start;
+        }
+        return true;
+    }
+
+    /**
+     * Produces headers from the collected header lines. If the given parser is
+     * a {@link LazyHeaderLineParser} the headers reference the shared buffer,
+     * otherwise each line is copied to a buffer of its own and passed to
+     * {@link LineParser#parseHeader(CharArrayBuffer)}.
+     *
+     * @param parser the line parser.
+     * @return the headers.
+     * @throws ParseException in case of a parse error.
+     */
+    public Header[] toHeaders(final LineParser parser) throws ParseException {
+        Args.notNull(parser, "Line parser");
+        final Header[] headers = new Header[this.lineCount];
+        for (int i = 0; i < this.lineCount; i++) {
+            final int beginIndex = this.lineStarts[i];
+            final int endIndex = i + 1 < this.lineCount ? this.lineStarts[i + 1] : this.buffer.length();
+            if (parser instanceof LazyHeaderLineParser) {
+                headers[i] = ((LazyHeaderLineParser) parser).parseHeader(this.buffer, beginIndex, endIndex);
+            } else {
+                final CharArrayBuffer line = new CharArrayBuffer(endIndex - beginIndex);
+                line.append(this.buffer, beginIndex, endIndex - beginIndex);
+                headers[i] = parser.parseHeader(line);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Discards the collected header lines. Headers produced earlier remain
+     * valid as a new shared buffer is allocated.
+     */
+    public void reset() {
+        if (this.lineCount > 0 || this.buffer.length() > 0) {
+            this.buffer = new CharArrayBuffer(this.initialCapacity);
+            this.lineCount = 0;
+        }
+    }
+
+}
@@ -0,0 +1,440 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.FormattedHeader;
+import org.apache.http.Header;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.Args;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * Reusable cursor over the elements of a header value and over the
+ * parameters of each element. The cursor scans the characters of the
+ * value in place and only keeps track of the boundaries of the current
+ * element and parameter, so visiting elements does not allocate.
+ * Names and values are materialized as strings only when explicitly
+ * requested.
+ * <p>
+ * The cursor recognizes the same syntax as {@link BasicHeaderValueParser}:
+ * elements are separated by commas, parameters of an element are separated
+ * by semicolons, and values may be quoted.
+ * <pre>
+ * cursor.reset(header);
+ * while (cursor.nextElement()) {
+ *     if (cursor.nameEqualsIgnoreCase("gzip")) {
+ *         while (cursor.nextParameter()) {
+ *             ...
+ *         }
+ *     }
+ * }
+ * </pre>
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+public class HeaderElementCursor {
+
+    private static final char PARAM_DELIMITER = ';';
+    private static final char ELEM_DELIMITER  = ',';
+
+    private CharArrayBuffer buffer;
+    private String string;
+    private int pos;
+    private int upperBound;
+
+    private int nameFrom;
+    private int nameTo;
+    private int valueFrom;
+    private int valueTo;
+    private boolean element;
+    private boolean elementParams;
+
+    private int paramNameFrom;
+    private int paramNameTo;
+    private int paramValueFrom;
+    private int paramValueTo;
+    private boolean param;
+
+    // true if the current element has parameters that have not been visited
+    private boolean paramsPending;
+    private boolean firstParam;
+
+    // boundaries of the last name-value pair scanned
+    private int scanNameFrom;
+    private int scanNameTo;
+    private int scanValueFrom;
+    private int scanValueTo;
+
+    public HeaderElementCursor() {
+        super();
+    }
+
+    /**
+     * Resets the cursor to the value of the given header. The buffer of a
+     * {@link FormattedHeader} is scanned in place, as is the value string of
+     * any other header.
+     *
+     * @param header the header.
+     */
+    public void reset(final Header header) {
+        Args.notNull(header, "Header");
+        if (header instanceof FormattedHeader) {
+            final FormattedHeader formatted = (FormattedHeader) header;
+            final CharArrayBuffer buf = formatted.getBuffer();
+            reset(buf, formatted.getValuePos(), buf.length());
+        } else {
+            final String value = header.getValue();
+            this.buffer = null;
+            this.string = value;
+            init(0, value != null ? value.length() : 0);
+        }
+    }
+
+    /**
+     * Resets the cursor to a region of the given buffer.
+     *
+     * @param buffer the buffer.
+     * @param beginIndex the beginning index of the region, inclusive.
+     * @param endIndex the ending index of the region, exclusive.
+     */
+    public void reset(final CharArrayBuffer buffer, final int beginIndex, final int endIndex) {
+        Args.notNull(buffer, "Char array buffer");
+        this.buffer = buffer;
+        this.string = null;
+        init(beginIndex, endIndex);
+    }
+
+    private void init(final int beginIndex, final int endIndex) {
+        this.pos = beginIndex;
+        this.upperBound = endIndex;
+        this.element = false;
+        this.param = false;
+        this.paramsPending = false;
+    }
+
+    /**
+     * Advances the cursor to the next element. Empty elements are skipped.
+     *
+     * @return <code>true</code> if there is a next element,
+     *   <code>false</code> otherwise.
+     */
+    public boolean nextElement() {
+        while (nextParameter()) {
+            // skip remaining parameters of the current element
+        }
+        while (this.pos < this.upperBound) {
+            final char delimiter = scanNameValuePair();
+            this.nameFrom = this.scanNameFrom;
+            this.nameTo = this.scanNameTo;
+            this.valueFrom = this.scanValueFrom;
+            this.valueTo = this.scanValueTo;
+            this.paramsPending = delimiter == PARAM_DELIMITER && this.pos < this.upperBound;
+            this.elementParams = this.paramsPending;
+            this.firstParam = true;
+            this.param = false;
+            if (this.nameFrom == this.nameTo && this.valueFrom < 0) {
+                while (nextParameter()) {
+                    // an empty element is skipped with its parameters
+                }
+                continue;
+            }
+            this.element = true;
+            return true;
+        }
+        this.element = false;
+        return false;
+    }
+
+    /**
+     * Advances the cursor to the next parameter of the current element.
+     *
+     * @return <code>true</code> if there is a next parameter,
+     *   <code>false</code> otherwise.
+     */
+    public boolean nextParameter() {
+        if (!this.paramsPending) {
+            this.param = false;
+            return false;
+        }
+        if (this.firstParam) {
+            this.firstParam = false;
+            while (this.pos < this.upperBound && HTTP.isWhitespace(charAt(this.pos))) {
+                this.pos++;
+            }
+            if (this.pos >= this.upperBound) {
+                this.paramsPending = false;
+                this.param = false;
+                return false;
+            }
+        }
+        final char delimiter = scanNameValuePair();
+        this.paramNameFrom = this.scanNameFrom;
+        this.paramNameTo = this.scanNameTo;
+        this.paramValueFrom = this.scanValueFrom;
+        this.paramValueTo = this.scanValueTo;
+        this.paramsPending = delimiter == PARAM_DELIMITER && this.pos < this.upperBound;
+        this.param = true;
+        return true;
+    }
+
+    /**
+     * Scans a name-value pair starting at the current position and returns
+     * the delimiter that terminated it or <code>0</code> at the end of the
+     * region.
+     */
+    private char scanNameValuePair() {
+        final int indexTo = this.upperBound;
+        int p = this.pos;
+        final int from = p;
+        char delimiter = 0;
+        while (p < indexTo) {
+            final char ch = charAt(p);
+            if (ch == '=') {
+                break;
+            }
+            if (ch == PARAM_DELIMITER || ch == ELEM_DELIMITER) {
+                delimiter = ch;
+                break;
+            }
+            p++;
+        }
+        int i1 = from;
+        int i2 = p;
+        while (i1 < i2 && HTTP.isWhitespace(charAt(i1))) {
+            i1++;
+        }
+        while (i2 > i1 && HTTP.isWhitespace(charAt(i2 - 1))) {
+            i2--;
+        }
+        this.scanNameFrom = i1;
+        this.scanNameTo = i2;
+        if (p == indexTo || delimiter != 0) {
+            this.scanValueFrom = -1;
+            this.scanValueTo = -1;
+            this.pos = p < indexTo ? p + 1 : p;
+            return delimiter;
+        }
+        // skip '='
+        p++;
+        i1 = p;
+        boolean quoted = false;
+        boolean escaped = false;
+        while (p < indexTo) {
+            final char ch = charAt(p);
+            if (ch == '"' && !escaped) {
+                quoted = !quoted;
+            }
+            if (!quoted && !escaped && (ch == PARAM_DELIMITER || ch == ELEM_DELIMITER)) {
+                delimiter = ch;
+                break;
+            }
+            if (escaped) {
+                escaped = false;
+            } else {
+                escaped = quoted && ch == '\\';
+            }
+            p++;
+        }
+        i2 = p;
+        while (i1 < i2 && HTTP.isWhitespace(charAt(i1))) {
+            i1++;
+        }
+        while (i2 > i1 && HTTP.isWhitespace(charAt(i2 - 1))) {
+            i2--;
+        }
+        if (i2 - i1 >= 2 && charAt(i1) == '"' && charAt(i2 - 1) == '"') {
+            i1++;
+            i2--;
+        }
+        this.scanValueFrom = i1;
+        this.scanValueTo = i2;
+        this.pos = delimiter != 0 ? p + 1 : p;
+        return delimiter;
+    }
+
+    private char charAt(final int i) {
+        return this.buffer != null ? this.buffer.charAt(i) : this.string.charAt(i);
+    }
+
+    private String substring(final int from, final int to) {
+        return this.buffer != null ? this.buffer.substring(from, to) : this.string.substring(from, to);
+    }
+
+    private void assertElement() {
+        if (!this.element) {
+            throw new IllegalStateException("No current element");
+        }
+    }
+
+    private void assertParameter() {
+        if (!this.param) {
+            throw new IllegalStateException("No current parameter");
+        }
+    }
+
+    private boolean regionEquals(final int from, final int to, final String s) {
+        final int len = to - from;
+        if (s.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (charAt(from + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionEqualsIgnoreCase(final int from, final int to, final String s) {
+        final int len = to - from;
+        if (s.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            final char ch1 = charAt(from + i);
+            final char ch2 = s.charAt(i);
+            if (ch1 != ch2
+                    && Character.toUpperCase(ch1) != Character.toUpperCase(ch2)
+                    && Character.toLowerCase(ch1) != Character.toLowerCase(ch2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the name of the current element.
+     */
+    public String getName() {
+        assertElement();
+        return substring(this.nameFrom, this.nameTo);
+    }
+
+    /**
+     * Tests if the name of the current element equals the given string.
+     */
+    public boolean nameEquals(final String name) {
+        assertElement();
+        return regionEquals(this.nameFrom, this.nameTo, name);
+    }
+
+    /**
+     * Tests if the name of the current element equals the given string
+     * ignoring case.
+     */
+    public boolean nameEqualsIgnoreCase(final String name) {
+        assertElement();
+        return regionEqualsIgnoreCase(this.nameFrom, this.nameTo, name);
+    }
+
+    /**
+     * Tests if the current element is a single token, that is, a name
+     * consisting of token characters only without value and parameters,
+     * as found in headers such as <code>Connection</code>.
+     */
+    public boolean isToken() {
+        assertElement();
+        if (this.valueFrom >= 0 || this.elementParams || this.nameFrom == this.nameTo) {
+            return false;
+        }
+        for (int i = this.nameFrom; i < this.nameTo; i++) {
+            final char ch = charAt(i);
+            if (!Character.isLetterOrDigit(ch)
+                    && (Character.isISOControl(ch)
+                            || BasicTokenIterator.HTTP_SEPARATORS.indexOf(ch) >= 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tests if the current element has a value.
+     */
+    public boolean hasValue() {
+        assertElement();
+        return this.valueFrom >= 0;
+    }
+
+    /**
+     * Returns the value of the current element or <code>null</code> if the
+     * element has no value.
+     */
+    public String getValue() {
+        assertElement();
+        return this.valueFrom >= 0 ? substring(this.valueFrom, this.valueTo) : null;
+    }
+
+    /**
+     * Returns the name of the current parameter.
+     */
+    public String getParameterName() {
+        assertParameter();
+        return substring(this.paramNameFrom, this.paramNameTo);
+    }
+
+    /**
+     * Tests if the name of the current parameter equals the given string
+     * ignoring case.
+     */
+    public boolean parameterNameEqualsIgnoreCase(final String name) {
+        assertParameter();
+        return regionEqualsIgnoreCase(this.paramNameFrom, this.paramNameTo, name);
+    }
+
+    /**
+     * Tests if the current parameter has a value.
+     */
+    public boolean hasParameterValue() {
+        assertParameter();
+        return this.paramValueFrom >= 0;
+    }
+
+    /**
+     * Returns the value of the current parameter or <code>null</code> if the
+     * parameter has no value.
+     */
+    public String getParameterValue() {
+        assertParameter();
+        return this.paramValueFrom >= 0
+                ? substring(this.paramValueFrom, this.paramValueTo) : null;
+    }
+
+    /**
+     * Tests if the value of the current parameter equals the given string
+     * ignoring case.
+     */
+    public boolean parameterValueEqualsIgnoreCase(final String value) {
+        assertParameter();
+        return this.paramValueFrom >= 0
+                && regionEqualsIgnoreCase(this.paramValueFrom, this.paramValueTo, value);
+    }
+
+}
@@ -27,8 +27,8 @@
 
 package org.apache.http.message;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -42,6 +42,9 @@ import org.apache.http.util.CharArrayBuffer;
  * A class for combining a set of headers.
  * This class allows for multiple headers with the same name and
  * keeps track of the order in which headers were added.
+ * <p>
+ * As of version 4.3 headers are indexed by their name, so that lookups of
+ * headers by name do not depend on the total number of headers in the group.
  *
  *
  * @since 4.0
@@ -51,6 +54,8 @@ public class HeaderGroup implements Cloneable, Serializable {
 
     private static final long serialVersionUID = 2608834160639271617L;
 
+    private static final Header[] EMPTY = new Header[0];
+
     /** The list of headers for this group, in the order in which they were added */
     private final List<Header> headers;
 
@@ -58,7 +63,11 @@ public class HeaderGroup implements Cloneable, Serializable {
      * Constructor for HeaderGroup.
      */
     public HeaderGroup() {
-        this.headers = new ArrayList<Header>(16);
+        this.headers = new IndexedHeaderList(16);
+    }
+
+    private IndexedHeaderList.Entry lookup(final String name) {
+        return ((IndexedHeaderList) this.headers).lookup(name);
     }
 
     /**
@@ -104,14 +113,25 @@ public class HeaderGroup implements Cloneable, Serializable {
         if (header == null) {
             return;
         }
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header current = this.headers.get(i);
-            if (current.getName().equalsIgnoreCase(header.getName())) {
-                this.headers.set(i, header);
-                return;
-            }
+        if (!((IndexedHeaderList) this.headers).replaceFirst(header)) {
+            this.headers.add(header);
         }
-        this.headers.add(header);
+    }
+
+    /**
+     * Removes all headers with the given name.
+     *
+     * <p>Header name comparison is case insensitive.
+     *
+     * @param name the name of the headers to remove
+     *
+     * @since 4.3
+     */
+    public void removeHeaders(final String name) {
+        if (name == null) {
+            return;
+        }
+        ((IndexedHeaderList) this.headers).removeHeaders(name);
     }
 
     /**
@@ -170,15 +190,8 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @return an array of length >= 0
      */
     public Header[] getHeaders(final String name) {
-        final List<Header> headersFound = new ArrayList<Header>();
-
-        for (final Header header : headers) {
-            if (header.getName().equalsIgnoreCase(name)) {
-                headersFound.add(header);
-            }
-        }
-
-        return headersFound.toArray(new Header[headersFound.size()]);
+        final IndexedHeaderList.Entry entry = lookup(name);
+        return entry != null ? entry.toArray() : EMPTY;
     }
 
     /**
@@ -190,12 +203,8 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @return the first header or <code>null</code>
      */
     public Header getFirstHeader(final String name) {
-        for (final Header header : headers) {
-            if (header.getName().equalsIgnoreCase(name)) {
-                return header;
-            }
-        }
-        return null;
+        final IndexedHeaderList.Entry entry = lookup(name);
+        return entry != null ? entry.first() : null;
     }
 
     /**
@@ -207,15 +216,8 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @return the last header or <code>null</code>
      */
     public Header getLastHeader(final String name) {
-        // start at the end of the list and work backwards
-        for (int i = headers.size() - 1; i >= 0; i--) {
-            final Header header = headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                return header;
-            }
-        }
-
-        return null;
+        final IndexedHeaderList.Entry entry = lookup(name);
+        return entry != null ? entry.last() : null;
     }
 
     /**
@@ -237,13 +239,7 @@ public class HeaderGroup implements Cloneable, Serializable {
      * contained, <code>false</code> otherwise
      */
     public boolean containsHeader(final String name) {
-        for (final Header header : headers) {
-            if (header.getName().equalsIgnoreCase(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return lookup(name) != null;
     }
 
     /**
@@ -294,4 +290,14 @@ public class HeaderGroup implements Cloneable, Serializable {
         return this.headers.toString();
     }
 
+    private Object readResolve() throws ObjectStreamException {
+        if (this.headers instanceof IndexedHeaderList) {
+            return this;
+        }
+        // Serialized by a version that did not index headers
+        final HeaderGroup headergroup = new HeaderGroup();
+        headergroup.headers.addAll(this.headers);
+        return headergroup;
+    }
+
 }
@@ -0,0 +1,614 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.apache.http.Header;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * List of headers that maintains a case-insensitive index of header names
+ * in addition to the insertion order of headers. For use by
+ * {@link HeaderGroup}.
+ * <p>
+ * The index is kept up to date by all mutating operations of the list
+ * including those of its iterators. Appending headers, removing headers
+ * and replacing headers with a header of the same name are reflected in
+ * the index incrementally; other operations discard the index, which gets
+ * rebuilt upon the next lookup.
+ * <p>
+ * The index also records the position of each header in the list, so that
+ * the first header with a given name can be replaced without a scan.
+ * Positions remain valid as long as headers are only appended or replaced;
+ * once a header has been removed from the middle of the list they are
+ * recomputed upon the next positional lookup.
+ * <p>
+ * Names of well known headers are represented by canonical tokens, which
+ * allows for lookups by constants such as {@link HTTP#CONTENT_LEN} to
+ * be resolved by reference comparison.
+ *
+ * @since 4.3
+ */
+@NotThreadSafe
+class IndexedHeaderList extends ArrayList<Header> {
+
+    private static final long serialVersionUID = -5403434564950484367L;
+
+    private static final String[] WELL_KNOWN_NAMES = {
+        HTTP.CONTENT_LEN,
+        HTTP.CONTENT_TYPE,
+        HTTP.CONTENT_ENCODING,
+        HTTP.TRANSFER_ENCODING,
+        HTTP.CONN_DIRECTIVE,
+        HTTP.CONN_KEEP_ALIVE,
+        HTTP.EXPECT_DIRECTIVE,
+        HTTP.TARGET_HOST,
+        HTTP.USER_AGENT,
+        HTTP.DATE_HEADER,
+        HTTP.SERVER_HEADER,
+        "Accept",
+        "Accept-Charset",
+        "Accept-Encoding",
+        "Accept-Language",
+        "Accept-Ranges",
+        "Age",
+        "Allow",
+        "Authorization",
+        "Cache-Control",
+        "Content-Language",
+        "Content-Location",
+        "Content-Range",
+        "Cookie",
+        "ETag",
+        "Expires",
+        "If-Match",
+        "If-Modified-Since",
+        "If-None-Match",
+        "If-Range",
+        "If-Unmodified-Since",
+        "Last-Modified",
+        "Location",
+        "Max-Forwards",
+        "Pragma",
+        "Proxy-Authenticate",
+        "Proxy-Authorization",
+        "Proxy-Connection",
+        "Range",
+        "Referer",
+        "Retry-After",
+        "Set-Cookie",
+        "TE",
+        "Trailer",
+        "Upgrade",
+        "Vary",
+        "Via",
+        "Warning",
+        "WWW-Authenticate"
+    };
+
+    private static final String[] CANONICAL_NAMES;
+
+    static {
+        int capacity = 1;
+        while (capacity < WELL_KNOWN_NAMES.length * 4) {
+            capacity <<= 1;
+        }
+        final String[] table = new String[capacity];
+        for (final String name : WELL_KNOWN_NAMES) {
+            int i = hash(name) & (capacity - 1);
+            while (table[i] != null) {
+                i = (i + 1) & (capacity - 1);
+            }
+            table[i] = name;
+        }
+        CANONICAL_NAMES = table;
+    }
+
+    /**
+     * Computes a case-insensitive hash code of the given header name
+     * consistent with {@link String#equalsIgnoreCase(String)}.
+     */
+    static int hash(final String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (ch >= 'A' && ch <= 'Z') {
+                ch += 'a' - 'A';
+            } else if (ch >= 0x80) {
+                ch = Character.toLowerCase(Character.toUpperCase(ch));
+            }
+            h = 31 * h + ch;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static String canonicalName(final String name, final int hash) {
+        final int mask = CANONICAL_NAMES.length - 1;
+        int i = hash & mask;
+        String candidate;
+        while ((candidate = CANONICAL_NAMES[i]) != null) {
+            if (candidate == name || candidate.equalsIgnoreCase(name)) {
+                return candidate;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the canonical token of the header name contained in the given
+     * buffer region if it represents a well known header with exactly the same
+     * case or <code>null</code> otherwise.
+     */
+    static String canonicalName(final CharArrayBuffer buffer, final int beginIndex, final int endIndex) {
+        final char[] chars = buffer.buffer();
+        int h = 0;
+        for (int i = beginIndex; i < endIndex; i++) {
+            char ch = chars[i];
+            if (ch >= 'A' && ch <= 'Z') {
+                ch += 'a' - 'A';
+            } else if (ch >= 0x80) {
+                ch = Character.toLowerCase(Character.toUpperCase(ch));
+            }
+            h = 31 * h + ch;
+        }
+        h ^= h >>> 16;
+        final int len = endIndex - beginIndex;
+        final int mask = CANONICAL_NAMES.length - 1;
+        int i = h & mask;
+        String candidate;
+        while ((candidate = CANONICAL_NAMES[i]) != null) {
+            if (candidate.length() == len) {
+                int j = 0;
+                while (j < len && candidate.charAt(j) == chars[beginIndex + j]) {
+                    j++;
+                }
+                if (j == len) {
+                    return candidate;
+                }
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the canonical token of the US-ASCII header name contained in
+     * the given byte array region if it represents a well known header with
+     * exactly the same case or <code>null</code> otherwise.
+     */
+    static String canonicalName(final byte[] b, final int beginIndex, final int endIndex) {
+        int h = 0;
+        for (int i = beginIndex; i < endIndex; i++) {
+            int ch = b[i];
+            if (ch < 0) {
+                return null;
+            }
+            if (ch >= 'A' && ch <= 'Z') {
+                ch += 'a' - 'A';
+            }
+            h = 31 * h + ch;
+        }
+        h ^= h >>> 16;
+        final int len = endIndex - beginIndex;
+        final int mask = CANONICAL_NAMES.length - 1;
+        int i = h & mask;
+        String candidate;
+        while ((candidate = CANONICAL_NAMES[i]) != null) {
+            if (candidate.length() == len) {
+                int j = 0;
+                while (j < len && candidate.charAt(j) == b[beginIndex + j]) {
+                    j++;
+                }
+                if (j == len) {
+                    return candidate;
+                }
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the canonical token of the given header name if the name
+     * represents a well known header or the name itself otherwise.
+     */
+    static String canonicalName(final String name) {
+        if (name == null) {
+            return null;
+        }
+        final String canonical = canonicalName(name, hash(name));
+        return canonical != null ? canonical : name;
+    }
+
+    /**
+     * Headers with the same name in the order of their occurrence in the list.
+     */
+    static final class Entry {
+
+        final String name;
+        final int hash;
+        Entry next;
+
+        Header[] headers;
+        int[] positions;
+        int count;
+
+        Entry(final String name, final int hash, final Entry next) {
+            super();
+            this.name = name;
+            this.hash = hash;
+            this.next = next;
+            this.headers = new Header[2];
+            this.positions = new int[2];
+        }
+
+        void add(final Header header, final int position) {
+            if (this.count == this.headers.length) {
+                final Header[] newheaders = new Header[this.count << 1];
+                System.arraycopy(this.headers, 0, newheaders, 0, this.count);
+                this.headers = newheaders;
+                final int[] newpositions = new int[this.count << 1];
+                System.arraycopy(this.positions, 0, newpositions, 0, this.count);
+                this.positions = newpositions;
+            }
+            this.headers[this.count] = header;
+            this.positions[this.count] = position;
+            this.count++;
+        }
+
+        boolean remove(final Header header) {
+            for (int i = 0; i < this.count; i++) {
+                if (this.headers[i] == header) {
+                    System.arraycopy(this.headers, i + 1, this.headers, i, this.count - i - 1);
+                    System.arraycopy(this.positions, i + 1, this.positions, i, this.count - i - 1);
+                    this.count--;
+                    this.headers[this.count] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean replace(final Header oldheader, final Header newheader) {
+            for (int i = 0; i < this.count; i++) {
+                if (this.headers[i] == oldheader) {
+                    this.headers[i] = newheader;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Header first() {
+            return this.headers[0];
+        }
+
+        Header last() {
+            return this.headers[this.count - 1];
+        }
+
+        Header[] toArray() {
+            final Header[] result = new Header[this.count];
+            System.arraycopy(this.headers, 0, result, 0, this.count);
+            return result;
+        }
+
+        boolean matches(final String name, final int hash) {
+            return this.name == name || (this.hash == hash && this.name.equalsIgnoreCase(name));
+        }
+
+    }
+
+    private transient Entry[] table;
+    private transient int entryCount;
+    private transient boolean indexed;
+    private transient boolean positioned;
+
+    IndexedHeaderList(final int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    private void discardIndex() {
+        this.indexed = false;
+    }
+
+    private void index(final Header header, final int position) {
+        final String name = header.getName();
+        if (name == null) {
+            // headers without a name cannot be looked up
+            return;
+        }
+        final int hash = hash(name);
+        final int i = hash & (this.table.length - 1);
+        for (Entry entry = this.table[i]; entry != null; entry = entry.next) {
+            if (entry.matches(name, hash)) {
+                entry.add(header, position);
+                return;
+            }
+        }
+        final String canonical = canonicalName(name, hash);
+        final Entry entry = new Entry(canonical != null ? canonical : name, hash, this.table[i]);
+        entry.add(header, position);
+        this.table[i] = entry;
+        this.entryCount++;
+        if (this.entryCount > (this.table.length >> 1) + (this.table.length >> 2)) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        final Entry[] oldtable = this.table;
+        final Entry[] newtable = new Entry[oldtable.length << 1];
+        final int mask = newtable.length - 1;
+        for (Entry entry : oldtable) {
+            while (entry != null) {
+                final Entry next = entry.next;
+                final int i = entry.hash & mask;
+                entry.next = newtable[i];
+                newtable[i] = entry;
+                entry = next;
+            }
+        }
+        this.table = newtable;
+    }
+
+    private void buildIndex() {
+        int capacity = 16;
+        while (capacity < size() * 2) {
+            capacity <<= 1;
+        }
+        if (this.table == null || this.table.length != capacity) {
+            this.table = new Entry[capacity];
+        } else {
+            for (int i = 0; i < this.table.length; i++) {
+                this.table[i] = null;
+            }
+        }
+        this.entryCount = 0;
+        for (int i = 0; i < size(); i++) {
+            index(get(i), i);
+        }
+        this.indexed = true;
+        this.positioned = true;
+    }
+
+    private void unindex(final Header header) {
+        if (header == null) {
+            return;
+        }
+        final String name = header.getName();
+        if (name == null) {
+            return;
+        }
+        final int hash = hash(name);
+        final int i = hash & (this.table.length - 1);
+        Entry prev = null;
+        for (Entry entry = this.table[i]; entry != null; entry = entry.next) {
+            if (entry.matches(name, hash)) {
+                if (!entry.remove(header)) {
+                    discardIndex();
+                } else if (entry.count == 0) {
+                    if (prev == null) {
+                        this.table[i] = entry.next;
+                    } else {
+                        prev.next = entry.next;
+                    }
+                    this.entryCount--;
+                }
+                return;
+            }
+            prev = entry;
+        }
+        discardIndex();
+    }
+
+    /**
+     * Returns headers with the given name or <code>null</code> if there
+     * are none. The returned entry must not be modified by the caller.
+     */
+    Entry lookup(final String name) {
+        if (name == null) {
+            return null;
+        }
+        if (!this.indexed) {
+            buildIndex();
+        }
+        final int hash = hash(name);
+        for (Entry entry = this.table[hash & (this.table.length - 1)]; entry != null; entry = entry.next) {
+            if (entry.matches(name, hash)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the first header with the same name as the given header.
+     *
+     * @return <code>true</code> if a header has been replaced,
+     *   <code>false</code> if there is no header with the same name.
+     */
+    boolean replaceFirst(final Header header) {
+        Entry entry = lookup(header.getName());
+        if (entry == null) {
+            return false;
+        }
+        if (!this.positioned) {
+            buildIndex();
+            entry = lookup(header.getName());
+        }
+        set(entry.positions[0], header);
+        return true;
+    }
+
+    /**
+     * Removes all headers with the given name.
+     *
+     * @return <code>true</code> if at least one header has been removed.
+     */
+    boolean removeHeaders(final String name) {
+        final Entry entry = lookup(name);
+        if (entry == null) {
+            return false;
+        }
+        int j = 0;
+        for (int i = 0; i < size(); i++) {
+            final Header header = get(i);
+            final String headername = header.getName();
+            if (headername == null || !entry.matches(headername, hash(headername))) {
+                super.set(j++, header);
+            }
+        }
+        super.removeRange(j, size());
+        unlink(entry);
+        this.positioned = false;
+        return true;
+    }
+
+    private void unlink(final Entry target) {
+        final int i = target.hash & (this.table.length - 1);
+        Entry prev = null;
+        for (Entry entry = this.table[i]; entry != null; entry = entry.next) {
+            if (entry == target) {
+                if (prev == null) {
+                    this.table[i] = entry.next;
+                } else {
+                    prev.next = entry.next;
+                }
+                this.entryCount--;
+                return;
+            }
+            prev = entry;
+        }
+    }
+
+    @Override
+    public boolean add(final Header header) {
+        super.add(header);
+        if (this.indexed && header != null) {
+            index(header, size() - 1);
+        }
+        return true;
+    }
+
+    @Override
+    public void add(final int index, final Header header) {
+        super.add(index, header);
+        discardIndex();
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends Header> c) {
+        discardIndex();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(final int index, final Collection<? extends Header> c) {
+        discardIndex();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public Header set(final int index, final Header header) {
+        final Header previous = super.set(index, header);
+        if (this.indexed) {
+            final String oldname = previous != null ? previous.getName() : null;
+            final String newname = header != null ? header.getName() : null;
+            final Entry entry = oldname != null && newname != null && oldname.equalsIgnoreCase(newname)
+                    ? lookup(oldname) : null;
+            if (entry == null || !entry.replace(previous, header)) {
+                discardIndex();
+            }
+        }
+        return previous;
+    }
+
+    @Override
+    public Header remove(final int index) {
+        final Header removed = super.remove(index);
+        if (this.indexed) {
+            unindex(removed);
+            if (index < size()) {
+                // subsequent headers have moved
+                this.positioned = false;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        final int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    protected void removeRange(final int fromIndex, final int toIndex) {
+        super.removeRange(fromIndex, toIndex);
+        discardIndex();
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        discardIndex();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        discardIndex();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        discardIndex();
+    }
+
+    @Override
+    public Object clone() {
+        final IndexedHeaderList clone = (IndexedHeaderList) super.clone();
+        // the index must not be shared
+        clone.table = null;
+        clone.entryCount = 0;
+        clone.indexed = false;
+        return clone;
+    }
+
+}
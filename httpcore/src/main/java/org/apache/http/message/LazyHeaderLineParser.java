@@ -0,0 +1,99 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.Header;
+import org.apache.http.ParseException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.util.Args;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * Line parser that represents headers as {@link BufferedHeaderView}s, which
+ * materialize their name and value only when accessed.
+ * <p>
+ * Message parsers configured with an instance of this class keep the entire
+ * header block of a message in one buffer shared by all headers of the
+ * message instead of copying each header line into a buffer of its own.
+ * Headers that are forwarded unchanged get written out verbatim by
+ * {@link BasicLineFormatter}. Request and status lines are parsed by
+ * {@link CanonicalLineParser}.
+ *
+ * @see HeaderBlock
+ *
+ * @since 4.3
+ */
+@Immutable
+public class LazyHeaderLineParser extends CanonicalLineParser {
+
+    public final static LazyHeaderLineParser INSTANCE = new LazyHeaderLineParser();
+
+    /**
+     * Creates a new line parser for the given HTTP-like protocol.
+     *
+     * @param proto     a version of the protocol to parse, or
+     *                  <code>null</code> for HTTP. The actual version
+     *                  is not relevant, only the protocol name.
+     */
+    public LazyHeaderLineParser(final ProtocolVersion proto) {
+        super(proto);
+    }
+
+    /**
+     * Creates a new line parser for HTTP.
+     */
+    public LazyHeaderLineParser() {
+        this(null);
+    }
+
+    @Override
+    public Header parseHeader(final CharArrayBuffer buffer) throws ParseException {
+        Args.notNull(buffer, "Char array buffer");
+        return parseHeader(buffer, 0, buffer.length());
+    }
+
+    /**
+     * Parses a header from a region of the given buffer, which can be shared
+     * with other headers.
+     *
+     * @param buffer the buffer containing the header line
+     * @param beginIndex the beginning index of the header line, inclusive.
+     * @param endIndex the ending index of the header line, exclusive.
+     * @return the header
+     *
+     * @throws ParseException in case of a parse error
+     */
+    public Header parseHeader(
+            final CharArrayBuffer buffer,
+            final int beginIndex,
+            final int endIndex) throws ParseException {
+        return new BufferedHeaderView(buffer, beginIndex, endIndex);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.annotation.Immutable;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * Header that retains its header line in US-ASCII encoded form. Message
+ * writers configured with {@link BasicLineFormatter} copy the encoded line
+ * directly to the session buffer instead of formatting and encoding the
+ * header for every message. Instances are meant to be created once and
+ * shared, for instance for static headers added by protocol interceptors.
+ *
+ * @since 4.3
+ */
+@Immutable
+public class PreEncodedHeader extends BasicHeader {
+
+    private static final long serialVersionUID = 2846270315472371406L;
+
+    private final byte[] encoded;
+
+    /**
+     * Constructor with name and value
+     *
+     * @param name the header name
+     * @param value the header value
+     */
+    public PreEncodedHeader(final String name, final String value) {
+        super(name, value);
+        this.encoded = encodeLine(BasicLineFormatter.INSTANCE.formatHeader(null, this));
+    }
+
+    /**
+     * Returns the header line including the line delimiter encoded as
+     * US-ASCII or <code>null</code> if the header line contains non-ASCII
+     * characters. The returned array is shared and must not be modified.
+     */
+    public byte[] getEncoded() {
+        return this.encoded;
+    }
+
+    /**
+     * Encodes the line as US-ASCII and appends CR-LF. Returns
+     * <code>null</code> if the line contains non-ASCII characters.
+     */
+    static byte[] encodeLine(final CharArrayBuffer line) {
+        final int len = line.length();
+        final byte[] b = new byte[len + 2];
+        for (int i = 0; i < len; i++) {
+            final char ch = line.charAt(i);
+            if (ch > 0x7f) {
+                return null;
+            }
+            b[i] = (byte) ch;
+        }
+        b[len] = '\r';
+        b[len + 1] = '\n';
+        return b;
+    }
+
+}
@@ -0,0 +1,625 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.pool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.util.Args;
+import org.apache.http.util.Asserts;
+
+/**
+ * Abstract synchronous (blocking) pool of connections optimized for
+ * concurrent access by a large number of threads.
+ * <p/>
+ * Unlike {@link AbstractConnPool} this pool does not serialize all operations
+ * behind a single lock. Per route state is guarded by a lock of its own,
+ * while the total number of allocated, leased and available connections is
+ * maintained by means of atomic counters. The total connection limit is
+ * enforced with a CAS based reservation, so that lease and release operations
+ * for different routes never contend with one another. New connections are
+ * created outside of any pool lock.
+ * <p/>
+ * Please note that this class does not maintain its own pool of execution {@link Thread}s.
+ * Therefore, one <b>must</b> call {@link Future#get()} or {@link Future#get(long, TimeUnit)}
+ * method on the {@link Future} object returned by the
+ * {@link #lease(Object, Object, FutureCallback)} method in order for the lease operation
+ * to complete.
+ *
+ * @param <T> the route type that represents the opposite endpoint of a pooled
+ *   connection.
+ * @param <C> the connection type.
+ * @param <E> the type of the pool entry containing a pooled connection.
+ * @since 4.3
+ */
+@ThreadSafe
+public abstract class AbstractConcurrentConnPool<T, C, E extends PoolEntry<T, C>>
+                                               implements ConnPool<T, E>, ConnPoolControl<T> {
+
+    private final ConnFactory<T, C> connFactory;
+    private final ConcurrentMap<T, RoutePool> routeToPool;
+    private final ConcurrentMap<E, Boolean> leased;
+    private final ConcurrentLinkedQueue<PoolEntryFuture<E>> pending;
+    private final ConcurrentMap<T, Integer> maxPerRoute;
+    private final AtomicInteger allocatedCount;
+    private final AtomicInteger availableCount;
+    private final AtomicInteger pendingCount;
+
+    private volatile boolean isShutDown;
+    private volatile int defaultMaxPerRoute;
+    private volatile int maxTotal;
+
+    public AbstractConcurrentConnPool(
+            final ConnFactory<T, C> connFactory,
+            final int defaultMaxPerRoute,
+            final int maxTotal) {
+        super();
+        this.connFactory = Args.notNull(connFactory, "Connection factory");
+        this.defaultMaxPerRoute = Args.notNegative(defaultMaxPerRoute, "Max per route value");
+        this.maxTotal = Args.notNegative(maxTotal, "Max total value");
+        this.routeToPool = new ConcurrentHashMap<T, RoutePool>();
+        this.leased = new ConcurrentHashMap<E, Boolean>();
+        this.pending = new ConcurrentLinkedQueue<PoolEntryFuture<E>>();
+        this.maxPerRoute = new ConcurrentHashMap<T, Integer>();
+        this.allocatedCount = new AtomicInteger(0);
+        this.availableCount = new AtomicInteger(0);
+        this.pendingCount = new AtomicInteger(0);
+    }
+
+    /**
+     * Creates a new entry for the given connection with the given route.
+     */
+    protected abstract E createEntry(T route, C conn);
+
+    public boolean isShutdown() {
+        return this.isShutDown;
+    }
+
+    /**
+     * Shuts down the pool.
+     */
+    public void shutdown() throws IOException {
+        if (this.isShutDown) {
+            return ;
+        }
+        this.isShutDown = true;
+        final List<PoolEntryFuture<E>> cancelled = new ArrayList<PoolEntryFuture<E>>();
+        for (final RoutePool routePool: this.routeToPool.values()) {
+            routePool.lock.lock();
+            try {
+                final RouteSpecificPool<T, C, E> pool = routePool.pool;
+                PoolEntryFuture<E> future;
+                while ((future = pool.nextPending()) != null) {
+                    cancelled.add(future);
+                }
+                pool.shutdown();
+            } finally {
+                routePool.lock.unlock();
+            }
+        }
+        for (final E entry: this.leased.keySet()) {
+            entry.close();
+        }
+        PoolEntryFuture<E> future;
+        while ((future = this.pending.poll()) != null) {
+            cancelled.add(future);
+        }
+        // Futures must never be signaled while holding a route lock
+        for (final PoolEntryFuture<E> cancel: cancelled) {
+            cancel.cancel(true);
+        }
+        this.routeToPool.clear();
+        this.leased.clear();
+        this.allocatedCount.set(0);
+        this.availableCount.set(0);
+        this.pendingCount.set(0);
+    }
+
+    private RoutePool getPool(final T route) {
+        RoutePool routePool = this.routeToPool.get(route);
+        if (routePool == null) {
+            final RoutePool newPool = new RoutePool(route);
+            routePool = this.routeToPool.putIfAbsent(route, newPool);
+            if (routePool == null) {
+                routePool = newPool;
+            }
+        }
+        return routePool;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Please note that this class does not maintain its own pool of execution
+     * {@link Thread}s. Therefore, one <b>must</b> call {@link Future#get()}
+     * or {@link Future#get(long, TimeUnit)} method on the {@link Future}
+     * returned by this method in order for the lease operation to complete.
+     */
+    public Future<E> lease(final T route, final Object state, final FutureCallback<E> callback) {
+        Args.notNull(route, "Route");
+        Asserts.check(!this.isShutDown, "Connection pool shut down");
+        return new PoolEntryFuture<E>(new ReentrantLock(), callback) {
+
+            @Override
+            public E getPoolEntry(
+                    final long timeout,
+                    final TimeUnit tunit)
+                        throws InterruptedException, TimeoutException, IOException {
+                return getPoolEntryBlocking(route, state, timeout, tunit, this);
+            }
+
+        };
+    }
+
+    /**
+     * Attempts to lease a connection for the given route and with the given
+     * state from the pool.
+     * <p/>
+     * Please note that this class does not maintain its own pool of execution
+     * {@link Thread}s. Therefore, one <b>must</b> call {@link Future#get()}
+     * or {@link Future#get(long, TimeUnit)} method on the {@link Future}
+     * returned by this method in order for the lease operation to complete.
+     *
+     * @param route route of the connection.
+     * @param state arbitrary object that represents a particular state
+     *  (usually a security principal or a unique token identifying
+     *  the user whose credentials have been used while establishing the connection).
+     *  May be <code>null</code>.
+     * @return future for a leased pool entry.
+     */
+    public Future<E> lease(final T route, final Object state) {
+        return lease(route, state, null);
+    }
+
+    private E getPoolEntryBlocking(
+            final T route, final Object state,
+            final long timeout, final TimeUnit tunit,
+            final PoolEntryFuture<E> future)
+                throws IOException, InterruptedException, TimeoutException {
+
+        Date deadline = null;
+        if (timeout > 0) {
+            deadline = new Date
+                (System.currentTimeMillis() + tunit.toMillis(timeout));
+        }
+
+        final RoutePool routePool = getPool(route);
+        final RouteSpecificPool<T, C, E> pool = routePool.pool;
+        for (;;) {
+            Asserts.check(!this.isShutDown, "Connection pool shut down");
+            boolean reserved = false;
+            boolean routeLimited = false;
+            routePool.lock.lock();
+            try {
+                E entry;
+                for (;;) {
+                    entry = pool.getFree(state);
+                    if (entry == null) {
+                        break;
+                    }
+                    this.availableCount.decrementAndGet();
+                    if (entry.isClosed() || entry.isExpired(System.currentTimeMillis())) {
+                        entry.close();
+                        pool.free(entry, false);
+                        this.allocatedCount.decrementAndGet();
+                    } else {
+                        break;
+                    }
+                }
+                if (entry != null) {
+                    this.leased.put(entry, Boolean.TRUE);
+                    return entry;
+                }
+
+                // New connection is needed
+                final int maxPerRoute = getMax(route);
+                // Shrink the pool prior to allocating a new connection
+                final int excess = Math.max(0,
+                        pool.getAllocatedCount() + routePool.connecting + 1 - maxPerRoute);
+                if (excess > 0) {
+                    for (int i = 0; i < excess; i++) {
+                        final E lastUsed = pool.getLastUsed();
+                        if (lastUsed == null) {
+                            break;
+                        }
+                        lastUsed.close();
+                        pool.remove(lastUsed);
+                        this.availableCount.decrementAndGet();
+                        this.allocatedCount.decrementAndGet();
+                    }
+                }
+
+                if (pool.getAllocatedCount() + routePool.connecting < maxPerRoute) {
+                    reserved = reserveTotal();
+                    if (reserved) {
+                        routePool.connecting++;
+                    }
+                } else {
+                    routeLimited = true;
+                }
+                if (!reserved) {
+                    pool.queue(future);
+                    this.pending.add(future);
+                    this.pendingCount.incrementAndGet();
+                }
+            } finally {
+                routePool.lock.unlock();
+            }
+
+            if (reserved) {
+                return createPoolEntry(routePool);
+            }
+
+            boolean success = false;
+            try {
+                // The total limit may have been freed up by another route
+                // before this request got queued, or may only be reached
+                // because of idle connections kept by other routes
+                if (!routeLimited &&
+                        (this.allocatedCount.get() < this.maxTotal || evictLastUsed())) {
+                    continue;
+                }
+                success = future.await(deadline);
+            } finally {
+                // In case of 'success', we were woken up by the
+                // connection pool and should now have a connection
+                // waiting for us, or else we're shutting down.
+                // Just continue in the loop, both cases are checked.
+                routePool.lock.lock();
+                try {
+                    pool.unqueue(future);
+                } finally {
+                    routePool.lock.unlock();
+                }
+                if (this.pending.remove(future)) {
+                    this.pendingCount.decrementAndGet();
+                }
+            }
+            // check for spurious wakeup vs. timeout
+            if (!success && (deadline != null) &&
+                (deadline.getTime() <= System.currentTimeMillis())) {
+                break;
+            }
+        }
+        throw new TimeoutException("Timeout waiting for connection");
+    }
+
+    private boolean reserveTotal() {
+        for (;;) {
+            final int current = this.allocatedCount.get();
+            if (current >= this.maxTotal) {
+                return false;
+            }
+            if (this.allocatedCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private E createPoolEntry(final RoutePool routePool) throws IOException {
+        final RouteSpecificPool<T, C, E> pool = routePool.pool;
+        final C conn;
+        try {
+            conn = this.connFactory.create(pool.getRoute());
+        } catch (final IOException ex) {
+            routePool.lock.lock();
+            try {
+                routePool.connecting--;
+            } finally {
+                routePool.lock.unlock();
+            }
+            this.allocatedCount.decrementAndGet();
+            notifyPending(routePool);
+            throw ex;
+        }
+        final E entry;
+        routePool.lock.lock();
+        try {
+            routePool.connecting--;
+            entry = pool.add(conn);
+            this.leased.put(entry, Boolean.TRUE);
+        } finally {
+            routePool.lock.unlock();
+        }
+        if (this.isShutDown) {
+            release(entry, false);
+        }
+        Asserts.check(!this.isShutDown, "Connection pool shut down");
+        return entry;
+    }
+
+    /**
+     * Closes the least recently used available connection of any route.
+     * Must not be called while holding a route lock, as route locks are
+     * acquired here one at a time. A route lock held by a concurrent release
+     * is waited for rather than skipped, as the waiter woken up by that
+     * release may be the only one to ever claim the released connection.
+     */
+    private boolean evictLastUsed() {
+        if (this.availableCount.get() <= 0) {
+            return false;
+        }
+        for (final RoutePool routePool: this.routeToPool.values()) {
+            routePool.lock.lock();
+            try {
+                final RouteSpecificPool<T, C, E> pool = routePool.pool;
+                final E lastUsed = pool.getLastUsed();
+                if (lastUsed != null) {
+                    lastUsed.close();
+                    pool.remove(lastUsed);
+                    this.availableCount.decrementAndGet();
+                    this.allocatedCount.decrementAndGet();
+                    return true;
+                }
+            } finally {
+                routePool.lock.unlock();
+            }
+        }
+        return false;
+    }
+
+    private void notifyPending(final RoutePool routePool) {
+        PoolEntryFuture<E> future;
+        routePool.lock.lock();
+        try {
+            future = routePool.pool.nextPending();
+        } finally {
+            routePool.lock.unlock();
+        }
+        if (future != null) {
+            if (this.pending.remove(future)) {
+                this.pendingCount.decrementAndGet();
+            }
+        } else {
+            future = this.pending.poll();
+            if (future != null) {
+                this.pendingCount.decrementAndGet();
+            }
+        }
+        if (future != null) {
+            future.wakeup();
+        }
+    }
+
+    public void release(final E entry, final boolean reusable) {
+        if (this.leased.remove(entry) == null) {
+            return;
+        }
+        final RoutePool routePool = this.routeToPool.get(entry.getRoute());
+        if (routePool == null) {
+            // The pool has been shut down
+            entry.close();
+            return;
+        }
+        routePool.lock.lock();
+        try {
+            final boolean keep = reusable && !this.isShutDown;
+            routePool.pool.free(entry, keep);
+            if (keep) {
+                this.availableCount.incrementAndGet();
+            } else {
+                entry.close();
+                this.allocatedCount.decrementAndGet();
+            }
+        } finally {
+            routePool.lock.unlock();
+        }
+        notifyPending(routePool);
+    }
+
+    private int getMax(final T route) {
+        final Integer v = this.maxPerRoute.get(route);
+        if (v != null) {
+            return v;
+        } else {
+            return this.defaultMaxPerRoute;
+        }
+    }
+
+    public void setMaxTotal(final int max) {
+        Args.notNegative(max, "Max value");
+        this.maxTotal = max;
+    }
+
+    public int getMaxTotal() {
+        return this.maxTotal;
+    }
+
+    public void setDefaultMaxPerRoute(final int max) {
+        Args.notNegative(max, "Max per route value");
+        this.defaultMaxPerRoute = max;
+    }
+
+    public int getDefaultMaxPerRoute() {
+        return this.defaultMaxPerRoute;
+    }
+
+    public void setMaxPerRoute(final T route, final int max) {
+        Args.notNull(route, "Route");
+        Args.notNegative(max, "Max per route value");
+        this.maxPerRoute.put(route, max);
+    }
+
+    public int getMaxPerRoute(final T route) {
+        Args.notNull(route, "Route");
+        return getMax(route);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Total statistics are collected from atomic counters without locking
+     * and therefore represent an approximate snapshot of the pool state
+     * while the pool is being actively used.
+     */
+    public PoolStats getTotalStats() {
+        return new PoolStats(
+                this.leased.size(),
+                this.pendingCount.get(),
+                this.availableCount.get(),
+                this.maxTotal);
+    }
+
+    public PoolStats getStats(final T route) {
+        Args.notNull(route, "Route");
+        final RoutePool routePool = getPool(route);
+        routePool.lock.lock();
+        try {
+            final RouteSpecificPool<T, C, E> pool = routePool.pool;
+            return new PoolStats(
+                    pool.getLeasedCount(),
+                    pool.getPendingCount(),
+                    pool.getAvailableCount(),
+                    getMax(route));
+        } finally {
+            routePool.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes connections that have been idle longer than the given period
+     * of time and evicts them from the pool.
+     *
+     * @param idletime maximum idle time.
+     * @param tunit time unit.
+     */
+    public void closeIdle(final long idletime, final TimeUnit tunit) {
+        Args.notNull(tunit, "Time unit");
+        long time = tunit.toMillis(idletime);
+        if (time < 0) {
+            time = 0;
+        }
+        final long deadline = System.currentTimeMillis() - time;
+        for (final RoutePool routePool: this.routeToPool.values()) {
+            int closed = 0;
+            routePool.lock.lock();
+            try {
+                final Iterator<E> it = routePool.pool.availableIterator();
+                while (it.hasNext()) {
+                    final E entry = it.next();
+                    if (entry.getUpdated() <= deadline) {
+                        entry.close();
+                        it.remove();
+                        closed++;
+                    }
+                }
+            } finally {
+                routePool.lock.unlock();
+            }
+            purged(routePool, closed);
+        }
+    }
+
+    /**
+     * Closes expired connections and evicts them from the pool.
+     */
+    public void closeExpired() {
+        final long now = System.currentTimeMillis();
+        for (final RoutePool routePool: this.routeToPool.values()) {
+            int closed = 0;
+            routePool.lock.lock();
+            try {
+                final Iterator<E> it = routePool.pool.availableIterator();
+                while (it.hasNext()) {
+                    final E entry = it.next();
+                    if (entry.isExpired(now)) {
+                        entry.close();
+                        it.remove();
+                        closed++;
+                    }
+                }
+            } finally {
+                routePool.lock.unlock();
+            }
+            purged(routePool, closed);
+        }
+    }
+
+    private void purged(final RoutePool routePool, final int closed) {
+        if (closed > 0) {
+            this.availableCount.addAndGet(-closed);
+            this.allocatedCount.addAndGet(-closed);
+            for (int i = 0; i < closed; i++) {
+                notifyPending(routePool);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[leased: ");
+        buffer.append(this.leased.size());
+        buffer.append("][available: ");
+        buffer.append(this.availableCount.get());
+        buffer.append("][pending: ");
+        buffer.append(this.pendingCount.get());
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+    /**
+     * Per route state guarded by its own lock. The number of connections
+     * currently being established is tracked separately, as connections are
+     * created outside of the lock.
+     */
+    private class RoutePool {
+
+        final Lock lock;
+        final RouteSpecificPool<T, C, E> pool;
+        int connecting;
+
+        RoutePool(final T route) {
+            super();
+            this.lock = new ReentrantLock();
+            this.pool = new RouteSpecificPool<T, C, E>(route) {
+
+                @Override
+                protected E createEntry(final C conn) {
+                    return AbstractConcurrentConnPool.this.createEntry(route, conn);
+                }
+
+            };
+        }
+
+    }
+
+}
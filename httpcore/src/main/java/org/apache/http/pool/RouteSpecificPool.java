@@ -99,6 +99,10 @@ abstract class RouteSpecificPool<T, C, E extends PoolEntry<T, C>> {
         return null;
     }
 
+    public Iterator<E> availableIterator() {
+        return this.available.iterator();
+    }
+
     public E getLastUsed() {
         if (!this.available.isEmpty()) {
             return this.available.getLast();
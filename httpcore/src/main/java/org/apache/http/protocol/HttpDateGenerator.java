@@ -33,11 +33,19 @@ import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
 
+import org.apache.http.Header;
 import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.Immutable;
 import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.message.PreEncodedHeader;
 
 /**
  * Generates a date in the format required by the HTTP protocol.
+ * <p>
+ * The formatted date is refreshed at most once per second and published
+ * through a volatile reference, so that concurrent callers read the current
+ * value without locking. Only the thread that observes a stale value
+ * formats a new one.
  *
  * @since 4.0
  */
@@ -53,10 +61,8 @@ public class HttpDateGenerator {
 
     @GuardedBy("this")
     private final DateFormat dateformat;
-    @GuardedBy("this")
-    private long dateAsLong = 0L;
-    @GuardedBy("this")
-    private String dateAsText = null;
+
+    private volatile CachedDate cachedDate;
 
     public HttpDateGenerator() {
         super();
@@ -64,14 +70,55 @@ public class HttpDateGenerator {
         this.dateformat.setTimeZone(GMT);
     }
 
-    public synchronized String getCurrentDate() {
-        final long now = System.currentTimeMillis();
-        if (now - this.dateAsLong > 1000) {
+    public String getCurrentDate() {
+        return currentDate().text;
+    }
+
+    /**
+     * Returns a <code>Date</code> header representing the current date.
+     * The header instance is shared by all callers within the same second
+     * and retains its encoded form.
+     *
+     * @since 4.3
+     */
+    public Header getCurrentDateHeader() {
+        return currentDate().header;
+    }
+
+    private CachedDate currentDate() {
+        final long second = System.currentTimeMillis() / 1000;
+        final CachedDate cached = this.cachedDate;
+        if (cached != null && cached.second == second) {
+            return cached;
+        }
+        return refresh(second);
+    }
+
+    private synchronized CachedDate refresh(final long second) {
+        CachedDate cached = this.cachedDate;
+        if (cached == null || cached.second != second) {
             // Generate new date string
-            this.dateAsText = this.dateformat.format(new Date(now));
-            this.dateAsLong = now;
+            final String text = this.dateformat.format(new Date(second * 1000));
+            cached = new CachedDate(second, text);
+            this.cachedDate = cached;
+        }
+        return cached;
+    }
+
+    @Immutable
+    static final class CachedDate {
+
+        final long second;
+        final String text;
+        final Header header;
+
+        CachedDate(final long second, final String text) {
+            super();
+            this.second = second;
+            this.text = text;
+            this.header = new PreEncodedHeader(HTTP.DATE_HEADER, text);
         }
-        return this.dateAsText;
+
     }
 
 }
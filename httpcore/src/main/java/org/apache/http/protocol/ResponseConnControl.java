@@ -39,6 +39,7 @@ import org.apache.http.HttpStatus;
 import org.apache.http.HttpVersion;
 import org.apache.http.ProtocolVersion;
 import org.apache.http.annotation.Immutable;
+import org.apache.http.message.PreEncodedHeader;
 import org.apache.http.util.Args;
 
 /**
@@ -52,6 +53,11 @@ import org.apache.http.util.Args;
 @Immutable
 public class ResponseConnControl implements HttpResponseInterceptor {
 
+    private static final Header CONN_CLOSE = new PreEncodedHeader(
+            HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+    private static final Header CONN_KEEP_ALIVE = new PreEncodedHeader(
+            HTTP.CONN_DIRECTIVE, HTTP.CONN_KEEP_ALIVE);
+
     public ResponseConnControl() {
         super();
     }
@@ -71,7 +77,7 @@ public class ResponseConnControl implements HttpResponseInterceptor {
                 status == HttpStatus.SC_REQUEST_URI_TOO_LONG ||
                 status == HttpStatus.SC_SERVICE_UNAVAILABLE ||
                 status == HttpStatus.SC_NOT_IMPLEMENTED) {
-            response.setHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+            response.setHeader(CONN_CLOSE);
             return;
         }
         final Header explicit = response.getFirstHeader(HTTP.CONN_DIRECTIVE);
@@ -86,7 +92,7 @@ public class ResponseConnControl implements HttpResponseInterceptor {
             final ProtocolVersion ver = response.getStatusLine().getProtocolVersion();
             if (entity.getContentLength() < 0 &&
                     (!entity.isChunked() || ver.lessEquals(HttpVersion.HTTP_1_0))) {
-                response.setHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+                response.setHeader(CONN_CLOSE);
                 return;
             }
         }
@@ -95,9 +101,16 @@ public class ResponseConnControl implements HttpResponseInterceptor {
         if (request != null) {
             final Header header = request.getFirstHeader(HTTP.CONN_DIRECTIVE);
             if (header != null) {
-                response.setHeader(HTTP.CONN_DIRECTIVE, header.getValue());
+                final String value = header.getValue();
+                if (HTTP.CONN_KEEP_ALIVE.equals(value)) {
+                    response.setHeader(CONN_KEEP_ALIVE);
+                } else if (HTTP.CONN_CLOSE.equals(value)) {
+                    response.setHeader(CONN_CLOSE);
+                } else {
+                    response.setHeader(HTTP.CONN_DIRECTIVE, value);
+                }
             } else if (request.getProtocolVersion().lessEquals(HttpVersion.HTTP_1_0)) {
-                response.setHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+                response.setHeader(CONN_CLOSE);
             }
         }
     }
@@ -29,10 +29,12 @@ package org.apache.http.protocol;
 
 import java.io.IOException;
 
+import org.apache.http.Header;
 import org.apache.http.HttpException;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.annotation.Immutable;
+import org.apache.http.message.PreEncodedHeader;
 import org.apache.http.util.Args;
 
 /**
@@ -44,14 +46,15 @@ import org.apache.http.util.Args;
 @Immutable
 public class ResponseServer implements HttpResponseInterceptor {
 
-    private final String originServer;
+    private final Header originServer;
 
     /**
      * @since 4.3
      */
     public ResponseServer(final String originServer) {
         super();
-        this.originServer = originServer;
+        this.originServer = originServer != null ?
+                new PreEncodedHeader(HTTP.SERVER_HEADER, originServer) : null;
     }
 
     public ResponseServer() {
@@ -63,7 +66,7 @@ public class ResponseServer implements HttpResponseInterceptor {
         Args.notNull(response, "HTTP response");
         if (!response.containsHeader(HTTP.SERVER_HEADER)) {
             if (this.originServer != null) {
-                response.addHeader(HTTP.SERVER_HEADER, this.originServer);
+                response.addHeader(this.originServer);
             }
         }
     }
@@ -27,10 +27,13 @@
 
 package org.apache.http.protocol;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.Immutable;
 import org.apache.http.annotation.ThreadSafe;
 import org.apache.http.util.Args;
 
@@ -46,6 +49,14 @@ import org.apache.http.util.Args;
  * <br>
  * This class can be used to resolve an object matching a particular request
  * URI.
+ * <p>
+ * Registered patterns are kept in an exact match map, a trie of prefix
+ * patterns and a trie of suffix patterns. The tries are immutable and
+ * registrations replace only the nodes along the path of the pattern,
+ * so that lookups do not require locking and take time proportional to
+ * the length of the request path regardless of the number of patterns.
+ * Subclasses that override {@link #matchUriRequestPattern(String, String)}
+ * are matched by evaluating every registered pattern instead.
  *
  * @since 4.0
  */
@@ -54,10 +65,90 @@ public class UriPatternMatcher<T> {
 
     @GuardedBy("this")
     private final Map<String, T> map;
+    private final Map<String, T> exact;
+    private final boolean customMatch;
+
+    private volatile Node<T> prefixes;
+    private volatile Node<T> suffixes;
 
     public UriPatternMatcher() {
         super();
         this.map = new HashMap<String, T>();
+        this.exact = new ConcurrentHashMap<String, T>();
+        this.customMatch = isMatchOverridden(getClass());
+        this.prefixes = Node.empty();
+        this.suffixes = Node.empty();
+    }
+
+    private static boolean isMatchOverridden(final Class<?> clazz) {
+        for (Class<?> c = clazz; c != UriPatternMatcher.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("matchUriRequestPattern", String.class, String.class);
+                return true;
+            } catch (final NoSuchMethodException ignore) {
+            }
+        }
+        return false;
+    }
+
+    private static char[] prefixPath(final String pattern) {
+        final int len = pattern.length();
+        if (len > 0 && pattern.charAt(len - 1) == '*') {
+            return pattern.substring(0, len - 1).toCharArray();
+        }
+        return null;
+    }
+
+    private static char[] suffixPath(final String pattern) {
+        final int len = pattern.length();
+        if (len > 0 && pattern.charAt(0) == '*') {
+            final char[] path = new char[len - 1];
+            for (int i = 0; i < path.length; i++) {
+                path[i] = pattern.charAt(len - 1 - i);
+            }
+            return path;
+        }
+        return null;
+    }
+
+    private void add(final String pattern, final T obj) {
+        if (obj != null) {
+            this.exact.put(pattern, obj);
+        } else {
+            this.exact.remove(pattern);
+        }
+        final char[] prefix = prefixPath(pattern);
+        if (prefix != null) {
+            this.prefixes = this.prefixes.put(prefix, 0, obj, pattern.length());
+        }
+        final char[] suffix = suffixPath(pattern);
+        if (suffix != null) {
+            this.suffixes = this.suffixes.put(suffix, 0, obj, pattern.length());
+        }
+    }
+
+    private void remove(final String pattern) {
+        this.exact.remove(pattern);
+        final char[] prefix = prefixPath(pattern);
+        if (prefix != null) {
+            this.prefixes = this.prefixes.remove(prefix, 0);
+        }
+        final char[] suffix = suffixPath(pattern);
+        if (suffix != null) {
+            this.suffixes = this.suffixes.remove(suffix, 0);
+        }
+    }
+
+    private void reset(final Map<String, T> map) {
+        this.map.clear();
+        this.exact.clear();
+        this.prefixes = Node.empty();
+        this.suffixes = Node.empty();
+        for (final Map.Entry<String, T> entry : map.entrySet()) {
+            final String pattern = entry.getKey();
+            this.map.put(pattern, entry.getValue());
+            add(pattern, entry.getValue());
+        }
     }
 
     /**
@@ -69,6 +160,7 @@ public class UriPatternMatcher<T> {
     public synchronized void register(final String pattern, final T obj) {
         Args.notNull(pattern, "URI request pattern");
         this.map.put(pattern, obj);
+        add(pattern, obj);
     }
 
     /**
@@ -80,7 +172,10 @@ public class UriPatternMatcher<T> {
         if (pattern == null) {
             return;
         }
-        this.map.remove(pattern);
+        if (this.map.containsKey(pattern)) {
+            this.map.remove(pattern);
+            remove(pattern);
+        }
     }
 
     /**
@@ -89,8 +184,7 @@ public class UriPatternMatcher<T> {
     @Deprecated
     public synchronized void setHandlers(final Map<String, T> map) {
         Args.notNull(map, "Map of handlers");
-        this.map.clear();
-        this.map.putAll(map);
+        reset(map);
     }
 
     /**
@@ -99,16 +193,19 @@ public class UriPatternMatcher<T> {
     @Deprecated
     public synchronized void setObjects(final Map<String, T> map) {
         Args.notNull(map, "Map of handlers");
-        this.map.clear();
-        this.map.putAll(map);
+        reset(map);
     }
 
     /**
+     * Returns an unmodifiable view of the registered objects. Registrations
+     * can only be changed through {@link #register(String, Object)} and
+     * {@link #unregister(String)}.
+     *
      * @deprecated (4.1) do not use
      */
     @Deprecated
     public synchronized Map<String, T> getObjects() {
-        return this.map;
+        return Collections.unmodifiableMap(this.map);
     }
 
     /**
@@ -117,20 +214,27 @@ public class UriPatternMatcher<T> {
      * @param path the request path
      * @return object or <code>null</code> if no match is found.
      */
-    public synchronized T lookup(final String path) {
+    public T lookup(final String path) {
         Args.notNull(path, "Request path");
         // direct match?
-        T obj = this.map.get(path);
-        if (obj == null) {
+        T obj = this.exact.get(path);
+        if (obj != null) {
+            return obj;
+        }
+        if (!this.customMatch) {
+            return lookupPattern(path);
+        }
+        synchronized (this) {
             // pattern match?
             String bestMatch = null;
-            for (final String pattern : this.map.keySet()) {
+            for (final Map.Entry<String, T> entry : this.map.entrySet()) {
+                final String pattern = entry.getKey();
                 if (matchUriRequestPattern(pattern, path)) {
                     // we have a match. is it any better?
                     if (bestMatch == null
                             || (bestMatch.length() < pattern.length())
                             || (bestMatch.length() == pattern.length() && pattern.endsWith("*"))) {
-                        obj = this.map.get(pattern);
+                        obj = entry.getValue();
                         bestMatch = pattern;
                     }
                 }
@@ -139,6 +243,34 @@ public class UriPatternMatcher<T> {
         return obj;
     }
 
+    private T lookupPattern(final String path) {
+        final int len = path.length();
+        Node<T> node = this.prefixes;
+        Node<T> prefixMatch = node.terminal ? node : null;
+        for (int i = 0; i < len && node != null; i++) {
+            node = node.get(path.charAt(i));
+            if (node != null && node.terminal) {
+                prefixMatch = node;
+            }
+        }
+        node = this.suffixes;
+        Node<T> suffixMatch = node.terminal ? node : null;
+        for (int i = len - 1; i >= 0 && node != null; i--) {
+            node = node.get(path.charAt(i));
+            if (node != null && node.terminal) {
+                suffixMatch = node;
+            }
+        }
+        // the longest pattern wins, prefix patterns win ties
+        if (prefixMatch != null) {
+            if (suffixMatch != null && suffixMatch.patternLength > prefixMatch.patternLength) {
+                return suffixMatch.value;
+            }
+            return prefixMatch.value;
+        }
+        return suffixMatch != null ? suffixMatch.value : null;
+    }
+
     /**
      * Tests if the given request path matches the given pattern.
      *
@@ -158,8 +290,146 @@ public class UriPatternMatcher<T> {
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return this.map.toString();
     }
 
+    /**
+     * Immutable trie node. Changes create copies of the nodes along the
+     * path of the changed pattern and share all other nodes.
+     */
+    @Immutable
+    static final class Node<T> {
+
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+
+        private final char[] keys;
+        private final Node<T>[] children;
+        private final boolean terminal;
+        private final int patternLength;
+        private final T value;
+
+        private Node(
+                final char[] keys,
+                final Node<T>[] children,
+                final boolean terminal,
+                final int patternLength,
+                final T value) {
+            super();
+            this.keys = keys;
+            this.children = children;
+            this.terminal = terminal;
+            this.patternLength = patternLength;
+            this.value = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Node<T> empty() {
+            return new Node<T>(NO_KEYS, (Node<T>[]) NO_CHILDREN, false, 0, null);
+        }
+
+        private int indexOf(final char ch) {
+            final char[] k = this.keys;
+            int low = 0;
+            int high = k.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final char c = k[mid];
+                if (c < ch) {
+                    low = mid + 1;
+                } else if (c > ch) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        Node<T> get(final char ch) {
+            final int i = indexOf(ch);
+            return i >= 0 ? this.children[i] : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<T> withChild(final char ch, final Node<T> child) {
+            final int i = indexOf(ch);
+            final int n = this.keys.length;
+            if (i >= 0) {
+                final Node<T>[] newChildren = this.children.clone();
+                newChildren[i] = child;
+                return new Node<T>(this.keys, newChildren,
+                        this.terminal, this.patternLength, this.value);
+            }
+            final int pos = -(i + 1);
+            final char[] newKeys = new char[n + 1];
+            final Node<T>[] newChildren = new Node[n + 1];
+            System.arraycopy(this.keys, 0, newKeys, 0, pos);
+            System.arraycopy(this.children, 0, newChildren, 0, pos);
+            System.arraycopy(this.keys, pos, newKeys, pos + 1, n - pos);
+            System.arraycopy(this.children, pos, newChildren, pos + 1, n - pos);
+            newKeys[pos] = ch;
+            newChildren[pos] = child;
+            return new Node<T>(newKeys, newChildren, this.terminal, this.patternLength, this.value);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<T> withoutChild(final int i) {
+            final int n = this.keys.length;
+            final char[] newKeys = new char[n - 1];
+            final Node<T>[] newChildren = new Node[n - 1];
+            System.arraycopy(this.keys, 0, newKeys, 0, i);
+            System.arraycopy(this.children, 0, newChildren, 0, i);
+            System.arraycopy(this.keys, i + 1, newKeys, i, n - i - 1);
+            System.arraycopy(this.children, i + 1, newChildren, i, n - i - 1);
+            return new Node<T>(newKeys, newChildren, this.terminal, this.patternLength, this.value);
+        }
+
+        /**
+         * Returns a copy of this node with the given value set at the end
+         * of <code>path</code>, starting from the character at
+         * <code>index</code>.
+         */
+        Node<T> put(final char[] path, final int index, final T value, final int patternLength) {
+            if (index == path.length) {
+                return new Node<T>(this.keys, this.children, true, patternLength, value);
+            }
+            final char ch = path[index];
+            Node<T> child = get(ch);
+            if (child == null) {
+                child = empty();
+            }
+            return withChild(ch, child.put(path, index + 1, value, patternLength));
+        }
+
+        /**
+         * Returns a copy of this node with the value at the end of
+         * <code>path</code> removed and empty branches pruned, or this node
+         * if there is no such value.
+         */
+        Node<T> remove(final char[] path, final int index) {
+            if (index == path.length) {
+                if (!this.terminal) {
+                    return this;
+                }
+                return new Node<T>(this.keys, this.children, false, 0, null);
+            }
+            final int i = indexOf(path[index]);
+            if (i < 0) {
+                return this;
+            }
+            final Node<T> child = this.children[i];
+            final Node<T> newChild = child.remove(path, index + 1);
+            if (newChild == child) {
+                return this;
+            }
+            if (!newChild.terminal && newChild.keys.length == 0) {
+                return withoutChild(i);
+            }
+            return withChild(path[index], newChild);
+        }
+
+    }
+
 }
@@ -0,0 +1,176 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Scanning routines for the head section and chunk headers of HTTP/1.x
+ * messages.
+ * <p>
+ * Byte scans examine eight bytes at a time using SWAR (SIMD within a
+ * register) arithmetic on <code>long</code> words read with
+ * {@link ByteBuffer#getLong(int)}, which works on both heap and direct
+ * buffers regardless of their byte order setting.
+ *
+ * @since 4.3
+ */
+public final class ScanUtils {
+
+    private static final long LOW_BITS  = 0x7f7f7f7f7f7f7f7fL;
+    private static final long LF_BYTES  = 0x0a0a0a0a0a0a0a0aL;
+
+    private ScanUtils() {
+    }
+
+    /**
+     * Returns a word with the high bit set in exactly those bytes of the
+     * given word that are zero.
+     */
+    private static long zeroBytes(final long x) {
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    /**
+     * Returns the index of the first LF byte in the given region of the
+     * buffer, or <code>-1</code> if there is none. The position and limit of
+     * the buffer are not used or altered.
+     *
+     * @param buffer the buffer.
+     * @param beginIndex the beginning index of the region, inclusive.
+     * @param endIndex the ending index of the region, exclusive.
+     * @return the index of the first LF byte or <code>-1</code>.
+     */
+    public static int indexOfLF(final ByteBuffer buffer, final int beginIndex, final int endIndex) {
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        int i = beginIndex;
+        for (; i + 8 <= endIndex; i += 8) {
+            final long word = buffer.getLong(i);
+            final long match = zeroBytes(word ^ LF_BYTES);
+            if (match != 0) {
+                return i + ((bigEndian
+                        ? Long.numberOfLeadingZeros(match)
+                        : Long.numberOfTrailingZeros(match)) >>> 3);
+            }
+        }
+        for (; i < endIndex; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a non-negative hexadecimal number from the given region of the
+     * buffer. Leading and trailing whitespace is ignored. Unlike
+     * {@link Integer#parseInt(String, int)} only the ASCII hex digits are
+     * accepted and no sign.
+     *
+     * @param buffer the buffer.
+     * @param beginIndex the beginning index of the region, inclusive.
+     * @param endIndex the ending index of the region, exclusive.
+     * @return the parsed number or <code>-1</code> if the region does not
+     *   contain a valid hexadecimal number or the number does not fit into
+     *   an <code>int</code>.
+     */
+    public static int parseHex(final CharArrayBuffer buffer, final int beginIndex, final int endIndex) {
+        int from = beginIndex;
+        int to = endIndex;
+        while (from < to && isWhitespace(buffer.charAt(from))) {
+            from++;
+        }
+        while (to > from && isWhitespace(buffer.charAt(to - 1))) {
+            to--;
+        }
+        if (from == to) {
+            return -1;
+        }
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            final char ch = buffer.charAt(i);
+            final int digit;
+            if (ch >= '0' && ch <= '9') {
+                digit = ch - '0';
+            } else if (ch >= 'a' && ch <= 'f') {
+                digit = ch - 'a' + 10;
+            } else if (ch >= 'A' && ch <= 'F') {
+                digit = ch - 'A' + 10;
+            } else {
+                return -1;
+            }
+            if (n > (Integer.MAX_VALUE >>> 4)) {
+                return -1;
+            }
+            n = (n << 4) | digit;
+        }
+        return n;
+    }
+
+    /**
+     * Determines whether all chars in the given region of the array are
+     * 7-bit ASCII. Such a region encodes to the same bytes in any
+     * ASCII compatible charset and can be narrowed with a simple cast.
+     *
+     * @param chars the char array.
+     * @param beginIndex the beginning index of the region, inclusive.
+     * @param endIndex the ending index of the region, exclusive.
+     * @return <code>true</code> if no char in the region is greater
+     *   than <code>0x7f</code>, <code>false</code> otherwise.
+     */
+    public static boolean isAscii(final char[] chars, final int beginIndex, final int endIndex) {
+        int bits = 0;
+        for (int i = beginIndex; i < endIndex; i++) {
+            bits |= chars[i];
+        }
+        return bits < 0x80;
+    }
+
+    /**
+     * Determines whether all chars of the given string are 7-bit ASCII.
+     *
+     * @param s the string.
+     * @return <code>true</code> if no char of the string is greater
+     *   than <code>0x7f</code>, <code>false</code> otherwise.
+     * @see #isAscii(char[], int, int)
+     */
+    public static boolean isAscii(final String s) {
+        int bits = 0;
+        final int len = s.length();
+        for (int i = 0; i < len; i++) {
+            bits |= s.charAt(i);
+        }
+        return bits < 0x80;
+    }
+
+    private static boolean isWhitespace(final char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n';
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CompressingEntity} and {@link DecompressingEntity}.
+ *
+ */
+public class TestCompressingEntity {
+
+    private static final String CONTENT;
+
+    static {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buffer.append("{\"id\":").append(i).append(",\"name\":\"stuff\"},");
+        }
+        CONTENT = buffer.toString();
+    }
+
+    @Test
+    public void testBasics() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final HttpEntity entity = new CompressingEntity(
+                new StringEntity(CONTENT, ContentType.APPLICATION_JSON), pool);
+        Assert.assertEquals("gzip", entity.getContentEncoding().getValue());
+        Assert.assertEquals(-1, entity.getContentLength());
+        Assert.assertTrue(entity.isChunked());
+        Assert.assertTrue(entity.isRepeatable());
+        Assert.assertEquals(ContentType.APPLICATION_JSON.toString(), entity.getContentType().getValue());
+    }
+
+    @Test
+    public void testIllegalConstructor() throws Exception {
+        try {
+            new CompressingEntity(new StringEntity(CONTENT), "compress", new CompressionPool());
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+        try {
+            new DecompressingEntity(new StringEntity(CONTENT), new CompressionPool());
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCompressWriteTo() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final HttpEntity entity = new CompressingEntity(new StringEntity(CONTENT), pool);
+        for (int i = 0; i < 2; i++) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            entity.writeTo(out);
+            final InputStream instream = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()));
+            final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            int b;
+            while ((b = instream.read()) != -1) {
+                decompressed.write(b);
+            }
+            Assert.assertEquals(CONTENT, decompressed.toString("ISO-8859-1"));
+        }
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testCompressGetContent() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        for (final String coding: new String[] {"gzip", "deflate"}) {
+            final HttpEntity entity = new CompressingEntity(new StringEntity(CONTENT), coding, pool);
+            final BasicHttpEntity received = new BasicHttpEntity();
+            received.setContent(entity.getContent());
+            received.setContentEncoding(coding);
+            final HttpEntity decompressed = new DecompressingEntity(received, pool);
+            Assert.assertEquals(CONTENT, EntityUtils.toString(decompressed, "ISO-8859-1"));
+        }
+        Assert.assertEquals(4, pool.getIdleCount());
+    }
+
+    @Test
+    public void testCompressGetContentClosedEarly() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final HttpEntity entity = new CompressingEntity(new StringEntity(CONTENT), pool);
+        final InputStream instream = entity.getContent();
+        Assert.assertEquals(0x1f, instream.read());
+        instream.close();
+        Assert.assertEquals(-1, instream.read());
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testDecompressContentEncodingElements() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CompressingEntity(new StringEntity(CONTENT), pool).writeTo(out);
+
+        final BasicHttpEntity received = new BasicHttpEntity();
+        received.setContent(new ByteArrayInputStream(out.toByteArray()));
+        received.setContentEncoding("identity, GZIP ");
+        Assert.assertEquals(CONTENT, EntityUtils.toString(
+                new DecompressingEntity(received, pool), "ISO-8859-1"));
+
+        received.setContentEncoding("gzip, deflate");
+        try {
+            new DecompressingEntity(received, pool);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+        received.setContentEncoding("identity");
+        try {
+            new DecompressingEntity(received, pool);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        for (final String coding: new String[] {"gzip", "deflate"}) {
+            final HttpEntity entity = new CompressingEntity(new StringEntity(CONTENT), coding, pool);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            entity.writeTo(out);
+
+            final BasicHttpEntity received = new BasicHttpEntity();
+            received.setContent(new ByteArrayInputStream(out.toByteArray()));
+            received.setContentEncoding(coding);
+            final HttpEntity decompressed = new DecompressingEntity(received, pool);
+            Assert.assertNull(decompressed.getContentEncoding());
+            Assert.assertEquals(-1, decompressed.getContentLength());
+            Assert.assertEquals(CONTENT, EntityUtils.toString(decompressed, "ISO-8859-1"));
+        }
+        Assert.assertEquals(4, pool.getIdleCount());
+    }
+
+    @Test(expected=EOFException.class)
+    public void testDecompressTruncated() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CompressingEntity(new StringEntity(CONTENT), pool).writeTo(out);
+        final byte[] b = out.toByteArray();
+        final BasicHttpEntity received = new BasicHttpEntity();
+        received.setContent(new ByteArrayInputStream(b, 0, b.length - 4));
+        final HttpEntity decompressed = new DecompressingEntity(received, "gzip", pool);
+        decompressed.writeTo(new ByteArrayOutputStream());
+    }
+
+}
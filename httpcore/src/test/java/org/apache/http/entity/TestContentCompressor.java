@@ -0,0 +1,248 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ContentCompressor} and {@link ContentDecompressor}.
+ *
+ */
+public class TestContentCompressor {
+
+    private static byte[] content(final int len) {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; buffer.length() < len; i++) {
+            buffer.append("{\"id\":").append(i).append(",\"name\":\"stuff\"},");
+        }
+        final byte[] b = new byte[len];
+        for (int i = 0; i < len; i++) {
+            b[i] = (byte) buffer.charAt(i);
+        }
+        return b;
+    }
+
+    private static byte[] compress(
+            final ContentCompressor compressor, final byte[] b, final int chunk) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] tmp = new byte[chunk];
+        int off = 0;
+        while (off < b.length) {
+            Assert.assertTrue(compressor.needsInput());
+            final int len = Math.min(chunk, b.length - off);
+            compressor.setInput(b, off, len);
+            off += len;
+            int n;
+            while ((n = compressor.compress(tmp, 0, tmp.length)) > 0) {
+                out.write(tmp, 0, n);
+            }
+        }
+        compressor.finish();
+        Assert.assertFalse(compressor.needsInput());
+        int n;
+        while ((n = compressor.compress(tmp, 0, tmp.length)) > 0) {
+            out.write(tmp, 0, n);
+        }
+        Assert.assertTrue(compressor.isFinished());
+        Assert.assertEquals(b.length, compressor.getBytesRead());
+        compressor.release();
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(
+            final ContentDecompressor decompressor, final byte[] b, final int chunk) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] tmp = new byte[chunk];
+        int off = 0;
+        while (!decompressor.isFinished()) {
+            if (decompressor.needsInput()) {
+                Assert.assertTrue("Unexpected end of content", off < b.length);
+                final int len = Math.min(chunk, b.length - off);
+                decompressor.setInput(b, off, len);
+                off += len;
+            }
+            final int n = decompressor.decompress(tmp, 0, tmp.length);
+            out.write(tmp, 0, n);
+        }
+        decompressor.release();
+        return out.toByteArray();
+    }
+
+    private static byte[] readAll(final InputStream instream) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] tmp = new byte[1024];
+        int l;
+        while ((l = instream.read(tmp)) != -1) {
+            out.write(tmp, 0, l);
+        }
+        instream.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testGzipCompress() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final byte[] b = content(100000);
+        final byte[] compressed = compress(new ContentCompressor("gzip", pool), b, 7);
+        Assert.assertTrue(compressed.length < b.length / 2);
+        Assert.assertArrayEquals(b, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testDeflateCompress() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final byte[] b = content(100000);
+        final byte[] compressed = compress(new ContentCompressor("deflate", pool), b, 1024);
+        Assert.assertArrayEquals(b, readAll(new InflaterInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testCompressEmptyContent() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        final byte[] compressed = compress(new ContentCompressor("gzip", pool), new byte[0], 1);
+        Assert.assertEquals(0, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))).length);
+    }
+
+    @Test
+    public void testGzipDecompress() throws Exception {
+        final byte[] b = content(100000);
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final GZIPOutputStream outstream = new GZIPOutputStream(buffer);
+        outstream.write(b);
+        outstream.close();
+        final byte[] compressed = buffer.toByteArray();
+
+        final CompressionPool pool = new CompressionPool();
+        Assert.assertArrayEquals(b, decompress(new ContentDecompressor("gzip", pool), compressed, 1));
+        Assert.assertArrayEquals(b, decompress(new ContentDecompressor("x-gzip", pool), compressed, 4096));
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testGzipDecompressOptionalHeaderFields() throws Exception {
+        final byte[] b = content(1000);
+        final byte[] deflated = compress(new ContentCompressor("gzip", new CompressionPool()), b, 1000);
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        // FHCRC | FEXTRA | FNAME | FCOMMENT
+        buffer.write(new byte[] {0x1f, (byte) 0x8b, 8, 2 | 4 | 8 | 16, 0, 0, 0, 0, 0, 3});
+        buffer.write(new byte[] {3, 0, 'a', 'b', 'c'});
+        buffer.write(new byte[] {'n', 'a', 'm', 'e', 0});
+        buffer.write(new byte[] {'c', 0});
+        buffer.write(new byte[] {0, 0});
+        buffer.write(deflated, 10, deflated.length - 10);
+        final byte[] compressed = buffer.toByteArray();
+
+        Assert.assertArrayEquals(b, decompress(new ContentDecompressor("gzip", new CompressionPool()), compressed, 1));
+    }
+
+    @Test
+    public void testDeflateDecompress() throws Exception {
+        final byte[] b = content(100000);
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final DeflaterOutputStream outstream = new DeflaterOutputStream(buffer);
+        outstream.write(b);
+        outstream.close();
+
+        final CompressionPool pool = new CompressionPool();
+        final ContentDecompressor decompressor = new ContentDecompressor("deflate", pool);
+        Assert.assertArrayEquals(b, decompress(decompressor, buffer.toByteArray(), 333));
+    }
+
+    @Test(expected=ZipException.class)
+    public void testGzipDecompressCorruptTrailer() throws Exception {
+        final byte[] compressed = compress(new ContentCompressor("gzip", new CompressionPool()), content(1000), 1000);
+        compressed[compressed.length - 1]++;
+        decompress(new ContentDecompressor("gzip", new CompressionPool()), compressed, 100);
+    }
+
+    @Test(expected=ZipException.class)
+    public void testGzipDecompressInvalidHeader() throws Exception {
+        final byte[] compressed = new byte[] {0x1f, (byte) 0x8c, 8, 0, 0, 0, 0, 0, 0, 0};
+        decompress(new ContentDecompressor("gzip", new CompressionPool()), compressed, 100);
+    }
+
+    @Test
+    public void testPoolReuse() throws Exception {
+        final CompressionPool pool = new CompressionPool(9, 1);
+        final byte[] b = content(10000);
+        final ContentCompressor c1 = new ContentCompressor("gzip", pool);
+        final ContentCompressor c2 = new ContentCompressor("gzip", pool);
+        final byte[] compressed = compress(c1, b, 100);
+        compress(c2, b, 100);
+        Assert.assertEquals(1, pool.getIdleCount());
+        // the pooled deflater is reset before reuse
+        Assert.assertArrayEquals(compressed, compress(new ContentCompressor("gzip", pool), b, 100));
+        c1.release();
+        Assert.assertEquals(1, pool.getIdleCount());
+        pool.clear();
+        Assert.assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testInvalidInput() throws Exception {
+        final CompressionPool pool = new CompressionPool();
+        try {
+            new ContentCompressor("br", pool);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+        try {
+            new ContentDecompressor("gzip", null);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+        try {
+            new CompressionPool(10, 1);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+        final ContentCompressor compressor = new ContentCompressor("gzip", pool);
+        compressor.release();
+        try {
+            compressor.setInput(new byte[1], 0, 1);
+            Assert.fail("IllegalStateException should have been thrown");
+        } catch (final IllegalStateException ex) {
+            // expected
+        }
+    }
+
+}
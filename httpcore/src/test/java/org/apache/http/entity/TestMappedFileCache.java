@@ -0,0 +1,183 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MappedFileCache}.
+ *
+ */
+public class TestMappedFileCache {
+
+    private File tmpfile;
+
+    @Before
+    public void createTempFile() throws Exception {
+        this.tmpfile = File.createTempFile("testfile", ".txt");
+        writeFile(this.tmpfile, "0123456789abcdef");
+    }
+
+    @After
+    public void deleteTempFile() {
+        if (this.tmpfile != null) {
+            this.tmpfile.delete();
+        }
+    }
+
+    private static void writeFile(final File file, final String s) throws Exception {
+        final FileOutputStream outstream = new FileOutputStream(file);
+        try {
+            outstream.write(s.getBytes("US-ASCII"));
+        } finally {
+            outstream.close();
+        }
+    }
+
+    private static String toString(final ByteBuffer buffer) {
+        final StringBuilder s = new StringBuilder();
+        while (buffer.hasRemaining()) {
+            s.append((char) buffer.get());
+        }
+        return s.toString();
+    }
+
+    @Test
+    public void testRegions() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(32, 6);
+        Assert.assertEquals("012345", toString(cache.getRegion(this.tmpfile, 0)));
+        Assert.assertEquals("345", toString(cache.getRegion(this.tmpfile, 3)));
+        Assert.assertEquals("6789ab", toString(cache.getRegion(this.tmpfile, 6)));
+        Assert.assertEquals("cdef", toString(cache.getRegion(this.tmpfile, 12)));
+        Assert.assertEquals("f", toString(cache.getRegion(this.tmpfile, 15)));
+        Assert.assertNull(cache.getRegion(this.tmpfile, 16));
+        Assert.assertEquals(16, cache.getSize());
+    }
+
+    @Test
+    public void testRegionsIndependent() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(32, 16);
+        final ByteBuffer b1 = cache.getRegion(this.tmpfile, 0);
+        final ByteBuffer b2 = cache.getRegion(this.tmpfile, 0);
+        Assert.assertTrue(b1.isReadOnly());
+        Assert.assertEquals("0123456789abcdef", toString(b1));
+        Assert.assertEquals("0123456789abcdef", toString(b2));
+        Assert.assertEquals(16, cache.getSize());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(8, 4);
+        cache.getRegion(this.tmpfile, 0);
+        cache.getRegion(this.tmpfile, 4);
+        Assert.assertEquals(8, cache.getSize());
+        // touch the first region
+        cache.getRegion(this.tmpfile, 0);
+        cache.getRegion(this.tmpfile, 8);
+        Assert.assertEquals(8, cache.getSize());
+        Assert.assertEquals("[regions: 2; size: 8 of 8]", cache.toString());
+        cache.evict(this.tmpfile);
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testRemapModifiedFile() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(64, 32);
+        Assert.assertEquals("0123456789abcdef", toString(cache.getRegion(this.tmpfile, 0)));
+        writeFile(this.tmpfile, "stuff");
+        Assert.assertEquals("stuff", toString(cache.getRegion(this.tmpfile, 0)));
+        Assert.assertEquals(5, cache.getSize());
+        cache.clear();
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testConcurrentMapping() throws Exception {
+        final MappedFileCache cache = new MappedFileCache(16, 4);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(new Callable<String>() {
+
+                    public String call() throws Exception {
+                        final StringBuilder s = new StringBuilder();
+                        for (int pos = 0; pos < 16; pos += 4) {
+                            s.append(TestMappedFileCache.toString(cache.getRegion(tmpfile, pos)));
+                        }
+                        return s.toString();
+                    }
+
+                }));
+            }
+            for (final Future<String> future : futures) {
+                Assert.assertEquals("0123456789abcdef", future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals("[regions: 4; size: 16 of 16]", cache.toString());
+    }
+
+    @Test
+    public void testInvalidInput() throws Exception {
+        try {
+            new MappedFileCache(4, 8);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+        final MappedFileCache cache = new MappedFileCache();
+        try {
+            cache.getRegion(null, 0);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+        try {
+            cache.getRegion(this.tmpfile, -1);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MappedFileEntity}.
+ *
+ */
+public class TestMappedFileEntity {
+
+    @Test
+    public void testBasics() throws Exception {
+        final File tmpfile = File.createTempFile("testfile", ".txt");
+        tmpfile.deleteOnExit();
+        final MappedFileEntity httpentity = new MappedFileEntity(tmpfile, ContentType.TEXT_PLAIN,
+                new MappedFileCache());
+
+        Assert.assertEquals(tmpfile.length(), httpentity.getContentLength());
+        final InputStream content = httpentity.getContent();
+        Assert.assertNotNull(content);
+        content.close();
+        Assert.assertTrue(httpentity.isRepeatable());
+        Assert.assertFalse(httpentity.isStreaming());
+        if (!tmpfile.delete()){
+            Assert.fail("Failed to delete: "+tmpfile);
+        }
+    }
+
+    @Test
+    public void testIllegalConstructor() throws Exception {
+        try {
+            new MappedFileEntity(null, ContentType.TEXT_PLAIN, new MappedFileCache());
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+        try {
+            new MappedFileEntity(new File("stuff"), ContentType.TEXT_PLAIN, null);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        final File tmpfile = File.createTempFile("testfile", ".txt");
+        tmpfile.deleteOnExit();
+
+        final byte[] b = new byte[10000];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) i;
+        }
+        final FileOutputStream outstream = new FileOutputStream(tmpfile);
+        outstream.write(b);
+        outstream.close();
+
+        final MappedFileCache cache = new MappedFileCache(8192, 4096);
+        final MappedFileEntity httpentity = new MappedFileEntity(tmpfile, ContentType.TEXT_PLAIN, cache);
+
+        for (int n = 0; n < 2; n++) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            httpentity.writeTo(out);
+            final byte[] bytes = out.toByteArray();
+            Assert.assertNotNull(bytes);
+            Assert.assertEquals(tmpfile.length(), bytes.length);
+            for (int i = 0; i < bytes.length; i++) {
+                Assert.assertEquals(b[i], bytes[i]);
+            }
+        }
+        Assert.assertTrue(cache.getSize() <= cache.getMaxSize());
+        if (!tmpfile.delete()){
+            Assert.fail("Failed to delete: "+tmpfile);
+        }
+
+        try {
+            httpentity.writeTo(null);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+}
@@ -28,10 +28,13 @@
 package org.apache.http.impl;
 
 import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.HeaderIterator;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.HttpVersion;
+import org.apache.http.TokenIterator;
 import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicTokenIterator;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
 import org.junit.Assert;
@@ -260,5 +263,47 @@ public class TestDefaultConnectionReuseStrategy {
         Assert.assertFalse(reuseStrategy.keepAlive(response, context));
     }
 
-}
+    @Test
+    public void testConnectionTokensWithParameters() throws Exception {
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_0, 200, "OK");
+        response.addHeader("Transfer-Encoding", "chunked");
+        response.addHeader("Connection", "keep-alive;timeout=5");
+        Assert.assertFalse(reuseStrategy.keepAlive(response, context));
+    }
+
+    @Test
+    public void testConnectionTokensMultipleHeaders() throws Exception {
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_0, 200, "OK");
+        response.addHeader("Transfer-Encoding", "chunked");
+        response.addHeader("Connection", "Upgrade, , Keep-Alive");
+        response.addHeader("Connection", "Te");
+        Assert.assertTrue(reuseStrategy.keepAlive(response, context));
+        response.addHeader("Connection", "Close");
+        Assert.assertFalse(reuseStrategy.keepAlive(response, context));
+    }
+
+    @Test
+    public void testCustomTokenIterator() throws Exception {
+        final ConnectionReuseStrategy strategy = new DefaultConnectionReuseStrategy() {
+
+            @Override
+            protected TokenIterator createTokenIterator(final HeaderIterator hit) {
+                return new BasicTokenIterator(hit) {
+
+                    @Override
+                    protected boolean isTokenSeparator(final char ch) {
+                        return ch == ',' || ch == ';';
+                    }
+
+                };
+            }
 
+        };
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_0, 200, "OK");
+        response.addHeader("Transfer-Encoding", "chunked");
+        response.addHeader("Connection", "upgrade;keep-alive");
+        Assert.assertTrue(strategy.keepAlive(response, context));
+        Assert.assertFalse(reuseStrategy.keepAlive(response, context));
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Consts;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.ParseException;
+import org.apache.http.ProtocolException;
+import org.apache.http.config.MessageConstraints;
+import org.apache.http.impl.SessionInputBufferMock;
+import org.apache.http.io.SessionInputBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link AsciiHttpRequestParser} and {@link AsciiHttpResponseParser}.
+ */
+public class TestAsciiMessageParser {
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidConstructorInput() throws Exception {
+        new AsciiHttpRequestParser(null);
+    }
+
+    @Test
+    public void testBasicRequestParsing() throws Exception {
+        final String s =
+            "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "User-Agent: whatever\r\n" +
+            "Cookie: c1=stuff\r\n" +
+            "\r\n" +
+            "POST /stuff HTTP/1.0\r\n" +
+            "Content-Length: 0\r\n" +
+            "\r\n";
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(s, Consts.ASCII);
+
+        final AsciiHttpRequestParser parser = new AsciiHttpRequestParser(inbuffer);
+        final HttpRequest httprequest = parser.parse();
+        Assert.assertEquals("GET", httprequest.getRequestLine().getMethod());
+        Assert.assertEquals("/", httprequest.getRequestLine().getUri());
+        Assert.assertSame(HttpVersion.HTTP_1_1, httprequest.getRequestLine().getProtocolVersion());
+        final Header[] headers = httprequest.getAllHeaders();
+        Assert.assertEquals(3, headers.length);
+        Assert.assertEquals("Host", headers[0].getName());
+        Assert.assertEquals("localhost", headers[0].getValue());
+        Assert.assertEquals("c1=stuff", httprequest.getFirstHeader("cookie").getValue());
+
+        final HttpRequest httprequest2 = parser.parse();
+        Assert.assertEquals("/stuff", httprequest2.getRequestLine().getUri());
+        Assert.assertEquals(1, httprequest2.getAllHeaders().length);
+        Assert.assertEquals("0", httprequest2.getFirstHeader("Content-Length").getValue());
+    }
+
+    @Test
+    public void testFoldedHeaders() throws Exception {
+        final String s =
+            "GET / HTTP/1.1\r\n" +
+            "header1: stuff\r\n" +
+            "header2  : stuff \r\n" +
+            "header3: stuff\r\n" +
+            "     and more stuff\r\n" +
+            "\t and even more stuff\r\n" +
+            "     \r\n" +
+            "\r\n";
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(s, Consts.ASCII);
+
+        final AsciiHttpRequestParser parser = new AsciiHttpRequestParser(inbuffer);
+        final Header[] headers = parser.parse().getAllHeaders();
+        Assert.assertEquals(3, headers.length);
+        Assert.assertEquals("header2", headers[1].getName());
+        Assert.assertEquals("stuff", headers[1].getValue());
+        Assert.assertEquals("header3", headers[2].getName());
+        Assert.assertEquals("stuff and more stuff and even more stuff", headers[2].getValue());
+    }
+
+    @Test
+    public void testConnectionClosedException() throws Exception {
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(new byte[] {});
+
+        final AsciiHttpRequestParser parser = new AsciiHttpRequestParser(inbuffer);
+        try {
+            parser.parse();
+            Assert.fail("ConnectionClosedException should have been thrown");
+        } catch (final ConnectionClosedException expected) {
+        }
+    }
+
+    @Test
+    public void testInvalidRequestLine() throws Exception {
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock("GET/ HTTP/1.1\r\n\r\n", Consts.ASCII);
+
+        final AsciiHttpRequestParser parser = new AsciiHttpRequestParser(inbuffer);
+        try {
+            parser.parse();
+            Assert.fail("ProtocolException should have been thrown");
+        } catch (final ProtocolException expected) {
+        }
+    }
+
+    @Test
+    public void testInvalidHeader() throws Exception {
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(
+                "GET / HTTP/1.1\r\nwhatever\r\n\r\n", Consts.ASCII);
+
+        final AsciiHttpRequestParser parser = new AsciiHttpRequestParser(inbuffer);
+        try {
+            parser.parse();
+            Assert.fail("ProtocolException should have been thrown");
+        } catch (final ProtocolException expected) {
+            Assert.assertTrue(expected.getCause() instanceof ParseException);
+        }
+    }
+
+    @Test
+    public void testMessageParsingTimeout() throws Exception {
+        final String s =
+            "GET \000/ HTTP/1.1\r\000\n" +
+            "Host: loca\000lhost\r\n" +
+            "User-Agent: whatever\r\n" +
+            "Coo\000kie: c1=stuff\r\n" +
+            "\000\r\n";
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(
+                new TimeoutByteArrayInputStream(s.getBytes("US-ASCII")), 16);
+
+        final AsciiHttpRequestParser parser = new AsciiHttpRequestParser(inbuffer);
+
+        int timeoutCount = 0;
+
+        HttpRequest httprequest = null;
+        for (int i = 0; i < 10; i++) {
+            try {
+                httprequest = parser.parse();
+                break;
+            } catch (final InterruptedIOException ex) {
+                timeoutCount++;
+            }
+
+        }
+        Assert.assertNotNull(httprequest);
+        Assert.assertEquals(5, timeoutCount);
+
+        Assert.assertEquals("GET", httprequest.getRequestLine().getMethod());
+        Assert.assertEquals("/", httprequest.getRequestLine().getUri());
+        final Header[] headers = httprequest.getAllHeaders();
+        Assert.assertEquals(3, headers.length);
+        Assert.assertEquals("localhost", headers[0].getValue());
+        Assert.assertEquals("c1=stuff", headers[2].getValue());
+    }
+
+    @Test
+    public void testMaxHeaderCount() throws Exception {
+        final String s =
+            "GET / HTTP/1.1\r\n" +
+            "Header: one\r\n" +
+            "Header: two\r\n" +
+            " folded\r\n" +
+            "\r\n" +
+            "GET / HTTP/1.1\r\n" +
+            "Header: one\r\n" +
+            "Header: two\r\n" +
+            "Header: three\r\n" +
+            "\r\n";
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(s, Consts.ASCII);
+        final MessageConstraints constraints = MessageConstraints.custom()
+                .setMaxHeaderCount(2).setMaxLineLength(-1).build();
+        final AsciiHttpRequestParser parser = new AsciiHttpRequestParser(inbuffer, constraints);
+        Assert.assertEquals(2, parser.parse().getAllHeaders().length);
+        try {
+            parser.parse();
+            Assert.fail("IOException should have been thrown");
+        } catch (final IOException expected) {
+        }
+    }
+
+    @Test
+    public void testMaxLineLengthForFoldedHeader() throws Exception {
+        final String s =
+            "GET / HTTP/1.1\r\n" +
+            "header1: stuff\r\n" +
+            " stuff \r\n" +
+            " stuff\r\n" +
+            "\r\n";
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(s, Consts.ASCII);
+        final MessageConstraints constraints = MessageConstraints.custom()
+                .setMaxHeaderCount(-1).setMaxLineLength(20).build();
+        final AsciiHttpRequestParser parser = new AsciiHttpRequestParser(inbuffer, constraints);
+        try {
+            parser.parse();
+            Assert.fail("IOException should have been thrown");
+        } catch (final IOException expected) {
+        }
+    }
+
+    @Test
+    public void testBasicResponseParsing() throws Exception {
+        final String s =
+            "HTTP/1.1 200 OK\r\n" +
+            "Server: whatever\r\n" +
+            "Date: some date\r\n" +
+            "Set-Cookie: c1=stuff\r\n" +
+            "\r\n";
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(s, Consts.ASCII);
+
+        final AsciiHttpResponseParser parser = new AsciiHttpResponseParser(inbuffer);
+        final HttpResponse httpresponse = parser.parse();
+
+        Assert.assertSame(HttpVersion.HTTP_1_1, httpresponse.getStatusLine().getProtocolVersion());
+        Assert.assertEquals(200, httpresponse.getStatusLine().getStatusCode());
+        Assert.assertEquals("OK", httpresponse.getStatusLine().getReasonPhrase());
+        final Header[] headers = httpresponse.getAllHeaders();
+        Assert.assertEquals(3, headers.length);
+        Assert.assertEquals("some date", httpresponse.getFirstHeader("Date").getValue());
+    }
+
+    @Test
+    public void testNoHttpResponseException() throws Exception {
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(new byte[] {});
+
+        final AsciiHttpResponseParser parser = new AsciiHttpResponseParser(inbuffer);
+        try {
+            parser.parse();
+            Assert.fail("NoHttpResponseException should have been thrown");
+        } catch (final NoHttpResponseException expected) {
+        }
+    }
+
+}
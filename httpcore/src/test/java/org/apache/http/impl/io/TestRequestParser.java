@@ -26,6 +26,7 @@
  */
 package org.apache.http.impl.io;
 
+import java.io.IOException;
 import java.io.InterruptedIOException;
 
 import org.apache.http.ConnectionClosedException;
@@ -33,9 +34,14 @@ import org.apache.http.Consts;
 import org.apache.http.Header;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpVersion;
+import org.apache.http.ParseException;
+import org.apache.http.ProtocolException;
 import org.apache.http.RequestLine;
+import org.apache.http.config.MessageConstraints;
 import org.apache.http.impl.SessionInputBufferMock;
 import org.apache.http.io.SessionInputBuffer;
+import org.apache.http.message.BufferedHeaderView;
+import org.apache.http.message.LazyHeaderLineParser;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -122,5 +128,89 @@ public class TestRequestParser {
         Assert.assertEquals(3, headers.length);
     }
 
-}
+    @Test
+    public void testLazyHeaderParsing() throws Exception {
+        final String s =
+            "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "User-Agent: whatever\r\n" +
+            "   and more\r\n" +
+            "Cookie: c1=stuff\r\n" +
+            "\r\n" +
+            "GET /stuff HTTP/1.1\r\n" +
+            "Host: somehost\r\n" +
+            "\r\n";
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(s, Consts.ASCII);
+
+        final DefaultHttpRequestParser parser = new DefaultHttpRequestParser(
+                inbuffer, LazyHeaderLineParser.INSTANCE, null, MessageConstraints.DEFAULT);
+        final HttpRequest httprequest1 = parser.parse();
+        final Header[] headers1 = httprequest1.getAllHeaders();
+        Assert.assertEquals(3, headers1.length);
+        Assert.assertTrue(headers1[0] instanceof BufferedHeaderView);
+        Assert.assertEquals("Host", headers1[0].getName());
+        Assert.assertEquals("localhost", headers1[0].getValue());
+        Assert.assertEquals("whatever and more", httprequest1.getFirstHeader("user-agent").getValue());
+        Assert.assertEquals("c1=stuff", headers1[2].getValue());
+
+        final HttpRequest httprequest2 = parser.parse();
+        Assert.assertEquals("/stuff", httprequest2.getRequestLine().getUri());
+        final Header[] headers2 = httprequest2.getAllHeaders();
+        Assert.assertEquals(1, headers2.length);
+        Assert.assertEquals("somehost", headers2[0].getValue());
+        // Headers of the first message must remain intact
+        Assert.assertEquals("localhost", headers1[0].getValue());
+    }
+
+    @Test
+    public void testLazyHeaderParsingMaxHeaderCount() throws Exception {
+        final String s =
+            "GET / HTTP/1.1\r\n" +
+            "Header: one\r\n" +
+            "Header: two\r\n" +
+            " folded\r\n" +
+            "\r\n" +
+            "GET / HTTP/1.1\r\n" +
+            "Header: one\r\n" +
+            "Header: two\r\n" +
+            "Header: three\r\n" +
+            "\r\n";
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(s, Consts.ASCII);
+        final MessageConstraints constraints = MessageConstraints.custom()
+                .setMaxHeaderCount(2).setMaxLineLength(-1).build();
+        final DefaultHttpRequestParser parser = new DefaultHttpRequestParser(
+                inbuffer, LazyHeaderLineParser.INSTANCE, null, constraints);
+        final HttpRequest httprequest = parser.parse();
+        Assert.assertEquals(2, httprequest.getAllHeaders().length);
+        try {
+            parser.parse();
+            Assert.fail("IOException should have been thrown");
+        } catch (final IOException expected) {
+        }
+    }
+
+    @Test
+    public void testLazyHeaderParsingMalformedHeader() throws Exception {
+        final String s =
+            "GET / HTTP/1.1\r\n" +
+            "Host localhost\r\n" +
+            "\r\n" +
+            "Header: stuff\r\n" +
+            "\r\n";
+        final SessionInputBuffer inbuffer = new SessionInputBufferMock(s, Consts.ASCII);
+        final DefaultHttpRequestParser parser = new DefaultHttpRequestParser(
+                inbuffer, LazyHeaderLineParser.INSTANCE, null, MessageConstraints.DEFAULT);
+        try {
+            parser.parse();
+            Assert.fail("ProtocolException should have been thrown");
+        } catch (final ProtocolException expected) {
+            Assert.assertTrue(expected.getCause() instanceof ParseException);
+        }
+        // The malformed header block must have been discarded
+        final HttpRequest httprequest = parser.parse();
+        final Header[] headers = httprequest.getAllHeaders();
+        Assert.assertEquals(1, headers.length);
+        Assert.assertEquals("stuff", headers[0].getValue());
+    }
 
+}
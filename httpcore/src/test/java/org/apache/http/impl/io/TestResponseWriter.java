@@ -0,0 +1,103 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.impl.io;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.impl.SessionOutputBufferMock;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicLineFormatter;
+import org.apache.http.message.PreEncodedHeader;
+import org.apache.http.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DefaultHttpResponseWriter}.
+ */
+public class TestResponseWriter {
+
+    @Test
+    public void testWritePreEncoded() throws Exception {
+        final SessionOutputBufferMock outbuffer = new SessionOutputBufferMock();
+        final DefaultHttpResponseWriter writer = new DefaultHttpResponseWriter(outbuffer);
+
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.addHeader(new PreEncodedHeader("Server", "test"));
+        response.addHeader("Content-Length", "0");
+        response.addHeader(new PreEncodedHeader("Connection", "close"));
+        writer.write(response);
+        outbuffer.flush();
+
+        final String s = new String(outbuffer.getData(), "US-ASCII");
+        Assert.assertEquals("HTTP/1.1 200 OK\r\nServer: test\r\nContent-Length: 0\r\n" +
+                "Connection: close\r\n\r\n", s);
+    }
+
+    @Test
+    public void testWriteUncachedStatusLine() throws Exception {
+        final SessionOutputBufferMock outbuffer = new SessionOutputBufferMock();
+        final DefaultHttpResponseWriter writer = new DefaultHttpResponseWriter(outbuffer);
+
+        final HttpResponse response = new BasicHttpResponse(
+                new ProtocolVersion("HTTP", 2, 0), 200, "Fine");
+        response.addHeader(new PreEncodedHeader("Server", "test"));
+        writer.write(response);
+        outbuffer.flush();
+
+        final String s = new String(outbuffer.getData(), "US-ASCII");
+        Assert.assertEquals("HTTP/2.0 200 Fine\r\nServer: test\r\n\r\n", s);
+    }
+
+    @Test
+    public void testWriteCustomFormatter() throws Exception {
+        final SessionOutputBufferMock outbuffer = new SessionOutputBufferMock();
+        final BasicLineFormatter formatter = new BasicLineFormatter() {
+
+            @Override
+            protected void doFormatHeader(
+                    final CharArrayBuffer buffer, final Header header) {
+                super.doFormatHeader(buffer, header);
+                buffer.append(" ;-)");
+            }
+
+        };
+        final DefaultHttpResponseWriter writer = new DefaultHttpResponseWriter(outbuffer, formatter);
+
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.addHeader(new PreEncodedHeader("Server", "test"));
+        writer.write(response);
+        outbuffer.flush();
+
+        final String s = new String(outbuffer.getData(), "US-ASCII");
+        Assert.assertEquals("HTTP/1.1 200 OK\r\nServer: test ;-)\r\n\r\n", s);
+    }
+
+}
@@ -476,6 +476,55 @@ public class TestSessionInOutBuffers {
         Assert.assertEquals(s, inbuffer.readLine());
     }
 
+    @Test
+    public void testMixedAsciiCodedWriteLine() throws Exception {
+        final String s1 = "Content-Type: text/plain; charset=UTF-8";
+        final String s2 = constructString(RUSSIAN_HELLO);
+        final String s3 = "Server: test/1.1 and a line longer than the session buffer";
+
+        final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+        final SessionOutputBufferMock outbuffer = new SessionOutputBufferMock(
+                outstream, 16, 16, Consts.UTF_8.newEncoder());
+        final CharArrayBuffer chbuffer = new CharArrayBuffer(16);
+        for (int i = 0; i < 3; i++) {
+            outbuffer.writeLine(s1);
+            outbuffer.writeLine(s2);
+            outbuffer.writeLine(s3);
+            chbuffer.clear();
+            chbuffer.append(s1);
+            outbuffer.writeLine(chbuffer);
+            chbuffer.clear();
+            chbuffer.append(s2);
+            outbuffer.writeLine(chbuffer);
+            chbuffer.clear();
+            chbuffer.append(s3);
+            outbuffer.writeLine(chbuffer);
+        }
+        outbuffer.flush();
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            expected.append(s1).append("\r\n").append(s2).append("\r\n").append(s3).append("\r\n");
+        }
+        final byte[] expectedBytes = expected.toString().getBytes("UTF-8");
+        Assert.assertArrayEquals(expectedBytes, outstream.toByteArray());
+        Assert.assertEquals(expectedBytes.length, outbuffer.getMetrics().getBytesTransferred());
+    }
+
+    @Test
+    public void testAsciiCodedWriteLineNoFragmentBuffering() throws Exception {
+        final String s = "Content-Length: 1234";
+        final ByteArrayOutputStream outstream = new ByteArrayOutputStream();
+        final SessionOutputBufferMock outbuffer = new SessionOutputBufferMock(
+                outstream, 16, 0, Consts.ASCII.newEncoder());
+        outbuffer.writeLine(s);
+        final CharArrayBuffer chbuffer = new CharArrayBuffer(16);
+        chbuffer.append(s);
+        outbuffer.writeLine(chbuffer);
+        Assert.assertEquals(s + "\r\n" + s + "\r\n",
+                new String(outstream.toByteArray(), "US-ASCII"));
+    }
+
     @Test
     public void testNonAsciiReadWriteLine() throws Exception {
         final String s1 = constructString(SWISS_GERMAN_HELLO);
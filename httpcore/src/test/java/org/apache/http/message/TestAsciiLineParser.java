@@ -0,0 +1,177 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.Header;
+import org.apache.http.HttpVersion;
+import org.apache.http.ParseException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.RequestLine;
+import org.apache.http.StatusLine;
+import org.apache.http.util.ByteArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link AsciiLineParser}.
+ */
+public class TestAsciiLineParser {
+
+    private static ByteArrayBuffer line(final String s) throws Exception {
+        final byte[] b = s.getBytes("ISO-8859-1");
+        final ByteArrayBuffer buffer = new ByteArrayBuffer(b.length);
+        buffer.append(b, 0, b.length);
+        return buffer;
+    }
+
+    @Test
+    public void testRequestLineParse() throws Exception {
+        RequestLine requestline = AsciiLineParser.INSTANCE.parseRequestLine(line("GET /stuff HTTP/1.1"));
+        Assert.assertEquals("GET /stuff HTTP/1.1", requestline.toString());
+        Assert.assertSame("GET", requestline.getMethod());
+        Assert.assertEquals("/stuff", requestline.getUri());
+        Assert.assertSame(HttpVersion.HTTP_1_1, requestline.getProtocolVersion());
+
+        requestline = AsciiLineParser.INSTANCE.parseRequestLine(line("  POST  /stuff   HTTP/1.0   "));
+        Assert.assertSame("POST", requestline.getMethod());
+        Assert.assertEquals("/stuff", requestline.getUri());
+        Assert.assertSame(HttpVersion.HTTP_1_0, requestline.getProtocolVersion());
+
+        requestline = AsciiLineParser.INSTANCE.parseRequestLine(line("PROPFIND /stuff HTTP/1.1"));
+        Assert.assertEquals("PROPFIND", requestline.getMethod());
+
+        requestline = AsciiLineParser.INSTANCE.parseRequestLine(line("GET * HTTP/12.34"));
+        Assert.assertEquals(new HttpVersion(12, 34), requestline.getProtocolVersion());
+    }
+
+    @Test
+    public void testRequestLineParseFailure() throws Exception {
+        final String[] invalid = {
+                "    ",
+                "  GET",
+                "GET /stuff",
+                "GET/stuff HTTP/1.1",
+                "GET /stuff HTTP/1.1 whatever",
+                "GET /stuff HTTP/1",
+                "GET /stuff HTTP/a.b",
+                "GET /stuff XTTP/1.1"
+        };
+        for (final String s : invalid) {
+            try {
+                AsciiLineParser.INSTANCE.parseRequestLine(line(s));
+                Assert.fail("ParseException should have been thrown: " + s);
+            } catch (final ParseException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testStatusLineParse() throws Exception {
+        StatusLine statusline = AsciiLineParser.INSTANCE.parseStatusLine(line("HTTP/1.1 200 OK"));
+        Assert.assertEquals("HTTP/1.1 200 OK", statusline.toString());
+        Assert.assertSame(HttpVersion.HTTP_1_1, statusline.getProtocolVersion());
+        Assert.assertEquals(200, statusline.getStatusCode());
+        Assert.assertSame("OK", statusline.getReasonPhrase());
+
+        statusline = AsciiLineParser.INSTANCE.parseStatusLine(line("HTTP/1.0 404 Non Found  "));
+        Assert.assertSame(HttpVersion.HTTP_1_0, statusline.getProtocolVersion());
+        Assert.assertEquals(404, statusline.getStatusCode());
+        Assert.assertEquals("Non Found", statusline.getReasonPhrase());
+
+        statusline = AsciiLineParser.INSTANCE.parseStatusLine(line("HTTP/1.1 200"));
+        Assert.assertEquals(200, statusline.getStatusCode());
+        Assert.assertEquals("", statusline.getReasonPhrase());
+    }
+
+    @Test
+    public void testStatusLineParseFailure() throws Exception {
+        final String[] invalid = {
+                "xxx 200 OK",
+                "HTTP/1.1 xxx OK",
+                "HTTP/1.1    ",
+                "HTTP/1.1 -200 OK",
+                "HTTP/1.1 2000000000000 OK"
+        };
+        for (final String s : invalid) {
+            try {
+                AsciiLineParser.INSTANCE.parseStatusLine(line(s));
+                Assert.fail("ParseException should have been thrown: " + s);
+            } catch (final ParseException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testProtocolVersionParse() throws Exception {
+        final ByteArrayBuffer buffer = line(" HTTP/1.1 HTTP/0.9 HTTP/2.0");
+        ProtocolVersion ver = AsciiLineParser.INSTANCE.parseProtocolVersion(buffer, 1, 9);
+        Assert.assertSame(HttpVersion.HTTP_1_1, ver);
+        ver = AsciiLineParser.INSTANCE.parseProtocolVersion(buffer, 10, 18);
+        Assert.assertEquals(HttpVersion.HTTP_0_9, ver);
+        ver = AsciiLineParser.INSTANCE.parseProtocolVersion(buffer, 19, 27);
+        Assert.assertEquals(new HttpVersion(2, 0), ver);
+    }
+
+    @Test
+    public void testHeaderParse() throws Exception {
+        Header header = AsciiLineParser.INSTANCE.parseHeader(line("Content-Type: text/plain; charset=ISO-8859-1"));
+        Assert.assertSame("Content-Type", header.getName());
+        Assert.assertEquals("text/plain; charset=ISO-8859-1", header.getValue());
+        Assert.assertEquals("charset", header.getElements()[0].getParameters()[0].getName());
+
+        header = AsciiLineParser.INSTANCE.parseHeader(line("  whatever  :  stuff  "));
+        Assert.assertEquals("whatever", header.getName());
+        Assert.assertEquals("stuff", header.getValue());
+
+        header = AsciiLineParser.INSTANCE.parseHeader(line("content-type: text/plain"));
+        Assert.assertEquals("content-type", header.getName());
+
+        header = AsciiLineParser.INSTANCE.parseHeader(line("X-Empty:"));
+        Assert.assertEquals("X-Empty", header.getName());
+        Assert.assertEquals("", header.getValue());
+
+        header = AsciiLineParser.INSTANCE.parseHeader(line("X-Latin1: caf\u00e9"));
+        Assert.assertEquals("caf\u00e9", header.getValue());
+    }
+
+    @Test
+    public void testHeaderParseFailure() throws Exception {
+        final String[] invalid = { "whatever", "  : stuff", "" };
+        for (final String s : invalid) {
+            try {
+                AsciiLineParser.INSTANCE.parseHeader(line(s));
+                Assert.fail("ParseException should have been thrown: " + s);
+            } catch (final ParseException ex) {
+                // expected
+            }
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.MessageConstraintException;
+import org.apache.http.NameValuePair;
+import org.apache.http.ParseException;
+import org.apache.http.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BufferedHeaderView} and {@link HeaderBlock}.
+ */
+public class TestBufferedHeaderView {
+
+    @Test
+    public void testBasicConstructor() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(64);
+        buf.append("name1: value1name2  :  value2 ");
+        final BufferedHeaderView header1 = new BufferedHeaderView(buf, 0, 13);
+        final BufferedHeaderView header2 = new BufferedHeaderView(buf, 13, buf.length());
+        Assert.assertEquals("name1", header1.getName());
+        Assert.assertEquals("value1", header1.getValue());
+        Assert.assertEquals("name2", header2.getName());
+        Assert.assertEquals("value2", header2.getValue());
+        Assert.assertEquals("name2  :  value2 ", header2.toString());
+        Assert.assertEquals("name2  :  value2 ", header2.getBuffer().toString());
+        Assert.assertEquals(8, header2.getValuePos());
+    }
+
+    @Test
+    public void testInvalidHeaderLine() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(64);
+        buf.append("name1: value1 name2 value2  : value3");
+        try {
+            new BufferedHeaderView(buf, 13, 26);
+            Assert.fail("ParseException should have been thrown");
+        } catch (final ParseException ex) {
+            // expected
+        }
+        try {
+            new BufferedHeaderView(buf, 26, 28);
+            Assert.fail("ParseException should have been thrown");
+        } catch (final ParseException ex) {
+            // expected
+        }
+        try {
+            new BufferedHeaderView(buf, 0, buf.length() + 1);
+            Assert.fail("IndexOutOfBoundsException should have been thrown");
+        } catch (final IndexOutOfBoundsException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCanonicalName() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(64);
+        buf.append("Content-Length: 10content-length: 10");
+        final BufferedHeaderView header1 = new BufferedHeaderView(buf, 0, 18);
+        final BufferedHeaderView header2 = new BufferedHeaderView(buf, 18, buf.length());
+        Assert.assertEquals("Content-Length", header1.getName());
+        Assert.assertEquals("content-length", header2.getName());
+    }
+
+    @Test
+    public void testElementsBoundedByView() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(64);
+        buf.append("name: stuff; param1 = value1, more stuffname2: whatever");
+        final BufferedHeaderView header = new BufferedHeaderView(buf, 0, 40);
+        final HeaderElement[] elements = header.getElements();
+        Assert.assertNotNull(elements);
+        Assert.assertEquals(2, elements.length);
+        Assert.assertEquals("stuff", elements[0].getName());
+        final NameValuePair[] params = elements[0].getParameters();
+        Assert.assertEquals(1, params.length);
+        Assert.assertEquals("param1", params[0].getName());
+        Assert.assertEquals("value1", params[0].getValue());
+        Assert.assertEquals("more stuff", elements[1].getName());
+    }
+
+    @Test
+    public void testFormatVerbatim() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(64);
+        buf.append("name1: value1Name2 :value2");
+        final BufferedHeaderView header = new BufferedHeaderView(buf, 13, buf.length());
+        final CharArrayBuffer dst = new CharArrayBuffer(16);
+        header.formatTo(dst);
+        Assert.assertEquals("Name2 :value2", dst.toString());
+        Assert.assertEquals("Name2 :value2",
+                BasicLineFormatter.formatHeader(header, BasicLineFormatter.INSTANCE));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(64);
+        buf.append("name1: value1name2: value2");
+        final BufferedHeaderView orig = new BufferedHeaderView(buf, 13, buf.length());
+        final ByteArrayOutputStream outbuffer = new ByteArrayOutputStream();
+        final ObjectOutputStream outstream = new ObjectOutputStream(outbuffer);
+        outstream.writeObject(orig);
+        outstream.close();
+        final byte[] raw = outbuffer.toByteArray();
+        final ByteArrayInputStream inbuffer = new ByteArrayInputStream(raw);
+        final ObjectInputStream instream = new ObjectInputStream(inbuffer);
+        final Header clone = (Header) instream.readObject();
+        Assert.assertTrue(clone instanceof BufferedHeader);
+        Assert.assertEquals("name2", clone.getName());
+        Assert.assertEquals("value2", clone.getValue());
+        Assert.assertEquals("name2: value2", clone.toString());
+    }
+
+    private static void appendLine(final HeaderBlock block, final String s) throws Exception {
+        final CharArrayBuffer buffer = block.getBuffer();
+        final int start = buffer.length();
+        buffer.append(s);
+        Assert.assertTrue(block.lineComplete(start, -1));
+    }
+
+    @Test
+    public void testHeaderBlockUnfolding() throws Exception {
+        final HeaderBlock block = new HeaderBlock(16);
+        appendLine(block, "header1: stuff");
+        appendLine(block, "header2: stuff");
+        appendLine(block, "   and more stuff");
+        appendLine(block, "\tand even more stuff");
+        appendLine(block, "header3: stuff");
+        Assert.assertFalse(block.lineComplete(block.getBuffer().length(), -1));
+        Assert.assertEquals(3, block.getLineCount());
+
+        final Header[] headers = block.toHeaders(LazyHeaderLineParser.INSTANCE);
+        Assert.assertEquals(3, headers.length);
+        Assert.assertTrue(headers[1] instanceof BufferedHeaderView);
+        Assert.assertEquals("header1", headers[0].getName());
+        Assert.assertEquals("stuff", headers[0].getValue());
+        Assert.assertEquals("header2", headers[1].getName());
+        Assert.assertEquals("stuff and more stuff and even more stuff", headers[1].getValue());
+        Assert.assertEquals("header3", headers[2].getName());
+        Assert.assertEquals("stuff", headers[2].getValue());
+
+        final Header[] copies = block.toHeaders(BasicLineParser.INSTANCE);
+        Assert.assertEquals(3, copies.length);
+        Assert.assertTrue(copies[1] instanceof BufferedHeader);
+        Assert.assertEquals("stuff and more stuff and even more stuff", copies[1].getValue());
+    }
+
+    @Test
+    public void testHeaderBlockReset() throws Exception {
+        final HeaderBlock block = new HeaderBlock(16);
+        appendLine(block, "header1: stuff");
+        final Header[] headers = block.toHeaders(LazyHeaderLineParser.INSTANCE);
+        block.reset();
+        Assert.assertEquals(0, block.getLineCount());
+        Assert.assertEquals(0, block.getBuffer().length());
+        appendLine(block, "header2: whatever");
+        Assert.assertEquals("header1", headers[0].getName());
+        Assert.assertEquals("stuff", headers[0].getValue());
+    }
+
+    @Test
+    public void testHeaderBlockLineLimit() throws Exception {
+        final HeaderBlock block = new HeaderBlock(16);
+        final CharArrayBuffer buffer = block.getBuffer();
+        buffer.append("header1: stuff");
+        Assert.assertTrue(block.lineComplete(0, 15));
+        final int start = buffer.length();
+        buffer.append(" more stuff");
+        try {
+            block.lineComplete(start, 15);
+            Assert.fail("MessageConstraintException should have been thrown");
+        } catch (final MessageConstraintException ex) {
+            // expected
+        }
+    }
+
+}
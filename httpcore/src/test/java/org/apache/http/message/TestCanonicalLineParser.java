@@ -0,0 +1,162 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.ParseException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.RequestLine;
+import org.apache.http.StatusLine;
+import org.apache.http.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CanonicalLineParser}.
+ */
+public class TestCanonicalLineParser {
+
+    private static CharArrayBuffer buffer(final String s) {
+        final CharArrayBuffer buffer = new CharArrayBuffer(s.length());
+        buffer.append(s);
+        return buffer;
+    }
+
+    private static RequestLine parseRequestLine(final String s) throws ParseException {
+        final CharArrayBuffer buffer = buffer(s);
+        final ParserCursor cursor = new ParserCursor(0, buffer.length());
+        final RequestLine requestLine = CanonicalLineParser.INSTANCE.parseRequestLine(buffer, cursor);
+        Assert.assertTrue(cursor.atEnd());
+        return requestLine;
+    }
+
+    private static StatusLine parseStatusLine(final String s) throws ParseException {
+        final CharArrayBuffer buffer = buffer(s);
+        return CanonicalLineParser.INSTANCE.parseStatusLine(buffer, new ParserCursor(0, buffer.length()));
+    }
+
+    @Test
+    public void testRequestLine() throws Exception {
+        final RequestLine requestLine = parseRequestLine("GET /stuff HTTP/1.1");
+        Assert.assertEquals("GET", requestLine.getMethod());
+        Assert.assertEquals("/stuff", requestLine.getUri());
+        Assert.assertSame(HttpVersion.HTTP_1_1, requestLine.getProtocolVersion());
+        Assert.assertSame("GET", requestLine.getMethod());
+
+        final RequestLine requestLine2 = parseRequestLine("PROPFIND /stuff HTTP/1.0");
+        Assert.assertEquals("PROPFIND", requestLine2.getMethod());
+        Assert.assertSame(HttpVersion.HTTP_1_0, requestLine2.getProtocolVersion());
+    }
+
+    @Test
+    public void testRequestLineSlowPath() throws Exception {
+        final RequestLine requestLine = parseRequestLine("  POST   /stuff   HTTP/1.1  ");
+        Assert.assertEquals("POST", requestLine.getMethod());
+        Assert.assertEquals("/stuff", requestLine.getUri());
+        Assert.assertSame(HttpVersion.HTTP_1_1, requestLine.getProtocolVersion());
+
+        final RequestLine requestLine2 = parseRequestLine("GET /stuff HTTP/1.2");
+        Assert.assertEquals(new ProtocolVersion("HTTP", 1, 2), requestLine2.getProtocolVersion());
+    }
+
+    @Test
+    public void testInvalidRequestLine() throws Exception {
+        final String[] lines = new String[] { "GET", "GET /stuff", "GET /stuff HTTP/1", "GET /stuff HTTTP/1.1" };
+        for (final String line : lines) {
+            try {
+                parseRequestLine(line);
+                Assert.fail("ParseException should have been thrown: " + line);
+            } catch (final ParseException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testStatusLine() throws Exception {
+        final StatusLine statusLine = parseStatusLine("HTTP/1.1 200 OK");
+        Assert.assertSame(HttpVersion.HTTP_1_1, statusLine.getProtocolVersion());
+        Assert.assertEquals(200, statusLine.getStatusCode());
+        Assert.assertEquals("OK", statusLine.getReasonPhrase());
+        Assert.assertSame(statusLine, parseStatusLine("HTTP/1.1 200 OK"));
+        Assert.assertSame(statusLine, parseStatusLine("HTTP/1.1 200 OK  "));
+
+        final StatusLine statusLine2 = parseStatusLine("HTTP/1.0 404 Not Found");
+        Assert.assertSame(HttpVersion.HTTP_1_0, statusLine2.getProtocolVersion());
+        Assert.assertEquals(404, statusLine2.getStatusCode());
+        Assert.assertEquals("Not Found", statusLine2.getReasonPhrase());
+        Assert.assertSame(statusLine2, parseStatusLine("HTTP/1.0 404 Not Found"));
+    }
+
+    @Test
+    public void testStatusLineNonStandard() throws Exception {
+        final StatusLine statusLine = parseStatusLine("HTTP/1.1 200 Fine");
+        Assert.assertEquals(200, statusLine.getStatusCode());
+        Assert.assertEquals("Fine", statusLine.getReasonPhrase());
+        Assert.assertNotSame(statusLine, parseStatusLine("HTTP/1.1 200 Fine"));
+
+        final StatusLine statusLine2 = parseStatusLine("HTTP/1.1 299");
+        Assert.assertEquals(299, statusLine2.getStatusCode());
+        Assert.assertEquals("", statusLine2.getReasonPhrase());
+
+        final StatusLine statusLine3 = parseStatusLine("HTTP/1.1 600 Whatever");
+        Assert.assertEquals(600, statusLine3.getStatusCode());
+        Assert.assertEquals("Whatever", statusLine3.getReasonPhrase());
+    }
+
+    @Test
+    public void testStatusLineSlowPath() throws Exception {
+        final StatusLine statusLine = parseStatusLine("  HTTP/1.1   200   OK");
+        Assert.assertEquals(200, statusLine.getStatusCode());
+        Assert.assertSame(parseStatusLine("HTTP/1.1 200 OK"), statusLine);
+
+        final StatusLine statusLine2 = parseStatusLine("HTTP/1.1 2000 OK");
+        Assert.assertEquals(2000, statusLine2.getStatusCode());
+    }
+
+    @Test
+    public void testInvalidStatusLine() throws Exception {
+        final String[] lines = new String[] { "HTTP/1.1", "HTTP/1.1 2xx OK", "HTTTP/1.1 200 OK" };
+        for (final String line : lines) {
+            try {
+                parseStatusLine(line);
+                Assert.fail("ParseException should have been thrown: " + line);
+            } catch (final ParseException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testNonHttpProtocol() throws Exception {
+        final CanonicalLineParser parser = new CanonicalLineParser(new ProtocolVersion("RTSP", 1, 0));
+        final CharArrayBuffer buffer = buffer("RTSP/1.0 200 OK");
+        final StatusLine statusLine = parser.parseStatusLine(buffer, new ParserCursor(0, buffer.length()));
+        Assert.assertEquals(new ProtocolVersion("RTSP", 1, 0), statusLine.getProtocolVersion());
+        Assert.assertEquals("OK", statusLine.getReasonPhrase());
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link EncodedStatusLineCache} and {@link PreEncodedHeader}.
+ */
+public class TestEncodedStatusLineCache {
+
+    @Before
+    public void setUp() {
+        EncodedStatusLineCache.clear();
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        final StatusLine statusline = new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK");
+        final byte[] b1 = EncodedStatusLineCache.lookup(statusline);
+        Assert.assertNotNull(b1);
+        Assert.assertEquals("HTTP/1.1 200 OK\r\n", new String(b1, "US-ASCII"));
+        final byte[] b2 = EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        Assert.assertSame(b1, b2);
+        final byte[] b3 = EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_0, 200, "OK"));
+        Assert.assertNotNull(b3);
+        Assert.assertEquals("HTTP/1.0 200 OK\r\n", new String(b3, "US-ASCII"));
+    }
+
+    @Test
+    public void testLookupDifferentReason() throws Exception {
+        final byte[] b1 = EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 404, "Not Found"));
+        Assert.assertNotNull(b1);
+        Assert.assertNull(EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 404, "Nothing to see here")));
+        Assert.assertSame(b1, EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 404, "Not Found")));
+    }
+
+    @Test
+    public void testNonStandardReasonNotCached() throws Exception {
+        Assert.assertNull(EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 503, "Come back later")));
+        final byte[] b1 = EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 503, "Service Unavailable"));
+        Assert.assertNotNull(b1);
+        Assert.assertEquals("HTTP/1.1 503 Service Unavailable\r\n", new String(b1, "US-ASCII"));
+        Assert.assertNull(EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 503, "Come back later")));
+    }
+
+    @Test
+    public void testLookupNotCacheable() throws Exception {
+        Assert.assertNull(EncodedStatusLineCache.lookup(
+                new BasicStatusLine(new ProtocolVersion("HTTP", 2, 0), 200, "OK")));
+        Assert.assertNull(EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 99, "Whatever")));
+        Assert.assertNull(EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 600, "Whatever")));
+        Assert.assertNull(EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 299, "Gr\u00fc\u00dfe")));
+        Assert.assertNull(EncodedStatusLineCache.lookup(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 299, null)));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testLookupNull() throws Exception {
+        EncodedStatusLineCache.lookup(null);
+    }
+
+    @Test
+    public void testPreEncodedHeader() throws Exception {
+        final PreEncodedHeader header = new PreEncodedHeader("Connection", "close");
+        Assert.assertEquals("Connection", header.getName());
+        Assert.assertEquals("close", header.getValue());
+        Assert.assertEquals("Connection: close\r\n", new String(header.getEncoded(), "US-ASCII"));
+    }
+
+    @Test
+    public void testPreEncodedHeaderNonAscii() throws Exception {
+        final PreEncodedHeader header = new PreEncodedHeader("Server", "Gr\u00fc\u00dfe");
+        Assert.assertEquals("Gr\u00fc\u00dfe", header.getValue());
+        Assert.assertNull(header.getEncoded());
+    }
+
+}
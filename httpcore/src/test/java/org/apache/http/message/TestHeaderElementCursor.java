@@ -0,0 +1,151 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.NameValuePair;
+import org.apache.http.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link HeaderElementCursor}.
+ */
+public class TestHeaderElementCursor {
+
+    private static void assertSameAsParser(final HeaderElementCursor cursor, final String s) {
+        final HeaderElement[] elements = BasicHeaderValueParser.parseElements(s, null);
+        cursor.reset(new BasicHeader("Test", s));
+        for (final HeaderElement element : elements) {
+            Assert.assertTrue(s, cursor.nextElement());
+            Assert.assertEquals(s, element.getName(), cursor.getName());
+            Assert.assertEquals(s, element.getValue(), cursor.getValue());
+            for (final NameValuePair param : element.getParameters()) {
+                Assert.assertTrue(s, cursor.nextParameter());
+                Assert.assertEquals(s, param.getName(), cursor.getParameterName());
+                Assert.assertEquals(s, param.getValue(), cursor.getParameterValue());
+            }
+            Assert.assertFalse(s, cursor.nextParameter());
+        }
+        Assert.assertFalse(s, cursor.nextElement());
+    }
+
+    @Test
+    public void testSameAsParser() throws Exception {
+        final String[] values = new String[] {
+                "",
+                "   ",
+                "close",
+                "close, keep-alive",
+                "  close  ,  , keep-alive  ,",
+                "text/plain; charset=ISO-8859-1",
+                "text/plain;charset=\"UTF-8\"; format=flowed",
+                "a=b; c=d, e; f=\"g, h; i\", j=\"k\\\"l\"",
+                "a; , b",
+                "a;  ",
+                "a; b;  ",
+                "; x=y, z",
+                "=, a=, =b",
+                "gzip;q=1.0, identity; q=0.5, *;q=0"
+        };
+        final HeaderElementCursor cursor = new HeaderElementCursor();
+        for (final String value : values) {
+            assertSameAsParser(cursor, value);
+        }
+    }
+
+    @Test
+    public void testSkipParameters() throws Exception {
+        final HeaderElementCursor cursor = new HeaderElementCursor();
+        cursor.reset(new BasicHeader("Accept-Encoding", "gzip;q=1.0;x=y, deflate"));
+        Assert.assertTrue(cursor.nextElement());
+        Assert.assertTrue(cursor.nameEquals("gzip"));
+        Assert.assertTrue(cursor.nextParameter());
+        Assert.assertTrue(cursor.parameterNameEqualsIgnoreCase("Q"));
+        Assert.assertTrue(cursor.parameterValueEqualsIgnoreCase("1.0"));
+        Assert.assertTrue(cursor.nextElement());
+        Assert.assertTrue(cursor.nameEqualsIgnoreCase("DEFLATE"));
+        Assert.assertFalse(cursor.hasValue());
+        Assert.assertFalse(cursor.nextParameter());
+        Assert.assertFalse(cursor.nextElement());
+    }
+
+    @Test
+    public void testFormattedHeader() throws Exception {
+        final CharArrayBuffer buf = new CharArrayBuffer(64);
+        buf.append("Connection: Keep-Alive, Upgrade");
+        final Header header = new BufferedHeader(buf);
+        final HeaderElementCursor cursor = new HeaderElementCursor();
+        cursor.reset(header);
+        Assert.assertTrue(cursor.nextElement());
+        Assert.assertTrue(cursor.nameEqualsIgnoreCase("keep-alive"));
+        Assert.assertFalse(cursor.nameEquals("keep-alive"));
+        Assert.assertTrue(cursor.isToken());
+        Assert.assertTrue(cursor.nextElement());
+        Assert.assertEquals("Upgrade", cursor.getName());
+        Assert.assertFalse(cursor.nextElement());
+    }
+
+    @Test
+    public void testTokens() throws Exception {
+        final HeaderElementCursor cursor = new HeaderElementCursor();
+        cursor.reset(new BasicHeader("Connection", "close, a=b, c;d, \"e\", f g, h/i"));
+        Assert.assertTrue(cursor.nextElement());
+        Assert.assertTrue(cursor.isToken());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(cursor.nextElement());
+            Assert.assertFalse(cursor.getName(), cursor.isToken());
+        }
+        Assert.assertFalse(cursor.nextElement());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testNoCurrentElement() throws Exception {
+        final HeaderElementCursor cursor = new HeaderElementCursor();
+        cursor.reset(new BasicHeader("Connection", "close"));
+        cursor.getName();
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testNoCurrentParameter() throws Exception {
+        final HeaderElementCursor cursor = new HeaderElementCursor();
+        cursor.reset(new BasicHeader("Connection", "close"));
+        Assert.assertTrue(cursor.nextElement());
+        Assert.assertFalse(cursor.nextParameter());
+        cursor.getParameterName();
+    }
+
+    @Test
+    public void testNullValue() throws Exception {
+        final HeaderElementCursor cursor = new HeaderElementCursor();
+        cursor.reset(new BasicHeader("Connection", null));
+        Assert.assertFalse(cursor.nextElement());
+    }
+
+}
@@ -213,4 +213,142 @@ public class TestHeaderGroup {
         }
     }
 
+    @Test
+    public void testIndexedLookups() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        final Header header1 = new BasicHeader("Via", "proxy1");
+        final Header header2 = new BasicHeader("Content-Length", "10");
+        final Header header3 = new BasicHeader("via", "proxy2");
+        headergroup.addHeader(header1);
+        headergroup.addHeader(header2);
+        Assert.assertSame(header2, headergroup.getFirstHeader("content-length"));
+        // added after the index has been built
+        headergroup.addHeader(header3);
+        final Header[] headers = headergroup.getHeaders("VIA");
+        Assert.assertEquals(2, headers.length);
+        Assert.assertSame(header1, headers[0]);
+        Assert.assertSame(header3, headers[1]);
+        Assert.assertSame(header1, headergroup.getFirstHeader("Via"));
+        Assert.assertSame(header3, headergroup.getLastHeader("Via"));
+        Assert.assertFalse(headergroup.containsHeader("Transfer-Encoding"));
+        Assert.assertFalse(headergroup.containsHeader(null));
+        Assert.assertNull(headergroup.getFirstHeader(null));
+        Assert.assertEquals(0, headergroup.getHeaders(null).length);
+
+        headergroup.removeHeader(header1);
+        Assert.assertSame(header3, headergroup.getFirstHeader("Via"));
+        headergroup.removeHeader(header3);
+        Assert.assertFalse(headergroup.containsHeader("Via"));
+        Assert.assertTrue(headergroup.containsHeader("Content-Length"));
+    }
+
+    @Test
+    public void testIndexedUpdateHeader() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        final Header header1 = new BasicHeader("name", "value1");
+        final Header header2 = new BasicHeader("other", "value2");
+        final Header header3 = new BasicHeader("name", "value3");
+        headergroup.addHeader(header1);
+        headergroup.addHeader(header2);
+        headergroup.addHeader(header3);
+        Assert.assertTrue(headergroup.containsHeader("name"));
+
+        final Header header4 = new BasicHeader("NAME", "value4");
+        headergroup.updateHeader(header4);
+        final Header[] headers = headergroup.getAllHeaders();
+        Assert.assertEquals(3, headers.length);
+        Assert.assertSame(header4, headers[0]);
+        Assert.assertSame(header4, headergroup.getFirstHeader("name"));
+        Assert.assertSame(header3, headergroup.getLastHeader("name"));
+    }
+
+    @Test
+    public void testUpdateHeaderAfterRemoval() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        final Header header1 = new BasicHeader("a", "value1");
+        final Header header2 = new BasicHeader("b", "value2");
+        final Header header3 = new BasicHeader("c", "value3");
+        final Header header4 = new BasicHeader("b", "value4");
+        headergroup.addHeader(header1);
+        headergroup.addHeader(header2);
+        headergroup.addHeader(header3);
+        headergroup.addHeader(header4);
+        Assert.assertTrue(headergroup.containsHeader("c"));
+
+        headergroup.removeHeader(header1);
+        final Header header5 = new BasicHeader("c", "value5");
+        headergroup.updateHeader(header5);
+        headergroup.removeHeader(header2);
+        final Header header6 = new BasicHeader("B", "value6");
+        headergroup.updateHeader(header6);
+        headergroup.removeHeaders("a");
+        final Header header7 = new BasicHeader("C", "value7");
+        headergroup.updateHeader(header7);
+
+        final Header[] headers = headergroup.getAllHeaders();
+        Assert.assertEquals(2, headers.length);
+        Assert.assertSame(header7, headers[0]);
+        Assert.assertSame(header6, headers[1]);
+        Assert.assertSame(header6, headergroup.getFirstHeader("b"));
+        Assert.assertSame(header7, headergroup.getLastHeader("c"));
+    }
+
+    @Test
+    public void testRemoveHeaders() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        headergroup.addHeader(new BasicHeader("name", "value1"));
+        headergroup.addHeader(new BasicHeader("other", "value2"));
+        headergroup.addHeader(new BasicHeader("Name", "value3"));
+        Assert.assertEquals(2, headergroup.getHeaders("name").length);
+        headergroup.removeHeaders("NAME");
+        headergroup.removeHeaders(null);
+        Assert.assertFalse(headergroup.containsHeader("name"));
+        final Header[] headers = headergroup.getAllHeaders();
+        Assert.assertEquals(1, headers.length);
+        Assert.assertEquals("other", headers[0].getName());
+        headergroup.addHeader(new BasicHeader("name", "value4"));
+        Assert.assertEquals("value4", headergroup.getFirstHeader("name").getValue());
+    }
+
+    @Test
+    public void testIteratorRemoveUpdatesIndex() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        headergroup.addHeader(new BasicHeader("name", "value1"));
+        headergroup.addHeader(new BasicHeader("other", "value2"));
+        Assert.assertTrue(headergroup.containsHeader("name"));
+        final HeaderIterator i = headergroup.iterator("name");
+        Assert.assertTrue(i.hasNext());
+        i.nextHeader();
+        i.remove();
+        Assert.assertFalse(headergroup.containsHeader("name"));
+        Assert.assertTrue(headergroup.containsHeader("other"));
+    }
+
+    @Test
+    public void testCopyIndependentIndex() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        headergroup.addHeader(new BasicHeader("name", "value1"));
+        Assert.assertTrue(headergroup.containsHeader("name"));
+        final HeaderGroup copy = headergroup.copy();
+        copy.removeHeaders("name");
+        copy.addHeader(new BasicHeader("other", "value2"));
+        Assert.assertTrue(headergroup.containsHeader("name"));
+        Assert.assertFalse(headergroup.containsHeader("other"));
+        Assert.assertFalse(copy.containsHeader("name"));
+        Assert.assertTrue(copy.containsHeader("other"));
+    }
+
+    @Test
+    public void testManyHeaders() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        for (int i = 0; i < 100; i++) {
+            headergroup.addHeader(new BasicHeader("Header-" + (i % 40), Integer.toString(i)));
+        }
+        for (int i = 0; i < 40; i++) {
+            final Header[] headers = headergroup.getHeaders("header-" + i);
+            Assert.assertEquals(i < 20 ? 3 : 2, headers.length);
+            Assert.assertEquals(Integer.toString(i), headers[0].getValue());
+        }
+    }
+
 }
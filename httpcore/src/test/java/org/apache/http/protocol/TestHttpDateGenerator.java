@@ -0,0 +1,108 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.protocol;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.apache.http.Header;
+import org.apache.http.message.PreEncodedHeader;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHttpDateGenerator {
+
+    @Test
+    public void testCurrentDate() throws Exception {
+        final HttpDateGenerator generator = new HttpDateGenerator();
+        final String s = generator.getCurrentDate();
+        Assert.assertNotNull(s);
+
+        final SimpleDateFormat dateformat = new SimpleDateFormat(
+                HttpDateGenerator.PATTERN_RFC1123, Locale.US);
+        dateformat.setTimeZone(HttpDateGenerator.GMT);
+        final Date date = dateformat.parse(s);
+        Assert.assertTrue(Math.abs(System.currentTimeMillis() - date.getTime()) < 5000);
+        Assert.assertTrue(s.endsWith(" GMT"));
+    }
+
+    @Test
+    public void testCurrentDateHeader() throws Exception {
+        final HttpDateGenerator generator = new HttpDateGenerator();
+        final Header h1 = generator.getCurrentDateHeader();
+        final String s = generator.getCurrentDate();
+        final Header h2 = generator.getCurrentDateHeader();
+        Assert.assertNotNull(h1);
+        Assert.assertEquals(HTTP.DATE_HEADER, h1.getName());
+        if (h1 == h2) {
+            Assert.assertEquals(s, h1.getValue());
+        }
+        Assert.assertTrue(h2 instanceof PreEncodedHeader);
+        final byte[] encoded = ((PreEncodedHeader) h2).getEncoded();
+        Assert.assertNotNull(encoded);
+        Assert.assertEquals("Date: " + h2.getValue() + "\r\n", new String(encoded, "US-ASCII"));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final HttpDateGenerator generator = new HttpDateGenerator();
+        final Throwable[] failure = new Throwable[1];
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (int n = 0; n < 1000; n++) {
+                            final Header header = generator.getCurrentDateHeader();
+                            Assert.assertEquals(HTTP.DATE_HEADER, header.getName());
+                            Assert.assertEquals(29, header.getValue().length());
+                        }
+                    } catch (final Throwable ex) {
+                        synchronized (failure) {
+                            failure[0] = ex;
+                        }
+                    }
+                }
+
+            };
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        synchronized (failure) {
+            Assert.assertNull(failure[0]);
+        }
+    }
+
+}
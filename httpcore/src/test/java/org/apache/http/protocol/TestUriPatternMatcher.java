@@ -140,6 +140,107 @@ public class TestUriPatternMatcher {
         Assert.assertTrue(h1 == h);
     }
 
+    @Test
+    public void testLongestPatternMatch() throws Exception {
+        final Object h1 = new Object();
+        final Object h2 = new Object();
+        final Object h3 = new Object();
+        final Object h4 = new Object();
+
+        final UriPatternMatcher<Object> matcher = new UriPatternMatcher<Object>();
+        matcher.register("/a*", h1);
+        matcher.register("/a/b/*", h2);
+        matcher.register("*.html", h3);
+        matcher.register("*/index.html", h4);
+
+        Assert.assertSame(h1, matcher.lookup("/a"));
+        Assert.assertSame(h1, matcher.lookup("/a/b"));
+        Assert.assertSame(h2, matcher.lookup("/a/b/c"));
+        Assert.assertSame(h2, matcher.lookup("/a/b/c.html"));
+        Assert.assertSame(h3, matcher.lookup("/a/c.html"));
+        Assert.assertSame(h4, matcher.lookup("/a/b/index.html"));
+        Assert.assertSame(h3, matcher.lookup("/b/c.html"));
+        Assert.assertNull(matcher.lookup("/b/c"));
+
+        matcher.unregister("/a/b/*");
+        Assert.assertSame(h1, matcher.lookup("/a/b/c"));
+        Assert.assertSame(h3, matcher.lookup("/a/b/c.html"));
+        matcher.unregister("*/index.html");
+        Assert.assertSame(h3, matcher.lookup("/a/b/index.html"));
+    }
+
+    @Test
+    public void testSameResultAsPatternScan() throws Exception {
+        final UriPatternMatcher<String> matcher = new UriPatternMatcher<String>();
+        final UriPatternMatcher<String> scanner = new UriPatternMatcher<String>() {
+
+            @Override
+            protected boolean matchUriRequestPattern(final String pattern, final String path) {
+                return super.matchUriRequestPattern(pattern, path);
+            }
+
+        };
+        final String[] patterns = new String[] {
+                "/", "/a", "/a/*", "/a/b*", "/a/b/c", "*.c", "*/c", "*b/c", "/b/*", "*", "*x*" };
+        for (final String pattern : patterns) {
+            matcher.register(pattern, pattern);
+            scanner.register(pattern, pattern);
+        }
+        final String[] paths = new String[] {
+                "", "/", "/a", "/a/", "/a/b", "/a/b/c", "/a/b/d", "/a.c", "/b/c", "/b",
+                "/c", "c", "x", "/x/", "/a/x", "x/a/b/c" };
+        for (final String path : paths) {
+            Assert.assertEquals(path, scanner.lookup(path), matcher.lookup(path));
+        }
+        matcher.unregister("*");
+        scanner.unregister("*");
+        for (final String path : paths) {
+            Assert.assertEquals(path, scanner.lookup(path), matcher.lookup(path));
+        }
+    }
+
+    @Test
+    public void testRegisterUnregisterMany() throws Exception {
+        final UriPatternMatcher<String> matcher = new UriPatternMatcher<String>();
+        for (int i = 0; i < 1000; i++) {
+            matcher.register("/p/" + i + "/*", "p" + i);
+            matcher.register("*." + i, "s" + i);
+        }
+        Assert.assertEquals("p123", matcher.lookup("/p/123/stuff"));
+        Assert.assertEquals("s123", matcher.lookup("/stuff.123"));
+        Assert.assertEquals("p12", matcher.lookup("/p/12/stuff.123"));
+        for (int i = 0; i < 1000; i += 2) {
+            matcher.unregister("/p/" + i + "/*");
+            matcher.unregister("*." + i);
+        }
+        Assert.assertNull(matcher.lookup("/p/12/stuff"));
+        Assert.assertEquals("p13", matcher.lookup("/p/13/stuff"));
+        Assert.assertNull(matcher.lookup("/stuff.124"));
+        Assert.assertEquals("s123", matcher.lookup("/p/12/stuff.123"));
+        for (int i = 1; i < 1000; i += 2) {
+            matcher.unregister("/p/" + i + "/*");
+            matcher.unregister("*." + i);
+        }
+        Assert.assertNull(matcher.lookup("/p/13/stuff.123"));
+        Assert.assertEquals("{}", matcher.toString());
+    }
+
+    @Test
+    public void testCustomPatternMatch() throws Exception {
+        final Object h1 = new Object();
+        final UriPatternMatcher<Object> matcher = new UriPatternMatcher<Object>() {
+
+            @Override
+            protected boolean matchUriRequestPattern(final String pattern, final String path) {
+                return path.toLowerCase().startsWith(pattern);
+            }
+
+        };
+        matcher.register("/stuff", h1);
+        Assert.assertSame(h1, matcher.lookup("/STUFF/more"));
+        Assert.assertNull(matcher.lookup("/other"));
+    }
+
     @Test(expected=IllegalArgumentException.class)
     public void testRegisterInvalidInput() throws Exception {
         final UriPatternMatcher<Object> matcher = new UriPatternMatcher<Object>();
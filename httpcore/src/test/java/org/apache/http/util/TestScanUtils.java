@@ -0,0 +1,142 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ScanUtils}.
+ */
+public class TestScanUtils {
+
+    private static int indexOfLF(final ByteBuffer buffer, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void assertScan(final ByteBuffer buffer) {
+        final int len = buffer.capacity();
+        for (int from = 0; from < len; from++) {
+            for (int to = from; to <= len; to++) {
+                Assert.assertEquals(indexOfLF(buffer, from, to), ScanUtils.indexOfLF(buffer, from, to));
+            }
+        }
+    }
+
+    private static void fill(final ByteBuffer buffer, final int lfPos) {
+        // bytes that differ from LF by one bit or by borrow/carry
+        final byte[] noise = new byte[] { 0x0b, 0x09, 0x0d, (byte) 0x8a, 0x00, (byte) 0xff, 0x01, 0x1a };
+        for (int i = 0; i < buffer.capacity(); i++) {
+            buffer.put(i, noise[i % noise.length]);
+        }
+        if (lfPos >= 0) {
+            buffer.put(lfPos, (byte) '\n');
+        }
+    }
+
+    @Test
+    public void testIndexOfLF() throws Exception {
+        final ByteBuffer[] buffers = new ByteBuffer[] {
+                ByteBuffer.allocate(27),
+                ByteBuffer.allocate(27).order(ByteOrder.LITTLE_ENDIAN),
+                ByteBuffer.allocateDirect(27),
+                ByteBuffer.allocateDirect(27).order(ByteOrder.LITTLE_ENDIAN)
+        };
+        for (final ByteBuffer buffer : buffers) {
+            for (int lfPos = -1; lfPos < buffer.capacity(); lfPos++) {
+                fill(buffer, lfPos);
+                assertScan(buffer);
+            }
+        }
+    }
+
+    @Test
+    public void testIndexOfLFMultiple() throws Exception {
+        final ByteBuffer buffer = ByteBuffer.wrap(
+                "GET / HTTP/1.1\r\nHost: localhost\r\n\n".getBytes("US-ASCII"));
+        Assert.assertEquals(15, ScanUtils.indexOfLF(buffer, 0, buffer.capacity()));
+        Assert.assertEquals(32, ScanUtils.indexOfLF(buffer, 16, buffer.capacity()));
+        Assert.assertEquals(33, ScanUtils.indexOfLF(buffer, 33, buffer.capacity()));
+        Assert.assertEquals(-1, ScanUtils.indexOfLF(buffer, 16, 32));
+    }
+
+    private static int parseHex(final String s) {
+        final CharArrayBuffer buffer = new CharArrayBuffer(s.length());
+        buffer.append(s);
+        return ScanUtils.parseHex(buffer, 0, buffer.length());
+    }
+
+    @Test
+    public void testParseHex() throws Exception {
+        Assert.assertEquals(0, parseHex("0"));
+        Assert.assertEquals(10, parseHex("a"));
+        Assert.assertEquals(0xff, parseHex("FF"));
+        Assert.assertEquals(0x1234abcd, parseHex("1234aBcD"));
+        Assert.assertEquals(0x10, parseHex("  10\t\r\n"));
+        Assert.assertEquals(1, parseHex("00000000000000001"));
+        Assert.assertEquals(Integer.MAX_VALUE, parseHex("7fffffff"));
+        Assert.assertEquals(-1, parseHex("80000000"));
+        Assert.assertEquals(-1, parseHex("fffffffff"));
+        Assert.assertEquals(-1, parseHex(""));
+        Assert.assertEquals(-1, parseHex("   "));
+        Assert.assertEquals(-1, parseHex("-1"));
+        Assert.assertEquals(-1, parseHex("+1"));
+        Assert.assertEquals(-1, parseHex("1 0"));
+        Assert.assertEquals(-1, parseHex("g"));
+    }
+
+    @Test
+    public void testParseHexRegion() throws Exception {
+        final CharArrayBuffer buffer = new CharArrayBuffer(16);
+        buffer.append("xx1f;ext");
+        Assert.assertEquals(0x1f, ScanUtils.parseHex(buffer, 2, 4));
+    }
+
+    @Test
+    public void testIsAscii() throws Exception {
+        Assert.assertTrue(ScanUtils.isAscii(""));
+        Assert.assertTrue(ScanUtils.isAscii("Host: localhost\t\u007f"));
+        Assert.assertFalse(ScanUtils.isAscii("Gr\u00FCezi"));
+        Assert.assertFalse(ScanUtils.isAscii("\u0432\u0441\u0435\u043C"));
+        final char[] chars = "abc\u00FCdef".toCharArray();
+        Assert.assertTrue(ScanUtils.isAscii(chars, 0, 3));
+        Assert.assertFalse(ScanUtils.isAscii(chars, 0, 4));
+        Assert.assertFalse(ScanUtils.isAscii(chars, 3, 4));
+        Assert.assertTrue(ScanUtils.isAscii(chars, 4, chars.length));
+        Assert.assertTrue(ScanUtils.isAscii(chars, 2, 2));
+    }
+
+}